@@ -0,0 +1,75 @@
+package com.dijkstra.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.CaminhosAlternativos;
+import com.dijkstra.busca.Dijkstra;
+import com.dijkstra.busca.TipoHeap;
+
+/**
+ * As K rotas alternativas de uma consulta (Yen com a árvore reversa e os
+ * desvios sob demanda) contra um Dijkstra simples entre o mesmo par, como
+ * referência do custo de uma rota só.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlternativasBenchmark {
+  private static final int PARES = 64;
+
+  @Param({ "rodoviario-100k", "rodoviario-1m" })
+  public String grafo;
+
+  @Param({ "1", "10" })
+  public int k;
+
+  private GrafoCompacto compacto;
+  private int[] origens;
+  private int[] destinos;
+  private int proximo;
+  private int origem;
+  private int destino;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    compacto = GrafosDeReferencia.porNome(grafo);
+    SplittableRandom random = new SplittableRandom(42L);
+    origens = random.ints(PARES, 0, compacto.numeroDeNos()).toArray();
+    destinos = random.ints(PARES, 0, compacto.numeroDeNos()).toArray();
+  }
+
+  @Setup(Level.Invocation)
+  public void prepararConsulta() {
+    origem = origens[proximo];
+    destino = destinos[proximo];
+    proximo = (proximo + 1) % PARES;
+  }
+
+  @Benchmark
+  public long alternativas() {
+    return CaminhosAlternativos.buscar(compacto, origem, destino, TipoHeap.QUATERNARIO).limit(k).count();
+  }
+
+  @Benchmark
+  public int dijkstra() {
+    return Dijkstra.buscar(compacto, origem, destino, TipoHeap.QUATERNARIO).distancia;
+  }
+}
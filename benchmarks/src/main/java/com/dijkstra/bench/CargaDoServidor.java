@@ -0,0 +1,132 @@
+package com.dijkstra.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+import com.dijkstra.servidor.ServidorDeRotas;
+
+/**
+ * Teste de carga do {@link ServidorDeRotas}: sobe o servidor na própria JVM
+ * (porta livre, hierarquia de contração pré-processada) e dispara
+ * requisições /rota entre nós aleatórios por algumas conexões simultâneas,
+ * com uma /matriz 5x5 a cada 20 requisições. Mede a vazão e as latências
+ * vistas pelo cliente. Com {@code --url}, mede um servidor já rodando (os
+ * nós sorteados vão até {@code nós} - 1).
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.CargaDoServidor [grafo] [conexões] [segundos] [--url http://host:porta]
+ * (padrão: rodoviario-100k, 32 conexões, 20 s)
+ */
+public final class CargaDoServidor {
+  private static final int MATRIZ_A_CADA = 20;
+
+  private CargaDoServidor() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    String nomeDoGrafo = args.length > 0 && !args[0].startsWith("--") ? args[0] : "rodoviario-100k";
+    int conexoes = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 32;
+    int segundos = args.length > 2 && !args[2].startsWith("--") ? Integer.parseInt(args[2]) : 20;
+    int posicaoDaUrl = Arrays.asList(args).indexOf("--url");
+
+    ServidorDeRotas servidor = null;
+    String base;
+    int nos;
+    if (posicaoDaUrl >= 0) {
+      base = args[posicaoDaUrl + 1];
+      nos = GrafosDeReferencia.porNome(nomeDoGrafo).numeroDeNos();
+    } else {
+      GrafoCompacto grafo = GrafosDeReferencia.porNome(nomeDoGrafo);
+      long inicio = System.nanoTime();
+      HierarquiaDeContracao hierarquia = HierarquiaDeContracao.construir(grafo);
+      System.out.printf("%s: %d nós, hierarquia em %.1f s%n", nomeDoGrafo, grafo.numeroDeNos(),
+          (System.nanoTime() - inicio) / 1e9);
+      servidor = new ServidorDeRotas.Construtor(grafo).porta(0).hierarquia(hierarquia).iniciar();
+      base = "http://localhost:" + servidor.porta();
+      nos = grafo.numeroDeNos();
+    }
+
+    HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5)).build();
+    // Aquecimento: o JIT compila o caminho da requisição antes da medida
+    executar(cliente, base, nos, conexoes, Math.min(15, segundos), new long[conexoes][], new AtomicLong());
+
+    long[][] latencias = new long[conexoes][];
+    AtomicLong erros = new AtomicLong();
+    long inicio = System.nanoTime();
+    executar(cliente, base, nos, conexoes, segundos, latencias, erros);
+    double duracao = (System.nanoTime() - inicio) / 1e9;
+
+    long[] todas = Arrays.stream(latencias).flatMapToLong(Arrays::stream).toArray();
+    Arrays.sort(todas);
+    System.out.printf("%d requisições em %.1f s com %d conexões: %.0f req/s, %d erros%n", todas.length, duracao,
+        conexoes, todas.length / duracao, erros.get());
+    System.out.printf("latência (ms): p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, máxima %.2f%n",
+        percentil(todas, 0.50), percentil(todas, 0.90), percentil(todas, 0.99), percentil(todas, 0.999),
+        todas.length == 0 ? 0 : todas[todas.length - 1] / 1e6);
+    if (servidor != null) {
+      servidor.close();
+    }
+  }
+
+  /** Cada conexão é uma thread que manda uma requisição por vez, até o tempo acabar. */
+  private static void executar(HttpClient cliente, String base, int nos, int conexoes, int segundos,
+      long[][] latencias, AtomicLong erros) throws InterruptedException {
+    long fim = System.nanoTime() + segundos * 1_000_000_000L;
+    Thread[] threads = new Thread[conexoes];
+    for (int c = 0; c < conexoes; c++) {
+      int conexao = c;
+      threads[c] = new Thread(() -> {
+        SplittableRandom random = new SplittableRandom(conexao);
+        long[] medidas = new long[1024];
+        int quantidade = 0;
+        while (System.nanoTime() < fim) {
+          String caminho = quantidade % MATRIZ_A_CADA == MATRIZ_A_CADA - 1
+              ? "/matriz?origens=" + sorteio(random, nos, 5) + "&destinos=" + sorteio(random, nos, 5)
+              : "/rota?origem=" + random.nextInt(nos) + "&destino=" + random.nextInt(nos);
+          HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + caminho)).build();
+          long inicio = System.nanoTime();
+          try {
+            HttpResponse<byte[]> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+            if (resposta.statusCode() != 200) {
+              erros.incrementAndGet();
+            }
+          } catch (Exception e) {
+            erros.incrementAndGet();
+          }
+          if (quantidade == medidas.length) {
+            medidas = Arrays.copyOf(medidas, quantidade * 2);
+          }
+          medidas[quantidade++] = System.nanoTime() - inicio;
+        }
+        latencias[conexao] = Arrays.copyOf(medidas, quantidade);
+      }, "carga-" + c);
+      threads[c].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  private static String sorteio(SplittableRandom random, int nos, int quantidade) {
+    StringBuilder lista = new StringBuilder();
+    for (int i = 0; i < quantidade; i++) {
+      lista.append(i == 0 ? "" : ",").append(random.nextInt(nos));
+    }
+    return lista.toString();
+  }
+
+  private static double percentil(long[] ordenadas, double p) {
+    if (ordenadas.length == 0) {
+      return 0;
+    }
+    return ordenadas[Math.min(ordenadas.length - 1, (int) Math.ceil(p * ordenadas.length) - 1)] / 1e6;
+  }
+}
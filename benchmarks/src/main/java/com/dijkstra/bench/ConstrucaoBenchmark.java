@@ -0,0 +1,117 @@
+package com.dijkstra.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Map.ArquivoDeGrafo;
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.GeradorDeGrafos;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Construção de grafos: o mapa das capitais ({@link Grafo#criarGrafoBrasil()}
+ * seguido de {@link Grafo#congelar()}), grades sintéticas montadas pelo
+ * grafo de objetos ou direto pelo {@link GrafoCompacto.Construtor}, os
+ * geradores de {@link GeradorDeGrafos} e a abertura de um
+ * {@link ArquivoDeGrafo}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConstrucaoBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Tamanho {
+    @Param({ "10000", "100000", "1000000" })
+    public int nos;
+
+    // Grade de referência e nomes, preparados fora da medição do grafo de objetos
+    GrafoCompacto grade;
+    String[] nomes;
+    Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+      grade = GrafosDeReferencia.grade(nos, 42L);
+      nomes = new String[grade.numeroDeNos()];
+      for (int no = 0; no < nomes.length; no++) {
+        nomes[no] = "n" + no;
+      }
+      arquivo = Files.createTempFile("grade-" + nos, ".grafo");
+      ArquivoDeGrafo.gravar(grade, arquivo);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+      Files.deleteIfExists(arquivo);
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public GrafoCompacto grafoBrasil() {
+    return Grafo.criarGrafoBrasil().congelar();
+  }
+
+  /** Grade pelo {@link GrafoCompacto.Construtor}, sem objetos por nó. */
+  @Benchmark
+  public GrafoCompacto gradePeloConstrutor(Tamanho tamanho) {
+    return GrafosDeReferencia.grade(tamanho.nos, 42L);
+  }
+
+  /** Rede hierárquica do {@link GeradorDeGrafos}, com o construtor já dimensionado. */
+  @Benchmark
+  public GrafoCompacto geradorRodoviario(Tamanho tamanho) {
+    int lado = (int) Math.ceil(Math.sqrt(tamanho.nos));
+    return GeradorDeGrafos.rodoviario(lado, lado, 42L);
+  }
+
+  /** Grafo geométrico aleatório com grau médio 6. */
+  @Benchmark
+  public GrafoCompacto geradorGeometrico(Tamanho tamanho) {
+    return GeradorDeGrafos.geometrico(tamanho.nos, 6, 42L);
+  }
+
+  /** Abertura do arquivo mapeado em memória: não depende do tamanho do grafo. */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public GrafoCompacto abrirArquivo(Tamanho tamanho) throws IOException {
+    return ArquivoDeGrafo.abrir(tamanho.arquivo);
+  }
+
+  /** A mesma grade montada com Cidade/Aresta e congelada em CSR. */
+  @Benchmark
+  public GrafoCompacto gradePeloGrafoDeObjetos(Tamanho tamanho) {
+    GrafoCompacto referencia = tamanho.grade;
+    String[] nomes = tamanho.nomes;
+    Grafo grafo = new Grafo();
+    for (int no = 0; no < nomes.length; no++) {
+      grafo.adicionarCidade(new Cidade(nomes[no], referencia.latitude(no), referencia.longitude(no), null));
+    }
+    for (int no = 0; no < nomes.length; no++) {
+      for (int a = referencia.inicio(no); a < referencia.fim(no); a++) {
+        grafo.adicionarAresta(nomes[no], nomes[referencia.destino(a)], referencia.peso(a));
+      }
+    }
+    return grafo.congelar();
+  }
+}
@@ -0,0 +1,37 @@
+package com.dijkstra.bench;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Roda os benchmarks com o profiler de GC (taxa de alocação e bytes
+ * alocados por operação) e grava o resultado em JSON, com data e hora no
+ * nome do arquivo, para comparar versões. Aceita as mesmas opções de linha
+ * de comando do JMH (ex.: um filtro como "RotaBenchmark" ou "-p grafo=brasil").
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.Executar [opções do JMH]
+ */
+public final class Executar {
+
+  private Executar() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    String arquivo = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(arquivo)
+        .build()).run();
+    System.out.println("Resultados gravados em " + arquivo);
+  }
+}
@@ -0,0 +1,135 @@
+package com.dijkstra.bench;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.TipoHeap;
+
+/**
+ * Compara as filas de prioridade do Dijkstra em grades de 10k, 100k e 1M
+ * nós: o heap indexado (binário e 4-ário) contra a PriorityQueue usada
+ * antes, tanto na versão com remove() quanto com entradas obsoletas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilaPrioridadeBenchmark {
+  private static final int CONSULTAS = 32;
+
+  @Param({ "10000", "100000", "1000000" })
+  public int nos;
+
+  private GrafoCompacto grafo;
+  private int[] origens;
+  private int[] destinos;
+  private int consulta;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    grafo = GrafosDeReferencia.grade(nos, 42L);
+    Random random = new Random(7L);
+    origens = new int[CONSULTAS];
+    destinos = new int[CONSULTAS];
+    for (int i = 0; i < CONSULTAS; i++) {
+      origens[i] = random.nextInt(grafo.numeroDeNos());
+      destinos[i] = random.nextInt(grafo.numeroDeNos());
+    }
+  }
+
+  private int proximaConsulta() {
+    consulta = (consulta + 1) % CONSULTAS;
+    return consulta;
+  }
+
+  @Benchmark
+  public int heapBinario() {
+    int i = proximaConsulta();
+    return Navegador.calcularRota(grafo, origens[i], destinos[i], TipoHeap.BINARIO).distanciaTotal;
+  }
+
+  @Benchmark
+  public int heapQuaternario() {
+    int i = proximaConsulta();
+    return Navegador.calcularRota(grafo, origens[i], destinos[i], TipoHeap.QUATERNARIO).distanciaTotal;
+  }
+
+  /** PriorityQueue com remove() + add() a cada melhoria (implementação original). */
+  @Benchmark
+  public int priorityQueueComRemove() {
+    int i = proximaConsulta();
+    int n = grafo.numeroDeNos();
+    int[] distancias = new int[n];
+    Arrays.fill(distancias, Integer.MAX_VALUE);
+    PriorityQueue<Integer> fila = new PriorityQueue<>(Comparator.comparingInt(no -> distancias[no]));
+    distancias[origens[i]] = 0;
+    fila.add(origens[i]);
+    while (!fila.isEmpty()) {
+      int atual = fila.poll();
+      if (atual == destinos[i]) {
+        break;
+      }
+      for (int a = grafo.inicio(atual); a < grafo.fim(atual); a++) {
+        int vizinho = grafo.destino(a);
+        int nova = distancias[atual] + grafo.peso(a);
+        if (nova < distancias[vizinho]) {
+          fila.remove(vizinho);
+          distancias[vizinho] = nova;
+          fila.add(vizinho);
+        }
+      }
+    }
+    return distancias[destinos[i]];
+  }
+
+  /** PriorityQueue com entradas obsoletas descartadas no poll() (lazy deletion). */
+  @Benchmark
+  public int priorityQueueLazy() {
+    int i = proximaConsulta();
+    int n = grafo.numeroDeNos();
+    int[] distancias = new int[n];
+    Arrays.fill(distancias, Integer.MAX_VALUE);
+    PriorityQueue<Long> fila = new PriorityQueue<>();
+    distancias[origens[i]] = 0;
+    fila.add((long) origens[i]);
+    while (!fila.isEmpty()) {
+      long entrada = fila.poll();
+      int atual = (int) entrada;
+      if ((int) (entrada >>> 32) > distancias[atual]) {
+        continue;
+      }
+      if (atual == destinos[i]) {
+        break;
+      }
+      for (int a = grafo.inicio(atual); a < grafo.fim(atual); a++) {
+        int vizinho = grafo.destino(a);
+        int nova = distancias[atual] + grafo.peso(a);
+        if (nova < distancias[vizinho]) {
+          distancias[vizinho] = nova;
+          fila.add(((long) nova << 32) | vizinho);
+        }
+      }
+    }
+    return distancias[destinos[i]];
+  }
+}
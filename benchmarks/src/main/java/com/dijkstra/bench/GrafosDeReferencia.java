@@ -0,0 +1,105 @@
+package com.dijkstra.bench;
+
+import java.util.Random;
+
+import com.dijkstra.Map.GeradorDeGrafos;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Grafos usados pelos benchmarks. Todos são determinísticos (semente fixa),
+ * para que os números de versões diferentes sejam comparáveis.
+ */
+final class GrafosDeReferencia {
+
+  private GrafosDeReferencia() {
+  }
+
+  /**
+   * Grafo pelo nome usado nos {@code @Param}: "brasil" (capitais),
+   * "grade-N" (grade com N nós), "rodoviario-N" (rede hierárquica de
+   * {@link GeradorDeGrafos#rodoviario}) ou "geometrico-N" (grafo geométrico
+   * com grau médio 6). N aceita os sufixos k e m, ex.: "grade-100k".
+   */
+  static GrafoCompacto porNome(String nome) {
+    if (nome.equals("brasil")) {
+      return Grafo.criarGrafoBrasil().congelar();
+    }
+    if (nome.startsWith("grade-")) {
+      return grade(quantidade(nome.substring("grade-".length())), 42L);
+    }
+    if (nome.startsWith("rodoviario-")) {
+      int lado = (int) Math.ceil(Math.sqrt(quantidade(nome.substring("rodoviario-".length()))));
+      return GeradorDeGrafos.rodoviario(lado, lado, 42L);
+    }
+    if (nome.startsWith("geometrico-")) {
+      return GeradorDeGrafos.geometrico(quantidade(nome.substring("geometrico-".length())), 6, 42L);
+    }
+    throw new IllegalArgumentException("Grafo de benchmark desconhecido: " + nome);
+  }
+
+  private static int quantidade(String texto) {
+    char sufixo = Character.toLowerCase(texto.charAt(texto.length() - 1));
+    if (sufixo == 'k') {
+      return Integer.parseInt(texto.substring(0, texto.length() - 1)) * 1_000;
+    }
+    if (sufixo == 'm') {
+      return Integer.parseInt(texto.substring(0, texto.length() - 1)) * 1_000_000;
+    }
+    return Integer.parseInt(texto);
+  }
+
+  /** Grade quadrada com pesos aleatórios, aproximando uma malha viária. */
+  static GrafoCompacto grade(int nos, long semente) {
+    int lado = (int) Math.ceil(Math.sqrt(nos));
+    Random random = new Random(semente);
+    GrafoCompacto.Construtor construtor = new GrafoCompacto.Construtor(lado * lado, lado * lado * 4);
+    for (int linha = 0; linha < lado; linha++) {
+      for (int coluna = 0; coluna < lado; coluna++) {
+        construtor.adicionarNo(null, -linha * 0.01, coluna * 0.01, null);
+      }
+    }
+    for (int linha = 0; linha < lado; linha++) {
+      for (int coluna = 0; coluna < lado; coluna++) {
+        int no = linha * lado + coluna;
+        if (coluna + 1 < lado) {
+          construtor.adicionarArestaBidirecional(no, no + 1, 1 + random.nextInt(100));
+        }
+        if (linha + 1 < lado) {
+          construtor.adicionarArestaBidirecional(no, no + lado, 1 + random.nextInt(100));
+        }
+      }
+    }
+    return construtor.construir();
+  }
+
+  /** Grafo aleatório esparso, que pode ter nós isolados e pares sem caminho. */
+  static GrafoCompacto aleatorio(int nos, int arestas, long semente, boolean dirigido) {
+    Random random = new Random(semente);
+    GrafoCompacto.Construtor construtor = new GrafoCompacto.Construtor(nos, arestas * 2);
+    for (int no = 0; no < nos; no++) {
+      construtor.adicionarNo(null, random.nextDouble(), random.nextDouble(), null);
+    }
+    for (int i = 0; i < arestas; i++) {
+      int a = random.nextInt(nos);
+      int b = random.nextInt(nos);
+      int peso = 1 + random.nextInt(50);
+      if (dirigido) {
+        construtor.adicionarAresta(a, b, peso);
+      } else {
+        construtor.adicionarArestaBidirecional(a, b, peso);
+      }
+    }
+    return construtor.construir();
+  }
+
+  /** Pares (origem, destino) aleatórios, intercalados: [o0, d0, o1, d1, ...]. */
+  static int[] consultas(GrafoCompacto grafo, int quantidade, long semente) {
+    Random random = new Random(semente);
+    int[] pares = new int[quantidade * 2];
+    for (int i = 0; i < pares.length; i++) {
+      pares[i] = random.nextInt(grafo.numeroDeNos());
+    }
+    return pares;
+  }
+}
@@ -0,0 +1,169 @@
+package com.dijkstra.bench;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.Map.GrafoVersionado;
+import com.dijkstra.Map.VersaoDoGrafo;
+import com.dijkstra.busca.AEstrela;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.Dijkstra;
+import com.dijkstra.busca.TipoHeap;
+
+/**
+ * Rotas A* em várias threads sobre um {@link GrafoVersionado} enquanto uma
+ * thread publica interdições. Mede a vazão das leituras sobre o grafo base,
+ * sobre as versões sem escritor e com o escritor publicando uma versão a
+ * cada poucos milissegundos (fecha um sentido de uma via e reabre a
+ * mais antiga, mantendo um número fixo de vias fechadas).
+ *
+ * Ao fim, confere uma amostra de rotas: cada uma é refeita com Dijkstra
+ * sobre a mesma versão em que foi calculada e a distância tem que bater, e
+ * nenhuma pode passar por uma via fechada naquela versão.
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.LeiturasComInterdicoes [grafo] [threads] [segundos] [ms entre versões]
+ * (padrão: rodoviario-100k, 4 threads, 10 s por fase, 5 ms)
+ */
+public final class LeiturasComInterdicoes {
+  private static final int VIAS_FECHADAS = 200;
+  private static final int AMOSTRA = 200;
+
+  private LeiturasComInterdicoes() {
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    String nomeDoGrafo = args.length > 0 ? args[0] : "rodoviario-100k";
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    int intervaloMs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+    GrafoCompacto grafo = GrafosDeReferencia.porNome(nomeDoGrafo);
+    GrafoVersionado versionado = new GrafoVersionado(grafo);
+    System.out.printf("%s: %d nós, %d arestas, %d threads%n", nomeDoGrafo, grafo.numeroDeNos(),
+        grafo.numeroDeArestas(), threads);
+
+    // Aquecimento
+    ler(() -> grafo, threads, Math.min(3, segundos), null);
+    System.out.printf("grafo base:            %.0f rotas/s%n", ler(() -> grafo, threads, segundos, null));
+    System.out.printf("versões, sem escritor: %.0f rotas/s%n", ler(versionado::atual, threads, segundos, null));
+
+    AtomicLong publicadas = new AtomicLong();
+    Thread escritor = new Thread(() -> escrever(versionado, intervaloMs, publicadas), "escritor");
+    escritor.setDaemon(true);
+    escritor.start();
+    Amostra amostra = new Amostra();
+    double vazao = ler(versionado::atual, threads, segundos, amostra);
+    escritor.interrupt();
+    escritor.join();
+    System.out.printf("versões, com escritor: %.0f rotas/s, %d versões publicadas (%.0f/s)%n", vazao,
+        publicadas.get(), publicadas.get() / (double) segundos);
+
+    int divergentes = 0;
+    int porViaFechada = 0;
+    for (int i = 0; i < amostra.quantidade; i++) {
+      VersaoDoGrafo versao = amostra.versoes[i];
+      CaminhoMinimo caminho = amostra.caminhos[i];
+      CaminhoMinimo referencia = Dijkstra.buscar(versao, caminho.nos.length > 0 ? caminho.nos[0] : 0,
+          caminho.nos.length > 0 ? caminho.nos[caminho.nos.length - 1] : 0, TipoHeap.BINARIO);
+      if (referencia.distancia != caminho.distancia) {
+        divergentes++;
+      }
+      if (passaPorViaFechada(versao, caminho)) {
+        porViaFechada++;
+      }
+    }
+    System.out.printf("amostra de %d rotas: %d com distância diferente do Dijkstra na mesma versão, "
+        + "%d por vias fechadas%n", amostra.quantidade, divergentes, porViaFechada);
+  }
+
+  @FunctionalInterface
+  private interface Leitura {
+    GrafoCompacto versao();
+  }
+
+  /** Rotas (com caminho) guardadas com a versão sobre a qual foram calculadas. */
+  private static final class Amostra {
+    final VersaoDoGrafo[] versoes = new VersaoDoGrafo[AMOSTRA];
+    final CaminhoMinimo[] caminhos = new CaminhoMinimo[AMOSTRA];
+    int quantidade;
+
+    synchronized void guardar(VersaoDoGrafo versao, CaminhoMinimo caminho) {
+      if (quantidade < AMOSTRA && caminho.existe()) {
+        versoes[quantidade] = versao;
+        caminhos[quantidade++] = caminho;
+      }
+    }
+  }
+
+  private static double ler(Leitura leitura, int threads, int segundos, Amostra amostra) throws InterruptedException {
+    long fim = System.nanoTime() + segundos * 1_000_000_000L;
+    AtomicLong rotas = new AtomicLong();
+    Thread[] leitores = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      int semente = t;
+      leitores[t] = new Thread(() -> {
+        SplittableRandom random = new SplittableRandom(semente);
+        long feitas = 0;
+        while (System.nanoTime() < fim) {
+          // Cada rota fica inteira na versão que pegou, mesmo que outra seja publicada no meio
+          GrafoCompacto versao = leitura.versao();
+          int n = versao.numeroDeNos();
+          CaminhoMinimo caminho = AEstrela.buscar(versao, random.nextInt(n), random.nextInt(n), TipoHeap.QUATERNARIO);
+          if (amostra != null && feitas % 4 == 0) {
+            amostra.guardar((VersaoDoGrafo) versao, caminho);
+          }
+          feitas++;
+        }
+        rotas.addAndGet(feitas);
+      }, "leitor-" + t);
+      leitores[t].start();
+    }
+    for (Thread leitor : leitores) {
+      leitor.join();
+    }
+    return rotas.get() / (double) segundos;
+  }
+
+  private static void escrever(GrafoVersionado versionado, int intervaloMs, AtomicLong publicadas) {
+    GrafoCompacto grafo = versionado.base();
+    SplittableRandom random = new SplittableRandom(99L);
+    Deque<int[]> fechadas = new ArrayDeque<>();
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        int origem = random.nextInt(grafo.numeroDeNos());
+        if (grafo.inicio(origem) == grafo.fim(origem)) {
+          continue;
+        }
+        int destino = grafo.destino(grafo.inicio(origem) + random.nextInt(grafo.fim(origem) - grafo.inicio(origem)));
+        GrafoVersionado.Alteracoes alteracoes = versionado.alterar().fechar(origem, destino);
+        fechadas.addLast(new int[] { origem, destino });
+        if (fechadas.size() > VIAS_FECHADAS) {
+          int[] antiga = fechadas.removeFirst();
+          alteracoes.reabrir(antiga[0], antiga[1]);
+        }
+        alteracoes.publicar();
+        publicadas.incrementAndGet();
+        Thread.sleep(intervaloMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean passaPorViaFechada(VersaoDoGrafo versao, CaminhoMinimo caminho) {
+    for (int i = 0; i + 1 < caminho.nos.length; i++) {
+      int de = caminho.nos[i];
+      int para = caminho.nos[i + 1];
+      boolean aberta = false;
+      for (int a = versao.inicio(de); a < versao.fim(de); a++) {
+        aberta |= versao.destino(a) == para && !versao.fechada(a);
+      }
+      if (!aberta) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,79 @@
+package com.dijkstra.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Distâncias de um depósito para muitos clientes e de vários depósitos para
+ * muitos clientes em uma grade de 100k nós: consultas separadas contra a
+ * busca um-para-muitos e a tabela muitos-para-muitos (buscas por origem ou
+ * buckets do CH).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoteDeRotasBenchmark {
+  private static final int DEPOSITOS = 10;
+
+  @Param({ "50", "500" })
+  public int clientes;
+
+  private GrafoCompacto grafo;
+  private OpcoesDeRota ch;
+  private int[] depositos;
+  private int[] destinos;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    grafo = GrafosDeReferencia.grade(100_000, 42L);
+    ch = OpcoesDeRota.ch(HierarquiaDeContracao.construir(grafo));
+    Random random = new Random(7L);
+    depositos = random.ints(DEPOSITOS, 0, grafo.numeroDeNos()).toArray();
+    destinos = random.ints(clientes, 0, grafo.numeroDeNos()).toArray();
+  }
+
+  @Benchmark
+  public long consultasSeparadas() {
+    long total = 0;
+    for (int destino : destinos) {
+      total += Navegador.calcularRota(grafo, depositos[0], destino).distanciaTotal;
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long umParaMuitos() {
+    return Navegador.calcularUmParaMuitos(grafo, depositos[0], destinos).distancia(0);
+  }
+
+  @Benchmark
+  public int tabelaPorOrigem() {
+    return Navegador.calcularTabela(grafo, depositos, destinos, OpcoesDeRota.padrao()).distancia(0, 0);
+  }
+
+  @Benchmark
+  public int tabelaComBucketsDoCh() {
+    return Navegador.calcularTabela(grafo, depositos, destinos, ch).distancia(0, 0);
+  }
+}
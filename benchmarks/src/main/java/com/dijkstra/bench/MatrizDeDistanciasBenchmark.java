@@ -0,0 +1,62 @@
+package com.dijkstra.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.MatrizDeDistancias;
+import com.dijkstra.busca.MetodoDaMatriz;
+
+/**
+ * Tempo para montar a matriz de distâncias com cada método, variando o
+ * número de threads do pool para medir a escalabilidade.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrizDeDistanciasBenchmark {
+  @Param({ "brasil", "grade-2500" })
+  public String grafo;
+
+  @Param({ "BUSCAS_POR_ORIGEM", "FLOYD_WARSHALL" })
+  public MetodoDaMatriz metodo;
+
+  @Param({ "1", "2", "4", "8" })
+  public int threads;
+
+  private GrafoCompacto compacto;
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    compacto = GrafosDeReferencia.porNome(grafo);
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public MatrizDeDistancias calcular() {
+    return MatrizDeDistancias.calcular(compacto, metodo, pool);
+  }
+}
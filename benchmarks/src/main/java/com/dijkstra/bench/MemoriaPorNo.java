@@ -0,0 +1,103 @@
+package com.dijkstra.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Memória retida por nó de cada estrutura: o grafo de objetos, o grafo
+ * compacto (CSR), os marcos do ALT e a hierarquia de contração. A medida é
+ * o heap ocupado depois de coletas completas, antes e depois de montar a
+ * estrutura; é aproximada, mas estável o bastante para comparar versões.
+ * Com o G1 e o Serial a diferença oscila entre rodadas (chega a ficar
+ * negativa), por isso a medição deve rodar com o coletor Parallel.
+ *
+ * Uso: java -XX:+UseParallelGC -cp benchmarks.jar com.dijkstra.bench.MemoriaPorNo [nós...]
+ */
+public final class MemoriaPorNo {
+  private static final MemoryMXBean MEMORIA = ManagementFactory.getMemoryMXBean();
+  // A hierarquia de contração de grades maiores demora demais para uma medição rápida
+  private static final int MAXIMO_HIERARQUIA = 100_000;
+  private static final int COPIAS = 3;
+  private static final int MEDIDAS = 3;
+
+  private MemoriaPorNo() {
+  }
+
+  public static void main(String[] args) {
+    int[] tamanhos = args.length == 0 ? new int[] { 10_000, 100_000, 1_000_000 }
+        : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+    if (ManagementFactory.getGarbageCollectorMXBeans().stream().noneMatch(gc -> gc.getName().startsWith("PS "))) {
+      System.err.println("Aviso: rode com -XX:+UseParallelGC; com outros coletores a medida não é confiável.");
+    }
+    System.out.printf("%10s %14s %14s %14s %14s%n", "nós", "Grafo", "GrafoCompacto", "Marcos(16)", "Hierarquia");
+    for (int nos : tamanhos) {
+      GrafoCompacto grade = GrafosDeReferencia.grade(nos, 42L);
+      int n = grade.numeroDeNos();
+      double objetos = bytesPorNo(n, () -> grafoDeObjetos(grade));
+      double compacto = bytesPorNo(n, () -> GrafosDeReferencia.grade(nos, 42L));
+      double marcos = bytesPorNo(n, () -> Marcos.preprocessar(grade, 16, SelecaoDeMarcos.MAIS_DISTANTES, 1L));
+      String hierarquia = nos <= MAXIMO_HIERARQUIA
+          ? String.format("%14.1f", bytesPorNo(n, () -> HierarquiaDeContracao.construir(grade)))
+          : String.format("%14s", "-");
+      System.out.printf("%10d %14.1f %14.1f %14.1f %s%n", n, objetos, compacto, marcos, hierarquia);
+    }
+  }
+
+  private static double bytesPorNo(int nos, Supplier<Object> construir) {
+    double[] medidas = new double[MEDIDAS];
+    for (int m = 0; m < MEDIDAS; m++) {
+      // Várias cópias vivas ao mesmo tempo diluem o ruído do heap usado
+      Object[] copias = new Object[COPIAS];
+      long antes = heapUsadoAposColeta();
+      for (int c = 0; c < COPIAS; c++) {
+        copias[c] = construir.get();
+      }
+      long depois = heapUsadoAposColeta();
+      Reference.reachabilityFence(copias);
+      // Sem isso o array da rodada anterior continua no slot local e entra na próxima medida "antes"
+      Arrays.fill(copias, null);
+      medidas[m] = (double) (depois - antes) / ((long) nos * COPIAS);
+    }
+    Arrays.sort(medidas);
+    return medidas[MEDIDAS / 2];
+  }
+
+  private static long heapUsadoAposColeta() {
+    long anterior = Long.MAX_VALUE;
+    // Repete até o heap parar de diminuir: uma única chamada nem sempre coleta tudo
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long usado = MEMORIA.getHeapMemoryUsage().getUsed();
+      if (usado >= anterior) {
+        return usado;
+      }
+      anterior = usado;
+    }
+    return anterior;
+  }
+
+  private static Grafo grafoDeObjetos(GrafoCompacto referencia) {
+    Grafo grafo = new Grafo();
+    String[] nomes = new String[referencia.numeroDeNos()];
+    for (int no = 0; no < nomes.length; no++) {
+      nomes[no] = "n" + no;
+      grafo.adicionarCidade(new Cidade(nomes[no], referencia.latitude(no), referencia.longitude(no), null));
+    }
+    for (int no = 0; no < nomes.length; no++) {
+      for (int a = referencia.inicio(no); a < referencia.fim(no); a++) {
+        grafo.adicionarAresta(nomes[no], nomes[referencia.destino(a)], referencia.peso(a));
+      }
+    }
+    return grafo;
+  }
+}
@@ -0,0 +1,113 @@
+package com.dijkstra.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.dijkstra.Map.Armazenamento;
+import com.dijkstra.Map.GeradorDeGrafos;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.AEstrela;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.TipoHeap;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Pausas do coletor com o grafo no heap e fora dele. Monta a rede
+ * rodoviária sintética com o armazenamento pedido e, durante alguns
+ * segundos, roda rotas A* locais e serializa cada uma em texto, como uma
+ * resposta de servidor; as últimas respostas ficam em um buffer circular
+ * (objetos de vida média, que chegam à geração velha como um cache). As
+ * pausas vêm das notificações dos coletores.
+ *
+ * Uso: java -Xmx4g [-XX:MaxDirectMemorySize=4g] -cp benchmarks.jar
+ * com.dijkstra.bench.PausasDeGc [HEAP|FORA_DO_HEAP] [nós] [segundos]
+ */
+public final class PausasDeGc {
+  private static final int ROTAS_GUARDADAS = 200_000;
+  // Distância máxima, em linhas e colunas da grade, entre a origem e o destino
+  private static final int ALCANCE = 40;
+
+  private PausasDeGc() {
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    Armazenamento armazenamento = args.length > 0 ? Armazenamento.valueOf(args[0]) : Armazenamento.FORA_DO_HEAP;
+    int nos = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+    int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+    int lado = (int) Math.ceil(Math.sqrt(nos));
+
+    long inicio = System.nanoTime();
+    GrafoCompacto grafo = GeradorDeGrafos.rodoviario(lado, lado, 42L, armazenamento);
+    System.out.printf("%s: %d nós, %d arestas montados em %.1f s%n", armazenamento, grafo.numeroDeNos(),
+        grafo.numeroDeArestas(), (System.nanoTime() - inicio) / 1e9);
+    System.gc();
+    Thread.sleep(200);
+    System.out.printf("heap usado com o grafo: %d MB%n",
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20);
+
+    List<Long> pausas = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger completas = new AtomicInteger();
+    for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+      ((NotificationEmitter) coletor).addNotificationListener((notificacao, contexto) -> {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notificacao.getType())) {
+          GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+              (CompositeData) notificacao.getUserData());
+          pausas.add(info.getGcInfo().getDuration());
+          if (info.getGcAction().contains("major")) {
+            completas.incrementAndGet();
+          }
+        }
+      }, null, null);
+    }
+
+    String[] respostas = new String[ROTAS_GUARDADAS];
+    SplittableRandom random = new SplittableRandom(7L);
+    long rotas = 0;
+    long fim = System.nanoTime() + segundos * 1_000_000_000L;
+    while (System.nanoTime() < fim) {
+      int linha = random.nextInt(lado - ALCANCE);
+      int coluna = random.nextInt(lado - ALCANCE);
+      int origem = Math.min(linha * lado + coluna, grafo.numeroDeNos() - 1);
+      int destino = Math.min((linha + random.nextInt(ALCANCE)) * lado + coluna + random.nextInt(ALCANCE),
+          grafo.numeroDeNos() - 1);
+      CaminhoMinimo caminho = AEstrela.buscar(grafo, origem, destino, TipoHeap.QUATERNARIO);
+      respostas[(int) (rotas++ % ROTAS_GUARDADAS)] = resposta(grafo, caminho);
+    }
+    // Espera as notificações das últimas coletas
+    Thread.sleep(200);
+
+    List<Long> copia;
+    synchronized (pausas) {
+      copia = new ArrayList<>(pausas);
+    }
+    Collections.sort(copia);
+    long total = copia.stream().mapToLong(Long::longValue).sum();
+    System.out.printf("%d rotas em %d s; %d coletas (%d completas), pausa total %d ms, p50 %d ms, p99 %d ms,"
+        + " máxima %d ms%n", rotas, segundos, copia.size(), completas.get(), total, percentil(copia, 0.50), percentil(copia, 0.99),
+        copia.isEmpty() ? 0 : copia.get(copia.size() - 1));
+  }
+
+  private static String resposta(GrafoCompacto grafo, CaminhoMinimo caminho) {
+    StringBuilder texto = new StringBuilder("{\"distancia\":").append(caminho.distancia).append(",\"pontos\":[");
+    for (int i = 0; i < caminho.nos.length; i++) {
+      int no = caminho.nos[i];
+      texto.append(i == 0 ? "[" : ",[").append(grafo.latitude(no)).append(',').append(grafo.longitude(no)).append(']');
+    }
+    return texto.append("]}").toString();
+  }
+
+  private static long percentil(List<Long> ordenadas, double p) {
+    if (ordenadas.isEmpty()) {
+      return 0;
+    }
+    return ordenadas.get(Math.min(ordenadas.size() - 1, (int) Math.ceil(p * ordenadas.size()) - 1));
+  }
+}
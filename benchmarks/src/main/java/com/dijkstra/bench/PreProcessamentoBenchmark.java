@@ -0,0 +1,54 @@
+package com.dijkstra.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Pré-processamento dos modos que dependem dele: os marcos do ALT e a
+ * hierarquia de contração. Cada execução é longa, então mede uma chamada
+ * por iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PreProcessamentoBenchmark {
+  @Param({ "brasil", "grade-10k", "grade-100k" })
+  public String grafo;
+
+  private GrafoCompacto compacto;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    compacto = GrafosDeReferencia.porNome(grafo);
+  }
+
+  @Benchmark
+  public Marcos marcosAvoid() {
+    return Marcos.preprocessar(compacto, Math.min(16, compacto.numeroDeNos()), SelecaoDeMarcos.AVOID, 1L);
+  }
+
+  @Benchmark
+  public HierarquiaDeContracao hierarquia() {
+    return HierarquiaDeContracao.construir(compacto);
+  }
+}
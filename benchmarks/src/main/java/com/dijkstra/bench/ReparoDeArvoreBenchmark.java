@@ -0,0 +1,107 @@
+package com.dijkstra.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.Map.GrafoVersionado;
+import com.dijkstra.Map.VersaoDoGrafo;
+import com.dijkstra.busca.ArvoreDeCaminhos;
+
+/**
+ * Árvore de caminhos mínimos de uma origem depois de um lote pequeno de
+ * alterações de peso (interdições, vias mais lentas e mais rápidas): reparo
+ * incremental da árvore anterior contra o Dijkstra completo sobre a versão
+ * nova.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReparoDeArvoreBenchmark {
+  private static final int VERSOES = 64;
+
+  @Param({ "rodoviario-100k" })
+  public String grafo;
+
+  @Param({ "1", "10", "100" })
+  public int lote;
+
+  private int origem;
+  private ArvoreDeCaminhos arvoreBase;
+  private VersaoDoGrafo[] versoes;
+  private int proxima;
+
+  private ArvoreDeCaminhos arvore;
+  private VersaoDoGrafo versao;
+
+  @Setup(Level.Trial)
+  public void preparar() {
+    GrafoCompacto base = GrafosDeReferencia.porNome(grafo);
+    SplittableRandom random = new SplittableRandom(42L);
+    origem = random.nextInt(base.numeroDeNos());
+    arvoreBase = ArvoreDeCaminhos.calcular(base, origem);
+    // Cada lote é publicado sobre o grafo base, então todas as versões partem da mesma árvore
+    versoes = new VersaoDoGrafo[VERSOES];
+    for (int v = 0; v < VERSOES; v++) {
+      versoes[v] = publicarLote(base, random);
+    }
+  }
+
+  private VersaoDoGrafo publicarLote(GrafoCompacto base, SplittableRandom random) {
+    GrafoVersionado.Alteracoes alteracoes = new GrafoVersionado(base).alterar();
+    for (int i = 0; i < lote;) {
+      int de = random.nextInt(base.numeroDeNos());
+      if (base.inicio(de) == base.fim(de)) {
+        continue;
+      }
+      int a = base.inicio(de) + random.nextInt(base.fim(de) - base.inicio(de));
+      int para = base.destino(a);
+      switch (random.nextInt(3)) {
+        case 0:
+          alteracoes.fechar(de, para);
+          break;
+        case 1:
+          alteracoes.alterarPeso(de, para, base.peso(a) * 3);
+          break;
+        default:
+          alteracoes.alterarPeso(de, para, base.peso(a) / 2);
+          break;
+      }
+      i++;
+    }
+    return alteracoes.publicar();
+  }
+
+  @Setup(Level.Invocation)
+  public void prepararConsulta() {
+    arvore = arvoreBase.copia();
+    versao = versoes[proxima];
+    proxima = (proxima + 1) % VERSOES;
+  }
+
+  @Benchmark
+  public int reparoIncremental() {
+    return arvore.atualizar(versao);
+  }
+
+  @Benchmark
+  public ArvoreDeCaminhos recalculoCompleto() {
+    return ArvoreDeCaminhos.calcular(versao, origem);
+  }
+}
@@ -0,0 +1,105 @@
+package com.dijkstra.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Uma consulta origem -> destino por chamada, em cada modo de roteamento,
+ * no mapa das capitais, em grades sintéticas e em uma rede rodoviária
+ * hierárquica. O pré-processamento do ALT
+ * e do CH fica fora da medição (ver {@link PreProcessamentoBenchmark}).
+ * Mede vazão e tempo médio; com o profiler de GC ({@link Executar}),
+ * também a alocação por consulta.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RotaBenchmark {
+  private static final int CONSULTAS = 256;
+  private static final int MARCOS = 16;
+
+  /** Grafo, modo de roteamento e consultas aleatórias sobre ids de nós. */
+  @State(Scope.Benchmark)
+  public static class Cenario {
+    @Param({ "brasil", "grade-10k", "grade-100k", "rodoviario-100k" })
+    public String grafo;
+
+    @Param({ "DIJKSTRA", "BIDIRECIONAL", "A_ESTRELA", "ALT", "CH" })
+    public Algoritmo algoritmo;
+
+    GrafoCompacto compacto;
+    OpcoesDeRota opcoes;
+    int[] pares;
+    int consulta;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+      compacto = GrafosDeReferencia.porNome(grafo);
+      switch (algoritmo) {
+        case ALT:
+          opcoes = OpcoesDeRota.alt(Marcos.preprocessar(compacto, Math.min(MARCOS, compacto.numeroDeNos()),
+              SelecaoDeMarcos.AVOID, 1L));
+          break;
+        case CH:
+          opcoes = OpcoesDeRota.ch(HierarquiaDeContracao.construir(compacto));
+          break;
+        default:
+          opcoes = OpcoesDeRota.de(algoritmo);
+          break;
+      }
+      pares = GrafosDeReferencia.consultas(compacto, CONSULTAS, 7L);
+    }
+  }
+
+  /** Consulta pela API de objetos, como faz a interface gráfica. */
+  @State(Scope.Benchmark)
+  public static class Capitais {
+    Grafo grafo;
+    Cidade portoAlegre;
+    Cidade boaVista;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+      grafo = Grafo.criarGrafoBrasil();
+      portoAlegre = grafo.getCidade("Porto Alegre");
+      boaVista = grafo.getCidade("Boa Vista");
+    }
+  }
+
+  @Benchmark
+  public Navegador.Resultado consulta(Cenario cenario) {
+    int i = cenario.consulta;
+    cenario.consulta = (i + 2) % cenario.pares.length;
+    return Navegador.calcularRota(cenario.compacto, cenario.pares[i], cenario.pares[i + 1], cenario.opcoes);
+  }
+
+  /** Porto Alegre -> Boa Vista por Cidade (com a busca do índice pelo nome), com Dijkstra. */
+  @Benchmark
+  public Navegador.Resultado consultaPorCidade(Capitais capitais) {
+    return Navegador.calcularRota(capitais.grafo, capitais.portoAlegre, capitais.boaVista);
+  }
+}
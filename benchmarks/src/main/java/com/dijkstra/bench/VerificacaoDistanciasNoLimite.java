@@ -0,0 +1,176 @@
+package com.dijkstra.bench;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.ArvoreDeCaminhos;
+import com.dijkstra.busca.ArvoresPorOrigem;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.CaminhosAlternativos;
+import com.dijkstra.busca.DistanciasDaOrigem;
+import com.dijkstra.busca.EspacoDeBusca;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.MatrizDeDistancias;
+import com.dijkstra.busca.MetodoDaMatriz;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.busca.TabelaDeDistancias;
+import com.dijkstra.busca.TipoHeap;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Confere as buscas com pesos perto do máximo, onde a soma das distâncias
+ * passa do que cabe num int: as distâncias vão até
+ * {@code EspacoDeBusca.INFINITO - 1}, e um caminho cuja soma chega a
+ * {@code INFINITO} conta como inexistente em todos os algoritmos, sem dar a
+ * volta para um valor negativo. Os casos montados à mão cobrem a soma
+ * exatamente igual a {@code INFINITO}, uma abaixo dela e um caminho curto
+ * que só vence se o longo não estourar; depois vêm grafos pequenos
+ * aleatórios com pesos enormes. O esperado de cada par é calculado em long.
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.VerificacaoDistanciasNoLimite [grafos]
+ */
+public final class VerificacaoDistanciasNoLimite {
+  private static final int MAXIMO = GrafoCompacto.PESO_MAXIMO;
+
+  private VerificacaoDistanciasNoLimite() {
+  }
+
+  public static void main(String[] args) {
+    int grafos = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int falhas = 0;
+
+    try {
+      montar(2, new int[][] { { 0, 1, GrafoCompacto.PESO_FECHADO } });
+      System.out.println("o construtor aceitou uma aresta com PESO_FECHADO");
+      falhas++;
+    } catch (IllegalArgumentException esperado) {
+      // A aresta seria tratada como interditada
+    }
+
+    falhas += verificar("soma-infinito", montar(3, new int[][] { { 0, 1, MAXIMO }, { 1, 2, 1 } }));
+    falhas += verificar("soma-infinito-1", montar(3, new int[][] { { 0, 1, MAXIMO - 1 }, { 1, 2, 1 } }));
+    falhas += verificar("estouro", montar(3, new int[][] { { 0, 1, 2_000_000_000 }, { 1, 2, 2_000_000_000 } }));
+    falhas += verificar("estouro-e-atalho", montar(3,
+        new int[][] { { 0, 1, 2_000_000_000 }, { 1, 2, 2_000_000_000 }, { 0, 2, 1_500_000_000 } }));
+
+    Random random = new Random(5L);
+    for (int i = 0; i < grafos; i++) {
+      falhas += verificar("aleatorio-" + i, aleatorio(random));
+    }
+
+    if (falhas > 0) {
+      System.out.println(falhas + " consultas divergentes");
+      System.exit(1);
+    }
+    System.out.println("OK");
+  }
+
+  private static GrafoCompacto montar(int nos, int[][] arestas) {
+    GrafoCompacto.Construtor construtor = new GrafoCompacto.Construtor(nos, arestas.length);
+    for (int no = 0; no < nos; no++) {
+      construtor.adicionarNo(null, -no * 0.01, no * 0.01, null);
+    }
+    for (int[] aresta : arestas) {
+      construtor.adicionarAresta(aresta[0], aresta[1], aresta[2]);
+    }
+    return construtor.construir();
+  }
+
+  // Poucos nós, metade das arestas com peso perto do máximo: quase todo caminho de duas arestas estoura
+  private static GrafoCompacto aleatorio(Random random) {
+    int nos = 4 + random.nextInt(9);
+    int[][] arestas = new int[nos * 2 + random.nextInt(nos * 2)][];
+    for (int i = 0; i < arestas.length; i++) {
+      int peso = random.nextBoolean() ? MAXIMO - random.nextInt(MAXIMO / 2) : 1 + random.nextInt(1_000);
+      arestas[i] = new int[] { random.nextInt(nos), random.nextInt(nos), peso };
+    }
+    return montar(nos, arestas);
+  }
+
+  private static int verificar(String nome, GrafoCompacto grafo) {
+    int n = grafo.numeroDeNos();
+    int[][] esperado = esperado(grafo);
+
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    OpcoesDeRota[] opcoes = {
+        OpcoesDeRota.de(Algoritmo.DIJKSTRA),
+        OpcoesDeRota.de(Algoritmo.BIDIRECIONAL),
+        OpcoesDeRota.de(Algoritmo.A_ESTRELA),
+        OpcoesDeRota.alt(Marcos.preprocessar(grafo, Math.min(2, n), SelecaoDeMarcos.MAIS_DISTANTES, 1L)),
+        OpcoesDeRota.ch(HierarquiaDeContracao.construir(grafo)),
+        OpcoesDeRota.matriz(MatrizDeDistancias.calcular(grafo, MetodoDaMatriz.BUSCAS_POR_ORIGEM, pool)),
+        OpcoesDeRota.matriz(MatrizDeDistancias.calcular(grafo, MetodoDaMatriz.FLOYD_WARSHALL, pool)),
+        OpcoesDeRota.retomavel(new ArvoresPorOrigem(1L << 20)) };
+    int[] todos = new int[n];
+    Arrays.setAll(todos, i -> i);
+    TabelaDeDistancias tabelaCh = Navegador.calcularTabela(grafo, todos, todos, opcoes[4]);
+    TabelaDeDistancias tabela = Navegador.calcularTabela(grafo, todos, todos, OpcoesDeRota.padrao());
+
+    int falhas = 0;
+    for (int origem = 0; origem < n; origem++) {
+      ArvoreDeCaminhos arvore = ArvoreDeCaminhos.calcular(grafo, origem);
+      DistanciasDaOrigem umParaMuitos = Navegador.calcularUmParaMuitos(grafo, origem, todos);
+      for (int destino = 0; destino < n; destino++) {
+        int certo = esperado[origem][destino];
+        for (OpcoesDeRota opcao : opcoes) {
+          CaminhoMinimo caminho = Navegador.buscarCaminho(grafo, origem, destino, opcao);
+          falhas += conferir(nome, opcao.getAlgoritmo().name(), origem, destino, certo,
+              caminho.existe() ? caminho.distancia : -1);
+        }
+        Optional<CaminhoMinimo> alternativa = CaminhosAlternativos.buscar(grafo, origem, destino, TipoHeap.QUATERNARIO)
+            .findFirst();
+        falhas += conferir(nome, "ALTERNATIVAS", origem, destino, certo,
+            alternativa.filter(CaminhoMinimo::existe).map(c -> c.distancia).orElse(-1));
+        falhas += conferir(nome, "ARVORE", origem, destino, certo, arvore.distancia(destino));
+        falhas += conferir(nome, "UM_PARA_MUITOS", origem, destino, certo, umParaMuitos.distancia(destino));
+        falhas += conferir(nome, "TABELA", origem, destino, certo, tabela.distancia(origem, destino));
+        falhas += conferir(nome, "TABELA_CH", origem, destino, certo, tabelaCh.distancia(origem, destino));
+      }
+    }
+    return falhas;
+  }
+
+  private static int conferir(String nome, String algoritmo, int origem, int destino, int esperado, int obtido) {
+    if (esperado == obtido) {
+      return 0;
+    }
+    System.out.println(nome + " " + algoritmo + ": " + origem + " -> " + destino + " esperado " + esperado
+        + ", obtido " + obtido);
+    return 1;
+  }
+
+  /** Floyd–Warshall em long; -1 onde não há caminho ou a soma não cabe abaixo de INFINITO. */
+  private static int[][] esperado(GrafoCompacto grafo) {
+    int n = grafo.numeroDeNos();
+    long[][] distancias = new long[n][n];
+    for (int i = 0; i < n; i++) {
+      Arrays.fill(distancias[i], Long.MAX_VALUE);
+      distancias[i][i] = 0;
+      for (int a = grafo.inicio(i); a < grafo.fim(i); a++) {
+        distancias[i][grafo.destino(a)] = Math.min(distancias[i][grafo.destino(a)], grafo.peso(a));
+      }
+    }
+    for (int k = 0; k < n; k++) {
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          if (distancias[i][k] != Long.MAX_VALUE && distancias[k][j] != Long.MAX_VALUE) {
+            distancias[i][j] = Math.min(distancias[i][j], distancias[i][k] + distancias[k][j]);
+          }
+        }
+      }
+    }
+    int[][] esperado = new int[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        esperado[i][j] = distancias[i][j] < EspacoDeBusca.INFINITO ? (int) distancias[i][j] : -1;
+      }
+    }
+    return esperado;
+  }
+}
@@ -0,0 +1,97 @@
+package com.dijkstra.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Confere a hierarquia de contração contra o Dijkstra em consultas
+ * aleatórias: mesma distância e um caminho válido (arestas existentes no
+ * grafo original, com a soma dos pesos igual à distância). Roda no mapa do
+ * Brasil, em grafos aleatórios dirigidos e não dirigidos, em uma grade e
+ * nos geradores de malhas sintéticas (rede rodoviária e grafo geométrico).
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.VerificacaoHierarquia [consultas]
+ */
+public final class VerificacaoHierarquia {
+  private VerificacaoHierarquia() {
+  }
+
+  public static void main(String[] args) {
+    int consultas = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    Random random = new Random(11L);
+    int falhas = 0;
+
+    falhas += verificar("brasil", Grafo.criarGrafoBrasil().congelar(), consultas, random);
+    for (int semente = 0; semente < 10; semente++) {
+      boolean dirigido = semente % 2 == 0;
+      GrafoCompacto grafo = GrafosDeReferencia.aleatorio(1_000, 2_500, semente, dirigido);
+      falhas += verificar((dirigido ? "dirigido-" : "nao-dirigido-") + semente, grafo, consultas, random);
+    }
+    falhas += verificar("grade-10k", GrafosDeReferencia.grade(10_000, 42L), consultas, random);
+    falhas += verificar("rodoviario-10k", GrafosDeReferencia.porNome("rodoviario-10k"), consultas, random);
+    falhas += verificar("geometrico-10k", GrafosDeReferencia.porNome("geometrico-10k"), consultas, random);
+
+    if (falhas > 0) {
+      System.out.println(falhas + " consultas divergentes");
+      System.exit(1);
+    }
+    System.out.println("OK");
+  }
+
+  private static int verificar(String nome, GrafoCompacto grafo, int consultas, Random random) {
+    long inicio = System.nanoTime();
+    HierarquiaDeContracao hierarquia = HierarquiaDeContracao.construir(grafo);
+    long construcao = (System.nanoTime() - inicio) / 1_000_000;
+    OpcoesDeRota opcoes = OpcoesDeRota.ch(hierarquia);
+
+    int falhas = 0;
+    for (int i = 0; i < consultas; i++) {
+      int origem = random.nextInt(grafo.numeroDeNos());
+      int destino = random.nextInt(grafo.numeroDeNos());
+      Navegador.Resultado esperado = Navegador.calcularRota(grafo, origem, destino);
+      Navegador.Resultado obtido = Navegador.calcularRota(grafo, origem, destino, opcoes);
+      if (esperado.distanciaTotal != obtido.distanciaTotal || !caminhoValido(grafo, origem, destino, obtido)) {
+        System.out.println(nome + ": " + origem + " -> " + destino + " esperado " + esperado.distanciaTotal
+            + ", obtido " + obtido.distanciaTotal + " " + obtido.caminho);
+        falhas++;
+      }
+    }
+    System.out.printf("%-16s %7d nós %8d arestas (+%d atalhos) construída em %d ms, %d falhas%n", nome,
+        grafo.numeroDeNos(), grafo.numeroDeArestas(), hierarquia.numeroDeArestas() - grafo.numeroDeArestas(),
+        construcao, falhas);
+    return falhas;
+  }
+
+  private static boolean caminhoValido(GrafoCompacto grafo, int origem, int destino, Navegador.Resultado resultado) {
+    if (!resultado.temCaminho()) {
+      return true;
+    }
+    List<Cidade> caminho = resultado.caminho;
+    if (caminho.get(0).getId() != origem || caminho.get(caminho.size() - 1).getId() != destino) {
+      return false;
+    }
+    long soma = 0;
+    for (int i = 0; i + 1 < caminho.size(); i++) {
+      int de = caminho.get(i).getId();
+      int para = caminho.get(i + 1).getId();
+      int menor = Integer.MAX_VALUE;
+      for (int a = grafo.inicio(de); a < grafo.fim(de); a++) {
+        if (grafo.destino(a) == para) {
+          menor = Math.min(menor, grafo.peso(a));
+        }
+      }
+      if (menor == Integer.MAX_VALUE) {
+        return false;
+      }
+      soma += menor;
+    }
+    return soma == resultado.distanciaTotal;
+  }
+}
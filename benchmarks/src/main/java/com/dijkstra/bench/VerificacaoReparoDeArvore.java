@@ -0,0 +1,169 @@
+package com.dijkstra.bench;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.Map.GrafoVersionado;
+import com.dijkstra.busca.ArvoreDeCaminhos;
+import com.dijkstra.busca.CaminhoMinimo;
+
+/**
+ * Confere o reparo incremental da {@link ArvoreDeCaminhos} contra o
+ * Dijkstra completo em sequências aleatórias de versões (interdições,
+ * reaberturas, vias mais lentas e mais rápidas): mesmas distâncias em todos
+ * os nós e caminhos válidos. Parte das atualizações roda com a thread
+ * interrompida; depois do cancelamento a árvore tem que se dizer incompleta
+ * e a atualização seguinte, na mesma versão ou numa mais nova, tem que
+ * deixá-la certa de novo.
+ *
+ * Uso: java -cp benchmarks.jar com.dijkstra.bench.VerificacaoReparoDeArvore [versoes]
+ */
+public final class VerificacaoReparoDeArvore {
+  private VerificacaoReparoDeArvore() {
+  }
+
+  public static void main(String[] args) {
+    int versoes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    Random random = new Random(7L);
+    int falhas = 0;
+
+    falhas += verificar("grade-10k", GrafosDeReferencia.grade(10_000, 42L), versoes, random);
+    falhas += verificar("rodoviario-10k", GrafosDeReferencia.porNome("rodoviario-10k"), versoes, random);
+    for (int semente = 0; semente < 4; semente++) {
+      boolean dirigido = semente % 2 == 0;
+      GrafoCompacto grafo = GrafosDeReferencia.aleatorio(2_000, 5_000, semente, dirigido);
+      falhas += verificar((dirigido ? "dirigido-" : "nao-dirigido-") + semente, grafo, versoes, random);
+    }
+
+    if (falhas > 0) {
+      System.out.println(falhas + " versões divergentes");
+      System.exit(1);
+    }
+    System.out.println("OK");
+  }
+
+  private static int verificar(String nome, GrafoCompacto base, int versoes, Random random) {
+    GrafoVersionado versionado = new GrafoVersionado(base);
+    int origem = random.nextInt(base.numeroDeNos());
+    ArvoreDeCaminhos arvore = ArvoreDeCaminhos.calcular(base, origem);
+
+    int falhas = 0;
+    int cancelados = 0;
+    for (int v = 0; v < versoes; v++) {
+      boolean cancelar = v % 3 == 0;
+      if (cancelar) {
+        // Encarecer (ou reabrir) as saídas da origem mexe na árvore toda: o reparo passa da verificação de cancelamento
+        boolean encarecer = v % 2 == 0;
+        GrafoVersionado.Alteracoes alteracoes = versionado.alterar();
+        for (int a = base.inicio(origem); a < base.fim(origem); a++) {
+          if (encarecer) {
+            alteracoes.alterarPeso(origem, base.destino(a), base.peso(a) * 3);
+          } else {
+            alteracoes.reabrir(origem, base.destino(a));
+          }
+        }
+        alteracoes.publicar();
+      } else {
+        publicarLote(versionado, random);
+      }
+
+      if (cancelar) {
+        Thread.currentThread().interrupt();
+        try {
+          arvore.atualizar(versionado.atual());
+        } catch (CancellationException e) {
+          cancelados++;
+          if (arvore.completa()) {
+            System.out.println(nome + ": versão " + v + " cancelada, mas a árvore se diz completa");
+            falhas++;
+          }
+        } finally {
+          Thread.interrupted();
+        }
+        if (random.nextBoolean()) {
+          // A próxima atualização vai para uma versão mais nova que a do reparo cancelado
+          publicarLote(versionado, random);
+        }
+      }
+      arvore.atualizar(versionado.atual());
+
+      if (!confere(arvore, ArvoreDeCaminhos.calcular(versionado.atual(), origem), random)) {
+        System.out.println(nome + ": versão " + v + (cancelar ? " (depois de um cancelamento)" : "")
+            + " diverge do Dijkstra completo");
+        falhas++;
+      }
+    }
+    System.out.printf("%-16s %7d nós %8d arestas, %d versões (%d reparos cancelados), %d falhas%n", nome,
+        base.numeroDeNos(), base.numeroDeArestas(), versoes, cancelados, falhas);
+    return falhas;
+  }
+
+  private static void publicarLote(GrafoVersionado versionado, Random random) {
+    GrafoCompacto base = versionado.base();
+    GrafoVersionado.Alteracoes alteracoes = versionado.alterar();
+    int lote = 1 + random.nextInt(20);
+    for (int i = 0; i < lote;) {
+      int de = random.nextInt(base.numeroDeNos());
+      if (base.inicio(de) == base.fim(de)) {
+        continue;
+      }
+      int a = base.inicio(de) + random.nextInt(base.fim(de) - base.inicio(de));
+      int para = base.destino(a);
+      switch (random.nextInt(4)) {
+        case 0:
+          alteracoes.fechar(de, para);
+          break;
+        case 1:
+          alteracoes.reabrir(de, para);
+          break;
+        case 2:
+          alteracoes.alterarPeso(de, para, base.peso(a) * 3);
+          break;
+        default:
+          alteracoes.alterarPeso(de, para, Math.max(1, base.peso(a) / 2));
+          break;
+      }
+      i++;
+    }
+    alteracoes.publicar();
+  }
+
+  /** Mesmas distâncias em todos os nós e, numa amostra, caminhos com a soma dos pesos igual à distância. */
+  private static boolean confere(ArvoreDeCaminhos arvore, ArvoreDeCaminhos esperada, Random random) {
+    if (!arvore.completa()) {
+      return false;
+    }
+    GrafoCompacto grafo = esperada.grafo();
+    for (int no = 0; no < grafo.numeroDeNos(); no++) {
+      if (arvore.distancia(no) != esperada.distancia(no)) {
+        return false;
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      CaminhoMinimo caminho = arvore.caminhoAte(random.nextInt(grafo.numeroDeNos()));
+      if (caminho.existe() && !caminhoValido(grafo, caminho)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean caminhoValido(GrafoCompacto grafo, CaminhoMinimo caminho) {
+    int[] nos = caminho.nos;
+    long soma = 0;
+    for (int i = 0; i + 1 < nos.length; i++) {
+      int menor = GrafoCompacto.PESO_FECHADO;
+      for (int a = grafo.inicio(nos[i]); a < grafo.fim(nos[i]); a++) {
+        if (grafo.destino(a) == nos[i + 1]) {
+          menor = Math.min(menor, grafo.peso(a));
+        }
+      }
+      if (menor == GrafoCompacto.PESO_FECHADO) {
+        return false;
+      }
+      soma += menor;
+    }
+    return soma == caminho.distancia;
+  }
+}
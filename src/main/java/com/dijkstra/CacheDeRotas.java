@@ -0,0 +1,189 @@
+package com.dijkstra;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.OpcoesDeRota;
+
+/**
+ * Cache de rotas na frente do {@link Navegador}, chaveado por (origem,
+ * destino, {@link OpcoesDeRota}).
+ *
+ * As entradas ficam divididas em segmentos, cada um com o seu lock e a sua
+ * ordem LRU; chamadas concorrentes só disputam o lock quando caem no mesmo
+ * segmento. A rota é calculada fora do lock, então duas threads que pedem a
+ * mesma rota ao mesmo tempo podem calcular a rota em dobro, mas nenhuma
+ * espera o cálculo da outra.
+ *
+ * Cada segmento lembra a versão do grafo ({@link Grafo#getVersao()}) das
+ * suas entradas e é esvaziado no primeiro acesso depois que o grafo muda.
+ * Os resultados guardados são compartilhados entre os chamadores; a lista
+ * do caminho é imutável.
+ */
+public final class CacheDeRotas {
+  private final Grafo grafo;
+  private final Segmento[] segmentos;
+  private final LongAdder acertos = new LongAdder();
+  private final LongAdder falhas = new LongAdder();
+  private final LongAdder remocoes = new LongAdder();
+  private final LongAdder invalidacoes = new LongAdder();
+
+  /** Guarda até cerca de {@code capacidade} rotas, divididas igualmente entre os segmentos. */
+  public CacheDeRotas(Grafo grafo, int capacidade) {
+    if (capacidade <= 0) {
+      throw new IllegalArgumentException("Capacidade do cache deve ser positiva: " + capacidade);
+    }
+    this.grafo = Objects.requireNonNull(grafo);
+    int quantidade = Math.min(Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors()),
+        Integer.highestOneBit(capacidade));
+    int porSegmento = (capacidade + quantidade - 1) / quantidade;
+    segmentos = new Segmento[quantidade];
+    for (int i = 0; i < quantidade; i++) {
+      segmentos[i] = new Segmento(porSegmento);
+    }
+  }
+
+  public Navegador.Resultado calcularRota(Cidade inicio, Cidade destino) {
+    return calcularRota(inicio, destino, OpcoesDeRota.padrao());
+  }
+
+  public Navegador.Resultado calcularRota(Cidade inicio, Cidade destino, OpcoesDeRota opcoes) {
+    long versao = grafo.getVersao();
+    GrafoCompacto compacto = grafo.congelar();
+    int indiceInicio = compacto.indiceDe(inicio);
+    int indiceDestino = compacto.indiceDe(destino);
+    if (indiceInicio < 0 || indiceDestino < 0) {
+      return new Navegador.Resultado(Collections.emptyList(), -1);
+    }
+
+    Chave chave = new Chave(indiceInicio, indiceDestino, opcoes);
+    Segmento segmento = segmentos[(chave.hashCode() ^ (chave.hashCode() >>> 16)) & (segmentos.length - 1)];
+    Navegador.Resultado resultado = segmento.buscar(chave, versao);
+    if (resultado != null) {
+      acertos.increment();
+      return resultado;
+    }
+    falhas.increment();
+    Navegador.Resultado calculado = Navegador.calcularRota(compacto, indiceInicio, indiceDestino, opcoes);
+    resultado = new Navegador.Resultado(Collections.unmodifiableList(calculado.caminho), calculado.distanciaTotal,
+        calculado.nosAssentados);
+    segmento.guardar(chave, resultado, versao);
+    return resultado;
+  }
+
+  /** Descarta todas as rotas guardadas; os contadores são mantidos. */
+  public void limpar() {
+    for (Segmento segmento : segmentos) {
+      synchronized (segmento) {
+        segmento.entradas.clear();
+      }
+    }
+  }
+
+  public int tamanho() {
+    int total = 0;
+    for (Segmento segmento : segmentos) {
+      synchronized (segmento) {
+        total += segmento.entradas.size();
+      }
+    }
+    return total;
+  }
+
+  public long acertos() {
+    return acertos.sum();
+  }
+
+  public long falhas() {
+    return falhas.sum();
+  }
+
+  /** Rotas descartadas por falta de espaço (LRU). */
+  public long remocoes() {
+    return remocoes.sum();
+  }
+
+  /** Rotas descartadas porque o grafo mudou. */
+  public long invalidacoes() {
+    return invalidacoes.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheDeRotas[tamanho=" + tamanho() + ", acertos=" + acertos() + ", falhas=" + falhas() + ", remocoes="
+        + remocoes() + ", invalidacoes=" + invalidacoes() + "]";
+  }
+
+  private static final class Chave {
+    final int inicio;
+    final int destino;
+    final OpcoesDeRota opcoes;
+
+    Chave(int inicio, int destino, OpcoesDeRota opcoes) {
+      this.inicio = inicio;
+      this.destino = destino;
+      this.opcoes = Objects.requireNonNull(opcoes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof Chave))
+        return false;
+      Chave outra = (Chave) o;
+      return inicio == outra.inicio && destino == outra.destino && opcoes.equals(outra.opcoes);
+    }
+
+    @Override
+    public int hashCode() {
+      return (inicio * 31 + destino) * 31 + opcoes.hashCode();
+    }
+  }
+
+  /** Mapa LRU protegido pelo próprio monitor. */
+  private final class Segmento {
+    final Map<Chave, Navegador.Resultado> entradas;
+    final int capacidade;
+    long versao;
+
+    Segmento(int capacidade) {
+      this.capacidade = capacidade;
+      this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    synchronized Navegador.Resultado buscar(Chave chave, long versaoAtual) {
+      atualizarVersao(versaoAtual);
+      return entradas.get(chave);
+    }
+
+    synchronized void guardar(Chave chave, Navegador.Resultado resultado, long versaoDoCalculo) {
+      atualizarVersao(versaoDoCalculo);
+      if (versao != versaoDoCalculo) {
+        return; // O grafo mudou durante o cálculo
+      }
+      entradas.put(chave, resultado);
+      Iterator<Chave> maisAntigas = entradas.keySet().iterator();
+      while (entradas.size() > capacidade) {
+        maisAntigas.next();
+        maisAntigas.remove();
+        remocoes.increment();
+      }
+    }
+
+    private void atualizarVersao(long versaoAtual) {
+      if (versaoAtual > versao) {
+        invalidacoes.add(entradas.size());
+        entradas.clear();
+        versao = versaoAtual;
+      }
+    }
+  }
+}
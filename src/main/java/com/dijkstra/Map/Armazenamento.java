@@ -0,0 +1,19 @@
+package com.dijkstra.Map;
+
+/**
+ * Onde ficam os arrays de um {@link GrafoCompacto} montado pelo
+ * {@link GrafoCompacto.ConstrutorCsr} ou copiado por
+ * {@link GrafoCompacto#foraDoHeap()}.
+ */
+public enum Armazenamento {
+  /** Arrays primitivos no heap (padrão). */
+  HEAP,
+  /**
+   * Buffers diretos ({@code ByteBuffer.allocateDirect}): a topologia e as
+   * coordenadas não ocupam o heap, então o coletor de lixo não as percorre
+   * nem copia e o heap pode ser bem menor que o grafo. O total fica
+   * limitado por {@code -XX:MaxDirectMemorySize} (por padrão, o tamanho
+   * máximo do heap) e cada array por 2 GB.
+   */
+  FORA_DO_HEAP
+}
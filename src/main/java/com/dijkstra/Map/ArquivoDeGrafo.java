@@ -0,0 +1,360 @@
+package com.dijkstra.Map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import com.dijkstra.metricas.EventoDeCarga;
+
+/**
+ * Arquivo binário com um {@link GrafoCompacto} pronto para uso: o CSR
+ * direto e reverso, as coordenadas e uma tabela de strings com nomes e
+ * estados. {@link #abrir(Path)} mapeia o arquivo em memória (somente
+ * leitura) e o roteamento lê direto das páginas mapeadas, sem
+ * desserializar nada: abrir custa o mesmo para 30 nós ou 30 milhões, e
+ * processos que abrem o mesmo arquivo compartilham as páginas do cache do
+ * sistema operacional.
+ *
+ * Formato (little-endian): um cabeçalho de {@value #TAMANHO_CABECALHO}
+ * bytes com número mágico, versão, contagens, fator heurístico, assinatura,
+ * posição de cada seção e dois CRC32C (do cabeçalho e dos dados), seguido
+ * das seções alinhadas em 8 bytes. Cada seção é mapeada separadamente e
+ * precisa caber em 2 GB (até ~536 milhões de arestas).
+ */
+public final class ArquivoDeGrafo {
+  /** "DIJKGRAF" em ASCII, lido como long little-endian. */
+  public static final long MAGICO = 0x464152474B4A4944L;
+  public static final int VERSAO = 1;
+  static final int TAMANHO_CABECALHO = 256;
+
+  private static final int TEM_NOMES = 1;
+  private static final int TEM_ESTADOS = 2;
+
+  private static final int OFFSETS = 0;
+  private static final int DESTINOS = 1;
+  private static final int PESOS = 2;
+  private static final int OFFSETS_REVERSOS = 3;
+  private static final int ORIGENS_REVERSAS = 4;
+  private static final int PESOS_REVERSOS = 5;
+  private static final int LATITUDES = 6;
+  private static final int LONGITUDES = 7;
+  private static final int NOMES = 8;
+  private static final int ESTADOS = 9;
+  private static final int INICIO_DAS_STRINGS = 10;
+  private static final int BYTES_DAS_STRINGS = 11;
+  private static final int SECOES = 12;
+
+  // Posições dos campos no cabeçalho
+  private static final int POSICAO_FLAGS = 12;
+  private static final int POSICAO_NOS = 16;
+  private static final int POSICAO_ARESTAS = 20;
+  private static final int POSICAO_STRINGS = 24;
+  private static final int POSICAO_FATOR = 32;
+  private static final int POSICAO_ASSINATURA = 40;
+  private static final int POSICAO_CRC_DADOS = 48;
+  private static final int POSICAO_TAMANHO = 56;
+  private static final int POSICAO_SECOES = 64;
+  private static final int POSICAO_CRC_CABECALHO = TAMANHO_CABECALHO - 4;
+
+  private ArquivoDeGrafo() {
+  }
+
+  public static void gravar(Grafo grafo, Path arquivo) throws IOException {
+    gravar(grafo.congelar(), arquivo);
+  }
+
+  /**
+   * Grava o grafo. O arquivo é escrito ao lado com a extensão ".tmp" e só
+   * então movido para o destino, de modo que quem já mapeou a versão
+   * anterior continua lendo um arquivo íntegro.
+   */
+  public static void gravar(GrafoCompacto grafo, Path arquivo) throws IOException {
+    int nos = grafo.numeroDeNos();
+    int arestas = grafo.numeroDeArestas();
+    verificarTamanho((long) arestas * Integer.BYTES);
+    verificarTamanho((long) nos * Double.BYTES);
+
+    TabelaDeStrings tabela = new TabelaDeStrings(nos, grafo::nomeOuNull, grafo::estado);
+    verificarTamanho(tabela.totalDeBytes);
+    int flags = (tabela.temNomes ? TEM_NOMES : 0) | (tabela.temEstados ? TEM_ESTADOS : 0);
+
+    Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+    try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      Escritor escritor = new Escritor(canal);
+      long[] secoes = new long[SECOES];
+
+      secoes[OFFSETS] = escritor.alinhar();
+      for (int no = 0; no < nos; no++) {
+        escritor.inteiro(grafo.inicio(no));
+      }
+      escritor.inteiro(arestas);
+      secoes[DESTINOS] = escritor.alinhar();
+      for (int a = 0; a < arestas; a++) {
+        escritor.inteiro(grafo.destino(a));
+      }
+      secoes[PESOS] = escritor.alinhar();
+      for (int a = 0; a < arestas; a++) {
+        escritor.inteiro(grafo.peso(a));
+      }
+      secoes[OFFSETS_REVERSOS] = escritor.alinhar();
+      for (int no = 0; no < nos; no++) {
+        escritor.inteiro(grafo.inicioReverso(no));
+      }
+      escritor.inteiro(arestas);
+      secoes[ORIGENS_REVERSAS] = escritor.alinhar();
+      for (int a = 0; a < arestas; a++) {
+        escritor.inteiro(grafo.origemReversa(a));
+      }
+      secoes[PESOS_REVERSOS] = escritor.alinhar();
+      for (int a = 0; a < arestas; a++) {
+        escritor.inteiro(grafo.pesoReverso(a));
+      }
+      secoes[LATITUDES] = escritor.alinhar();
+      for (int no = 0; no < nos; no++) {
+        escritor.decimal(grafo.latitude(no));
+      }
+      secoes[LONGITUDES] = escritor.alinhar();
+      for (int no = 0; no < nos; no++) {
+        escritor.decimal(grafo.longitude(no));
+      }
+      secoes[NOMES] = escritor.alinhar();
+      if (tabela.temNomes) {
+        for (int no = 0; no < nos; no++) {
+          escritor.inteiro(tabela.nomes[no]);
+        }
+      }
+      secoes[ESTADOS] = escritor.alinhar();
+      if (tabela.temEstados) {
+        for (int no = 0; no < nos; no++) {
+          escritor.inteiro(tabela.estados[no]);
+        }
+      }
+      secoes[INICIO_DAS_STRINGS] = escritor.alinhar();
+      int bytesDasStrings = 0;
+      escritor.inteiro(0);
+      for (byte[] string : tabela.strings) {
+        bytesDasStrings += string.length;
+        escritor.inteiro(bytesDasStrings);
+      }
+      secoes[BYTES_DAS_STRINGS] = escritor.alinhar();
+      for (byte[] string : tabela.strings) {
+        escritor.bytes(string);
+      }
+      long tamanho = escritor.alinhar();
+      escritor.descarregar();
+
+      ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+      cabecalho.putLong(0, MAGICO);
+      cabecalho.putInt(8, VERSAO);
+      cabecalho.putInt(POSICAO_FLAGS, flags);
+      cabecalho.putInt(POSICAO_NOS, nos);
+      cabecalho.putInt(POSICAO_ARESTAS, arestas);
+      cabecalho.putInt(POSICAO_STRINGS, tabela.strings.size());
+      cabecalho.putDouble(POSICAO_FATOR, grafo.fatorHeuristico());
+      cabecalho.putLong(POSICAO_ASSINATURA, grafo.assinatura());
+      cabecalho.putLong(POSICAO_CRC_DADOS, escritor.crc.getValue());
+      cabecalho.putLong(POSICAO_TAMANHO, tamanho);
+      for (int secao = 0; secao < SECOES; secao++) {
+        cabecalho.putLong(POSICAO_SECOES + secao * Long.BYTES, secoes[secao]);
+      }
+      cabecalho.putInt(POSICAO_CRC_CABECALHO, crcDoCabecalho(cabecalho));
+      canal.position(0);
+      while (cabecalho.hasRemaining()) {
+        canal.write(cabecalho);
+      }
+      canal.force(false);
+    }
+    Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Abre conferindo o cabeçalho e a estrutura, sem ler os dados (ver {@link #abrir(Path, boolean)}). */
+  public static GrafoCompacto abrir(Path arquivo) throws IOException {
+    return abrir(arquivo, false);
+  }
+
+  /**
+   * Mapeia o arquivo e retorna o grafo. O cabeçalho (CRC próprio), o tamanho
+   * do arquivo e os limites das seções são sempre conferidos; com
+   * {@code verificarDados}, também o CRC de todos os dados, o que exige ler
+   * o arquivo inteiro (perde-se a abertura instantânea).
+   */
+  public static GrafoCompacto abrir(Path arquivo, boolean verificarDados) throws IOException {
+    EventoDeCarga evento = new EventoDeCarga();
+    evento.begin();
+    try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+      ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+      while (cabecalho.hasRemaining()) {
+        if (canal.read(cabecalho, cabecalho.position()) < 0) {
+          throw new IOException("Arquivo de grafo truncado: " + arquivo);
+        }
+      }
+      if (cabecalho.getLong(0) != MAGICO) {
+        throw new IOException("Arquivo não contém um grafo: " + arquivo);
+      }
+      int versao = cabecalho.getInt(8);
+      if (versao != VERSAO) {
+        throw new IOException("Versão de arquivo de grafo não suportada: " + versao);
+      }
+      if (cabecalho.getInt(POSICAO_CRC_CABECALHO) != crcDoCabecalho(cabecalho)) {
+        throw new IOException("Checksum inválido no cabeçalho do arquivo de grafo: " + arquivo);
+      }
+      long tamanho = cabecalho.getLong(POSICAO_TAMANHO);
+      if (tamanho != canal.size()) {
+        throw new IOException("Arquivo de grafo com tamanho " + canal.size() + ", esperado " + tamanho + ": " + arquivo);
+      }
+      if (verificarDados && crcDosDados(canal, tamanho) != cabecalho.getLong(POSICAO_CRC_DADOS)) {
+        throw new IOException("Checksum inválido no arquivo de grafo: " + arquivo);
+      }
+
+      int flags = cabecalho.getInt(POSICAO_FLAGS);
+      int nos = cabecalho.getInt(POSICAO_NOS);
+      int arestas = cabecalho.getInt(POSICAO_ARESTAS);
+      int strings = cabecalho.getInt(POSICAO_STRINGS);
+      if (nos < 0 || arestas < 0 || strings < 0) {
+        throw new IOException("Contagens inválidas no arquivo de grafo: " + arquivo);
+      }
+      Mapeador mapeador = new Mapeador(canal, cabecalho, tamanho, arquivo);
+      IntBuffer offsets = mapeador.secao(OFFSETS, (nos + 1L) * Integer.BYTES).asIntBuffer();
+      IntBuffer offsetsReversos = mapeador.secao(OFFSETS_REVERSOS, (nos + 1L) * Integer.BYTES).asIntBuffer();
+      if (offsets.get(nos) != arestas || offsetsReversos.get(nos) != arestas) {
+        throw new IOException("Adjacência inconsistente no arquivo de grafo: " + arquivo);
+      }
+      IntBuffer inicioDasStrings = mapeador.secao(INICIO_DAS_STRINGS, (strings + 1L) * Integer.BYTES).asIntBuffer();
+      GrafoEmBuffers grafo = new GrafoEmBuffers(nos, arestas, offsets,
+          mapeador.secao(DESTINOS, (long) arestas * Integer.BYTES).asIntBuffer(),
+          mapeador.secao(PESOS, (long) arestas * Integer.BYTES).asIntBuffer(),
+          offsetsReversos,
+          mapeador.secao(ORIGENS_REVERSAS, (long) arestas * Integer.BYTES).asIntBuffer(),
+          mapeador.secao(PESOS_REVERSOS, (long) arestas * Integer.BYTES).asIntBuffer(),
+          mapeador.secao(LATITUDES, (long) nos * Double.BYTES).asDoubleBuffer(),
+          mapeador.secao(LONGITUDES, (long) nos * Double.BYTES).asDoubleBuffer(),
+          (flags & TEM_NOMES) == 0 ? null : mapeador.secao(NOMES, (long) nos * Integer.BYTES).asIntBuffer(),
+          (flags & TEM_ESTADOS) == 0 ? null : mapeador.secao(ESTADOS, (long) nos * Integer.BYTES).asIntBuffer(),
+          inicioDasStrings,
+          mapeador.secao(BYTES_DAS_STRINGS, Integer.toUnsignedLong(inicioDasStrings.get(strings))),
+          cabecalho.getDouble(POSICAO_FATOR), cabecalho.getLong(POSICAO_ASSINATURA));
+      evento.concluir("ARQUIVO", arquivo, nos, arestas);
+      return grafo;
+    }
+  }
+
+  private static int crcDoCabecalho(ByteBuffer cabecalho) {
+    CRC32C crc = new CRC32C();
+    crc.update(cabecalho.duplicate().position(0).limit(POSICAO_CRC_CABECALHO));
+    return (int) crc.getValue();
+  }
+
+  private static long crcDosDados(FileChannel canal, long tamanho) throws IOException {
+    CRC32C crc = new CRC32C();
+    ByteBuffer bloco = ByteBuffer.allocateDirect(1 << 20);
+    long posicao = TAMANHO_CABECALHO;
+    while (posicao < tamanho) {
+      bloco.clear();
+      int lidos = canal.read(bloco, posicao);
+      if (lidos < 0) {
+        throw new IOException("Arquivo de grafo truncado");
+      }
+      bloco.flip();
+      crc.update(bloco);
+      posicao += lidos;
+    }
+    return crc.getValue();
+  }
+
+  private static void verificarTamanho(long bytes) {
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Grafo grande demais para o arquivo: uma seção passaria de 2 GB");
+    }
+  }
+
+  /** Mapeia as seções conferindo se cabem no arquivo. */
+  private static final class Mapeador {
+    private final FileChannel canal;
+    private final ByteBuffer cabecalho;
+    private final long tamanho;
+    private final Path arquivo;
+
+    Mapeador(FileChannel canal, ByteBuffer cabecalho, long tamanho, Path arquivo) {
+      this.canal = canal;
+      this.cabecalho = cabecalho;
+      this.tamanho = tamanho;
+      this.arquivo = arquivo;
+    }
+
+    ByteBuffer secao(int secao, long bytes) throws IOException {
+      long posicao = cabecalho.getLong(POSICAO_SECOES + secao * Long.BYTES);
+      if (posicao < TAMANHO_CABECALHO || bytes < 0 || bytes > Integer.MAX_VALUE || posicao + bytes > tamanho) {
+        throw new IOException("Seção " + secao + " fora dos limites do arquivo de grafo: " + arquivo);
+      }
+      MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, posicao, bytes);
+      return mapa.order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /** Escrita sequencial em blocos, acumulando o CRC dos dados. */
+  private static final class Escritor {
+    private final FileChannel canal;
+    private final ByteBuffer bloco = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+    private long posicao = TAMANHO_CABECALHO;
+
+    Escritor(FileChannel canal) throws IOException {
+      this.canal = canal;
+      canal.position(TAMANHO_CABECALHO);
+    }
+
+    void inteiro(int valor) throws IOException {
+      garantir(Integer.BYTES);
+      bloco.putInt(valor);
+      posicao += Integer.BYTES;
+    }
+
+    void decimal(double valor) throws IOException {
+      garantir(Double.BYTES);
+      bloco.putDouble(valor);
+      posicao += Double.BYTES;
+    }
+
+    void bytes(byte[] valor) throws IOException {
+      for (int i = 0; i < valor.length; i++) {
+        garantir(1);
+        bloco.put(valor[i]);
+      }
+      posicao += valor.length;
+    }
+
+    /** Completa com zeros até múltiplo de 8 e retorna a posição resultante. */
+    long alinhar() throws IOException {
+      while ((posicao & 7) != 0) {
+        garantir(1);
+        bloco.put((byte) 0);
+        posicao++;
+      }
+      return posicao;
+    }
+
+    void descarregar() throws IOException {
+      bloco.flip();
+      crc.update(bloco.duplicate());
+      while (bloco.hasRemaining()) {
+        canal.write(bloco);
+      }
+      bloco.clear();
+    }
+
+    private void garantir(int bytes) throws IOException {
+      if (bloco.remaining() < bytes) {
+        descarregar();
+      }
+    }
+  }
+}
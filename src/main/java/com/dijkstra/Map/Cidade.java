@@ -14,6 +14,11 @@ public class Cidade {
   private final double longitude;
   private final String estado;
   private final List<Aresta> vizinhos = new LinkedList<>();
+  // Adjacência reversa: arestas que chegam nesta cidade. Aqui o "destino" da
+  // Aresta é a cidade de onde a estrada parte.
+  private final List<Aresta> entradas = new LinkedList<>();
+  // Id denso (0..n-1) atribuído pelo Grafo; -1 enquanto não pertence a um
+  private int id = -1;
 
   public Cidade(String nome, double latitude, double longitude, String estado) {
     this.nome = nome;
@@ -26,6 +31,10 @@ public class Cidade {
     this.vizinhos.add(aresta);
   }
 
+  public void adicionarEntrada(Aresta aresta) {
+    this.entradas.add(aresta);
+  }
+
   // Getters
   public String getNome() {
     return nome;
@@ -43,10 +52,26 @@ public class Cidade {
     return vizinhos;
   }
 
+  public List<Aresta> getEntradas() {
+    return entradas;
+  }
+
   public String getEstado() { // NOVO GETTER
     return estado;
   }
 
+  /**
+   * Id denso da cidade no grafo ao qual pertence, usado como índice nos
+   * arrays do roteamento. Vale -1 se a cidade ainda não foi adicionada.
+   */
+  public int getId() {
+    return id;
+  }
+
+  void setId(int id) {
+    this.id = id;
+  }
+
   @Override
   public String toString() {
     // É uma boa prática sobrescrever o toString, embora não seja usado pelo
@@ -0,0 +1,22 @@
+package com.dijkstra.Map;
+
+/**
+ * Cálculos de distância sobre a superfície da Terra (modelo esférico).
+ */
+public final class Geodesia {
+  public static final double RAIO_TERRA_KM = 6371.0;
+
+  private Geodesia() {
+  }
+
+  /** Distância de grande círculo (fórmula de haversine), em km. */
+  public static double distanciaKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+    double dLat = Math.toRadians(latitude2 - latitude1);
+    double dLon = Math.toRadians(longitude2 - longitude1);
+    double senoLat = Math.sin(dLat / 2);
+    double senoLon = Math.sin(dLon / 2);
+    double a = senoLat * senoLat
+        + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * senoLon * senoLon;
+    return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+}
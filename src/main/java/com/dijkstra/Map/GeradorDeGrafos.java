@@ -0,0 +1,345 @@
+package com.dijkstra.Map;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Geradores determinísticos (por semente) de malhas viárias sintéticas para
+ * testes de escala: grade, grafo geométrico aleatório e rede hierárquica de
+ * rodovias e vias locais. Todos os nós ficam dentro do retângulo que
+ * envolve o Brasil e os pesos são em metros, nunca menores que a distância
+ * em linha reta entre as pontas (as heurísticas geodésicas continuam
+ * admissíveis).
+ *
+ * Os nós e arestas são entregues um a um a um {@link Destino}, sem listas
+ * intermediárias; as versões que retornam {@link GrafoCompacto} dimensionam
+ * o {@link GrafoCompacto.Construtor} de antemão, para não realocar arrays.
+ */
+public final class GeradorDeGrafos {
+  // Retângulo que envolve o território brasileiro
+  public static final double LATITUDE_MINIMA = -33.75;
+  public static final double LATITUDE_MAXIMA = 5.27;
+  public static final double LONGITUDE_MINIMA = -73.99;
+  public static final double LONGITUDE_MAXIMA = -34.79;
+
+  // Na rede hierárquica, uma linha em cada 8 é arterial e uma em cada 64 é rodovia
+  private static final int ESPACAMENTO_ARTERIAIS = 8;
+  private static final int ESPACAMENTO_RODOVIAS = 64;
+  // Quanto cada classe de via alonga o percurso em relação à linha reta
+  private static final double FATOR_LOCAL = 1.6;
+  private static final double FATOR_ARTERIAL = 1.25;
+  private static final double FATOR_RODOVIA = 1.0;
+
+  private GeradorDeGrafos() {
+  }
+
+  /**
+   * Recebe os nós (em ordem, com ids 0, 1, 2...) e as arestas geradas. Uma
+   * aresta sempre chega depois dos seus dois nós; cada via de mão dupla
+   * chega como duas arestas.
+   */
+  public interface Destino {
+    void no(double latitude, double longitude);
+
+    void aresta(int origem, int destino, int peso);
+  }
+
+  /** Destino que acumula no construtor do grafo compacto. */
+  public static Destino para(GrafoCompacto.Construtor construtor) {
+    return new Destino() {
+      @Override
+      public void no(double latitude, double longitude) {
+        construtor.adicionarNo(null, latitude, longitude, null);
+      }
+
+      @Override
+      public void aresta(int origem, int destino, int peso) {
+        construtor.adicionarAresta(origem, destino, peso);
+      }
+    };
+  }
+
+  /**
+   * Destino que cria cidades ("N0", "N1"...) no grafo de objetos. Serve para
+   * grafos pequenos; acima de algumas centenas de milhares de nós prefira o
+   * grafo compacto.
+   */
+  public static Destino para(Grafo grafo) {
+    return new Destino() {
+      private int nos;
+
+      @Override
+      public void no(double latitude, double longitude) {
+        grafo.adicionarCidade(new Cidade("N" + nos++, latitude, longitude, null));
+      }
+
+      @Override
+      public void aresta(int origem, int destino, int peso) {
+        grafo.adicionarAresta("N" + origem, "N" + destino, peso);
+      }
+    };
+  }
+
+  /** Grade de linhas x colunas cobrindo o retângulo do Brasil. */
+  public static GrafoCompacto grade(int linhas, int colunas, long semente) {
+    GrafoCompacto.Construtor construtor = construtorDaGrade(linhas, colunas);
+    grade(linhas, colunas, semente, para(construtor));
+    return construtor.construir();
+  }
+
+  /**
+   * Grade com vias de mão dupla entre vizinhos horizontais e verticais. O
+   * peso de cada via é a distância entre as pontas multiplicada por um fator
+   * aleatório entre 1 e 2 (trânsito, relevo).
+   */
+  public static void grade(int linhas, int colunas, long semente, Destino destino) {
+    validarGrade(linhas, colunas);
+    SplittableRandom random = new SplittableRandom(semente);
+    double passo = passoDaGrade(linhas, colunas);
+    for (int linha = 0; linha < linhas; linha++) {
+      for (int coluna = 0; coluna < colunas; coluna++) {
+        destino.no(LATITUDE_MAXIMA - linha * passo, LONGITUDE_MINIMA + coluna * passo);
+      }
+    }
+    for (int linha = 0; linha < linhas; linha++) {
+      double latitude = LATITUDE_MAXIMA - linha * passo;
+      // Dentro de uma linha as distâncias horizontais são todas iguais
+      int horizontal = metros(latitude, 0, latitude, passo, 1.0);
+      int vertical = metros(latitude, 0, latitude - passo, 0, 1.0);
+      for (int coluna = 0; coluna < colunas; coluna++) {
+        int no = linha * colunas + coluna;
+        if (coluna + 1 < colunas) {
+          viaDeMaoDupla(destino, no, no + 1, (int) Math.ceil(horizontal * (1 + random.nextDouble())));
+        }
+        if (linha + 1 < linhas) {
+          viaDeMaoDupla(destino, no, no + colunas, (int) Math.ceil(vertical * (1 + random.nextDouble())));
+        }
+      }
+    }
+  }
+
+  /** Grafo geométrico aleatório com o grau médio pedido (ver a versão com {@link Destino}). */
+  public static GrafoCompacto geometrico(int nos, double grauMedio, long semente) {
+    // O grau real oscila em torno da média; a folga evita realocar no fim
+    long estimativa = (long) Math.ceil(nos * grauMedio * 1.1) + 16;
+    GrafoCompacto.Construtor construtor = new GrafoCompacto.Construtor(nos, (int) Math.min(estimativa, Integer.MAX_VALUE - 8));
+    geometrico(nos, grauMedio, semente, para(construtor));
+    return construtor.construir();
+  }
+
+  /**
+   * Pontos uniformes no retângulo do Brasil, ligados (mão dupla) a todos os
+   * vizinhos dentro do raio que dá, em média, {@code grauMedio} vizinhos por
+   * nó. Os ids seguem a ordem das células de um índice espacial, de modo que
+   * nós próximos têm ids próximos (boa localidade no CSR). O peso é a
+   * distância entre as pontas.
+   */
+  public static void geometrico(int nos, double grauMedio, long semente, Destino destino) {
+    if (nos <= 0) {
+      throw new IllegalArgumentException("Número de nós deve ser positivo: " + nos);
+    }
+    if (!(grauMedio > 0)) {
+      throw new IllegalArgumentException("Grau médio deve ser positivo: " + grauMedio);
+    }
+    SplittableRandom random = new SplittableRandom(semente);
+    // Plano aproximado: longitudes encolhidas pelo cosseno da latitude central
+    double escalaX = Math.cos(Math.toRadians((LATITUDE_MINIMA + LATITUDE_MAXIMA) / 2));
+    double largura = (LONGITUDE_MAXIMA - LONGITUDE_MINIMA) * escalaX;
+    double altura = LATITUDE_MAXIMA - LATITUDE_MINIMA;
+    double raio = Math.sqrt(grauMedio * largura * altura / (Math.PI * nos));
+    // Células com lado >= raio (os vizinhos estão nas 9 células em volta) e não mais células que nós
+    double lado = Math.max(raio, Math.sqrt(largura * altura / nos));
+    int colunas = Math.max(1, (int) (largura / lado));
+    int linhas = Math.max(1, (int) (altura / lado));
+    double celulaX = largura / colunas;
+    double celulaY = altura / linhas;
+
+    double[] xs = new double[nos];
+    double[] ys = new double[nos];
+    int[] celulas = new int[nos];
+    int[] inicio = new int[linhas * colunas + 1];
+    for (int i = 0; i < nos; i++) {
+      xs[i] = random.nextDouble() * largura;
+      ys[i] = random.nextDouble() * altura;
+      int cx = Math.min((int) (xs[i] / celulaX), colunas - 1);
+      int cy = Math.min((int) (ys[i] / celulaY), linhas - 1);
+      celulas[i] = cy * colunas + cx;
+      inicio[celulas[i] + 1]++;
+    }
+    for (int c = 0; c < linhas * colunas; c++) {
+      inicio[c + 1] += inicio[c];
+    }
+    // Counting sort pela célula: a posição no array ordenado é o id do nó
+    double[] x = new double[nos];
+    double[] y = new double[nos];
+    int[] proximo = Arrays.copyOf(inicio, linhas * colunas);
+    for (int i = 0; i < nos; i++) {
+      int id = proximo[celulas[i]]++;
+      x[id] = xs[i];
+      y[id] = ys[i];
+    }
+
+    for (int id = 0; id < nos; id++) {
+      destino.no(LATITUDE_MAXIMA - y[id], LONGITUDE_MINIMA + x[id] / escalaX);
+    }
+    double raioAoQuadrado = raio * raio;
+    for (int cy = 0; cy < linhas; cy++) {
+      for (int cx = 0; cx < colunas; cx++) {
+        int celula = cy * colunas + cx;
+        for (int a = inicio[celula]; a < inicio[celula + 1]; a++) {
+          // Cada par é visto uma vez: só olha para ids maiores nas células vizinhas
+          for (int vy = Math.max(0, cy - 1); vy <= Math.min(linhas - 1, cy + 1); vy++) {
+            for (int vx = Math.max(0, cx - 1); vx <= Math.min(colunas - 1, cx + 1); vx++) {
+              int vizinha = vy * colunas + vx;
+              for (int b = Math.max(inicio[vizinha], a + 1); b < inicio[vizinha + 1]; b++) {
+                double dx = x[a] - x[b];
+                double dy = y[a] - y[b];
+                if (dx * dx + dy * dy <= raioAoQuadrado) {
+                  viaDeMaoDupla(destino, a, b, metros(LATITUDE_MAXIMA - y[a], LONGITUDE_MINIMA + x[a] / escalaX,
+                      LATITUDE_MAXIMA - y[b], LONGITUDE_MINIMA + x[b] / escalaX, 1.0));
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Rede hierárquica de linhas x colunas (ver a versão com {@link Destino}). */
+  public static GrafoCompacto rodoviario(int linhas, int colunas, long semente) {
+    GrafoCompacto.Construtor construtor = construtorDaGrade(linhas, colunas);
+    rodoviario(linhas, colunas, semente, para(construtor));
+    return construtor.construir();
+  }
+
+  /**
+   * Rede hierárquica montada no {@link GrafoCompacto.ConstrutorCsr}: o
+   * gerador roda duas vezes com a mesma semente (a primeira só conta os
+   * graus), então o pico de memória é o do grafo final e, com
+   * {@link Armazenamento#FORA_DO_HEAP}, quase nada passa pelo heap.
+   */
+  public static GrafoCompacto rodoviario(int linhas, int colunas, long semente, Armazenamento armazenamento) {
+    arestasDaGrade(linhas, colunas);
+    GrafoCompacto.ConstrutorCsr construtor = new GrafoCompacto.ConstrutorCsr(linhas * colunas, armazenamento);
+    rodoviario(linhas, colunas, semente, new Destino() {
+      @Override
+      public void no(double latitude, double longitude) {
+      }
+
+      @Override
+      public void aresta(int origem, int destino, int peso) {
+        construtor.contarAresta(origem, destino);
+      }
+    });
+    rodoviario(linhas, colunas, semente, new Destino() {
+      private int nos;
+
+      @Override
+      public void no(double latitude, double longitude) {
+        construtor.definirNo(nos++, null, latitude, longitude, null);
+      }
+
+      @Override
+      public void aresta(int origem, int destino, int peso) {
+        construtor.adicionarAresta(origem, destino, peso);
+      }
+    });
+    return construtor.construir();
+  }
+
+  /**
+   * Grade com cruzamentos levemente deslocados e três classes de via: locais,
+   * arteriais (uma linha/coluna a cada 8) e rodovias (uma a cada 64). Vias
+   * de classe mais alta alongam menos o percurso, então as rotas longas
+   * sobem para as arteriais e rodovias, como em uma malha real; é a
+   * estrutura que a hierarquia de contração e os marcos do ALT exploram.
+   */
+  public static void rodoviario(int linhas, int colunas, long semente, Destino destino) {
+    validarGrade(linhas, colunas);
+    SplittableRandom random = new SplittableRandom(semente);
+    double passo = passoDaGrade(linhas, colunas);
+    // Os nós saem linha a linha, cada linha logo antes das arestas que a usam;
+    // só as coordenadas de duas linhas ficam em memória
+    double[] latitudes = new double[2 * colunas];
+    double[] longitudes = new double[2 * colunas];
+    cruzamentos(0, colunas, passo, random, latitudes, longitudes, 0, destino);
+    for (int linha = 0; linha < linhas; linha++) {
+      int atual = (linha & 1) * colunas;
+      int seguinte = colunas - atual;
+      if (linha + 1 < linhas) {
+        cruzamentos(linha + 1, colunas, passo, random, latitudes, longitudes, seguinte, destino);
+      }
+      double fatorDaLinha = fatorDaVia(linha);
+      for (int coluna = 0; coluna < colunas; coluna++) {
+        int no = linha * colunas + coluna;
+        if (coluna + 1 < colunas) {
+          viaDeMaoDupla(destino, no, no + 1, metros(latitudes[atual + coluna], longitudes[atual + coluna],
+              latitudes[atual + coluna + 1], longitudes[atual + coluna + 1], fatorDaLinha));
+        }
+        if (linha + 1 < linhas) {
+          viaDeMaoDupla(destino, no, no + colunas, metros(latitudes[atual + coluna], longitudes[atual + coluna],
+              latitudes[seguinte + coluna], longitudes[seguinte + coluna], fatorDaVia(coluna)));
+        }
+      }
+    }
+  }
+
+  /** Cruzamentos de uma linha, deslocados até 20% do espaçamento em cada eixo. */
+  private static void cruzamentos(int linha, int colunas, double passo, SplittableRandom random,
+      double[] latitudes, double[] longitudes, int deslocamento, Destino destino) {
+    for (int coluna = 0; coluna < colunas; coluna++) {
+      double latitude = LATITUDE_MAXIMA - (linha + 0.4 * (random.nextDouble() - 0.5)) * passo;
+      double longitude = LONGITUDE_MINIMA + (coluna + 0.4 * (random.nextDouble() - 0.5)) * passo;
+      latitudes[deslocamento + coluna] = latitude;
+      longitudes[deslocamento + coluna] = longitude;
+      destino.no(latitude, longitude);
+    }
+  }
+
+  private static double fatorDaVia(int indice) {
+    if (indice % ESPACAMENTO_RODOVIAS == 0) {
+      return FATOR_RODOVIA;
+    }
+    return indice % ESPACAMENTO_ARTERIAIS == 0 ? FATOR_ARTERIAL : FATOR_LOCAL;
+  }
+
+  private static void viaDeMaoDupla(Destino destino, int a, int b, int peso) {
+    destino.aresta(a, b, peso);
+    destino.aresta(b, a, peso);
+  }
+
+  /** Distância em metros multiplicada pelo fator, arredondada para cima e nunca zero. */
+  private static int metros(double latitude1, double longitude1, double latitude2, double longitude2, double fator) {
+    return Math.max(1, (int) Math.ceil(Geodesia.distanciaKm(latitude1, longitude1, latitude2, longitude2) * 1000 * fator));
+  }
+
+  private static void validarGrade(int linhas, int colunas) {
+    if (linhas <= 0 || colunas <= 0) {
+      throw new IllegalArgumentException("Grade deve ter ao menos uma linha e uma coluna: " + linhas + "x" + colunas);
+    }
+    if ((long) linhas * colunas > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Grade excede o número máximo de nós: " + linhas + "x" + colunas);
+    }
+  }
+
+  private static GrafoCompacto.Construtor construtorDaGrade(int linhas, int colunas) {
+    return new GrafoCompacto.Construtor(linhas * colunas, arestasDaGrade(linhas, colunas));
+  }
+
+  /** Valida a grade e retorna o número de arestas (duas por via). */
+  private static int arestasDaGrade(int linhas, int colunas) {
+    validarGrade(linhas, colunas);
+    long arestas = 2L * ((long) linhas * (colunas - 1) + (long) (linhas - 1) * colunas);
+    if (arestas > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Grade excede o número máximo de arestas: " + linhas + "x" + colunas);
+    }
+    return (int) arestas;
+  }
+
+  /** Espaçamento, em graus, que faz a grade caber no retângulo do Brasil. */
+  private static double passoDaGrade(int linhas, int colunas) {
+    return Math.min((LATITUDE_MAXIMA - LATITUDE_MINIMA) / Math.max(1, linhas - 1),
+        (LONGITUDE_MAXIMA - LONGITUDE_MINIMA) / Math.max(1, colunas - 1));
+  }
+}
@@ -3,8 +3,12 @@ package com.dijkstra.Map;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 
+import com.dijkstra.metricas.EventoDeCarga;
+
 /**
  * Representa o grafo completo, contendo todas as cidades e suas conexões.
  * O método estático `criarGrafoBrasil()` é um factory que retorna um grafo
@@ -14,19 +18,95 @@ public class Grafo {
   // Usamos LinkedHashMap para manter a ordem de inserção, o que deixa os
   // ComboBoxes mais organizados.
   private final Map<String, Cidade> cidades = new LinkedHashMap<>();
+  // Versão compacta (CSR) usada pelo roteamento; descartada a cada alteração
+  private volatile GrafoCompacto compacto;
+  // Incrementada a cada alteração; caches de rotas comparam com ela
+  private volatile long versao;
+
+  public synchronized void adicionarCidade(Cidade cidade) {
+    // Os ids são densos e seguem a ordem de inserção; uma cidade que substitui
+    // outra de mesmo nome herda o id da anterior
+    Cidade anterior = cidades.put(cidade.getNome(), cidade);
+    cidade.setId(anterior != null ? anterior.getId() : cidades.size() - 1);
+    alterado();
+  }
 
-  public void adicionarCidade(Cidade cidade) {
-    cidades.put(cidade.getNome(), cidade);
+  public synchronized void adicionarArestaBidirecional(String nomeOrigem, String nomeDestino, int distancia) {
+    adicionarAresta(nomeOrigem, nomeDestino, distancia);
+    adicionarAresta(nomeDestino, nomeOrigem, distancia);
   }
 
-  public void adicionarArestaBidirecional(String nomeOrigem, String nomeDestino, int distancia) {
+  /**
+   * Adiciona uma aresta de mão única. Além da lista de vizinhos da origem,
+   * registra a aresta na adjacência reversa do destino, usada pelas buscas
+   * que partem do destino (ex.: Dijkstra bidirecional).
+   */
+  public synchronized void adicionarAresta(String nomeOrigem, String nomeDestino, int distancia) {
     Cidade origem = getCidade(nomeOrigem);
     Cidade destino = getCidade(nomeDestino);
 
     if (origem != null && destino != null) {
       origem.adicionarVizinho(new Aresta(destino, distancia));
-      destino.adicionarVizinho(new Aresta(origem, distancia));
+      destino.adicionarEntrada(new Aresta(origem, distancia));
+      alterado();
+    }
+  }
+
+  /**
+   * Troca a distância de todas as arestas de origem para destino (e das
+   * entradas correspondentes do destino). Para mudar pesos sem remontar o
+   * grafo compacto, ver {@link GrafoVersionado}.
+   */
+  public synchronized void alterarDistancia(String nomeOrigem, String nomeDestino, int distancia) {
+    Cidade origem = getCidade(nomeOrigem);
+    Cidade destino = getCidade(nomeDestino);
+
+    if (origem != null && destino != null
+        && substituir(origem.getVizinhos(), destino, new Aresta(destino, distancia))) {
+      substituir(destino.getEntradas(), origem, new Aresta(origem, distancia));
+      alterado();
+    }
+  }
+
+  /** Remove as arestas de origem para destino (só esse sentido). */
+  public synchronized void removerAresta(String nomeOrigem, String nomeDestino) {
+    Cidade origem = getCidade(nomeOrigem);
+    Cidade destino = getCidade(nomeDestino);
+
+    if (origem != null && destino != null && substituir(origem.getVizinhos(), destino, null)) {
+      substituir(destino.getEntradas(), origem, null);
+      alterado();
+    }
+  }
+
+  /** Troca (ou remove, se {@code nova} é null) as arestas da lista que levam à cidade. */
+  private static boolean substituir(List<Aresta> arestas, Cidade cidade, Aresta nova) {
+    boolean encontrada = false;
+    for (ListIterator<Aresta> it = arestas.listIterator(); it.hasNext();) {
+      if (it.next().getDestino() == cidade) {
+        if (nova == null) {
+          it.remove();
+        } else {
+          it.set(nova);
+        }
+        encontrada = true;
+      }
     }
+    return encontrada;
+  }
+
+  private void alterado() {
+    compacto = null;
+    versao++;
+  }
+
+  /**
+   * Número que muda a cada cidade ou aresta adicionada, alterada ou
+   * removida. Resultados calculados em uma versão não valem para as
+   * seguintes.
+   */
+  public long getVersao() {
+    return versao;
   }
 
   public Cidade getCidade(String nome) {
@@ -37,6 +117,56 @@ public class Grafo {
     return Collections.unmodifiableCollection(cidades.values());
   }
 
+  /**
+   * Congela o grafo em sua representação compacta (CSR), usada pelo
+   * {@link com.dijkstra.Navegador}. O resultado fica guardado até a próxima
+   * alteração no grafo.
+   *
+   * Pode ser chamado enquanto outra thread altera o grafo: a versão
+   * compacta é montada com o grafo travado e, depois de pronta, é imutável.
+   * Para interditar vias sem remontar o grafo, ver {@link GrafoVersionado}.
+   */
+  public GrafoCompacto congelar() {
+    GrafoCompacto atual = compacto;
+    if (atual == null) {
+      synchronized (this) {
+        atual = compacto;
+        if (atual == null) {
+          atual = construirCompacto();
+          compacto = atual;
+        }
+      }
+    }
+    return atual;
+  }
+
+  private GrafoCompacto construirCompacto() {
+    EventoDeCarga evento = new EventoDeCarga();
+    evento.begin();
+    Cidade[] ordem = cidades.values().toArray(new Cidade[0]);
+    int totalArestas = 0;
+    for (Cidade cidade : ordem) {
+      totalArestas += cidade.getVizinhos().size();
+    }
+
+    GrafoCompacto.Construtor construtor = new GrafoCompacto.Construtor(ordem.length, totalArestas);
+    // O índice de cada nó no grafo compacto é o próprio id da cidade
+    for (Cidade cidade : ordem) {
+      construtor.adicionarNo(cidade.getNome(), cidade.getLatitude(), cidade.getLongitude(), cidade.getEstado());
+    }
+    for (Cidade cidade : ordem) {
+      for (Aresta aresta : cidade.getVizinhos()) {
+        int destino = aresta.getDestino().getId();
+        if (destino >= 0 && destino < ordem.length) {
+          construtor.adicionarAresta(cidade.getId(), destino, aresta.getDistancia());
+        }
+      }
+    }
+    GrafoCompacto grafo = construtor.construir(ordem);
+    evento.concluir("GRAFO", null, grafo.numeroDeNos(), grafo.numeroDeArestas());
+    return grafo;
+  }
+
   // Método Factory para criar o grafo de capitais do Brasil
   public static Grafo criarGrafoBrasil() {
     Grafo grafo = new Grafo();
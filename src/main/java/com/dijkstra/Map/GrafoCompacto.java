@@ -0,0 +1,509 @@
+package com.dijkstra.Map;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representação imutável do grafo no formato CSR (Compressed Sparse Row).
+ * As arestas que saem de cada nó ficam contíguas (offsets, destinos e
+ * pesos), junto com a latitude e a longitude de cada nó. O roteamento
+ * percorre essa estrutura em vez de seguir ponteiros de
+ * {@link Cidade}/{@link Aresta}, o que é bem mais amigável ao cache e usa
+ * uma fração da memória do grafo de objetos.
+ *
+ * Também guarda a adjacência reversa (arestas que chegam em cada nó) no
+ * mesmo formato, para as buscas que partem do destino.
+ *
+ * Pode ser obtido congelando um {@link Grafo} ({@link Grafo#congelar()}),
+ * montado diretamente pelo {@link Construtor} ou pelo {@link ConstrutorCsr}
+ * (duas passadas, para importar arquivos grandes), sem criar objetos por nó,
+ * ou aberto de um arquivo por {@link ArquivoDeGrafo}. Os dados ficam em
+ * arrays no heap ou em buffers (arquivo mapeado em memória); as
+ * implementações são internas a este pacote.
+ */
+public abstract class GrafoCompacto {
+  /**
+   * Peso de uma aresta interditada (ver {@link GrafoVersionado}): as buscas
+   * pulam a aresta. É igual ao infinito das buscas, então nunca vira uma
+   * distância.
+   */
+  public static final int PESO_FECHADO = Integer.MAX_VALUE;
+
+  /**
+   * Maior peso aceito numa aresta aberta. A distância de um caminho também
+   * vai só até esse valor: as buscas somam com
+   * {@link com.dijkstra.busca.EspacoDeBusca#somar}, e um caminho cuja soma
+   * chega a {@link #PESO_FECHADO} conta como inexistente.
+   */
+  public static final int PESO_MAXIMO = PESO_FECHADO - 1;
+
+  private volatile Map<String, Integer> indicePorNome;
+  private volatile long assinatura;
+
+  GrafoCompacto() {
+  }
+
+  /** Para implementações que já conhecem a assinatura (ex.: gravada no arquivo). */
+  GrafoCompacto(long assinatura) {
+    this.assinatura = assinatura;
+  }
+
+  public abstract int numeroDeNos();
+
+  public abstract int numeroDeArestas();
+
+  /**
+   * Hash da topologia e dos pesos, usado para conferir se dados
+   * pré-processados e salvos em disco (ex.: marcos do ALT) pertencem a este
+   * grafo. Calculado na primeira chamada.
+   */
+  public long assinatura() {
+    long valor = assinatura;
+    if (valor == 0) {
+      valor = 1125899906842597L + numeroDeNos();
+      for (int no = 0; no < numeroDeNos(); no++) {
+        valor = 31 * valor + fim(no);
+      }
+      for (int a = 0; a < numeroDeArestas(); a++) {
+        valor = 31 * valor + destino(a);
+        valor = 31 * valor + peso(a);
+      }
+      valor = valor == 0 ? 1 : valor;
+      assinatura = valor;
+    }
+    return valor;
+  }
+
+  /** Índice da primeira aresta que sai do nó. */
+  public abstract int inicio(int no);
+
+  /** Índice logo após a última aresta que sai do nó. */
+  public abstract int fim(int no);
+
+  public abstract int destino(int aresta);
+
+  public abstract int peso(int aresta);
+
+  /** Índice da primeira aresta que chega no nó (adjacência reversa). */
+  public abstract int inicioReverso(int no);
+
+  /** Índice logo após a última aresta que chega no nó. */
+  public abstract int fimReverso(int no);
+
+  /** Nó de onde parte a aresta reversa informada. */
+  public abstract int origemReversa(int arestaReversa);
+
+  public abstract int pesoReverso(int arestaReversa);
+
+  public abstract double latitude(int no);
+
+  public abstract double longitude(int no);
+
+  /**
+   * Fator pelo qual a distância geodésica (km) pode ser multiplicada sem
+   * nunca superar o peso de uma aresta. É verificado na construção do grafo,
+   * percorrendo todas as arestas: se alguma estrada é "mais curta" que a
+   * linha reta entre suas pontas (ou os pesos não estão em km), o fator fica
+   * menor que 1 e a heurística do A* continua admissível e consistente.
+   */
+  public abstract double fatorHeuristico();
+
+  /** Distância geodésica entre dois nós, em km. */
+  public double distanciaGeodesica(int origem, int destino) {
+    return Geodesia.distanciaKm(latitude(origem), longitude(origem), latitude(destino), longitude(destino));
+  }
+
+  /** Fator heurístico percorrendo todas as arestas; usado ao montar o grafo. */
+  double calcularFatorHeuristico() {
+    double fator = 1.0;
+    for (int no = 0; no < numeroDeNos(); no++) {
+      for (int a = inicio(no); a < fim(no); a++) {
+        double linhaReta = distanciaGeodesica(no, destino(a));
+        if (linhaReta > 0 && peso(a) < fator * linhaReta) {
+          fator = peso(a) / linhaReta;
+        }
+      }
+    }
+    // Pequena folga para erros de arredondamento do cálculo em ponto flutuante
+    return fator * (1 - 1e-9);
+  }
+
+  public String nome(int no) {
+    String nome = nomeOuNull(no);
+    return nome != null ? nome : "#" + no;
+  }
+
+  /** Nome gravado para o nó, ou null se ele não tem nome. */
+  abstract String nomeOuNull(int no);
+
+  public abstract String estado(int no);
+
+  /** Cidade de origem quando o grafo foi congelado de um {@link Grafo}; senão null. */
+  Cidade cidadeOriginal(int no) {
+    return null;
+  }
+
+  /**
+   * Retorna a Cidade correspondente ao nó. Se o grafo não veio de um
+   * {@link Grafo}, a cidade é criada sob demanda (apenas para os nós que
+   * aparecem em um caminho).
+   */
+  public Cidade cidade(int no) {
+    Cidade original = cidadeOriginal(no);
+    if (original != null) {
+      return original;
+    }
+    Cidade cidade = new Cidade(nome(no), latitude(no), longitude(no), estado(no));
+    cidade.setId(no);
+    return cidade;
+  }
+
+  /** Índice do nó com o nome informado, ou -1 se não existir. */
+  public int indiceDe(String nome) {
+    Map<String, Integer> indice = indicePorNome;
+    if (indice == null) {
+      indice = new HashMap<>(numeroDeNos() * 2);
+      for (int i = 0; i < numeroDeNos(); i++) {
+        indice.put(nome(i), i);
+      }
+      indicePorNome = indice;
+    }
+    return indice.getOrDefault(nome, -1);
+  }
+
+  /**
+   * Cópia do grafo em buffers diretos, fora do heap (ver
+   * {@link Armazenamento#FORA_DO_HEAP}). O roteamento funciona igual sobre
+   * a cópia; a memória é liberada quando ela deixa de ser referenciada.
+   */
+  public GrafoCompacto foraDoHeap() {
+    return GrafoEmBuffers.copiar(this);
+  }
+
+  /** Índice da cidade; usa o id denso quando ele bate com este grafo. */
+  public int indiceDe(Cidade cidade) {
+    int id = cidade.getId();
+    if (id >= 0 && id < numeroDeNos() && nome(id).equals(cidade.getNome())) {
+      return id;
+    }
+    return indiceDe(cidade.getNome());
+  }
+
+  // Validação comum aos construtores: PESO_FECHADO marcaria a aresta como interditada sem aviso
+  private static void validarPeso(int peso) {
+    if (peso < 0) {
+      throw new IllegalArgumentException("Peso negativo não é suportado pelo Dijkstra: " + peso);
+    }
+    if (peso > PESO_MAXIMO) {
+      throw new IllegalArgumentException("Peso " + peso + " é reservado para arestas interditadas; o máximo é "
+          + PESO_MAXIMO);
+    }
+  }
+
+  /**
+   * Monta um GrafoCompacto diretamente a partir de arrays primitivos, sem
+   * passar por objetos Cidade/Aresta. As arestas são acumuladas em listas
+   * de origem/destino/peso e ordenadas por origem (counting sort) no final.
+   */
+  public static final class Construtor {
+    private int nos;
+    private double[] latitudes;
+    private double[] longitudes;
+    private String[] nomes;
+    private String[] estados;
+
+    private int arestas;
+    private int[] origens;
+    private int[] destinos;
+    private int[] pesos;
+
+    public Construtor() {
+      this(16, 16);
+    }
+
+    public Construtor(int capacidadeNos, int capacidadeArestas) {
+      capacidadeNos = Math.max(capacidadeNos, 1);
+      capacidadeArestas = Math.max(capacidadeArestas, 1);
+      latitudes = new double[capacidadeNos];
+      longitudes = new double[capacidadeNos];
+      origens = new int[capacidadeArestas];
+      destinos = new int[capacidadeArestas];
+      pesos = new int[capacidadeArestas];
+    }
+
+    /** Adiciona um nó e retorna o seu índice. Nome e estado podem ser null. */
+    public int adicionarNo(String nome, double latitude, double longitude, String estado) {
+      if (nos == latitudes.length) {
+        int capacidade = crescer(nos);
+        latitudes = Arrays.copyOf(latitudes, capacidade);
+        longitudes = Arrays.copyOf(longitudes, capacidade);
+        if (nomes != null) {
+          nomes = Arrays.copyOf(nomes, capacidade);
+        }
+        if (estados != null) {
+          estados = Arrays.copyOf(estados, capacidade);
+        }
+      }
+      if (nome != null && nomes == null) {
+        nomes = new String[latitudes.length];
+      }
+      if (estado != null && estados == null) {
+        estados = new String[latitudes.length];
+      }
+      latitudes[nos] = latitude;
+      longitudes[nos] = longitude;
+      if (nome != null) {
+        nomes[nos] = nome;
+      }
+      if (estado != null) {
+        estados[nos] = estado;
+      }
+      return nos++;
+    }
+
+    public void adicionarAresta(int origem, int destino, int peso) {
+      if (origem < 0 || origem >= nos || destino < 0 || destino >= nos) {
+        throw new IllegalArgumentException("Aresta com nó inexistente: " + origem + " -> " + destino);
+      }
+      validarPeso(peso);
+      if (arestas == origens.length) {
+        int capacidade = crescer(arestas);
+        origens = Arrays.copyOf(origens, capacidade);
+        destinos = Arrays.copyOf(destinos, capacidade);
+        pesos = Arrays.copyOf(pesos, capacidade);
+      }
+      origens[arestas] = origem;
+      destinos[arestas] = destino;
+      pesos[arestas] = peso;
+      arestas++;
+    }
+
+    public void adicionarArestaBidirecional(int a, int b, int peso) {
+      adicionarAresta(a, b, peso);
+      adicionarAresta(b, a, peso);
+    }
+
+    public int numeroDeNos() {
+      return nos;
+    }
+
+    public int numeroDeArestas() {
+      return arestas;
+    }
+
+    public GrafoCompacto construir() {
+      return construir(null);
+    }
+
+    GrafoCompacto construir(Cidade[] cidades) {
+      int[] offsets = new int[nos + 1];
+      int[] destinosCsr = new int[arestas];
+      int[] pesosCsr = new int[arestas];
+      agrupar(origens, destinos, offsets, destinosCsr, pesosCsr);
+
+      int[] offsetsReversos = new int[nos + 1];
+      int[] origensReversas = new int[arestas];
+      int[] pesosReversos = new int[arestas];
+      agrupar(destinos, origens, offsetsReversos, origensReversas, pesosReversos);
+
+      return new GrafoEmArrays(offsets, destinosCsr, pesosCsr,
+          offsetsReversos, origensReversas, pesosReversos,
+          Arrays.copyOf(latitudes, nos), Arrays.copyOf(longitudes, nos),
+          nomes == null ? null : Arrays.copyOf(nomes, nos),
+          estados == null ? null : Arrays.copyOf(estados, nos),
+          cidades);
+    }
+
+    /** Counting sort das arestas pela chave (origem ou destino) em formato CSR. */
+    private void agrupar(int[] chaves, int[] outros, int[] offsets, int[] outrosCsr, int[] pesosCsr) {
+      for (int i = 0; i < arestas; i++) {
+        offsets[chaves[i] + 1]++;
+      }
+      for (int i = 0; i < nos; i++) {
+        offsets[i + 1] += offsets[i];
+      }
+      int[] proximo = Arrays.copyOf(offsets, nos);
+      for (int i = 0; i < arestas; i++) {
+        int posicao = proximo[chaves[i]]++;
+        outrosCsr[posicao] = outros[i];
+        pesosCsr[posicao] = pesos[i];
+      }
+    }
+
+    private static int crescer(int atual) {
+      long nova = Math.max(16L, atual + (atual >> 1) + 1L);
+      if (nova > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Grafo excede o tamanho máximo de um array");
+      }
+      return (int) nova;
+    }
+  }
+
+  /**
+   * Monta o CSR em duas passadas sobre as arestas, sem a lista intermediária
+   * do {@link Construtor}: na primeira, {@link #contarAresta} só registra os
+   * graus; na segunda, {@link #adicionarAresta} grava cada aresta direto na
+   * posição final. Serve para importar arquivos grandes, que podem ser lidos
+   * duas vezes, com o pico de memória igual ao tamanho do grafo final. Com
+   * {@link Armazenamento#FORA_DO_HEAP}, os arrays são buffers diretos desde
+   * o início e o grafo nunca passa pelo heap.
+   *
+   * Os nós são criados de antemão (com coordenadas 0) e podem ser
+   * preenchidos em qualquer ordem. Em cada nó, as arestas ficam na ordem da
+   * segunda passada.
+   */
+  public static final class ConstrutorCsr {
+    private final int nos;
+    private final Armazenamento armazenamento;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private String[] nomes;
+    private String[] estados;
+
+    private final IntBuffer offsets;
+    private final IntBuffer offsetsReversos;
+    // Posição livre de cada nó na segunda passada; null durante a contagem
+    private IntBuffer proximo;
+    private IntBuffer proximoReverso;
+    private IntBuffer destinos;
+    private IntBuffer pesos;
+    private IntBuffer origensReversas;
+    private IntBuffer pesosReversos;
+    private long contadas;
+    private long adicionadas;
+
+    public ConstrutorCsr(int nos) {
+      this(nos, Armazenamento.HEAP);
+    }
+
+    public ConstrutorCsr(int nos, Armazenamento armazenamento) {
+      if (nos < 0 || nos == Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Número de nós inválido: " + nos);
+      }
+      this.nos = nos;
+      this.armazenamento = armazenamento;
+      latitudes = decimais(nos);
+      longitudes = decimais(nos);
+      offsets = inteiros(nos + 1);
+      offsetsReversos = inteiros(nos + 1);
+    }
+
+    public int numeroDeNos() {
+      return nos;
+    }
+
+    /** Define os dados do nó. Nome e estado podem ser null. */
+    public void definirNo(int no, String nome, double latitude, double longitude, String estado) {
+      validarNo(no);
+      latitudes.put(no, latitude);
+      longitudes.put(no, longitude);
+      if (nome != null) {
+        if (nomes == null) {
+          nomes = new String[nos];
+        }
+        nomes[no] = nome;
+      }
+      if (estado != null) {
+        if (estados == null) {
+          estados = new String[nos];
+        }
+        estados[no] = estado;
+      }
+    }
+
+    /** Primeira passada: registra uma aresta origem -> destino. */
+    public void contarAresta(int origem, int destino) {
+      if (proximo != null) {
+        throw new IllegalStateException("A contagem das arestas já terminou");
+      }
+      validarNo(origem);
+      validarNo(destino);
+      if (contadas == Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Grafo excede o tamanho máximo de um array");
+      }
+      offsets.put(origem + 1, offsets.get(origem + 1) + 1);
+      offsetsReversos.put(destino + 1, offsetsReversos.get(destino + 1) + 1);
+      contadas++;
+    }
+
+    /**
+     * Segunda passada: grava a aresta. Deve repetir exatamente as arestas
+     * contadas (a ordem entre nós diferentes pode mudar).
+     */
+    public void adicionarAresta(int origem, int destino, int peso) {
+      if (proximo == null) {
+        prepararSegundaPassada();
+      }
+      validarNo(origem);
+      validarNo(destino);
+      validarPeso(peso);
+      int posicao = proximo.get(origem);
+      int reversa = proximoReverso.get(destino);
+      if (posicao == offsets.get(origem + 1) || reversa == offsetsReversos.get(destino + 1)) {
+        throw new IllegalStateException("Aresta não contada na primeira passada: " + origem + " -> " + destino);
+      }
+      proximo.put(origem, posicao + 1);
+      destinos.put(posicao, destino);
+      pesos.put(posicao, peso);
+      proximoReverso.put(destino, reversa + 1);
+      origensReversas.put(reversa, origem);
+      pesosReversos.put(reversa, peso);
+      adicionadas++;
+    }
+
+    public GrafoCompacto construir() {
+      if (proximo == null) {
+        prepararSegundaPassada();
+      }
+      if (adicionadas != contadas) {
+        throw new IllegalStateException("Foram contadas " + contadas + " arestas, mas adicionadas " + adicionadas);
+      }
+      proximo = null;
+      proximoReverso = null;
+      if (armazenamento == Armazenamento.HEAP) {
+        return new GrafoEmArrays(offsets.array(), destinos.array(), pesos.array(), offsetsReversos.array(),
+            origensReversas.array(), pesosReversos.array(), latitudes.array(), longitudes.array(), nomes, estados, null);
+      }
+      TabelaDeStrings tabela = new TabelaDeStrings(nos, no -> nomes == null ? null : nomes[no],
+          no -> estados == null ? null : estados[no]);
+      return new GrafoEmBuffers(nos, (int) contadas, offsets, destinos, pesos, offsetsReversos, origensReversas,
+          pesosReversos, latitudes, longitudes, tabela.nomesForaDoHeap(), tabela.estadosForaDoHeap(),
+          tabela.inicioForaDoHeap(), tabela.bytesForaDoHeap(), Double.NaN, 0);
+    }
+
+    private void prepararSegundaPassada() {
+      for (int i = 0; i < nos; i++) {
+        offsets.put(i + 1, offsets.get(i + 1) + offsets.get(i));
+        offsetsReversos.put(i + 1, offsetsReversos.get(i + 1) + offsetsReversos.get(i));
+      }
+      proximo = inteiros(nos);
+      proximoReverso = inteiros(nos);
+      for (int i = 0; i < nos; i++) {
+        proximo.put(i, offsets.get(i));
+        proximoReverso.put(i, offsetsReversos.get(i));
+      }
+      destinos = inteiros((int) contadas);
+      pesos = inteiros((int) contadas);
+      origensReversas = inteiros((int) contadas);
+      pesosReversos = inteiros((int) contadas);
+    }
+
+    private IntBuffer inteiros(int quantidade) {
+      return armazenamento == Armazenamento.HEAP ? IntBuffer.wrap(new int[quantidade]) : GrafoEmBuffers.inteiros(quantidade);
+    }
+
+    private DoubleBuffer decimais(int quantidade) {
+      return armazenamento == Armazenamento.HEAP ? DoubleBuffer.wrap(new double[quantidade])
+          : GrafoEmBuffers.decimais(quantidade);
+    }
+
+    private void validarNo(int no) {
+      if (no < 0 || no >= nos) {
+        throw new IllegalArgumentException("Nó inexistente: " + no);
+      }
+    }
+  }
+}
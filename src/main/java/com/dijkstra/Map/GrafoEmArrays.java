@@ -0,0 +1,120 @@
+package com.dijkstra.Map;
+
+/**
+ * {@link GrafoCompacto} em arrays primitivos no heap: o resultado do
+ * {@link GrafoCompacto.Construtor}, do {@link GrafoCompacto.ConstrutorCsr}
+ * e de {@link Grafo#congelar()}.
+ */
+final class GrafoEmArrays extends GrafoCompacto {
+  private final int[] offsets;
+  private final int[] destinos;
+  private final int[] pesos;
+  private final int[] offsetsReversos;
+  private final int[] origensReversas;
+  private final int[] pesosReversos;
+  private final double[] latitudes;
+  private final double[] longitudes;
+  private final String[] nomes;
+  private final String[] estados;
+  // Só existe quando o grafo foi congelado a partir de um Grafo de objetos
+  private final Cidade[] cidades;
+  // Escala da distância geodésica que nunca supera o peso de nenhuma aresta
+  private final double fatorHeuristico;
+
+  GrafoEmArrays(int[] offsets, int[] destinos, int[] pesos,
+      int[] offsetsReversos, int[] origensReversas, int[] pesosReversos,
+      double[] latitudes, double[] longitudes, String[] nomes, String[] estados, Cidade[] cidades) {
+    this.offsets = offsets;
+    this.destinos = destinos;
+    this.pesos = pesos;
+    this.offsetsReversos = offsetsReversos;
+    this.origensReversas = origensReversas;
+    this.pesosReversos = pesosReversos;
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+    this.nomes = nomes;
+    this.estados = estados;
+    this.cidades = cidades;
+    this.fatorHeuristico = calcularFatorHeuristico();
+  }
+
+  @Override
+  public int numeroDeNos() {
+    return latitudes.length;
+  }
+
+  @Override
+  public int numeroDeArestas() {
+    return destinos.length;
+  }
+
+  @Override
+  public int inicio(int no) {
+    return offsets[no];
+  }
+
+  @Override
+  public int fim(int no) {
+    return offsets[no + 1];
+  }
+
+  @Override
+  public int destino(int aresta) {
+    return destinos[aresta];
+  }
+
+  @Override
+  public int peso(int aresta) {
+    return pesos[aresta];
+  }
+
+  @Override
+  public int inicioReverso(int no) {
+    return offsetsReversos[no];
+  }
+
+  @Override
+  public int fimReverso(int no) {
+    return offsetsReversos[no + 1];
+  }
+
+  @Override
+  public int origemReversa(int arestaReversa) {
+    return origensReversas[arestaReversa];
+  }
+
+  @Override
+  public int pesoReverso(int arestaReversa) {
+    return pesosReversos[arestaReversa];
+  }
+
+  @Override
+  public double latitude(int no) {
+    return latitudes[no];
+  }
+
+  @Override
+  public double longitude(int no) {
+    return longitudes[no];
+  }
+
+  @Override
+  public double fatorHeuristico() {
+    return fatorHeuristico;
+  }
+
+  @Override
+  String nomeOuNull(int no) {
+    return nomes == null ? null : nomes[no];
+  }
+
+  @Override
+  public String estado(int no) {
+    return estados == null ? null : estados[no];
+  }
+
+  @Override
+  Cidade cidadeOriginal(int no) {
+    return cidades == null ? null : cidades[no];
+  }
+}
@@ -0,0 +1,194 @@
+package com.dijkstra.Map;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link GrafoCompacto} lido direto de buffers, sem copiar para arrays: as
+ * seções de um {@link ArquivoDeGrafo} mapeado em memória ou buffers diretos
+ * fora do heap ({@link Armazenamento#FORA_DO_HEAP}). As leituras são
+ * absolutas, então o mesmo grafo atende várias threads.
+ *
+ * Nomes e estados ficam em uma tabela de strings UTF-8: cada nó guarda o
+ * índice da string (ou -1) e o texto só é decodificado quando pedido. Sem
+ * nenhum nome (ou estado) no grafo, o buffer correspondente é null.
+ */
+final class GrafoEmBuffers extends GrafoCompacto {
+  private final int nos;
+  private final int arestas;
+  private final IntBuffer offsets;
+  private final IntBuffer destinos;
+  private final IntBuffer pesos;
+  private final IntBuffer offsetsReversos;
+  private final IntBuffer origensReversas;
+  private final IntBuffer pesosReversos;
+  private final DoubleBuffer latitudes;
+  private final DoubleBuffer longitudes;
+  private final IntBuffer nomes;
+  private final IntBuffer estados;
+  private final IntBuffer inicioDasStrings;
+  private final ByteBuffer bytesDasStrings;
+  private final double fatorHeuristico;
+
+  /**
+   * Com {@code fatorHeuristico} NaN o fator é calculado percorrendo as
+   * arestas; com {@code assinatura} 0, ela é calculada na primeira chamada.
+   */
+  GrafoEmBuffers(int nos, int arestas, IntBuffer offsets, IntBuffer destinos, IntBuffer pesos,
+      IntBuffer offsetsReversos, IntBuffer origensReversas, IntBuffer pesosReversos,
+      DoubleBuffer latitudes, DoubleBuffer longitudes, IntBuffer nomes, IntBuffer estados,
+      IntBuffer inicioDasStrings, ByteBuffer bytesDasStrings, double fatorHeuristico, long assinatura) {
+    super(assinatura);
+    this.nos = nos;
+    this.arestas = arestas;
+    this.offsets = offsets;
+    this.destinos = destinos;
+    this.pesos = pesos;
+    this.offsetsReversos = offsetsReversos;
+    this.origensReversas = origensReversas;
+    this.pesosReversos = pesosReversos;
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+    this.nomes = nomes;
+    this.estados = estados;
+    this.inicioDasStrings = inicioDasStrings;
+    this.bytesDasStrings = bytesDasStrings;
+    this.fatorHeuristico = Double.isNaN(fatorHeuristico) ? calcularFatorHeuristico() : fatorHeuristico;
+  }
+
+  /** Cópia do grafo em buffers diretos. */
+  static GrafoEmBuffers copiar(GrafoCompacto grafo) {
+    int nos = grafo.numeroDeNos();
+    int arestas = grafo.numeroDeArestas();
+    IntBuffer offsets = inteiros(nos + 1);
+    IntBuffer offsetsReversos = inteiros(nos + 1);
+    DoubleBuffer latitudes = decimais(nos);
+    DoubleBuffer longitudes = decimais(nos);
+    for (int no = 0; no < nos; no++) {
+      offsets.put(no, grafo.inicio(no));
+      offsetsReversos.put(no, grafo.inicioReverso(no));
+      latitudes.put(no, grafo.latitude(no));
+      longitudes.put(no, grafo.longitude(no));
+    }
+    offsets.put(nos, arestas);
+    offsetsReversos.put(nos, arestas);
+    IntBuffer destinos = inteiros(arestas);
+    IntBuffer pesos = inteiros(arestas);
+    IntBuffer origensReversas = inteiros(arestas);
+    IntBuffer pesosReversos = inteiros(arestas);
+    for (int a = 0; a < arestas; a++) {
+      destinos.put(a, grafo.destino(a));
+      pesos.put(a, grafo.peso(a));
+      origensReversas.put(a, grafo.origemReversa(a));
+      pesosReversos.put(a, grafo.pesoReverso(a));
+    }
+    TabelaDeStrings tabela = new TabelaDeStrings(nos, grafo::nomeOuNull, grafo::estado);
+    return new GrafoEmBuffers(nos, arestas, offsets, destinos, pesos, offsetsReversos, origensReversas, pesosReversos,
+        latitudes, longitudes, tabela.nomesForaDoHeap(), tabela.estadosForaDoHeap(), tabela.inicioForaDoHeap(),
+        tabela.bytesForaDoHeap(), grafo.fatorHeuristico(), 0);
+  }
+
+  /** Buffer direto de ints, na ordem de bytes da plataforma. */
+  static IntBuffer inteiros(int quantidade) {
+    return bytes((long) quantidade * Integer.BYTES).asIntBuffer();
+  }
+
+  static DoubleBuffer decimais(int quantidade) {
+    return bytes((long) quantidade * Double.BYTES).asDoubleBuffer();
+  }
+
+  static ByteBuffer bytes(long quantidade) {
+    if (quantidade > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Array fora do heap passaria de 2 GB: " + quantidade + " bytes");
+    }
+    return ByteBuffer.allocateDirect((int) quantidade).order(ByteOrder.nativeOrder());
+  }
+
+  @Override
+  public int numeroDeNos() {
+    return nos;
+  }
+
+  @Override
+  public int numeroDeArestas() {
+    return arestas;
+  }
+
+  @Override
+  public int inicio(int no) {
+    return offsets.get(no);
+  }
+
+  @Override
+  public int fim(int no) {
+    return offsets.get(no + 1);
+  }
+
+  @Override
+  public int destino(int aresta) {
+    return destinos.get(aresta);
+  }
+
+  @Override
+  public int peso(int aresta) {
+    return pesos.get(aresta);
+  }
+
+  @Override
+  public int inicioReverso(int no) {
+    return offsetsReversos.get(no);
+  }
+
+  @Override
+  public int fimReverso(int no) {
+    return offsetsReversos.get(no + 1);
+  }
+
+  @Override
+  public int origemReversa(int arestaReversa) {
+    return origensReversas.get(arestaReversa);
+  }
+
+  @Override
+  public int pesoReverso(int arestaReversa) {
+    return pesosReversos.get(arestaReversa);
+  }
+
+  @Override
+  public double latitude(int no) {
+    return latitudes.get(no);
+  }
+
+  @Override
+  public double longitude(int no) {
+    return longitudes.get(no);
+  }
+
+  @Override
+  public double fatorHeuristico() {
+    return fatorHeuristico;
+  }
+
+  @Override
+  String nomeOuNull(int no) {
+    return nomes == null ? null : string(nomes.get(no));
+  }
+
+  @Override
+  public String estado(int no) {
+    return estados == null ? null : string(estados.get(no));
+  }
+
+  private String string(int indice) {
+    if (indice < 0) {
+      return null;
+    }
+    int inicio = inicioDasStrings.get(indice);
+    byte[] bytes = new byte[inicioDasStrings.get(indice + 1) - inicio];
+    bytesDasStrings.get(inicio, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,193 @@
+package com.dijkstra.Map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Grafo que muda enquanto é consultado: interdições de vias e alterações de
+ * peso são publicadas como novas {@link VersaoDoGrafo versões} imutáveis.
+ *
+ * Quem lê pega a versão atual ({@link #atual()}, uma leitura volátil, sem
+ * trava) e roteia sobre ela até o fim, mesmo que outra seja publicada no
+ * meio da busca. Quem escreve junta as alterações em {@link Alteracoes} e as
+ * publica de uma vez: a versão nova copia só as páginas de pesos que mudam e
+ * substitui a atual atomicamente. Escritores concorrentes não se perdem: se
+ * outra versão foi publicada antes, as alterações são reaplicadas sobre ela.
+ *
+ * A topologia é fixa: cidades e vias novas entram pelo {@link Grafo}, que
+ * gera um novo grafo base. Marcos do ALT e hierarquias de contração valem
+ * só para a versão 0 (e para as que voltam aos mesmos pesos); nas outras,
+ * {@link com.dijkstra.Navegador} os recusa e é preciso usar os algoritmos
+ * sem pré-processamento ou refazê-lo sobre a versão.
+ */
+public final class GrafoVersionado {
+  // Peso reservado das operações de reabrir: volta ao peso do grafo base
+  private static final int PESO_DA_BASE = -1;
+
+  private final GrafoCompacto base;
+  private final AtomicReference<VersaoDoGrafo> atual;
+
+  public GrafoVersionado(GrafoCompacto base) {
+    this.base = Objects.requireNonNull(base);
+    this.atual = new AtomicReference<>(VersaoDoGrafo.inicial(base));
+  }
+
+  /** Versão mais recente publicada; continua válida (e imutável) depois das seguintes. */
+  public VersaoDoGrafo atual() {
+    return atual.get();
+  }
+
+  public GrafoCompacto base() {
+    return base;
+  }
+
+  /** Alterações a publicar juntas, como uma única versão. */
+  public Alteracoes alterar() {
+    return new Alteracoes();
+  }
+
+  /**
+   * Lote de alterações de peso sobre as arestas entre dois nós (todas as
+   * arestas paralelas de origem para destino). Nada muda até
+   * {@link #publicar()}.
+   */
+  public final class Alteracoes {
+    private final List<int[]> operacoes = new ArrayList<>();
+
+    private Alteracoes() {
+    }
+
+    /** Interdita a via de mão única de origem para destino. */
+    public Alteracoes fechar(int origem, int destino) {
+      return definir(origem, destino, GrafoCompacto.PESO_FECHADO);
+    }
+
+    /** Interdita os dois sentidos da via. */
+    public Alteracoes fecharNosDoisSentidos(int a, int b) {
+      return fechar(a, b).fechar(b, a);
+    }
+
+    /** Volta a via de origem para destino ao peso do grafo base. */
+    public Alteracoes reabrir(int origem, int destino) {
+      return definir(origem, destino, PESO_DA_BASE);
+    }
+
+    public Alteracoes reabrirNosDoisSentidos(int a, int b) {
+      return reabrir(a, b).reabrir(b, a);
+    }
+
+    /** Novo peso da via de origem para destino (ex.: trânsito lento). */
+    public Alteracoes alterarPeso(int origem, int destino, int peso) {
+      if (peso < 0 || peso == GrafoCompacto.PESO_FECHADO) {
+        throw new IllegalArgumentException("Peso inválido: " + peso + " (para interditar, use fechar)");
+      }
+      return definir(origem, destino, peso);
+    }
+
+    private Alteracoes definir(int origem, int destino, int peso) {
+      if (origem < 0 || origem >= base.numeroDeNos() || destino < 0 || destino >= base.numeroDeNos()) {
+        throw new IllegalArgumentException("Nó inexistente: " + origem + " -> " + destino);
+      }
+      if (!existeAresta(origem, destino)) {
+        throw new IllegalArgumentException("Não há aresta de " + base.nome(origem) + " para " + base.nome(destino));
+      }
+      operacoes.add(new int[] { origem, destino, peso });
+      return this;
+    }
+
+    /**
+     * Publica as alterações como a nova versão atual e a devolve. Só as
+     * páginas de pesos tocadas são copiadas.
+     */
+    public VersaoDoGrafo publicar() {
+      while (true) {
+        VersaoDoGrafo anterior = atual.get();
+        VersaoDoGrafo nova = aplicar(anterior);
+        if (atual.compareAndSet(anterior, nova)) {
+          return nova;
+        }
+      }
+    }
+
+    private VersaoDoGrafo aplicar(VersaoDoGrafo anterior) {
+      int[][] paginas = anterior.paginas().clone();
+      int[][] paginasReversas = anterior.paginasReversas().clone();
+      // Páginas já copiadas nesta versão, que podem ser alteradas no lugar
+      boolean[] copiadas = new boolean[paginas.length];
+      boolean[] copiadasReversas = new boolean[paginasReversas.length];
+      double fator = anterior.fatorHeuristico();
+      for (int[] operacao : operacoes) {
+        int origem = operacao[0];
+        int destino = operacao[1];
+        for (int a = base.inicio(origem), fim = base.fim(origem); a < fim; a++) {
+          if (base.destino(a) == destino) {
+            int peso = pesoFinal(operacao[2], base.peso(a));
+            escrever(paginas, copiadas, a, peso, false);
+            fator = ajustarFator(fator, origem, destino, peso);
+          }
+        }
+        for (int r = base.inicioReverso(destino), fim = base.fimReverso(destino); r < fim; r++) {
+          if (base.origemReversa(r) == origem) {
+            escrever(paginasReversas, copiadasReversas, r, pesoFinal(operacao[2], base.pesoReverso(r)), true);
+          }
+        }
+      }
+      return new VersaoDoGrafo(base, anterior.numero() + 1, paginas, paginasReversas, fator);
+    }
+
+    private void escrever(int[][] paginas, boolean[] copiadas, int aresta, int peso, boolean reversa) {
+      int indice = aresta >>> VersaoDoGrafo.BITS_DA_PAGINA;
+      if (!copiadas[indice]) {
+        int[] pagina = paginas[indice];
+        paginas[indice] = pagina != null ? pagina.clone() : paginaDaBase(indice, reversa);
+        copiadas[indice] = true;
+      }
+      paginas[indice][aresta & (VersaoDoGrafo.ARESTAS_POR_PAGINA - 1)] = peso;
+    }
+  }
+
+  private static int pesoFinal(int pesoDaOperacao, int pesoDaBase) {
+    return pesoDaOperacao == PESO_DA_BASE ? pesoDaBase : pesoDaOperacao;
+  }
+
+  /**
+   * O fator do A* só pode diminuir: um peso menor que a linha reta vezes o
+   * fator o reduz; pesos maiores (e interdições) o mantêm.
+   */
+  private double ajustarFator(double fator, int origem, int destino, int peso) {
+    double linhaReta = base.distanciaGeodesica(origem, destino);
+    if (peso != GrafoCompacto.PESO_FECHADO && linhaReta > 0 && peso < fator * linhaReta) {
+      return peso / linhaReta * (1 - 1e-9);
+    }
+    return fator;
+  }
+
+  private boolean existeAresta(int origem, int destino) {
+    for (int a = base.inicio(origem), fim = base.fim(origem); a < fim; a++) {
+      if (base.destino(a) == destino) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int[] paginaDaBase(int indice, boolean reversa) {
+    int primeira = indice << VersaoDoGrafo.BITS_DA_PAGINA;
+    int ultima = Math.min(primeira + VersaoDoGrafo.ARESTAS_POR_PAGINA, base.numeroDeArestas());
+    int[] pagina = new int[VersaoDoGrafo.ARESTAS_POR_PAGINA];
+    for (int a = primeira; a < ultima; a++) {
+      pagina[a - primeira] = reversa ? base.pesoReverso(a) : base.peso(a);
+    }
+    return pagina;
+  }
+
+  @Override
+  public String toString() {
+    VersaoDoGrafo versao = atual();
+    long alteradas = Arrays.stream(versao.paginas()).filter(Objects::nonNull).count();
+    return "GrafoVersionado[versao=" + versao.numero() + ", paginasAlteradas=" + alteradas + "]";
+  }
+}
@@ -0,0 +1,87 @@
+package com.dijkstra.Map;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Nomes e estados dos nós como tabela de strings UTF-8 sem repetição: cada
+ * nó guarda o índice da sua string (ou -1). É o formato usado no
+ * {@link ArquivoDeGrafo} e no {@link GrafoEmBuffers}.
+ */
+final class TabelaDeStrings {
+  final int[] nomes;
+  final int[] estados;
+  final boolean temNomes;
+  final boolean temEstados;
+  final List<byte[]> strings = new ArrayList<>();
+  final long totalDeBytes;
+
+  TabelaDeStrings(int nos, IntFunction<String> nome, IntFunction<String> estado) {
+    Map<String, Integer> indices = new HashMap<>();
+    nomes = new int[nos];
+    estados = new int[nos];
+    boolean algumNome = false;
+    boolean algumEstado = false;
+    for (int no = 0; no < nos; no++) {
+      nomes[no] = indice(nome.apply(no), indices);
+      estados[no] = indice(estado.apply(no), indices);
+      algumNome |= nomes[no] >= 0;
+      algumEstado |= estados[no] >= 0;
+    }
+    temNomes = algumNome;
+    temEstados = algumEstado;
+    long total = 0;
+    for (byte[] string : strings) {
+      total += string.length;
+    }
+    totalDeBytes = total;
+  }
+
+  /** Índices dos nomes em um buffer direto, ou null se nenhum nó tem nome. */
+  IntBuffer nomesForaDoHeap() {
+    return temNomes ? GrafoEmBuffers.inteiros(nomes.length).put(0, nomes) : null;
+  }
+
+  IntBuffer estadosForaDoHeap() {
+    return temEstados ? GrafoEmBuffers.inteiros(estados.length).put(0, estados) : null;
+  }
+
+  /** Posição inicial de cada string (mais o total no fim), em um buffer direto. */
+  IntBuffer inicioForaDoHeap() {
+    IntBuffer inicio = GrafoEmBuffers.inteiros(strings.size() + 1);
+    int posicao = 0;
+    for (int i = 0; i < strings.size(); i++) {
+      inicio.put(i, posicao);
+      posicao += strings.get(i).length;
+    }
+    inicio.put(strings.size(), posicao);
+    return inicio;
+  }
+
+  ByteBuffer bytesForaDoHeap() {
+    ByteBuffer bytes = GrafoEmBuffers.bytes(totalDeBytes);
+    for (byte[] string : strings) {
+      bytes.put(string);
+    }
+    return bytes.flip();
+  }
+
+  private int indice(String texto, Map<String, Integer> indices) {
+    if (texto == null) {
+      return -1;
+    }
+    Integer indice = indices.get(texto);
+    if (indice == null) {
+      indice = strings.size();
+      indices.put(texto, indice);
+      strings.add(texto.getBytes(StandardCharsets.UTF_8));
+    }
+    return indice;
+  }
+}
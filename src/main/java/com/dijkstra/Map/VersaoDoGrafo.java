@@ -0,0 +1,201 @@
+package com.dijkstra.Map;
+
+import java.util.Arrays;
+
+/**
+ * Uma versão imutável de um {@link GrafoVersionado}: a topologia, os nomes e
+ * as coordenadas são os do grafo base; só os pesos podem mudar entre as
+ * versões.
+ *
+ * Os pesos alterados ficam em páginas de {@link #ARESTAS_POR_PAGINA}
+ * arestas. Uma página que nunca mudou é null e o peso vem do grafo base;
+ * uma versão nova copia só as páginas que altera e compartilha as outras
+ * com a anterior, que continua valendo para quem ainda a usa.
+ */
+public final class VersaoDoGrafo extends GrafoCompacto {
+  static final int BITS_DA_PAGINA = 12;
+  public static final int ARESTAS_POR_PAGINA = 1 << BITS_DA_PAGINA;
+  private static final int MASCARA_DA_PAGINA = ARESTAS_POR_PAGINA - 1;
+
+  private final GrafoCompacto base;
+  private final long numero;
+  private final int[][] paginas;
+  private final int[][] paginasReversas;
+  private final double fatorHeuristico;
+
+  VersaoDoGrafo(GrafoCompacto base, long numero, int[][] paginas, int[][] paginasReversas, double fatorHeuristico) {
+    this.base = base;
+    this.numero = numero;
+    this.paginas = paginas;
+    this.paginasReversas = paginasReversas;
+    this.fatorHeuristico = fatorHeuristico;
+  }
+
+  /** Primeira versão, com os pesos do próprio grafo. */
+  static VersaoDoGrafo inicial(GrafoCompacto base) {
+    return new VersaoDoGrafo(base, 0, new int[paginas(base.numeroDeArestas())][],
+        new int[paginas(base.numeroDeArestas())][], base.fatorHeuristico());
+  }
+
+  static int paginas(int arestas) {
+    return (arestas + ARESTAS_POR_PAGINA - 1) >>> BITS_DA_PAGINA;
+  }
+
+  /** Conta as versões publicadas: 0 é o grafo base, sem alterações. */
+  public long numero() {
+    return numero;
+  }
+
+  public GrafoCompacto base() {
+    return base;
+  }
+
+  /** Se a aresta (índice da adjacência direta) está interditada nesta versão. */
+  public boolean fechada(int aresta) {
+    return peso(aresta) == PESO_FECHADO;
+  }
+
+  @Override
+  public int numeroDeNos() {
+    return base.numeroDeNos();
+  }
+
+  @Override
+  public int numeroDeArestas() {
+    return base.numeroDeArestas();
+  }
+
+  @Override
+  public long assinatura() {
+    // Sem alterações, os dados pré-processados do grafo base continuam valendo
+    return numero == 0 ? base.assinatura() : super.assinatura();
+  }
+
+  @Override
+  public int inicio(int no) {
+    return base.inicio(no);
+  }
+
+  @Override
+  public int fim(int no) {
+    return base.fim(no);
+  }
+
+  @Override
+  public int destino(int aresta) {
+    return base.destino(aresta);
+  }
+
+  @Override
+  public int peso(int aresta) {
+    int[] pagina = paginas[aresta >>> BITS_DA_PAGINA];
+    return pagina == null ? base.peso(aresta) : pagina[aresta & MASCARA_DA_PAGINA];
+  }
+
+  @Override
+  public int inicioReverso(int no) {
+    return base.inicioReverso(no);
+  }
+
+  @Override
+  public int fimReverso(int no) {
+    return base.fimReverso(no);
+  }
+
+  @Override
+  public int origemReversa(int arestaReversa) {
+    return base.origemReversa(arestaReversa);
+  }
+
+  @Override
+  public int pesoReverso(int arestaReversa) {
+    int[] pagina = paginasReversas[arestaReversa >>> BITS_DA_PAGINA];
+    return pagina == null ? base.pesoReverso(arestaReversa) : pagina[arestaReversa & MASCARA_DA_PAGINA];
+  }
+
+  @Override
+  public double latitude(int no) {
+    return base.latitude(no);
+  }
+
+  @Override
+  public double longitude(int no) {
+    return base.longitude(no);
+  }
+
+  @Override
+  public double fatorHeuristico() {
+    return fatorHeuristico;
+  }
+
+  @Override
+  String nomeOuNull(int no) {
+    return base.nomeOuNull(no);
+  }
+
+  @Override
+  public String estado(int no) {
+    return base.estado(no);
+  }
+
+  @Override
+  Cidade cidadeOriginal(int no) {
+    return base.cidadeOriginal(no);
+  }
+
+  @Override
+  public int indiceDe(String nome) {
+    // O índice por nome é o do grafo base, montado uma vez para todas as versões
+    return base.indiceDe(nome);
+  }
+
+  /**
+   * Arestas (índices da adjacência direta) cujo peso é diferente em
+   * {@code anterior}, que deve ser o grafo base ou outra versão dele, em
+   * ordem crescente. Páginas compartilhadas entre as duas versões nem são
+   * percorridas, então o custo é proporcional às páginas alteradas.
+   */
+  public int[] arestasAlteradasDesde(GrafoCompacto anterior) {
+    int[][] paginasAnteriores;
+    if (anterior == base) {
+      paginasAnteriores = new int[paginas.length][];
+    } else if (anterior instanceof VersaoDoGrafo && ((VersaoDoGrafo) anterior).base == base) {
+      paginasAnteriores = ((VersaoDoGrafo) anterior).paginas;
+    } else {
+      throw new IllegalArgumentException("O grafo informado não é uma versão do mesmo grafo base");
+    }
+    int[] alteradas = new int[16];
+    int quantidade = 0;
+    for (int p = 0; p < paginas.length; p++) {
+      if (paginas[p] == paginasAnteriores[p]) {
+        continue;
+      }
+      int primeira = p << BITS_DA_PAGINA;
+      int ultima = Math.min(primeira + ARESTAS_POR_PAGINA, numeroDeArestas());
+      for (int a = primeira; a < ultima; a++) {
+        int antes = paginasAnteriores[p] == null ? base.peso(a) : paginasAnteriores[p][a - primeira];
+        int depois = paginas[p] == null ? base.peso(a) : paginas[p][a - primeira];
+        if (antes != depois) {
+          if (quantidade == alteradas.length) {
+            alteradas = Arrays.copyOf(alteradas, quantidade * 2);
+          }
+          alteradas[quantidade++] = a;
+        }
+      }
+    }
+    return Arrays.copyOf(alteradas, quantidade);
+  }
+
+  int[][] paginas() {
+    return paginas;
+  }
+
+  int[][] paginasReversas() {
+    return paginasReversas;
+  }
+
+  @Override
+  public String toString() {
+    return "VersaoDoGrafo[numero=" + numero + ", nos=" + numeroDeNos() + ", arestas=" + numeroDeArestas() + "]";
+  }
+}
@@ -1,15 +1,33 @@
 package com.dijkstra;
 
 import java.util.*;
+import java.util.stream.Stream;
 
-import com.dijkstra.Map.Aresta;
 import com.dijkstra.Map.Cidade;
 import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.AEstrela;
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.CaminhosAlternativos;
+import com.dijkstra.busca.Dijkstra;
+import com.dijkstra.busca.DijkstraBidirecional;
+import com.dijkstra.busca.DistanciasDaOrigem;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.MatrizDeDistancias;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.TabelaDeDistancias;
+import com.dijkstra.busca.TipoHeap;
+import com.dijkstra.busca.UmParaMuitos;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+import com.dijkstra.metricas.Metricas;
 
 /**
  * Lógica do algoritmo de Dijkstra para encontrar o caminho mais curto.
  * Esta classe é uma versão adaptada da sua, utilizando a nova estrutura de
- * dados.
+ * dados. A busca roda sobre a versão compacta (CSR) do grafo, com o
+ * algoritmo escolhido em {@link OpcoesDeRota}; as implementações ficam no
+ * pacote {@code com.dijkstra.busca}.
  */
 public class Navegador {
 
@@ -17,10 +35,17 @@ public class Navegador {
   public static class Resultado {
     public final List<Cidade> caminho;
     public final int distanciaTotal;
+    // Quantos nós a busca retirou da fila; permite comparar os algoritmos
+    public final int nosAssentados;
 
     public Resultado(List<Cidade> caminho, int distanciaTotal) {
+      this(caminho, distanciaTotal, 0);
+    }
+
+    public Resultado(List<Cidade> caminho, int distanciaTotal, int nosAssentados) {
       this.caminho = caminho;
       this.distanciaTotal = distanciaTotal;
+      this.nosAssentados = nosAssentados;
     }
 
     public boolean temCaminho() {
@@ -29,60 +54,176 @@ public class Navegador {
   }
 
   public static Resultado calcularRota(Grafo grafo, Cidade inicio, Cidade destino) {
-    Map<Cidade, Integer> distancias = new HashMap<>();
-    Map<Cidade, Cidade> predecessores = new HashMap<>();
-    // PriorityQueue é mais eficiente para Dijkstra do que verificar a lista toda a
-    // cada iteração
-    PriorityQueue<Cidade> filaPrioridade = new PriorityQueue<>(Comparator.comparingInt(distancias::get));
-
-    // 1. Inicialização
-    for (Cidade cidade : grafo.getCidades()) {
-      distancias.put(cidade, Integer.MAX_VALUE);
-      predecessores.put(cidade, null);
+    return calcularRota(grafo, inicio, destino, OpcoesDeRota.padrao());
+  }
+
+  public static Resultado calcularRota(Grafo grafo, Cidade inicio, Cidade destino, OpcoesDeRota opcoes) {
+    GrafoCompacto compacto = grafo.congelar();
+    int indiceInicio = compacto.indiceDe(inicio);
+    int indiceDestino = compacto.indiceDe(destino);
+    if (indiceInicio < 0 || indiceDestino < 0) {
+      return new Resultado(Collections.emptyList(), -1);
     }
-    distancias.put(inicio, 0);
-    filaPrioridade.add(inicio);
+    return calcularRota(compacto, indiceInicio, indiceDestino, opcoes);
+  }
 
-    // 2. Loop principal do algoritmo
-    while (!filaPrioridade.isEmpty()) {
-      Cidade cidadeAtual = filaPrioridade.poll();
+  public static Resultado calcularRota(GrafoCompacto grafo, int inicio, int destino) {
+    return calcularRota(grafo, inicio, destino, OpcoesDeRota.padrao());
+  }
 
-      if (cidadeAtual.equals(destino)) {
-        break; // Otimização: para quando o destino é alcançado
-      }
+  /** Dijkstra unidirecional com o tipo de fila de prioridade informado. */
+  public static Resultado calcularRota(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    return calcularRota(grafo, inicio, destino, OpcoesDeRota.padrao().comHeap(tipoHeap));
+  }
 
-      // Para cada vizinho da cidade atual
-      for (Aresta aresta : cidadeAtual.getVizinhos()) {
-        Cidade vizinho = aresta.getDestino();
-        int novaDistancia = distancias.get(cidadeAtual) + aresta.getDistancia();
-
-        // Se um caminho mais curto for encontrado
-        if (novaDistancia < distancias.get(vizinho)) {
-          distancias.put(vizinho, novaDistancia);
-          predecessores.put(vizinho, cidadeAtual);
-          // Atualiza a prioridade na fila
-          filaPrioridade.remove(vizinho);
-          filaPrioridade.add(vizinho);
+  /**
+   * Calcula a rota sobre a representação compacta (CSR) do grafo, com o
+   * algoritmo e a fila definidos nas opções. Os nós são identificados pelos
+   * seus índices em {@link GrafoCompacto}.
+   */
+  public static Resultado calcularRota(GrafoCompacto grafo, int inicio, int destino, OpcoesDeRota opcoes) {
+    return converter(grafo, buscarCaminho(grafo, inicio, destino, opcoes));
+  }
+
+  /**
+   * Como {@link #calcularRota(GrafoCompacto, int, int, OpcoesDeRota)}, mas
+   * devolve o caminho em índices de nós, sem criar as {@link Cidade}s; é o
+   * que serve para quem lê as coordenadas direto do grafo (ex.: o servidor HTTP).
+   */
+  public static CaminhoMinimo buscarCaminho(GrafoCompacto grafo, int inicio, int destino, OpcoesDeRota opcoes) {
+    if (!Metricas.medindo()) {
+      return executar(grafo, inicio, destino, opcoes);
+    }
+    Metricas.Medicao medicao = Metricas.iniciar();
+    CaminhoMinimo caminho = executar(grafo, inicio, destino, opcoes);
+    Metricas.concluir(medicao, opcoes.getAlgoritmo(), inicio, destino, caminho);
+    return caminho;
+  }
+
+  private static CaminhoMinimo executar(GrafoCompacto grafo, int inicio, int destino, OpcoesDeRota opcoes) {
+    CaminhoMinimo caminho;
+    switch (opcoes.getAlgoritmo()) {
+      case BIDIRECIONAL:
+        caminho = DijkstraBidirecional.buscar(grafo, inicio, destino, opcoes.getTipoHeap());
+        break;
+      case A_ESTRELA:
+        caminho = AEstrela.buscar(grafo, inicio, destino, opcoes.getTipoHeap());
+        break;
+      case ALT:
+        Marcos marcos = opcoes.getMarcos();
+        if (!marcos.compativelCom(grafo)) {
+          throw new IllegalArgumentException("Os marcos do ALT foram pré-processados para outro grafo");
+        }
+        caminho = AEstrela.buscar(grafo, inicio, destino, opcoes.getTipoHeap(), marcos.heuristica(inicio, destino));
+        break;
+      case CH:
+        HierarquiaDeContracao hierarquia = opcoes.getHierarquia();
+        if (!hierarquia.compativelCom(grafo)) {
+          throw new IllegalArgumentException("A hierarquia de contração foi construída para outro grafo");
         }
+        caminho = hierarquia.buscar(inicio, destino, opcoes.getTipoHeap());
+        break;
+      case MATRIZ:
+        MatrizDeDistancias matriz = opcoes.getMatriz();
+        if (!matriz.compativelCom(grafo)) {
+          throw new IllegalArgumentException("A matriz de distâncias foi calculada para outro grafo");
+        }
+        caminho = matriz.caminhoMinimo(inicio, destino);
+        break;
+      case DIJKSTRA_RETOMAVEL:
+        caminho = opcoes.getArvores().buscar(grafo, inicio, destino, opcoes.getTipoHeap());
+        break;
+      case DIJKSTRA:
+      default:
+        caminho = Dijkstra.buscar(grafo, inicio, destino, opcoes.getTipoHeap());
+        break;
+    }
+    return caminho;
+  }
+
+  /**
+   * Rotas alternativas do início ao destino, da mais curta para a mais
+   * longa, sem passar duas vezes pela mesma cidade (K caminhos mínimos de
+   * Yen). O stream é preguiçoso: {@code calcularAlternativas(...).limit(10)}
+   * calcula só as 10 primeiras. Vazio se não há caminho.
+   */
+  public static Stream<Resultado> calcularAlternativas(Grafo grafo, Cidade inicio, Cidade destino) {
+    GrafoCompacto compacto = grafo.congelar();
+    int indiceInicio = compacto.indiceDe(inicio);
+    int indiceDestino = compacto.indiceDe(destino);
+    if (indiceInicio < 0 || indiceDestino < 0) {
+      return Stream.empty();
+    }
+    return calcularAlternativas(compacto, indiceInicio, indiceDestino);
+  }
+
+  public static Stream<Resultado> calcularAlternativas(GrafoCompacto grafo, int inicio, int destino) {
+    return CaminhosAlternativos.buscar(grafo, inicio, destino, OpcoesDeRota.padrao().getTipoHeap())
+        .map(caminho -> converter(grafo, caminho));
+  }
+
+  /**
+   * Rotas de uma origem para vários destinos com uma única busca, que para
+   * quando todos os destinos foram alcançados. Os resultados seguem a ordem
+   * dos destinos; destinos fora do grafo ficam sem caminho.
+   */
+  public static List<Resultado> calcularRotas(Grafo grafo, Cidade inicio, List<Cidade> destinos) {
+    GrafoCompacto compacto = grafo.congelar();
+    int indiceInicio = compacto.indiceDe(inicio);
+    int[] indices = new int[destinos.size()];
+    int validos = 0;
+    for (Cidade destino : destinos) {
+      int indice = compacto.indiceDe(destino);
+      if (indice >= 0) {
+        indices[validos++] = indice;
       }
     }
+    DistanciasDaOrigem distancias = indiceInicio < 0 ? null
+        : calcularUmParaMuitos(compacto, indiceInicio, Arrays.copyOf(indices, validos));
 
-    // 3. Reconstrução do caminho
-    List<Cidade> caminho = new ArrayList<>();
-    Cidade passo = destino;
-    // Se o destino não foi alcançado, seu predecessor será null (e ele não é o
-    // início)
-    if (predecessores.get(passo) == null && !passo.equals(inicio)) {
-      return new Resultado(Collections.emptyList(), -1); // Caminho não encontrado
+    List<Resultado> resultados = new ArrayList<>(destinos.size());
+    int proximo = 0;
+    for (Cidade destino : destinos) {
+      if (compacto.indiceDe(destino) < 0 || distancias == null) {
+        resultados.add(new Resultado(Collections.emptyList(), -1));
+      } else {
+        resultados.add(converter(compacto, distancias.caminhoMinimo(proximo++)));
+      }
     }
+    return resultados;
+  }
+
+  /** Distâncias da origem a cada destino em uma busca só; os caminhos são montados sob demanda. */
+  public static DistanciasDaOrigem calcularUmParaMuitos(GrafoCompacto grafo, int inicio, int[] destinos) {
+    return UmParaMuitos.buscar(grafo, inicio, destinos, OpcoesDeRota.padrao().getTipoHeap());
+  }
 
-    while (passo != null) {
-      caminho.add(passo);
-      passo = predecessores.get(passo);
+  /**
+   * Tabela de distâncias entre várias origens e vários destinos. Com o CH,
+   * usa os buckets da hierarquia ({@link HierarquiaDeContracao#muitosParaMuitos});
+   * com os demais algoritmos, uma busca um-para-muitos por origem, em paralelo.
+   */
+  public static TabelaDeDistancias calcularTabela(GrafoCompacto grafo, int[] origens, int[] destinos,
+      OpcoesDeRota opcoes) {
+    if (opcoes.getAlgoritmo() == Algoritmo.CH) {
+      HierarquiaDeContracao hierarquia = opcoes.getHierarquia();
+      if (!hierarquia.compativelCom(grafo)) {
+        throw new IllegalArgumentException("A hierarquia de contração foi construída para outro grafo");
+      }
+      return hierarquia.muitosParaMuitos(origens, destinos);
     }
-    Collections.reverse(caminho);
+    return TabelaDeDistancias.calcular(grafo, origens, destinos, opcoes.getTipoHeap());
+  }
 
-    int distanciaFinal = distancias.get(destino);
-    return new Resultado(caminho, distanciaFinal);
+  // Converte o caminho em ids de nós para a lista de cidades do Resultado
+  private static Resultado converter(GrafoCompacto grafo, CaminhoMinimo caminhoMinimo) {
+    if (!caminhoMinimo.existe()) {
+      return new Resultado(Collections.emptyList(), -1, caminhoMinimo.nosAssentados); // Caminho não encontrado
+    }
+    List<Cidade> caminho = new ArrayList<>(caminhoMinimo.nos.length);
+    for (int no : caminhoMinimo.nos) {
+      caminho.add(grafo.cidade(no));
+    }
+    return new Resultado(caminho, caminhoMinimo.distancia, caminhoMinimo.nosAssentados);
   }
-}
\ No newline at end of file
+}
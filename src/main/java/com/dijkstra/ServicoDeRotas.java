@@ -0,0 +1,238 @@
+package com.dijkstra;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dijkstra.Map.Cidade;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.EspacoDeBusca;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.TabelaDeDistancias;
+
+/**
+ * Calcula rotas em segundo plano, fora da thread que as pede (ex.: a thread
+ * de eventos do Swing), e devolve um {@link CompletableFuture}.
+ *
+ * O pool tem um número fixo de threads e uma fila limitada; pedidos além da
+ * fila falham com {@link RejectedExecutionException} em vez de acumular. As
+ * threads são virtuais quando a JVM as oferece (Java 21+), mas continuam em
+ * um pool fixo: cada thread guarda o seu {@link EspacoDeBusca}, que custa
+ * arrays do tamanho do grafo e seria realocado a cada pedido em uma thread
+ * nova.
+ *
+ * Cancelar o future tira o pedido da fila ou interrompe a busca em
+ * andamento, que para no próximo ponto de verificação
+ * ({@link EspacoDeBusca#verificarCancelamento}). Um {@link Canal} faz isso
+ * sozinho: cada pedido novo cancela o anterior do mesmo canal.
+ */
+public final class ServicoDeRotas implements AutoCloseable {
+  private final CacheDeRotas cache;
+  private final ThreadPoolExecutor executor;
+  private final LongAdder concluidos = new LongAdder();
+  private final LongAdder cancelados = new LongAdder();
+  private final LongAdder rejeitados = new LongAdder();
+
+  /** Uma thread por processador e fila de até 64 pedidos. */
+  public ServicoDeRotas(CacheDeRotas cache) {
+    this(Objects.requireNonNull(cache), Runtime.getRuntime().availableProcessors(), 64);
+  }
+
+  /**
+   * @param cache cache das rotas pedidas por {@link Cidade}, ou null se o
+   *              serviço só vai receber pedidos sobre um {@link GrafoCompacto}
+   */
+  public ServicoDeRotas(CacheDeRotas cache, int threads, int capacidadeDaFila) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Número de threads deve ser positivo: " + threads);
+    }
+    if (capacidadeDaFila <= 0) {
+      throw new IllegalArgumentException("Capacidade da fila deve ser positiva: " + capacidadeDaFila);
+    }
+    this.cache = cache;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(capacidadeDaFila), fabricaDeThreads());
+  }
+
+  public CompletableFuture<Navegador.Resultado> calcularRota(Cidade inicio, Cidade destino) {
+    return calcularRota(inicio, destino, OpcoesDeRota.padrao());
+  }
+
+  /** Rota pelo {@link CacheDeRotas}; o cálculo só roda se ela não estiver guardada. */
+  public CompletableFuture<Navegador.Resultado> calcularRota(Cidade inicio, Cidade destino, OpcoesDeRota opcoes) {
+    return submeter(() -> cacheObrigatorio().calcularRota(inicio, destino, opcoes));
+  }
+
+  /** Rota direto sobre o grafo compacto, sem passar pelo cache. */
+  public CompletableFuture<Navegador.Resultado> calcularRota(GrafoCompacto grafo, int inicio, int destino,
+      OpcoesDeRota opcoes) {
+    return submeter(() -> Navegador.calcularRota(grafo, inicio, destino, opcoes));
+  }
+
+  /** Caminho em índices de nós ({@link Navegador#buscarCaminho}), sem criar as cidades. */
+  public CompletableFuture<CaminhoMinimo> buscarCaminho(GrafoCompacto grafo, int inicio, int destino,
+      OpcoesDeRota opcoes) {
+    return submeter(() -> Navegador.buscarCaminho(grafo, inicio, destino, opcoes));
+  }
+
+  /** Tabela de distâncias ({@link Navegador#calcularTabela}) calculada no pool. */
+  public CompletableFuture<TabelaDeDistancias> calcularTabela(GrafoCompacto grafo, int[] origens, int[] destinos,
+      OpcoesDeRota opcoes) {
+    return submeter(() -> Navegador.calcularTabela(grafo, origens, destinos, opcoes));
+  }
+
+  /** Novo canal de pedidos, em que só o mais recente importa (ex.: um por janela ou terminal). */
+  public Canal novoCanal() {
+    return new Canal();
+  }
+
+  /** Pedidos aguardando na fila. */
+  public int pendentes() {
+    return executor.getQueue().size();
+  }
+
+  public long concluidos() {
+    return concluidos.sum();
+  }
+
+  /** Pedidos cancelados antes de terminar, inclusive os descartados por um {@link Canal}. */
+  public long cancelados() {
+    return cancelados.sum();
+  }
+
+  /** Pedidos recusados com a fila cheia. */
+  public long rejeitados() {
+    return rejeitados.sum();
+  }
+
+  /** Cancela os pedidos pendentes e em andamento e encerra as threads. */
+  @Override
+  public void close() {
+    executor.shutdown();
+    executor.getQueue().forEach(tarefa -> ((Tarefa<?>) tarefa).pedido.cancel(true));
+    executor.shutdownNow();
+  }
+
+  @Override
+  public String toString() {
+    return "ServicoDeRotas[threads=" + executor.getMaximumPoolSize() + ", pendentes=" + pendentes() + ", concluidos="
+        + concluidos() + ", cancelados=" + cancelados() + ", rejeitados=" + rejeitados() + "]";
+  }
+
+  private CacheDeRotas cacheObrigatorio() {
+    if (cache == null) {
+      throw new IllegalStateException("Serviço criado sem cache de rotas: peça as rotas pelo GrafoCompacto");
+    }
+    return cache;
+  }
+
+  private <T> Pedido<T> submeter(Callable<T> calculo) {
+    Pedido<T> pedido = new Pedido<>();
+    pedido.tarefa = new Tarefa<>(pedido, calculo);
+    try {
+      executor.execute(pedido.tarefa);
+    } catch (RejectedExecutionException e) {
+      rejeitados.increment();
+      pedido.completeExceptionally(e);
+    }
+    return pedido;
+  }
+
+  /**
+   * Sequência de pedidos em que cada um substitui o anterior: um pedido
+   * novo cancela o que ainda estiver na fila ou em andamento. Serve para a
+   * interface, onde cliques repetidos não devem acumular trabalho inútil.
+   */
+  public final class Canal {
+    private Pedido<Navegador.Resultado> ultimo;
+
+    private Canal() {
+    }
+
+    public CompletableFuture<Navegador.Resultado> calcularRota(Cidade inicio, Cidade destino) {
+      return calcularRota(inicio, destino, OpcoesDeRota.padrao());
+    }
+
+    public synchronized CompletableFuture<Navegador.Resultado> calcularRota(Cidade inicio, Cidade destino,
+        OpcoesDeRota opcoes) {
+      cancelar();
+      ultimo = submeter(() -> cacheObrigatorio().calcularRota(inicio, destino, opcoes));
+      return ultimo;
+    }
+
+    /** Cancela o último pedido do canal, se ainda não terminou. */
+    public synchronized void cancelar() {
+      if (ultimo != null) {
+        ultimo.cancel(true);
+        ultimo = null;
+      }
+    }
+  }
+
+  /** Future que, ao ser cancelado, também cancela a tarefa no pool. */
+  private final class Pedido<T> extends CompletableFuture<T> {
+    volatile Tarefa<T> tarefa;
+
+    @Override
+    public boolean cancel(boolean interromper) {
+      boolean cancelado = super.cancel(interromper);
+      Tarefa<T> atual = tarefa;
+      if (cancelado && atual != null) {
+        cancelados.increment();
+        // Interrompe a busca em andamento e libera a vaga na fila
+        atual.cancel(true);
+        executor.remove(atual);
+      }
+      return cancelado;
+    }
+  }
+
+  /**
+   * O que roda no pool. O {@link FutureTask} cuida da interrupção: só
+   * interrompe a thread enquanto ela ainda executa esta tarefa.
+   */
+  private final class Tarefa<T> extends FutureTask<Void> {
+    final Pedido<T> pedido;
+
+    Tarefa(Pedido<T> pedido, Callable<T> calculo) {
+      super(() -> {
+        try {
+          if (pedido.complete(calculo.call())) {
+            concluidos.increment();
+          }
+        } catch (Throwable e) {
+          // Inclui a CancellationException da busca interrompida: o future fica cancelado
+          pedido.completeExceptionally(e);
+        }
+      }, null);
+      this.pedido = pedido;
+    }
+  }
+
+  /** Threads virtuais se a JVM as tiver (por reflexão, para compilar no Java 17); senão, daemons comuns. */
+  private static ThreadFactory fabricaDeThreads() {
+    try {
+      Class<?> construtor = Class.forName("java.lang.Thread$Builder");
+      Object virtual = Thread.class.getMethod("ofVirtual").invoke(null);
+      Method nome = construtor.getMethod("name", String.class, long.class);
+      return (ThreadFactory) construtor.getMethod("factory").invoke(nome.invoke(virtual, "rotas-", 1L));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      AtomicInteger contador = new AtomicInteger();
+      return tarefa -> {
+        Thread thread = new Thread(tarefa, "rotas-" + contador.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+  }
+}
@@ -9,9 +9,12 @@ import org.jxmapviewer.viewer.*;
 
 import com.dijkstra.Map.Cidade;
 import com.dijkstra.Map.Grafo;
+import com.dijkstra.busca.ArvoresPorOrigem;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.metricas.HistogramaDeLatencia;
 import com.dijkstra.ui.CustomWaypoint;
-import com.dijkstra.ui.CustomWaypointRenderer;
 import com.dijkstra.ui.RoutePainter;
+import com.dijkstra.ui.WaypointLayer;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -21,6 +24,8 @@ import java.awt.event.ActionEvent;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 public class VisualizadorDeRotas extends JFrame {
@@ -36,6 +41,14 @@ public class VisualizadorDeRotas extends JFrame {
   private static final Color TEXT_SECONDARY = new Color(100, 116, 139); // Cinza médio
 
   private final Grafo grafo = Grafo.criarGrafoBrasil();
+  private final CacheDeRotas cacheDeRotas = new CacheDeRotas(grafo, 512);
+  private final ServicoDeRotas servicoDeRotas = new ServicoDeRotas(cacheDeRotas);
+  // A origem costuma ficar fixa enquanto os destinos mudam: a busca de cada origem é guardada e retomada
+  private final OpcoesDeRota opcoesDeRota = OpcoesDeRota.retomavel(new ArvoresPorOrigem(64L << 20));
+  // Cada clique substitui o pedido anterior, que é cancelado se ainda não terminou
+  private final ServicoDeRotas.Canal canalDeRotas = servicoDeRotas.novoCanal();
+  // Último pedido feito pela interface; só ele pode atualizar a tela (acessado só na EDT)
+  private CompletableFuture<Navegador.Resultado> pedidoAtual;
   private final JXMapViewer mapViewer = new JXMapViewer();
   private final CompoundPainter<JXMapViewer> painter = new CompoundPainter<>();
   private RoutePainter rotaAtualPainter;
@@ -123,8 +136,6 @@ public class VisualizadorDeRotas extends JFrame {
   private final Map<String, CustomWaypoint> waypointsMap = new HashMap<>();
 
   private void adicionarWaypointsCidades() {
-    // Note que não estamos mais usando um Set aqui, para poder guardar no painter
-    // depois
     List<CustomWaypoint> waypoints = new ArrayList<>();
     for (Cidade cidade : grafo.getCidades()) {
       CustomWaypoint wp = new CustomWaypoint(cidade.getNome(),
@@ -134,10 +145,8 @@ public class VisualizadorDeRotas extends JFrame {
       waypointsMap.put(cidade.getNome(), wp); // Guarda o waypoint no mapa
     }
 
-    WaypointPainter<CustomWaypoint> waypointPainter = new WaypointPainter<>();
-    waypointPainter.setWaypoints(new HashSet<>(waypoints)); // O painter ainda precisa de um Set
-    waypointPainter.setRenderer(new CustomWaypointRenderer());
-    painter.addPainter(waypointPainter);
+    // Desenha só as cidades na tela e agrupa as que se sobrepõem com o zoom afastado
+    painter.addPainter(new WaypointLayer(waypoints));
   }
 
   private void criarInterface() {
@@ -242,6 +251,10 @@ public class VisualizadorDeRotas extends JFrame {
     cbDestino.setSelectedItem(grafo.getCidade("Brasília"));
     painel.add(cbDestino);
 
+    // Mudar a seleção torna obsoleta a rota que ainda está sendo calculada
+    cbOrigem.addActionListener(e -> cancelarCalculo());
+    cbDestino.addActionListener(e -> cancelarCalculo());
+
     painel.add(Box.createVerticalStrut(30));
 
     // Botões
@@ -455,35 +468,39 @@ public class VisualizadorDeRotas extends JFrame {
       return;
     }
 
-    // Mostra progress bar
+    // Mostra progress bar; o botão continua habilitado, um novo clique substitui este pedido
     progressBar.setVisible(true);
-    btnCalcular.setEnabled(false);
     lblStatus.setText("Calculando a melhor rota...");
     lblStatus.setForeground(PRIMARY_COLOR);
 
-    // Simula processamento em background
-    SwingWorker<Navegador.Resultado, Void> worker = new SwingWorker<Navegador.Resultado, Void>() {
-      @Override
-      protected Navegador.Resultado doInBackground() throws Exception {
-        Thread.sleep(500); // Simula processamento
-        return Navegador.calcularRota(grafo, origem, destino);
+    CompletableFuture<Navegador.Resultado> pedido = canalDeRotas.calcularRota(origem, destino, opcoesDeRota);
+    pedidoAtual = pedido;
+    pedido.whenComplete((resultado, erro) -> SwingUtilities.invokeLater(() -> {
+      if (pedido != pedidoAtual) {
+        return; // Substituído por um pedido mais novo ou cancelado
       }
-
-      @Override
-      protected void done() {
-        try {
-          Navegador.Resultado resultado = get();
-          processarResultado(resultado, origem, destino);
-        } catch (Exception ex) {
-          mostrarMensagem("Erro", "Erro ao calcular rota: " + ex.getMessage(), DANGER_COLOR);
-        } finally {
-          progressBar.setVisible(false);
-          btnCalcular.setEnabled(true);
-        }
+      pedidoAtual = null;
+      progressBar.setVisible(false);
+      if (erro == null) {
+        processarResultado(resultado, origem, destino);
+      } else {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        lblStatus.setText("Falha ao calcular a rota");
+        lblStatus.setForeground(DANGER_COLOR);
+        mostrarMensagem("Erro", "Erro ao calcular rota: " + causa.getMessage(), DANGER_COLOR);
       }
-    };
+    }));
+  }
 
-    worker.execute();
+  private void cancelarCalculo() {
+    if (pedidoAtual == null) {
+      return;
+    }
+    canalDeRotas.cancelar();
+    pedidoAtual = null;
+    progressBar.setVisible(false);
+    lblStatus.setText("Cálculo cancelado");
+    lblStatus.setForeground(TEXT_SECONDARY);
   }
 
   private void processarResultado(Navegador.Resultado resultado, Cidade origem, Cidade destino) {
@@ -491,14 +508,14 @@ public class VisualizadorDeRotas extends JFrame {
     // classe)
 
     // 1. Reseta a cor de todos os waypoints para o padrão antes de cada cálculo
-    final Color COR_PADRAO = new Color(37, 99, 235); // Azul padrão
+    final Color COR_PADRAO = CustomWaypoint.DEFAULT_COLOR; // Azul padrão
     if (waypointsMap != null) {
-      waypointsMap.values().forEach(wp -> wp.setButtonColor(COR_PADRAO));
+      waypointsMap.values().forEach(wp -> wp.setColor(COR_PADRAO));
     }
 
     // Remove o pintor da rota anterior, se houver
     if (rotaAtualPainter != null) {
-      painter.removePainter(rotaAtualPainter);
+      removerRotaAtual();
     }
 
     if (!resultado.temCaminho()) {
@@ -522,10 +539,10 @@ public class VisualizadorDeRotas extends JFrame {
       final Color COR_ORIGEM_DESTINO = new Color(34, 197, 94); // Verde
       if (waypointsMap != null) {
         if (waypointsMap.containsKey(origem.getNome())) {
-          waypointsMap.get(origem.getNome()).setButtonColor(COR_ORIGEM_DESTINO);
+          waypointsMap.get(origem.getNome()).setColor(COR_ORIGEM_DESTINO);
         }
         if (waypointsMap.containsKey(destino.getNome())) {
-          waypointsMap.get(destino.getNome()).setButtonColor(COR_ORIGEM_DESTINO);
+          waypointsMap.get(destino.getNome()).setColor(COR_ORIGEM_DESTINO);
         }
       }
 
@@ -572,9 +589,18 @@ public class VisualizadorDeRotas extends JFrame {
     mapViewer.repaint();
   }
 
+  // Tira a rota do mapa e avisa se a pintura dela passou do orçamento de um quadro
+  private void removerRotaAtual() {
+    painter.removePainter(rotaAtualPainter);
+    HistogramaDeLatencia tempos = rotaAtualPainter.getPaintTimes();
+    if (tempos.quantidade() > 0 && tempos.percentil(99) > RoutePainter.FRAME_BUDGET_NANOS) {
+      System.err.println("Pintura da rota acima de 16 ms: " + tempos);
+    }
+  }
+
   private void limparMapa(ActionEvent e) {
     if (rotaAtualPainter != null) {
-      painter.removePainter(rotaAtualPainter);
+      removerRotaAtual();
       rotaAtualPainter = null;
       mapViewer.repaint();
 
@@ -0,0 +1,70 @@
+package com.dijkstra.busca;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * A* sobre o {@link GrafoCompacto}. Por padrão usa a
+ * {@link HeuristicaGeodesica}: como ela nunca supera o peso de uma aresta, é
+ * consistente e o caminho retornado é ótimo, assentando bem menos nós que o
+ * Dijkstra em consultas com direção geográfica clara. O ALT reaproveita o
+ * mesmo laço com a heurística dos marcos ({@link Marcos}).
+ */
+public final class AEstrela {
+
+  private AEstrela() {
+  }
+
+  public static CaminhoMinimo buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    return buscar(grafo, inicio, destino, tipoHeap, new HeuristicaGeodesica(grafo, destino));
+  }
+
+  public static CaminhoMinimo buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap,
+      Heuristica heuristica) {
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(grafo.numeroDeNos());
+    HeapIndexado filaPrioridade = espaco.heap(tipoHeap);
+    espaco.definir(inicio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    espaco.definirPotencial(inicio, 0);
+    filaPrioridade.inserirOuDiminuir(inicio, 0);
+    int assentados = 0;
+    int relaxadas = 0;
+
+    while (!filaPrioridade.vazio()) {
+      int atual = filaPrioridade.removerMinimo();
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      if (atual == destino) {
+        break;
+      }
+
+      int distanciaAtual = espaco.distancia(atual);
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        relaxadas++;
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          int estimativa;
+          if (espaco.alcancado(vizinho)) {
+            estimativa = espaco.potencial(vizinho);
+          } else {
+            estimativa = heuristica.estimar(vizinho);
+          }
+          espaco.definir(vizinho, novaDistancia, atual);
+          espaco.definirPotencial(vizinho, estimativa);
+          filaPrioridade.inserirOuDiminuir(vizinho, EspacoDeBusca.somar(novaDistancia, estimativa));
+        }
+      }
+    }
+
+    if (!espaco.alcancado(destino)) {
+      return CaminhoMinimo.inexistente(assentados, relaxadas);
+    }
+    return new CaminhoMinimo(espaco.caminhoAte(destino), espaco.distancia(destino), assentados, relaxadas);
+  }
+}
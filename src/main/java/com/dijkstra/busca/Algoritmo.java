@@ -0,0 +1,21 @@
+package com.dijkstra.busca;
+
+/**
+ * Algoritmos de roteamento disponíveis no {@link com.dijkstra.Navegador}.
+ */
+public enum Algoritmo {
+  /** Dijkstra a partir da origem, parando ao alcançar o destino. */
+  DIJKSTRA,
+  /** Dijkstra simultâneo a partir da origem e do destino (adjacência reversa). */
+  BIDIRECIONAL,
+  /** A* guiado pela distância geodésica até o destino. */
+  A_ESTRELA,
+  /** A* com limites dos marcos pré-processados (ver {@link Marcos}). */
+  ALT,
+  /** Consulta na hierarquia de contração ({@link com.dijkstra.hierarquia.HierarquiaDeContracao}). */
+  CH,
+  /** Consulta O(1) na matriz de distâncias pré-calculada ({@link MatrizDeDistancias}). */
+  MATRIZ,
+  /** Dijkstra que guarda a busca de cada origem e a retoma nos destinos seguintes ({@link ArvoresPorOrigem}). */
+  DIJKSTRA_RETOMAVEL
+}
@@ -0,0 +1,286 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.Map.VersaoDoGrafo;
+
+/**
+ * Árvore de caminhos mínimos de uma origem para todos os nós, mantida
+ * enquanto os pesos mudam. Quando o grafo passa para uma nova versão
+ * ({@link com.dijkstra.Map.GrafoVersionado}), {@link #atualizar} repara a
+ * árvore no lugar em vez de refazer a busca inteira, no estilo de
+ * Ramalingam–Reps:
+ * <ol>
+ * <li>uma aresta da árvore que ficou mais cara (ou foi fechada) invalida
+ * só a subárvore abaixo dela; esses nós perdem a distância;</li>
+ * <li>os vizinhos válidos que chegam na subárvore, e a origem de cada
+ * aresta que ficou mais barata, voltam para a fila com a distância que já
+ * têm;</li>
+ * <li>um Dijkstra a partir dessa fila corrige só o que mudou.</li>
+ * </ol>
+ * Arestas fora da árvore que ficaram mais caras não mudam nada. O custo é
+ * proporcional aos nós afetados, não ao grafo.
+ *
+ * Se o reparo for cancelado (interrupção da thread, como nas buscas), a
+ * árvore já aponta para a versão nova, mas as distâncias ficam pela metade:
+ * ela fica marcada como incompleta ({@link #completa()}) e a próxima
+ * chamada de {@link #atualizar} refaz a busca inteira sobre a versão
+ * informada, em vez de reparar a partir de um estado errado.
+ *
+ * Não é thread-safe: cada thread que mantém árvores deve ter as suas.
+ */
+public final class ArvoreDeCaminhos {
+  private static final int SEM_ARESTA = -1;
+
+  private final int origem;
+  private GrafoCompacto grafo;
+  private final int[] distancias;
+  private final int[] predecessores;
+  // Aresta (adjacência direta) pela qual cada nó é alcançado na árvore
+  private final int[] arestasDaArvore;
+  // Um reparo ou recálculo foi interrompido: as distâncias não valem até o próximo atualizar
+  private boolean incompleta;
+  // Pilha reaproveitada para percorrer as subárvores invalidadas
+  private int[] pilha = new int[64];
+
+  private ArvoreDeCaminhos(int origem, GrafoCompacto grafo, int[] distancias, int[] predecessores,
+      int[] arestasDaArvore) {
+    this.origem = origem;
+    this.grafo = grafo;
+    this.distancias = distancias;
+    this.predecessores = predecessores;
+    this.arestasDaArvore = arestasDaArvore;
+  }
+
+  /** Dijkstra completo da origem para todos os nós. */
+  public static ArvoreDeCaminhos calcular(GrafoCompacto grafo, int origem) {
+    int n = grafo.numeroDeNos();
+    if (origem < 0 || origem >= n) {
+      throw new IllegalArgumentException("Origem fora do grafo: " + origem);
+    }
+    ArvoreDeCaminhos arvore = new ArvoreDeCaminhos(origem, grafo, new int[n], new int[n], new int[n]);
+    arvore.recalcular(grafo);
+    return arvore;
+  }
+
+  /** Cópia independente, que pode ser atualizada sem mexer nesta. */
+  public ArvoreDeCaminhos copia() {
+    ArvoreDeCaminhos copia = new ArvoreDeCaminhos(origem, grafo, distancias.clone(), predecessores.clone(),
+        arestasDaArvore.clone());
+    copia.incompleta = incompleta;
+    return copia;
+  }
+
+  public int origem() {
+    return origem;
+  }
+
+  /** Versão do grafo a que as distâncias correspondem. */
+  public GrafoCompacto grafo() {
+    return grafo;
+  }
+
+  /**
+   * Se as distâncias valem para {@link #grafo()}. Só é falso depois de um
+   * {@link #atualizar} cancelado; o próximo refaz a árvore inteira.
+   */
+  public boolean completa() {
+    return !incompleta;
+  }
+
+  /** Distância da origem até o nó, ou -1 se ele é inalcançável. */
+  public int distancia(int no) {
+    int distancia = distancias[no];
+    return distancia == EspacoDeBusca.INFINITO ? -1 : distancia;
+  }
+
+  public boolean alcancado(int no) {
+    return distancias[no] != EspacoDeBusca.INFINITO;
+  }
+
+  public CaminhoMinimo caminhoAte(int destino) {
+    if (!alcancado(destino)) {
+      return CaminhoMinimo.inexistente(0);
+    }
+    int tamanho = 0;
+    for (int passo = destino; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = predecessores[passo]) {
+      tamanho++;
+    }
+    int[] caminho = new int[tamanho];
+    for (int passo = destino; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = predecessores[passo]) {
+      caminho[--tamanho] = passo;
+    }
+    return new CaminhoMinimo(caminho, distancias[destino], 0);
+  }
+
+  /**
+   * Leva a árvore para outra versão do mesmo grafo base, com as arestas
+   * alteradas calculadas pela diferença entre as versões.
+   *
+   * @return nós reprocessados (invalidados ou retirados da fila)
+   */
+  public int atualizar(VersaoDoGrafo novo) {
+    return atualizar(novo, novo.arestasAlteradasDesde(grafo));
+  }
+
+  /**
+   * Leva a árvore para {@code novo}, que tem a mesma topologia do grafo
+   * atual e só difere nos pesos das arestas informadas (índices da
+   * adjacência direta). Se a árvore está incompleta (um atualizar anterior
+   * foi cancelado), refaz a busca inteira sobre {@code novo}.
+   *
+   * @return nós reprocessados (invalidados ou retirados da fila)
+   * @throws java.util.concurrent.CancellationException se a thread for
+   *         interrompida; a árvore fica incompleta
+   */
+  public int atualizar(GrafoCompacto novo, int[] arestasAlteradas) {
+    if (novo.numeroDeNos() != grafo.numeroDeNos() || novo.numeroDeArestas() != grafo.numeroDeArestas()) {
+      throw new IllegalArgumentException("A nova versão tem outra topologia: refaça a árvore com calcular");
+    }
+    if (incompleta) {
+      return recalcular(novo);
+    }
+    GrafoCompacto anterior = grafo;
+    grafo = novo;
+    // Só volta a ser completa se o Dijkstra abaixo terminar sem ser cancelado
+    incompleta = true;
+    HeapIndexado fila = fila();
+
+    // 1. Subárvores abaixo das arestas da árvore que ficaram mais caras
+    int invalidados = 0;
+    for (int a : arestasAlteradas) {
+      int destino = novo.destino(a);
+      if (novo.peso(a) > anterior.peso(a) && arestasDaArvore[destino] == a) {
+        invalidados = invalidarSubarvore(destino, invalidados);
+      }
+    }
+
+    // 2. A fila parte dos vizinhos válidos das subárvores e das arestas que ficaram mais baratas
+    for (int i = 0; i < invalidados; i++) {
+      int no = pilha[i];
+      for (int r = novo.inicioReverso(no), fim = novo.fimReverso(no); r < fim; r++) {
+        int vizinho = novo.origemReversa(r);
+        if (distancias[vizinho] != EspacoDeBusca.INFINITO) {
+          fila.inserirOuDiminuir(vizinho, distancias[vizinho]);
+        }
+      }
+    }
+    for (int a : arestasAlteradas) {
+      int peso = novo.peso(a);
+      if (peso < anterior.peso(a)) {
+        int de = origemDaAresta(novo, a);
+        if (distancias[de] != EspacoDeBusca.INFINITO
+            && EspacoDeBusca.somar(distancias[de], peso) < distancias[novo.destino(a)]) {
+          fila.inserirOuDiminuir(de, distancias[de]);
+        }
+      }
+    }
+
+    // 3. Dijkstra só a partir do que mudou
+    int reprocessados = invalidados + propagar(fila);
+    incompleta = false;
+    return reprocessados;
+  }
+
+  /** Dijkstra completo da origem sobre {@code novo}, descartando as distâncias atuais. */
+  private int recalcular(GrafoCompacto novo) {
+    grafo = novo;
+    incompleta = true;
+    Arrays.fill(distancias, EspacoDeBusca.INFINITO);
+    Arrays.fill(predecessores, EspacoDeBusca.SEM_PREDECESSOR);
+    Arrays.fill(arestasDaArvore, SEM_ARESTA);
+    HeapIndexado fila = fila();
+    distancias[origem] = 0;
+    fila.inserirOuDiminuir(origem, 0);
+    int assentados = propagar(fila);
+    incompleta = false;
+    return assentados;
+  }
+
+  /**
+   * Tira da árvore o nó e tudo abaixo dele (os filhos são os destinos das
+   * arestas pelas quais foram alcançados). Os nós ficam em
+   * {@code pilha[0, quantidade)}, que é devolvida atualizada.
+   */
+  private int invalidarSubarvore(int raiz, int quantidade) {
+    if (distancias[raiz] == EspacoDeBusca.INFINITO) {
+      // Já está em uma subárvore invalidada
+      return quantidade;
+    }
+    int lidos = quantidade;
+    quantidade = empilhar(raiz, quantidade);
+    while (lidos < quantidade) {
+      int no = pilha[lidos++];
+      for (int a = grafo.inicio(no), fim = grafo.fim(no); a < fim; a++) {
+        int filho = grafo.destino(a);
+        if (arestasDaArvore[filho] == a) {
+          quantidade = empilhar(filho, quantidade);
+        }
+      }
+    }
+    return quantidade;
+  }
+
+  private int empilhar(int no, int quantidade) {
+    if (quantidade == pilha.length) {
+      pilha = Arrays.copyOf(pilha, quantidade * 2);
+    }
+    pilha[quantidade] = no;
+    distancias[no] = EspacoDeBusca.INFINITO;
+    predecessores[no] = EspacoDeBusca.SEM_PREDECESSOR;
+    // Os filhos são achados pelas próprias arestas da árvore, então a deste nó já pode ser limpa
+    arestasDaArvore[no] = SEM_ARESTA;
+    return quantidade + 1;
+  }
+
+  /** Dijkstra com as distâncias atuais como ponto de partida; devolve os nós retirados da fila. */
+  private int propagar(HeapIndexado fila) {
+    int assentados = 0;
+    while (!fila.vazio()) {
+      int atual = fila.removerMinimo();
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      int distanciaAtual = distancias[atual];
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < distancias[vizinho]) {
+          distancias[vizinho] = novaDistancia;
+          predecessores[vizinho] = atual;
+          arestasDaArvore[vizinho] = a;
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+    return assentados;
+  }
+
+  /** Fila vazia do espaço de busca da thread, dimensionada para o grafo. */
+  private HeapIndexado fila() {
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(grafo.numeroDeNos());
+    return espaco.heap(TipoHeap.QUATERNARIO);
+  }
+
+  /** Nó de onde a aresta sai: busca binária nos offsets da adjacência direta. */
+  private static int origemDaAresta(GrafoCompacto grafo, int aresta) {
+    int baixo = 0;
+    int alto = grafo.numeroDeNos() - 1;
+    while (baixo < alto) {
+      int meio = (baixo + alto + 1) >>> 1;
+      if (grafo.inicio(meio) <= aresta) {
+        baixo = meio;
+      } else {
+        alto = meio - 1;
+      }
+    }
+    return baixo;
+  }
+}
@@ -0,0 +1,160 @@
+package com.dijkstra.busca;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Buscas de Dijkstra guardadas por origem, para quem consulta muitos
+ * destinos a partir da mesma origem ({@link Algoritmo#DIJKSTRA_RETOMAVEL}).
+ * A primeira consulta de uma origem para no destino, como o Dijkstra comum;
+ * as seguintes respondem na hora se o destino já foi assentado ou retomam a
+ * busca de onde ela parou.
+ *
+ * Cada busca guardada ocupa cerca de 12 bytes por nó do grafo mais a
+ * fronteira. A soma fica abaixo do limite informado: passando dele, as
+ * origens usadas há mais tempo são descartadas (LRU). Uma busca maior que
+ * o limite inteiro responde a consulta e não é guardada.
+ *
+ * As buscas valem para uma instância de {@link GrafoCompacto}: uma consulta
+ * sobre outro grafo (ou outra {@link com.dijkstra.Map.VersaoDoGrafo versão})
+ * descarta as anteriores. Pode ser usado por várias threads.
+ */
+public final class ArvoresPorOrigem {
+  private final long limiteDeBytes;
+  // Ordem de acesso: a primeira origem é a usada há mais tempo
+  private final Map<Integer, Guardada> buscas = new LinkedHashMap<>(16, 0.75f, true);
+  private GrafoCompacto grafo;
+  private long bytes;
+
+  private final LongAdder acertos = new LongAdder();
+  private final LongAdder retomadas = new LongAdder();
+  private final LongAdder novas = new LongAdder();
+  private final LongAdder remocoes = new LongAdder();
+
+  public ArvoresPorOrigem(long limiteDeBytes) {
+    if (limiteDeBytes <= 0) {
+      throw new IllegalArgumentException("Limite de memória deve ser positivo: " + limiteDeBytes);
+    }
+    this.limiteDeBytes = limiteDeBytes;
+  }
+
+  /**
+   * Caminho pela busca guardada da origem, criada se ainda não existe. Se a
+   * consulta for cancelada, a busca fica guardada onde parou, com o tamanho
+   * que tinha ao ser interrompida.
+   */
+  public CaminhoMinimo buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    BuscaRetomavel busca = obter(grafo, inicio, tipoHeap);
+    if (busca.assentado(destino)) {
+      acertos.increment();
+    } else if (busca.assentados() > 0) {
+      retomadas.increment();
+    }
+    try {
+      return busca.caminhoAte(destino);
+    } finally {
+      // Também quando a consulta é cancelada: a busca continua retomável e o heap pode ter crescido
+      guardar(inicio, busca);
+    }
+  }
+
+  private synchronized BuscaRetomavel obter(GrafoCompacto grafo, int inicio, TipoHeap tipoHeap) {
+    if (grafo != this.grafo) {
+      limparBuscas();
+      this.grafo = grafo;
+    }
+    Guardada guardada = buscas.get(inicio);
+    if (guardada == null || guardada.busca.tipoHeap() != tipoHeap) {
+      novas.increment();
+      return new BuscaRetomavel(grafo, inicio, tipoHeap);
+    }
+    return guardada.busca;
+  }
+
+  /**
+   * Recoloca a busca no mapa com o tamanho atual (o heap pode ter crescido)
+   * e descarta as mais antigas até caber no limite.
+   */
+  private synchronized void guardar(int inicio, BuscaRetomavel busca) {
+    if (busca.grafo() != grafo) {
+      return; // O grafo mudou durante a consulta
+    }
+    Guardada anterior = buscas.remove(inicio);
+    if (anterior != null) {
+      bytes -= anterior.bytes;
+    }
+    Guardada guardada = new Guardada(busca);
+    if (guardada.bytes > limiteDeBytes) {
+      return;
+    }
+    buscas.put(inicio, guardada);
+    bytes += guardada.bytes;
+    Iterator<Guardada> maisAntigas = buscas.values().iterator();
+    while (bytes > limiteDeBytes) {
+      bytes -= maisAntigas.next().bytes;
+      maisAntigas.remove();
+      remocoes.increment();
+    }
+  }
+
+  /** Descarta todas as buscas guardadas; os contadores são mantidos. */
+  public synchronized void limpar() {
+    limparBuscas();
+  }
+
+  private void limparBuscas() {
+    buscas.clear();
+    bytes = 0;
+  }
+
+  /** Origens com busca guardada. */
+  public synchronized int tamanho() {
+    return buscas.size();
+  }
+
+  /** Memória estimada das buscas guardadas. */
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  /** Consultas respondidas sem busca: o destino já estava assentado. */
+  public long acertos() {
+    return acertos.sum();
+  }
+
+  /** Consultas que continuaram uma busca guardada. */
+  public long retomadas() {
+    return retomadas.sum();
+  }
+
+  /** Consultas que começaram uma busca nova (origem sem busca guardada). */
+  public long novas() {
+    return novas.sum();
+  }
+
+  /** Buscas descartadas para respeitar o limite de memória. */
+  public long remocoes() {
+    return remocoes.sum();
+  }
+
+  /** Busca com o tamanho que foi somado em {@link #bytes} quando ela entrou no mapa. */
+  private static final class Guardada {
+    final BuscaRetomavel busca;
+    final long bytes;
+
+    Guardada(BuscaRetomavel busca) {
+      this.busca = busca;
+      this.bytes = busca.bytes();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ArvoresPorOrigem[origens=" + tamanho() + ", bytes=" + bytes() + ", acertos=" + acertos() + ", retomadas="
+        + retomadas() + ", novas=" + novas() + ", remocoes=" + remocoes() + "]";
+  }
+}
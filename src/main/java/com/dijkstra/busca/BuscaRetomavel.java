@@ -0,0 +1,123 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Dijkstra de uma origem que para no destino pedido e guarda o estado (as
+ * distâncias, os predecessores e a fila) para continuar de onde parou na
+ * próxima consulta. Um destino já assentado é respondido sem busca; os
+ * outros retomam a expansão até serem assentados. Com o tempo, a busca vira
+ * a árvore de caminhos mínimos completa da origem.
+ *
+ * Os métodos são sincronizados: consultas concorrentes da mesma origem se
+ * revezam, as de origens diferentes rodam em paralelo.
+ */
+final class BuscaRetomavel {
+  private final GrafoCompacto grafo;
+  private final int origem;
+  private final TipoHeap tipoHeap;
+  private final int[] distancias;
+  private final int[] predecessores;
+  private final HeapIndexado fila;
+  private int assentados;
+
+  BuscaRetomavel(GrafoCompacto grafo, int origem, TipoHeap tipoHeap) {
+    int n = grafo.numeroDeNos();
+    if (origem < 0 || origem >= n) {
+      throw new IllegalArgumentException("Origem fora do grafo: " + origem);
+    }
+    this.grafo = grafo;
+    this.origem = origem;
+    this.tipoHeap = tipoHeap;
+    distancias = new int[n];
+    predecessores = new int[n];
+    Arrays.fill(distancias, EspacoDeBusca.INFINITO);
+    Arrays.fill(predecessores, EspacoDeBusca.SEM_PREDECESSOR);
+    // A fronteira costuma ser pequena perto do grafo; o heap cresce se precisar
+    fila = new HeapIndexado(n, Math.min(n, 1024), tipoHeap);
+    distancias[origem] = 0;
+    fila.inserirOuDiminuir(origem, 0);
+  }
+
+  GrafoCompacto grafo() {
+    return grafo;
+  }
+
+  TipoHeap tipoHeap() {
+    return tipoHeap;
+  }
+
+  /** Se o nó já tem a distância final (foi retirado da fila). */
+  synchronized boolean assentado(int no) {
+    return distancias[no] != EspacoDeBusca.INFINITO && !fila.contem(no);
+  }
+
+  /** Nós assentados desde a criação. */
+  synchronized int assentados() {
+    return assentados;
+  }
+
+  /** Se a busca já percorreu tudo o que a origem alcança. */
+  synchronized boolean completa() {
+    return fila.vazio();
+  }
+
+  synchronized long bytes() {
+    return 8L * distancias.length + fila.bytes();
+  }
+
+  /**
+   * Caminho até o destino, expandindo a busca só o necessário. Os nós
+   * assentados no resultado são os desta consulta (0 se o destino já
+   * estava assentado).
+   */
+  synchronized CaminhoMinimo caminhoAte(int destino) {
+    int nestaConsulta = 0;
+    int relaxadas = 0;
+    while (!assentado(destino) && !fila.vazio()) {
+      // Confere antes de retirar o nó: se a busca for cancelada, o estado continua retomável
+      if (nestaConsulta > 0 && (nestaConsulta & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      int atual = fila.removerMinimo();
+      nestaConsulta++;
+      assentados++;
+      int distanciaAtual = distancias[atual];
+      // Mesmo o destino tem as arestas relaxadas, para a próxima consulta continuar dele
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        relaxadas++;
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < distancias[vizinho]) {
+          distancias[vizinho] = novaDistancia;
+          predecessores[vizinho] = atual;
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+
+    if (distancias[destino] == EspacoDeBusca.INFINITO) {
+      return CaminhoMinimo.inexistente(nestaConsulta, relaxadas);
+    }
+    int tamanho = 0;
+    for (int passo = destino; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = predecessores[passo]) {
+      tamanho++;
+    }
+    int[] caminho = new int[tamanho];
+    for (int passo = destino; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = predecessores[passo]) {
+      caminho[--tamanho] = passo;
+    }
+    return new CaminhoMinimo(caminho, distancias[destino], nestaConsulta, relaxadas);
+  }
+
+  @Override
+  public String toString() {
+    return "BuscaRetomavel[origem=" + origem + ", assentados=" + assentados() + ", completa=" + completa() + "]";
+  }
+}
@@ -0,0 +1,37 @@
+package com.dijkstra.busca;
+
+/**
+ * Resultado de uma busca sobre ids de nós: a sequência de nós do caminho, a
+ * distância total, quantos nós a busca assentou (retirou da fila) e quantas
+ * arestas examinou. O {@link com.dijkstra.Navegador} converte para
+ * {@link com.dijkstra.Navegador.Resultado}.
+ */
+public final class CaminhoMinimo {
+  public final int[] nos;
+  public final int distancia;
+  public final int nosAssentados;
+  public final int arestasRelaxadas;
+
+  public CaminhoMinimo(int[] nos, int distancia, int nosAssentados) {
+    this(nos, distancia, nosAssentados, 0);
+  }
+
+  public CaminhoMinimo(int[] nos, int distancia, int nosAssentados, int arestasRelaxadas) {
+    this.nos = nos;
+    this.distancia = distancia;
+    this.nosAssentados = nosAssentados;
+    this.arestasRelaxadas = arestasRelaxadas;
+  }
+
+  public static CaminhoMinimo inexistente(int nosAssentados) {
+    return inexistente(nosAssentados, 0);
+  }
+
+  public static CaminhoMinimo inexistente(int nosAssentados, int arestasRelaxadas) {
+    return new CaminhoMinimo(new int[0], -1, nosAssentados, arestasRelaxadas);
+  }
+
+  public boolean existe() {
+    return nos.length > 0 && distancia >= 0;
+  }
+}
@@ -0,0 +1,415 @@
+package com.dijkstra.busca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Os K caminhos mínimos sem ciclos entre dois nós, pelo algoritmo de Yen,
+ * em ordem de distância. Cada caminho aceito gera candidatos desviando em
+ * cada um dos seus nós (o "desvio"): o trecho até o nó é mantido, os nós
+ * desse trecho ficam proibidos e as arestas que os caminhos já aceitos
+ * usam a partir dali também; a busca de desvio completa o caminho até o
+ * destino. O melhor candidato ainda não aceito é o próximo caminho.
+ *
+ * Em relação ao Yen original:
+ * <ul>
+ * <li>uma árvore reversa a partir do destino, calculada uma vez, dá o
+ * primeiro caminho e serve de heurística exata para o A* de todas as
+ * buscas de desvio, que em geral assentam pouco mais que os nós do trecho
+ * que completam. A árvore só cresce até a distância mínima mais
+ * {@link #FOLGA_DA_ARVORE}%; fora dela a heurística é o raio alcançado, o
+ * que continua consistente;</li>
+ * <li>só se desvia a partir do nó em que o caminho saiu do seu pai (Lawler):
+ * os desvios anteriores já foram gerados pelo pai;</li>
+ * <li>a busca de um desvio só roda quando o seu limite inferior (melhor
+ * aresta permitida mais a árvore reversa) pode vencer o melhor candidato:
+ * a maioria dos desvios de um caminho longo nunca é buscada;</li>
+ * <li>os desvios liberados juntos são independentes e rodam em paralelo,
+ * cada um no {@link EspacoDeBusca} da sua thread.</li>
+ * </ul>
+ *
+ * O {@link Stream} é preguiçoso: o caminho k só é calculado quando
+ * consumido, então {@code limit(k)} paga só pelos k primeiros.
+ */
+public final class CaminhosAlternativos {
+  // A árvore reversa assenta os nós até a distância mínima mais esta folga, em %
+  private static final int FOLGA_DA_ARVORE = 25;
+  // Distância dos nós proibidos na busca de desvio: nenhuma é menor, então eles nunca são relaxados
+  private static final int BLOQUEADO = Integer.MIN_VALUE;
+
+  private final GrafoCompacto grafo;
+  private final int inicio;
+  private final int destino;
+  private final TipoHeap tipoHeap;
+
+  private int[] distanciasAoDestino;
+  private int[] sucessores;
+  // Limite inferior da distância ao destino dos nós fora da árvore reversa
+  private int raio = EspacoDeBusca.INFINITO;
+
+  private final List<Alternativa> aceitas = new ArrayList<>();
+  private final PriorityQueue<Alternativa> candidatas = new PriorityQueue<>(
+      Comparator.comparingInt((Alternativa a) -> a.distancia()).thenComparingInt(a -> a.nos.length)
+          .thenComparingInt(a -> a.ordem));
+  // Desvios agendados, pelo limite inferior; a busca de cada um só roda quando ele pode ser o próximo
+  private final PriorityQueue<Desvio> pendentes = new PriorityQueue<>(
+      Comparator.comparingLong((Desvio d) -> d.limiteInferior).thenComparingInt(d -> d.ordem));
+  // Caminhos já aceitos ou candidatos, para o mesmo caminho não entrar duas vezes
+  private final Set<Alternativa> vistas = new HashSet<>();
+  private int ordem;
+  private boolean esgotado;
+
+  private CaminhosAlternativos(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    this.grafo = grafo;
+    this.inicio = inicio;
+    this.destino = destino;
+    this.tipoHeap = tipoHeap;
+  }
+
+  /**
+   * Caminhos do início ao destino em ordem crescente de distância (empates
+   * pelo número de nós). Vazio se não há caminho; termina quando não há mais
+   * caminhos sem ciclos. O cancelamento da thread que consome é conferido a
+   * cada caminho.
+   */
+  public static Stream<CaminhoMinimo> buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    int n = grafo.numeroDeNos();
+    if (inicio < 0 || inicio >= n || destino < 0 || destino >= n) {
+      throw new IllegalArgumentException("Nó fora do grafo: " + (inicio < 0 || inicio >= n ? inicio : destino));
+    }
+    CaminhosAlternativos alternativas = new CaminhosAlternativos(grafo, inicio, destino, tipoHeap);
+    Spliterator<CaminhoMinimo> caminhos = new Spliterators.AbstractSpliterator<CaminhoMinimo>(Long.MAX_VALUE,
+        Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super CaminhoMinimo> acao) {
+        CaminhoMinimo proximo = alternativas.proximo();
+        if (proximo == null) {
+          return false;
+        }
+        acao.accept(proximo);
+        return true;
+      }
+    };
+    return StreamSupport.stream(caminhos, false);
+  }
+
+  private CaminhoMinimo proximo() {
+    if (esgotado) {
+      return null;
+    }
+    EspacoDeBusca.verificarCancelamento();
+    Alternativa proxima;
+    if (aceitas.isEmpty()) {
+      proxima = primeira();
+      if (proxima != null) {
+        vistas.add(proxima);
+      }
+    } else {
+      desviar(aceitas.get(aceitas.size() - 1));
+      resolverPendentes();
+      proxima = candidatas.poll();
+    }
+    if (proxima == null) {
+      esgotado = true;
+      return null;
+    }
+    aceitas.add(proxima);
+    // Cópia: os nós dos caminhos aceitos ainda são comparados nos próximos desvios
+    return new CaminhoMinimo(proxima.nos.clone(), proxima.distancia(), proxima.assentados, proxima.relaxadas);
+  }
+
+  /** Árvore reversa a partir do destino e o caminho mínimo, que é o caminho dela a partir do início. */
+  private Alternativa primeira() {
+    int n = grafo.numeroDeNos();
+    distanciasAoDestino = new int[n];
+    sucessores = new int[n];
+    Arrays.fill(distanciasAoDestino, EspacoDeBusca.INFINITO);
+    Arrays.fill(sucessores, EspacoDeBusca.SEM_PREDECESSOR);
+    HeapIndexado fila = new HeapIndexado(n, Math.min(n, 1024), tipoHeap);
+    distanciasAoDestino[destino] = 0;
+    fila.inserirOuDiminuir(destino, 0);
+    long limite = Long.MAX_VALUE;
+    int assentados = 0;
+    int relaxadas = 0;
+
+    while (!fila.vazio()) {
+      int atual = fila.removerMinimo();
+      int distanciaAtual = distanciasAoDestino[atual];
+      if (distanciaAtual > limite) {
+        // Os nós que ficaram na fila não têm a distância final: saem da árvore
+        raio = distanciaAtual;
+        distanciasAoDestino[atual] = EspacoDeBusca.INFINITO;
+        while (!fila.vazio()) {
+          distanciasAoDestino[fila.removerMinimo()] = EspacoDeBusca.INFINITO;
+        }
+        break;
+      }
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      if (atual == inicio) {
+        limite = distanciaAtual + (long) distanciaAtual * FOLGA_DA_ARVORE / 100;
+      }
+      for (int a = grafo.inicioReverso(atual), fim = grafo.fimReverso(atual); a < fim; a++) {
+        relaxadas++;
+        int peso = grafo.pesoReverso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.origemReversa(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < distanciasAoDestino[vizinho]) {
+          distanciasAoDestino[vizinho] = novaDistancia;
+          sucessores[vizinho] = atual;
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+
+    if (distanciasAoDestino[inicio] == EspacoDeBusca.INFINITO) {
+      return null;
+    }
+    int tamanho = 0;
+    for (int passo = inicio; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = sucessores[passo]) {
+      tamanho++;
+    }
+    int[] nos = new int[tamanho];
+    int[] custos = new int[tamanho];
+    int i = 0;
+    for (int passo = inicio; passo != EspacoDeBusca.SEM_PREDECESSOR; passo = sucessores[passo], i++) {
+      nos[i] = passo;
+      custos[i] = distanciasAoDestino[inicio] - distanciasAoDestino[passo];
+    }
+    return new Alternativa(nos, custos, 0, assentados, relaxadas);
+  }
+
+  /**
+   * Agenda os desvios do caminho a partir do nó em que ele saiu do pai.
+   * Nenhuma busca roda aqui: cada desvio entra em {@link #pendentes} com um
+   * limite inferior da sua distância.
+   */
+  private void desviar(Alternativa caminho) {
+    for (int i = caminho.desvio; i < caminho.nos.length - 1; i++) {
+      int[] proibidos = proximosNos(caminho.nos, i);
+      long limiteInferior = limiteInferior(caminho, i, proibidos);
+      if (limiteInferior != Long.MAX_VALUE) {
+        pendentes.add(new Desvio(caminho, i, proibidos, limiteInferior, ordem++));
+      }
+    }
+  }
+
+  /**
+   * Roda, em paralelo, as buscas dos desvios que ainda podem ganhar do
+   * melhor candidato já calculado, até que nenhum possa.
+   */
+  private void resolverPendentes() {
+    List<Desvio> lote = new ArrayList<>();
+    while (!pendentes.isEmpty()) {
+      Alternativa melhor = candidatas.peek();
+      long limite = melhor != null ? melhor.distancia() : pendentes.peek().limiteInferior;
+      while (!pendentes.isEmpty() && pendentes.peek().limiteInferior <= limite) {
+        lote.add(pendentes.poll());
+      }
+      if (lote.isEmpty()) {
+        return;
+      }
+      List<Alternativa> novas = lote.parallelStream().map(this::buscarDesvio).filter(Objects::nonNull)
+          .collect(Collectors.toList());
+      lote.clear();
+      for (Alternativa nova : novas) {
+        if (vistas.add(nova)) {
+          nova.ordem = ordem++;
+          candidatas.add(nova);
+        }
+      }
+    }
+  }
+
+  /**
+   * Limite inferior de um desvio: o custo do trecho até o nó mais a melhor
+   * aresta permitida saindo dele somada à distância da árvore reversa.
+   * {@code Long.MAX_VALUE} se não há aresta permitida.
+   */
+  private long limiteInferior(Alternativa caminho, int i, int[] proibidos) {
+    int desvio = caminho.nos[i];
+    long melhor = Long.MAX_VALUE;
+    for (int a = grafo.inicio(desvio), fim = grafo.fim(desvio); a < fim; a++) {
+      int peso = grafo.peso(a);
+      int vizinho = grafo.destino(a);
+      int estimativa = estimar(vizinho);
+      if (peso == GrafoCompacto.PESO_FECHADO || estimativa == EspacoDeBusca.INFINITO || contem(proibidos, vizinho)
+          || contem(caminho.nos, i, vizinho)) {
+        continue;
+      }
+      melhor = Math.min(melhor, (long) peso + estimativa);
+    }
+    return melhor == Long.MAX_VALUE ? melhor : caminho.custos[i] + melhor;
+  }
+
+  /**
+   * A* do nó do desvio até o destino sem passar pelos nós anteriores a ele
+   * no caminho nem pelos nós proibidos logo depois dele. Roda em qualquer
+   * thread: só lê o desvio e a árvore reversa.
+   */
+  private Alternativa buscarDesvio(Desvio pendente) {
+    int[] raiz = pendente.caminho.nos;
+    int i = pendente.posicao;
+    int desvio = raiz[i];
+    int[] proibidos = pendente.proibidos;
+
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(grafo.numeroDeNos());
+    HeapIndexado filaPrioridade = espaco.heap(tipoHeap);
+    for (int j = 0; j < i; j++) {
+      espaco.definir(raiz[j], BLOQUEADO, EspacoDeBusca.SEM_PREDECESSOR);
+    }
+    espaco.definir(desvio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaPrioridade.inserirOuDiminuir(desvio, estimar(desvio));
+    int assentados = 0;
+    int relaxadas = 0;
+
+    while (!filaPrioridade.vazio()) {
+      int atual = filaPrioridade.removerMinimo();
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      if (atual == destino) {
+        break;
+      }
+
+      int distanciaAtual = espaco.distancia(atual);
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        relaxadas++;
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        if (atual == desvio && contem(proibidos, vizinho)) {
+          continue;
+        }
+        int estimativa = estimar(vizinho);
+        if (estimativa == EspacoDeBusca.INFINITO) {
+          continue; // Não chega ao destino
+        }
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          espaco.definir(vizinho, novaDistancia, atual);
+          filaPrioridade.inserirOuDiminuir(vizinho, EspacoDeBusca.somar(novaDistancia, estimativa));
+        }
+      }
+    }
+
+    if (!espaco.alcancado(destino)
+        || EspacoDeBusca.somar(pendente.caminho.custos[i], espaco.distancia(destino)) == EspacoDeBusca.INFINITO) {
+      return null;
+    }
+    int[] trecho = espaco.caminhoAte(destino);
+    int[] nos = Arrays.copyOf(raiz, i + trecho.length);
+    int[] custos = Arrays.copyOf(pendente.caminho.custos, i + trecho.length);
+    for (int j = 1; j < trecho.length; j++) {
+      nos[i + j] = trecho[j];
+      custos[i + j] = pendente.caminho.custos[i] + espaco.distancia(trecho[j]);
+    }
+    return new Alternativa(nos, custos, i, assentados, relaxadas);
+  }
+
+  /** Nós seguintes ao i-ésimo nos caminhos aceitos que começam pelo mesmo trecho até ele. */
+  private int[] proximosNos(int[] raiz, int i) {
+    int[] proximos = new int[aceitas.size()];
+    int quantos = 0;
+    for (Alternativa aceita : aceitas) {
+      if (aceita.nos.length > i + 1 && Arrays.equals(aceita.nos, 0, i + 1, raiz, 0, i + 1)) {
+        proximos[quantos++] = aceita.nos[i + 1];
+      }
+    }
+    return Arrays.copyOf(proximos, quantos);
+  }
+
+  private static boolean contem(int[] nos, int no) {
+    return contem(nos, nos.length, no);
+  }
+
+  // Se o nó está entre os primeiros quantos do array
+  private static boolean contem(int[] nos, int quantos, int no) {
+    for (int j = 0; j < quantos; j++) {
+      if (nos[j] == no) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Distância exata ao destino dentro da árvore reversa; fora dela, o raio que a árvore alcançou
+  private int estimar(int no) {
+    int distancia = distanciasAoDestino[no];
+    return distancia != EspacoDeBusca.INFINITO ? distancia : raio;
+  }
+
+  /** Caminho aceito ou candidato; iguais são os que passam pelos mesmos nós. */
+  private static final class Alternativa {
+    final int[] nos;
+    // custos[j]: distância do início até nos[j] ao longo do caminho
+    final int[] custos;
+    // Posição do nó em que o caminho saiu do seu pai
+    final int desvio;
+    final int assentados;
+    final int relaxadas;
+    int ordem;
+
+    Alternativa(int[] nos, int[] custos, int desvio, int assentados, int relaxadas) {
+      this.nos = nos;
+      this.custos = custos;
+      this.desvio = desvio;
+      this.assentados = assentados;
+      this.relaxadas = relaxadas;
+    }
+
+    int distancia() {
+      return custos[custos.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+      return outro instanceof Alternativa && Arrays.equals(nos, ((Alternativa) outro).nos);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(nos);
+    }
+  }
+
+  /** Desvio de um caminho aceito ainda sem busca, com os nós proibidos no momento em que foi gerado. */
+  private static final class Desvio {
+    final Alternativa caminho;
+    final int posicao;
+    final int[] proibidos;
+    final long limiteInferior;
+    final int ordem;
+
+    Desvio(Alternativa caminho, int posicao, int[] proibidos, long limiteInferior, int ordem) {
+      this.caminho = caminho;
+      this.posicao = posicao;
+      this.proibidos = proibidos;
+      this.limiteInferior = limiteInferior;
+      this.ordem = ordem;
+    }
+  }
+}
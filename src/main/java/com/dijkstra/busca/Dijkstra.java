@@ -0,0 +1,62 @@
+package com.dijkstra.busca;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Dijkstra unidirecional sobre o {@link GrafoCompacto}, parando quando o
+ * destino é retirado da fila.
+ */
+public final class Dijkstra {
+
+  private Dijkstra() {
+  }
+
+  public static CaminhoMinimo buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    // 1. Inicialização
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(grafo.numeroDeNos());
+    HeapIndexado filaPrioridade = espaco.heap(tipoHeap);
+    espaco.definir(inicio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaPrioridade.inserirOuDiminuir(inicio, 0);
+    int assentados = 0;
+    int relaxadas = 0;
+
+    // 2. Loop principal do algoritmo
+    while (!filaPrioridade.vazio()) {
+      int atual = filaPrioridade.removerMinimo();
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+
+      if (atual == destino) {
+        break; // Otimização: para quando o destino é alcançado
+      }
+
+      // Para cada vizinho do nó atual
+      int distanciaAtual = espaco.distancia(atual);
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        relaxadas++;
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+
+        // Se um caminho mais curto for encontrado
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          espaco.definir(vizinho, novaDistancia, atual);
+          // Atualiza a prioridade na fila (decrease-key)
+          filaPrioridade.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+
+    // 3. Reconstrução do caminho
+    if (!espaco.alcancado(destino)) {
+      return CaminhoMinimo.inexistente(assentados, relaxadas);
+    }
+    return new CaminhoMinimo(espaco.caminhoAte(destino), espaco.distancia(destino), assentados, relaxadas);
+  }
+}
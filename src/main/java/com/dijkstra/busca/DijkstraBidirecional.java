@@ -0,0 +1,117 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Dijkstra bidirecional: uma busca avança a partir da origem pelas arestas
+ * normais e outra a partir do destino pela adjacência reversa, de modo que
+ * também funciona em grafos com arestas de mão única.
+ *
+ * A cada relaxamento que toca um nó já alcançado pela outra busca, o melhor
+ * caminho conhecido (mu) é atualizado. A busca para quando a soma dos
+ * mínimos das duas filas é maior ou igual a mu: nenhum caminho ainda não
+ * visto pode ser mais curto que ele.
+ */
+public final class DijkstraBidirecional {
+
+  private DijkstraBidirecional() {
+  }
+
+  public static CaminhoMinimo buscar(GrafoCompacto grafo, int inicio, int destino, TipoHeap tipoHeap) {
+    if (inicio == destino) {
+      return new CaminhoMinimo(new int[] { inicio }, 0, 1);
+    }
+
+    EspacoDeBusca frente = EspacoDeBusca.paraThreadAtual();
+    EspacoDeBusca tras = EspacoDeBusca.reversoParaThreadAtual();
+    frente.iniciar(grafo.numeroDeNos());
+    tras.iniciar(grafo.numeroDeNos());
+    HeapIndexado filaFrente = frente.heap(tipoHeap);
+    HeapIndexado filaTras = tras.heap(tipoHeap);
+
+    frente.definir(inicio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaFrente.inserirOuDiminuir(inicio, 0);
+    tras.definir(destino, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaTras.inserirOuDiminuir(destino, 0);
+
+    long melhor = EspacoDeBusca.INFINITO; // mu (encontros com soma de INFINITO ou mais não contam)
+    int encontro = -1;
+    int assentados = 0;
+    int relaxadas = 0;
+
+    while (!filaFrente.vazio() && !filaTras.vazio()) {
+      if ((long) filaFrente.chaveMinima() + filaTras.chaveMinima() >= melhor) {
+        break;
+      }
+
+      // Expande o lado com a fila menor, equilibrando as duas frentes
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      if (filaFrente.tamanho() <= filaTras.tamanho()) {
+        int atual = filaFrente.removerMinimo();
+        int distanciaAtual = frente.distancia(atual);
+        for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+          relaxadas++;
+          int peso = grafo.peso(a);
+          if (peso == GrafoCompacto.PESO_FECHADO) {
+            continue;
+          }
+          int vizinho = grafo.destino(a);
+          int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+          if (novaDistancia < frente.distancia(vizinho)) {
+            frente.definir(vizinho, novaDistancia, atual);
+            filaFrente.inserirOuDiminuir(vizinho, novaDistancia);
+            if (tras.alcancado(vizinho) && (long) novaDistancia + tras.distancia(vizinho) < melhor) {
+              melhor = (long) novaDistancia + tras.distancia(vizinho);
+              encontro = vizinho;
+            }
+          }
+        }
+      } else {
+        int atual = filaTras.removerMinimo();
+        int distanciaAtual = tras.distancia(atual);
+        for (int a = grafo.inicioReverso(atual), fim = grafo.fimReverso(atual); a < fim; a++) {
+          relaxadas++;
+          int peso = grafo.pesoReverso(a);
+          if (peso == GrafoCompacto.PESO_FECHADO) {
+            continue;
+          }
+          int vizinho = grafo.origemReversa(a);
+          int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+          if (novaDistancia < tras.distancia(vizinho)) {
+            tras.definir(vizinho, novaDistancia, atual);
+            filaTras.inserirOuDiminuir(vizinho, novaDistancia);
+            if (frente.alcancado(vizinho) && (long) novaDistancia + frente.distancia(vizinho) < melhor) {
+              melhor = (long) novaDistancia + frente.distancia(vizinho);
+              encontro = vizinho;
+            }
+          }
+        }
+      }
+    }
+
+    if (encontro < 0) {
+      return CaminhoMinimo.inexistente(assentados, relaxadas);
+    }
+    return new CaminhoMinimo(juntar(frente, tras, encontro), (int) melhor, assentados, relaxadas);
+  }
+
+  /** Caminho origem → encontro (busca direta) seguido de encontro → destino (busca reversa). */
+  private static int[] juntar(EspacoDeBusca frente, EspacoDeBusca tras, int encontro) {
+    int[] primeiraParte = frente.caminhoAte(encontro);
+    int tamanho = primeiraParte.length;
+    for (int passo = tras.predecessor(encontro); passo != EspacoDeBusca.SEM_PREDECESSOR; passo = tras.predecessor(passo)) {
+      tamanho++;
+    }
+    int[] caminho = Arrays.copyOf(primeiraParte, tamanho);
+    int i = primeiraParte.length;
+    for (int passo = tras.predecessor(encontro); passo != EspacoDeBusca.SEM_PREDECESSOR; passo = tras.predecessor(passo)) {
+      caminho[i++] = passo;
+    }
+    return caminho;
+  }
+}
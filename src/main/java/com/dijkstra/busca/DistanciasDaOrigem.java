@@ -0,0 +1,130 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+/**
+ * Resultado de uma busca {@link UmParaMuitos}: a distância da origem a cada
+ * destino pedido e a parte da árvore de caminhos mínimos que leva até eles.
+ *
+ * Só os nós dos caminhos até os destinos são copiados do espaço de busca,
+ * com índices locais; cada caminho é montado quando é pedido, em tempo
+ * proporcional ao seu tamanho.
+ */
+public final class DistanciasDaOrigem {
+  private static final int FORA_DA_ARVORE = -1;
+
+  private final int origem;
+  private final int[] destinos;
+  private final int[] distancias;
+  private final int nosAssentados;
+  // Árvore comprimida: nó e índice local do pai de cada posição
+  private final int[] nosDaArvore;
+  private final int[] paisNaArvore;
+  // Posição de cada destino na árvore, ou FORA_DA_ARVORE se inalcançável
+  private final int[] posicaoDoDestino;
+
+  private DistanciasDaOrigem(int origem, int[] destinos, int[] distancias, int nosAssentados, int[] nosDaArvore,
+      int[] paisNaArvore, int[] posicaoDoDestino) {
+    this.origem = origem;
+    this.destinos = destinos;
+    this.distancias = distancias;
+    this.nosAssentados = nosAssentados;
+    this.nosDaArvore = nosDaArvore;
+    this.paisNaArvore = paisNaArvore;
+    this.posicaoDoDestino = posicaoDoDestino;
+  }
+
+  /**
+   * Copia do espaço de busca as distâncias e os caminhos dos destinos. O
+   * potencial dos nós (não usado pelo Dijkstra) guarda a posição de cada nó
+   * na árvore comprimida; uma posição só vale se o nó gravado nela é o
+   * próprio nó, então o array não precisa ser limpo antes.
+   */
+  static DistanciasDaOrigem capturar(EspacoDeBusca espaco, int origem, int[] destinos, int nosAssentados) {
+    int[] distancias = new int[destinos.length];
+    int[] posicaoDoDestino = new int[destinos.length];
+    int[] nos = new int[16];
+    int[] pais = new int[16];
+    int tamanho = 0;
+
+    for (int i = 0; i < destinos.length; i++) {
+      int destino = destinos[i];
+      if (!espaco.alcancado(destino)) {
+        distancias[i] = -1;
+        posicaoDoDestino[i] = FORA_DA_ARVORE;
+        continue;
+      }
+      distancias[i] = espaco.distancia(destino);
+      // Sobe pelos predecessores até um nó que já está na árvore (ou a origem)
+      int inicioDaCadeia = tamanho;
+      int passo = destino;
+      while (passo != EspacoDeBusca.SEM_PREDECESSOR && !naArvore(espaco, nos, tamanho, passo)) {
+        if (tamanho == nos.length) {
+          nos = Arrays.copyOf(nos, tamanho * 2);
+          pais = Arrays.copyOf(pais, tamanho * 2);
+        }
+        espaco.definirPotencial(passo, tamanho);
+        nos[tamanho] = passo;
+        pais[tamanho] = tamanho + 1;
+        tamanho++;
+        passo = espaco.predecessor(passo);
+      }
+      if (tamanho > inicioDaCadeia) {
+        pais[tamanho - 1] = passo == EspacoDeBusca.SEM_PREDECESSOR ? FORA_DA_ARVORE : espaco.potencial(passo);
+      }
+      posicaoDoDestino[i] = espaco.potencial(destino);
+    }
+    return new DistanciasDaOrigem(origem, destinos.clone(), distancias, nosAssentados, Arrays.copyOf(nos, tamanho),
+        Arrays.copyOf(pais, tamanho), posicaoDoDestino);
+  }
+
+  private static boolean naArvore(EspacoDeBusca espaco, int[] nos, int tamanho, int no) {
+    int posicao = espaco.potencial(no);
+    return posicao >= 0 && posicao < tamanho && nos[posicao] == no;
+  }
+
+  public int origem() {
+    return origem;
+  }
+
+  public int quantidade() {
+    return destinos.length;
+  }
+
+  /** i-ésimo destino, na ordem em que foram pedidos. */
+  public int destino(int i) {
+    return destinos[i];
+  }
+
+  /** Distância até o i-ésimo destino, ou -1 se ele não é alcançável. */
+  public int distancia(int i) {
+    return distancias[i];
+  }
+
+  public int nosAssentados() {
+    return nosAssentados;
+  }
+
+  /** Nós do caminho da origem até o i-ésimo destino; vazio se não houver caminho. */
+  public int[] caminho(int i) {
+    int posicao = posicaoDoDestino[i];
+    if (posicao == FORA_DA_ARVORE) {
+      return new int[0];
+    }
+    int tamanho = 0;
+    for (int p = posicao; p != FORA_DA_ARVORE; p = paisNaArvore[p]) {
+      tamanho++;
+    }
+    int[] caminho = new int[tamanho];
+    for (int p = posicao; p != FORA_DA_ARVORE; p = paisNaArvore[p]) {
+      caminho[--tamanho] = nosDaArvore[p];
+    }
+    return caminho;
+  }
+
+  /** Caminho até o i-ésimo destino no formato das buscas. */
+  public CaminhoMinimo caminhoMinimo(int i) {
+    int[] nos = caminho(i);
+    return nos.length == 0 ? CaminhoMinimo.inexistente(nosAssentados) : new CaminhoMinimo(nos, distancias[i], nosAssentados);
+  }
+}
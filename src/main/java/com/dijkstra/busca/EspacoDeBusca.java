@@ -0,0 +1,171 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Área de trabalho reutilizável de uma busca: distâncias, predecessores e a
+ * fila de prioridade, indexados pelo id denso dos nós.
+ *
+ * Cada posição tem uma marca de geração; uma posição só é considerada
+ * válida se a sua marca é igual à geração da busca corrente. Assim, iniciar
+ * uma nova busca custa O(1) e nada precisa ser limpo entre consultas: o custo
+ * fica proporcional aos nós realmente explorados, não ao tamanho do grafo.
+ *
+ * Não é thread-safe; use {@link #paraThreadAtual()} para obter a instância
+ * da thread corrente.
+ */
+public final class EspacoDeBusca {
+  public static final int INFINITO = Integer.MAX_VALUE;
+  public static final int SEM_PREDECESSOR = -1;
+
+  /** As buscas conferem o cancelamento a cada 1024 nós assentados: custo desprezível no laço. */
+  public static final int MASCARA_CANCELAMENTO = 1023;
+
+  private static final ThreadLocal<EspacoDeBusca> DA_THREAD = ThreadLocal.withInitial(EspacoDeBusca::new);
+  private static final ThreadLocal<EspacoDeBusca> REVERSO_DA_THREAD = ThreadLocal.withInitial(EspacoDeBusca::new);
+
+  private int[] distancias = new int[0];
+  private int[] predecessores = new int[0];
+  private int[] marcas = new int[0];
+  // Valor da heurística (A*) de cada nó, calculado na primeira vez que é alcançado
+  private int[] potenciais = new int[0];
+  private int geracao;
+  private final Map<TipoHeap, HeapIndexado> heaps = new EnumMap<>(TipoHeap.class);
+
+  /** Espaço de busca reutilizável da thread corrente. */
+  public static EspacoDeBusca paraThreadAtual() {
+    return DA_THREAD.get();
+  }
+
+  /**
+   * Segundo espaço da thread corrente, para buscas que rodam duas frentes ao
+   * mesmo tempo (ex.: a busca reversa do Dijkstra bidirecional).
+   */
+  public static EspacoDeBusca reversoParaThreadAtual() {
+    return REVERSO_DA_THREAD.get();
+  }
+
+  /**
+   * Soma usada no relaxamento: distância alcançada mais o peso de uma
+   * aresta aberta, ou {@link #INFINITO} quando a soma chega a ele. As
+   * distâncias vão até {@code INFINITO - 1}; um caminho mais longo é tratado
+   * como inexistente em vez de dar a volta para um valor negativo. Aceita
+   * parcelas de 0 a {@link #INFINITO}.
+   */
+  public static int somar(int distancia, int peso) {
+    int soma = distancia + peso;
+    // Com as duas parcelas entre 0 e INFINITO, o estouro sempre dá negativo
+    return soma < 0 ? INFINITO : soma;
+  }
+
+  /**
+   * Cancelamento cooperativo: as buscas chamam a cada
+   * {@link #MASCARA_CANCELAMENTO} + 1 nós assentados e, se a thread foi
+   * interrompida (ex.: {@code Future.cancel(true)}), abandonam a consulta
+   * com {@link CancellationException}. A marca de interrupção é mantida,
+   * para o chamador também enxergá-la.
+   */
+  public static void verificarCancelamento() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new CancellationException("Busca cancelada");
+    }
+  }
+
+  /**
+   * Prepara o espaço para uma nova busca em um grafo com o número de nós
+   * informado. Só realoca quando o grafo é maior que o da busca anterior.
+   */
+  public void iniciar(int numeroDeNos) {
+    if (numeroDeNos > marcas.length) {
+      distancias = Arrays.copyOf(distancias, numeroDeNos);
+      predecessores = Arrays.copyOf(predecessores, numeroDeNos);
+      marcas = Arrays.copyOf(marcas, numeroDeNos);
+      potenciais = Arrays.copyOf(potenciais, numeroDeNos);
+      for (HeapIndexado heap : heaps.values()) {
+        heap.garantirCapacidade(numeroDeNos);
+      }
+    }
+    if (++geracao == 0) {
+      // A geração deu a volta: zera as marcas para não confundir buscas antigas
+      Arrays.fill(marcas, 0);
+      geracao = 1;
+    }
+    for (HeapIndexado heap : heaps.values()) {
+      heap.limpar();
+    }
+  }
+
+  /** Fila de prioridade do tipo informado, já vazia e dimensionada. */
+  public HeapIndexado heap(TipoHeap tipo) {
+    HeapIndexado heap = heaps.get(tipo);
+    if (heap == null) {
+      heap = new HeapIndexado(marcas.length, tipo);
+      heaps.put(tipo, heap);
+    }
+    return heap;
+  }
+
+  /** Soma de {@link HeapIndexado#insercoes()} das filas deste espaço. */
+  public long insercoesNaFila() {
+    long total = 0;
+    for (HeapIndexado heap : heaps.values()) {
+      total += heap.insercoes();
+    }
+    return total;
+  }
+
+  /** Soma de {@link HeapIndexado#diminuicoes()} das filas deste espaço. */
+  public long diminuicoesDeChave() {
+    long total = 0;
+    for (HeapIndexado heap : heaps.values()) {
+      total += heap.diminuicoes();
+    }
+    return total;
+  }
+
+  public boolean alcancado(int no) {
+    return marcas[no] == geracao;
+  }
+
+  public int distancia(int no) {
+    return marcas[no] == geracao ? distancias[no] : INFINITO;
+  }
+
+  public int predecessor(int no) {
+    return marcas[no] == geracao ? predecessores[no] : SEM_PREDECESSOR;
+  }
+
+  public void definir(int no, int distancia, int predecessor) {
+    marcas[no] = geracao;
+    distancias[no] = distancia;
+    predecessores[no] = predecessor;
+  }
+
+  /** Potencial guardado para o nó; só é válido se o nó foi alcançado. */
+  public int potencial(int no) {
+    return potenciais[no];
+  }
+
+  public void definirPotencial(int no, int potencial) {
+    potenciais[no] = potencial;
+  }
+
+  /**
+   * Caminho do nó inicial da busca até o nó informado, seguindo os
+   * predecessores. O nó precisa ter sido alcançado.
+   */
+  public int[] caminhoAte(int no) {
+    int tamanho = 0;
+    for (int passo = no; passo != SEM_PREDECESSOR; passo = predecessores[passo]) {
+      tamanho++;
+    }
+    int[] caminho = new int[tamanho];
+    for (int passo = no; passo != SEM_PREDECESSOR; passo = predecessores[passo]) {
+      caminho[--tamanho] = passo;
+    }
+    return caminho;
+  }
+}
@@ -0,0 +1,174 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+/**
+ * Fila de prioridade indexada de inteiros (heap d-ário) sobre ids densos de
+ * nós. Guarda a posição de cada nó no heap, o que permite decrease-key em
+ * O(log n) em vez de remover e reinserir o elemento.
+ */
+public final class HeapIndexado {
+  private static final int AUSENTE = -1;
+
+  private final int deslocamento;
+  // Nós e chaves ficam em arrays paralelos indexados pela posição no heap
+  private int[] nos;
+  private int[] chaves;
+  // posicoes[no] = posição do nó no heap, ou AUSENTE
+  private int[] posicoes;
+  private int tamanho;
+  // Contadores acumulados desde a criação (nunca zerados, nem pelo limpar)
+  private long insercoes;
+  private long diminuicoes;
+
+  public HeapIndexado(int capacidade) {
+    this(capacidade, TipoHeap.QUATERNARIO);
+  }
+
+  public HeapIndexado(int capacidade, TipoHeap tipo) {
+    this(capacidade, capacidade, tipo);
+  }
+
+  /**
+   * Com espaço inicial para só {@code elementos} nós no heap ao mesmo tempo
+   * (ele cresce se precisar); serve para heaps que ficam guardados, em que a
+   * fronteira da busca é bem menor que o grafo.
+   */
+  HeapIndexado(int capacidade, int elementos, TipoHeap tipo) {
+    this.deslocamento = tipo.deslocamento;
+    this.nos = new int[Math.max(elementos, 1)];
+    this.chaves = new int[nos.length];
+    this.posicoes = new int[capacidade];
+    Arrays.fill(posicoes, AUSENTE);
+  }
+
+  public boolean vazio() {
+    return tamanho == 0;
+  }
+
+  public int tamanho() {
+    return tamanho;
+  }
+
+  public boolean contem(int no) {
+    return posicoes[no] != AUSENTE;
+  }
+
+  /** Menor chave do heap. Só deve ser chamado com o heap não vazio. */
+  public int chaveMinima() {
+    return chaves[0];
+  }
+
+  /** Nó com a menor chave, sem removê-lo. */
+  public int minimo() {
+    return nos[0];
+  }
+
+  /**
+   * Insere o nó com a chave informada ou, se ele já estiver no heap, diminui
+   * a sua chave. Chaves maiores que a atual são ignoradas.
+   */
+  public void inserirOuDiminuir(int no, int chave) {
+    int posicao = posicoes[no];
+    if (posicao == AUSENTE) {
+      posicao = tamanho++;
+      if (posicao == nos.length) {
+        nos = Arrays.copyOf(nos, posicao * 2);
+        chaves = Arrays.copyOf(chaves, posicao * 2);
+      }
+      insercoes++;
+    } else if (chave >= chaves[posicao]) {
+      return;
+    } else {
+      diminuicoes++;
+    }
+    subir(posicao, no, chave);
+  }
+
+  /** Remove e retorna o nó com a menor chave. */
+  public int removerMinimo() {
+    int minimo = nos[0];
+    posicoes[minimo] = AUSENTE;
+    int ultimo = --tamanho;
+    if (ultimo > 0) {
+      descer(0, nos[ultimo], chaves[ultimo]);
+    }
+    return minimo;
+  }
+
+  /** Bytes ocupados pelos arrays do heap. */
+  long bytes() {
+    return 4L * (nos.length + chaves.length + posicoes.length);
+  }
+
+  /** Nós inseridos desde a criação do heap; a diferença entre duas leituras dá o custo de uma busca. */
+  public long insercoes() {
+    return insercoes;
+  }
+
+  /** Chaves diminuídas (decrease-key) desde a criação do heap. */
+  public long diminuicoes() {
+    return diminuicoes;
+  }
+
+  /** Esvazia o heap em tempo proporcional ao número de elementos presentes. */
+  public void limpar() {
+    for (int i = 0; i < tamanho; i++) {
+      posicoes[nos[i]] = AUSENTE;
+    }
+    tamanho = 0;
+  }
+
+  /** Garante espaço para ids de nó menores que {@code capacidade}. */
+  public void garantirCapacidade(int capacidade) {
+    if (capacidade > posicoes.length) {
+      int anterior = posicoes.length;
+      posicoes = Arrays.copyOf(posicoes, capacidade);
+      Arrays.fill(posicoes, anterior, capacidade, AUSENTE);
+    }
+  }
+
+  private void subir(int posicao, int no, int chave) {
+    while (posicao > 0) {
+      int pai = (posicao - 1) >>> deslocamento;
+      int chavePai = chaves[pai];
+      if (chavePai <= chave) {
+        break;
+      }
+      colocar(posicao, nos[pai], chavePai);
+      posicao = pai;
+    }
+    colocar(posicao, no, chave);
+  }
+
+  private void descer(int posicao, int no, int chave) {
+    int aridade = 1 << deslocamento;
+    while (true) {
+      int primeiroFilho = (posicao << deslocamento) + 1;
+      if (primeiroFilho >= tamanho) {
+        break;
+      }
+      int ultimoFilho = Math.min(primeiroFilho + aridade, tamanho);
+      int menor = primeiroFilho;
+      int chaveMenor = chaves[primeiroFilho];
+      for (int filho = primeiroFilho + 1; filho < ultimoFilho; filho++) {
+        if (chaves[filho] < chaveMenor) {
+          menor = filho;
+          chaveMenor = chaves[filho];
+        }
+      }
+      if (chaveMenor >= chave) {
+        break;
+      }
+      colocar(posicao, nos[menor], chaveMenor);
+      posicao = menor;
+    }
+    colocar(posicao, no, chave);
+  }
+
+  private void colocar(int posicao, int no, int chave) {
+    nos[posicao] = no;
+    chaves[posicao] = chave;
+    posicoes[no] = posicao;
+  }
+}
@@ -0,0 +1,10 @@
+package com.dijkstra.busca;
+
+/**
+ * Estimativa inferior da distância de um nó até o destino da busca, usada
+ * pelo {@link AEstrela}. Para o caminho retornado ser ótimo, a estimativa
+ * precisa ser consistente: h(u) <= peso(u, v) + h(v) para toda aresta.
+ */
+public interface Heuristica {
+  int estimar(int no);
+}
@@ -0,0 +1,30 @@
+package com.dijkstra.busca;
+
+import com.dijkstra.Map.Geodesia;
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Distância de grande círculo até o destino multiplicada pelo
+ * {@link GrafoCompacto#fatorHeuristico()}, que garante que ela nunca supera
+ * o peso de uma aresta.
+ */
+public final class HeuristicaGeodesica implements Heuristica {
+  private final GrafoCompacto grafo;
+  private final double fator;
+  private final double latitudeDestino;
+  private final double longitudeDestino;
+
+  public HeuristicaGeodesica(GrafoCompacto grafo, int destino) {
+    this.grafo = grafo;
+    this.fator = grafo.fatorHeuristico();
+    this.latitudeDestino = grafo.latitude(destino);
+    this.longitudeDestino = grafo.longitude(destino);
+  }
+
+  @Override
+  public int estimar(int no) {
+    // Arredondar para baixo mantém a heurística consistente
+    return (int) (fator * Geodesia.distanciaKm(grafo.latitude(no), grafo.longitude(no),
+        latitudeDestino, longitudeDestino));
+  }
+}
@@ -0,0 +1,414 @@
+package com.dijkstra.busca;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Pré-processamento do ALT (A*, Landmarks e desigualdade Triangular).
+ *
+ * Escolhe K nós "marcos" e guarda, para cada um, a distância dele até todos
+ * os nós e de todos os nós até ele. Pela desigualdade triangular,
+ * d(v, t) >= d(L, t) - d(L, v) e d(v, t) >= d(v, L) - d(t, L), o que dá ao
+ * {@link AEstrela} uma heurística bem mais justa que a distância geodésica.
+ *
+ * O resultado pode ser salvo em disco e recarregado; a assinatura do grafo
+ * gravada no arquivo garante que ele só seja usado com o mesmo grafo.
+ */
+public final class Marcos {
+  private static final int MAGICO = 0x414C5431; // "ALT1"
+  private static final int VERSAO = 1;
+  private static final int TAMANHO_CABECALHO = 4 + 4 + 4 + 8 + 4;
+  // Quantos marcos cada consulta usa: os que dão o melhor limite na origem
+  private static final int ATIVOS = 4;
+  private static final int INFINITO = EspacoDeBusca.INFINITO;
+
+  private final int numeroDeNos;
+  private final long assinaturaDoGrafo;
+  private final int[] marcos;
+  // distanciasDe[i][v] = d(marco i, v); distanciasPara[i][v] = d(v, marco i)
+  private final int[][] distanciasDe;
+  private final int[][] distanciasPara;
+
+  private Marcos(int numeroDeNos, long assinaturaDoGrafo, int[] marcos, int[][] distanciasDe, int[][] distanciasPara) {
+    this.numeroDeNos = numeroDeNos;
+    this.assinaturaDoGrafo = assinaturaDoGrafo;
+    this.marcos = marcos;
+    this.distanciasDe = distanciasDe;
+    this.distanciasPara = distanciasPara;
+  }
+
+  /**
+   * Escolhe os marcos e calcula as distâncias. A escolha é sequencial (cada
+   * marco depende dos anteriores); as buscas completas de cada marco rodam
+   * em paralelo no ForkJoinPool comum.
+   */
+  public static Marcos preprocessar(GrafoCompacto grafo, int quantidade, SelecaoDeMarcos selecao, long semente) {
+    int n = grafo.numeroDeNos();
+    if (quantidade <= 0 || quantidade > n) {
+      throw new IllegalArgumentException("Quantidade de marcos inválida: " + quantidade);
+    }
+    int[] marcos = new int[quantidade];
+    int[][] de = new int[quantidade][];
+    int[][] para = new int[quantidade][];
+    Random random = new Random(semente);
+
+    if (selecao == SelecaoDeMarcos.AVOID) {
+      // O avoid precisa das distâncias dos marcos anteriores para escolher o próximo
+      for (int i = 0; i < quantidade; i++) {
+        marcos[i] = escolherAvoid(grafo, marcos, de, para, i, random);
+        int marco = i;
+        IntStream.of(0, 1).parallel().forEach(lado -> {
+          if (lado == 0) {
+            de[marco] = distanciasCompletas(grafo, marcos[marco], false);
+          } else {
+            para[marco] = distanciasCompletas(grafo, marcos[marco], true);
+          }
+        });
+      }
+    } else {
+      escolherMaisDistantes(grafo, marcos, random);
+      IntStream.range(0, quantidade * 2).parallel().forEach(tarefa -> {
+        int marco = tarefa >> 1;
+        if ((tarefa & 1) == 0) {
+          de[marco] = distanciasCompletas(grafo, marcos[marco], false);
+        } else {
+          para[marco] = distanciasCompletas(grafo, marcos[marco], true);
+        }
+      });
+    }
+    return new Marcos(n, grafo.assinatura(), marcos, de, para);
+  }
+
+  public int quantidade() {
+    return marcos.length;
+  }
+
+  public int marco(int indice) {
+    return marcos[indice];
+  }
+
+  /** Indica se o pré-processamento foi feito sobre o grafo informado. */
+  public boolean compativelCom(GrafoCompacto grafo) {
+    return grafo.numeroDeNos() == numeroDeNos && grafo.assinatura() == assinaturaDoGrafo;
+  }
+
+  /**
+   * Heurística para uma consulta. Só os {@value #ATIVOS} marcos que dão o
+   * maior limite inferior na origem são consultados durante a busca.
+   */
+  public Heuristica heuristica(int inicio, int destino) {
+    int ativos = Math.min(ATIVOS, marcos.length);
+    Integer[] ordem = new Integer[marcos.length];
+    for (int i = 0; i < ordem.length; i++) {
+      ordem[i] = i;
+    }
+    Arrays.sort(ordem, (a, b) -> Integer.compare(limite(b, inicio, destino), limite(a, inicio, destino)));
+    int[] escolhidos = new int[ativos];
+    for (int i = 0; i < ativos; i++) {
+      escolhidos[i] = ordem[i];
+    }
+    return no -> {
+      int melhor = 0;
+      for (int marco : escolhidos) {
+        int valor = limite(marco, no, destino);
+        if (valor > melhor) {
+          melhor = valor;
+        }
+      }
+      return melhor;
+    };
+  }
+
+  /** Limite inferior de d(no, destino) dado por um marco; 0 se não houver. */
+  private int limite(int marco, int no, int destino) {
+    int melhor = 0;
+    int deAteDestino = distanciasDe[marco][destino];
+    int deAteNo = distanciasDe[marco][no];
+    if (deAteDestino != INFINITO && deAteNo != INFINITO && deAteDestino - deAteNo > melhor) {
+      melhor = deAteDestino - deAteNo;
+    }
+    int noAteMarco = distanciasPara[marco][no];
+    int destinoAteMarco = distanciasPara[marco][destino];
+    if (noAteMarco != INFINITO && destinoAteMarco != INFINITO && noAteMarco - destinoAteMarco > melhor) {
+      melhor = noAteMarco - destinoAteMarco;
+    }
+    return melhor;
+  }
+
+  // --- Escolha dos marcos ---
+
+  private static void escolherMaisDistantes(GrafoCompacto grafo, int[] marcos, Random random) {
+    int n = grafo.numeroDeNos();
+    int[] distancias = new int[n];
+    // O primeiro marco é o nó mais distante de um nó aleatório
+    buscaCompleta(grafo, new int[] { random.nextInt(n) }, 1, false, distancias, null, null);
+    for (int i = 0; i < marcos.length; i++) {
+      marcos[i] = maisDistante(distancias);
+      // Distância de cada nó até o marco mais próximo (busca com várias origens)
+      buscaCompleta(grafo, marcos, i + 1, false, distancias, null, null);
+    }
+  }
+
+  /** Nó com a maior distância finita; nós inalcançáveis (outra componente) têm prioridade. */
+  private static int maisDistante(int[] distancias) {
+    int escolhido = 0;
+    long maior = -1;
+    for (int no = 0; no < distancias.length; no++) {
+      long valor = distancias[no] == INFINITO ? Long.MAX_VALUE : distancias[no];
+      if (valor > maior) {
+        maior = valor;
+        escolhido = no;
+      }
+    }
+    return escolhido;
+  }
+
+  /**
+   * Monta a árvore de caminhos mínimos a partir de uma raiz aleatória, dá a
+   * cada nó o peso d(raiz, v) - limite(raiz, v) (o quanto os marcos atuais
+   * erram) e desce pela subárvore de maior peso total que ainda não contém
+   * marco até chegar a uma folha, que vira o novo marco.
+   */
+  private static int escolherAvoid(GrafoCompacto grafo, int[] marcos, int[][] de, int[][] para, int escolhidos,
+      Random random) {
+    int n = grafo.numeroDeNos();
+    int raiz = random.nextInt(n);
+    int[] distancias = new int[n];
+    int[] predecessores = new int[n];
+    int[] ordem = new int[n];
+    int alcancados = buscaCompleta(grafo, new int[] { raiz }, 1, false, distancias, predecessores, ordem);
+
+    Marcos parciais = new Marcos(n, 0, Arrays.copyOf(marcos, escolhidos), de, para);
+    boolean[] ehMarco = new boolean[n];
+    for (int i = 0; i < escolhidos; i++) {
+      ehMarco[marcos[i]] = true;
+    }
+
+    long[] tamanhos = new long[n];
+    boolean[] contemMarco = new boolean[n];
+    // Ordem reversa de assentamento: os filhos são processados antes dos pais
+    for (int i = alcancados - 1; i >= 0; i--) {
+      int no = ordem[i];
+      tamanhos[no] += distancias[no] - parciais.limiteDe(raiz, no);
+      contemMarco[no] |= ehMarco[no];
+      if (contemMarco[no]) {
+        tamanhos[no] = 0;
+      }
+      int pai = predecessores[no];
+      if (pai != EspacoDeBusca.SEM_PREDECESSOR) {
+        tamanhos[pai] += tamanhos[no];
+        contemMarco[pai] |= contemMarco[no];
+      }
+    }
+
+    int atual = raiz;
+    while (true) {
+      int proximo = -1;
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        int filho = grafo.destino(a);
+        if (predecessores[filho] == atual && filho != raiz && tamanhos[filho] > 0
+            && (proximo < 0 || tamanhos[filho] > tamanhos[proximo])) {
+          proximo = filho;
+        }
+      }
+      if (proximo < 0) {
+        break;
+      }
+      atual = proximo;
+    }
+    if (ehMarco[atual]) {
+      // Árvore inteira já coberta: cai para o nó mais distante da raiz
+      return maisDistante(distancias);
+    }
+    return atual;
+  }
+
+  // Maior limite inferior de d(origem, no) entre todos os marcos já escolhidos
+  private int limiteDe(int origem, int no) {
+    int melhor = 0;
+    for (int i = 0; i < marcos.length; i++) {
+      melhor = Math.max(melhor, limite(i, origem, no));
+    }
+    return melhor;
+  }
+
+  // --- Buscas completas ---
+
+  private static int[] distanciasCompletas(GrafoCompacto grafo, int origem, boolean reverso) {
+    int[] distancias = new int[grafo.numeroDeNos()];
+    buscaCompleta(grafo, new int[] { origem }, 1, reverso, distancias, null, null);
+    return distancias;
+  }
+
+  /**
+   * Dijkstra sem destino a partir das primeiras {@code quantasOrigens}
+   * origens, com arrays próprios (o resultado sobrevive à busca). Retorna
+   * quantos nós foram alcançados; {@code predecessores} e {@code ordem} são
+   * opcionais.
+   */
+  private static int buscaCompleta(GrafoCompacto grafo, int[] origens, int quantasOrigens, boolean reverso,
+      int[] distancias, int[] predecessores, int[] ordem) {
+    int n = grafo.numeroDeNos();
+    Arrays.fill(distancias, INFINITO);
+    if (predecessores != null) {
+      Arrays.fill(predecessores, EspacoDeBusca.SEM_PREDECESSOR);
+    }
+    HeapIndexado fila = new HeapIndexado(n);
+    for (int i = 0; i < quantasOrigens; i++) {
+      distancias[origens[i]] = 0;
+      fila.inserirOuDiminuir(origens[i], 0);
+    }
+    int assentados = 0;
+    while (!fila.vazio()) {
+      int atual = fila.removerMinimo();
+      if (ordem != null) {
+        ordem[assentados] = atual;
+      }
+      assentados++;
+      int inicio = reverso ? grafo.inicioReverso(atual) : grafo.inicio(atual);
+      int fim = reverso ? grafo.fimReverso(atual) : grafo.fim(atual);
+      for (int a = inicio; a < fim; a++) {
+        int peso = reverso ? grafo.pesoReverso(a) : grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = reverso ? grafo.origemReversa(a) : grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distancias[atual], peso);
+        if (novaDistancia < distancias[vizinho]) {
+          distancias[vizinho] = novaDistancia;
+          if (predecessores != null) {
+            predecessores[vizinho] = atual;
+          }
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+    return assentados;
+  }
+
+  // --- Persistência ---
+
+  /**
+   * Grava o pré-processamento em um arquivo binário: cabeçalho (mágico,
+   * versão, nós, assinatura do grafo, quantidade), ids dos marcos, as
+   * distâncias de/para cada marco e um CRC32 do conteúdo no final.
+   */
+  public void salvar(Path arquivo) throws IOException {
+    try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      CRC32 crc = new CRC32();
+      ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+      cabecalho.putInt(MAGICO).putInt(VERSAO).putInt(numeroDeNos).putLong(assinaturaDoGrafo).putInt(marcos.length);
+      escrever(canal, cabecalho, crc);
+
+      ByteBuffer bloco = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+      escreverInts(canal, bloco, marcos, crc);
+      for (int i = 0; i < marcos.length; i++) {
+        escreverInts(canal, bloco, distanciasDe[i], crc);
+        escreverInts(canal, bloco, distanciasPara[i], crc);
+      }
+      ByteBuffer rodape = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      rodape.putLong(crc.getValue());
+      rodape.flip();
+      while (rodape.hasRemaining()) {
+        canal.write(rodape);
+      }
+    }
+  }
+
+  /**
+   * Lê um arquivo gravado por {@link #salvar(Path)}. Falha com IOException se
+   * o arquivo estiver corrompido ou tiver sido gerado para outro grafo.
+   */
+  public static Marcos carregar(Path arquivo, GrafoCompacto grafo) throws IOException {
+    try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+      CRC32 crc = new CRC32();
+      ByteBuffer cabecalho = ler(canal, ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN), crc);
+      if (cabecalho.getInt() != MAGICO) {
+        throw new IOException("Arquivo não contém marcos do ALT: " + arquivo);
+      }
+      int versao = cabecalho.getInt();
+      if (versao != VERSAO) {
+        throw new IOException("Versão de arquivo de marcos não suportada: " + versao);
+      }
+      int nos = cabecalho.getInt();
+      long assinatura = cabecalho.getLong();
+      int quantidade = cabecalho.getInt();
+      if (nos != grafo.numeroDeNos() || assinatura != grafo.assinatura()) {
+        throw new IOException("Os marcos em " + arquivo + " foram gerados para outro grafo");
+      }
+
+      ByteBuffer bloco = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+      int[] marcos = lerInts(canal, bloco, quantidade, crc);
+      int[][] de = new int[quantidade][];
+      int[][] para = new int[quantidade][];
+      for (int i = 0; i < quantidade; i++) {
+        de[i] = lerInts(canal, bloco, nos, crc);
+        para[i] = lerInts(canal, bloco, nos, crc);
+      }
+      long esperado = ler(canal, ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN), null).getLong();
+      if (esperado != crc.getValue()) {
+        throw new IOException("Checksum inválido no arquivo de marcos: " + arquivo);
+      }
+      return new Marcos(nos, assinatura, marcos, de, para);
+    }
+  }
+
+  private static void escrever(FileChannel canal, ByteBuffer buffer, CRC32 crc) throws IOException {
+    buffer.flip();
+    crc.update(buffer.duplicate());
+    while (buffer.hasRemaining()) {
+      canal.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static void escreverInts(FileChannel canal, ByteBuffer bloco, int[] valores, CRC32 crc) throws IOException {
+    IntBuffer ints = bloco.asIntBuffer();
+    for (int i = 0; i < valores.length;) {
+      int quantos = Math.min(ints.capacity(), valores.length - i);
+      ints.clear();
+      ints.put(valores, i, quantos);
+      bloco.clear().limit(quantos * 4);
+      bloco.position(quantos * 4);
+      escrever(canal, bloco, crc);
+      i += quantos;
+    }
+  }
+
+  private static ByteBuffer ler(FileChannel canal, ByteBuffer buffer, CRC32 crc) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (canal.read(buffer) < 0) {
+        throw new IOException("Arquivo de marcos truncado");
+      }
+    }
+    buffer.flip();
+    if (crc != null) {
+      crc.update(buffer.duplicate());
+    }
+    return buffer;
+  }
+
+  private static int[] lerInts(FileChannel canal, ByteBuffer bloco, int quantidade, CRC32 crc) throws IOException {
+    int[] valores = new int[quantidade];
+    for (int i = 0; i < quantidade;) {
+      int quantos = Math.min(bloco.capacity() / 4, quantidade - i);
+      bloco.clear().limit(quantos * 4);
+      ler(canal, bloco, crc);
+      bloco.asIntBuffer().get(valores, i, quantos);
+      i += quantos;
+    }
+    return valores;
+  }
+}
@@ -0,0 +1,261 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Distâncias mínimas entre todos os pares de nós, calculadas de uma vez e
+ * consultadas em O(1).
+ *
+ * As distâncias ficam em um único array de n * n posições (linha = origem)
+ * e, para recuperar os caminhos, o predecessor de cada destino na árvore de
+ * caminhos mínimos de cada origem. Como n * n precisa caber em um array, o
+ * número de nós é limitado a {@value #MAXIMO_DE_NOS}; com isso todo id cabe
+ * em 16 bits e os predecessores são guardados em um char[], com metade da
+ * memória de um int[].
+ *
+ * É imutável e pode ser consultada por várias threads ao mesmo tempo.
+ */
+public final class MatrizDeDistancias {
+  public static final int MAXIMO_DE_NOS = 46_340;
+
+  private static final int INFINITO = EspacoDeBusca.INFINITO;
+  private static final char SEM_PREDECESSOR = Character.MAX_VALUE;
+  // Lado dos blocos do Floyd–Warshall: 64 x 64 ints (16 KB) cabem no cache L1/L2
+  private static final int BLOCO = 64;
+  private static final int MAXIMO_FLOYD_WARSHALL = 2048;
+
+  private final int n;
+  private final long assinaturaDoGrafo;
+  private final MetodoDaMatriz metodo;
+  // distancias[origem * n + destino]
+  private final int[] distancias;
+  // predecessores[origem * n + destino] = nó anterior ao destino no caminho
+  private final char[] predecessores;
+
+  private MatrizDeDistancias(int n, long assinaturaDoGrafo, MetodoDaMatriz metodo, int[] distancias,
+      char[] predecessores) {
+    this.n = n;
+    this.assinaturaDoGrafo = assinaturaDoGrafo;
+    this.metodo = metodo;
+    this.distancias = distancias;
+    this.predecessores = predecessores;
+  }
+
+  /** Calcula a matriz no ForkJoinPool comum, com o método recomendado para o grafo. */
+  public static MatrizDeDistancias calcular(GrafoCompacto grafo) {
+    return calcular(grafo, metodoRecomendado(grafo), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Calcula a matriz com o método informado. O trabalho é dividido entre as
+   * threads do pool: uma origem por tarefa nas buscas por origem, ou os
+   * blocos independentes de cada fase no Floyd–Warshall.
+   */
+  public static MatrizDeDistancias calcular(GrafoCompacto grafo, MetodoDaMatriz metodo, ForkJoinPool pool) {
+    int n = grafo.numeroDeNos();
+    if (n > MAXIMO_DE_NOS) {
+      throw new IllegalArgumentException(
+          "Grafo grande demais para a matriz de distâncias: " + n + " nós (máximo " + MAXIMO_DE_NOS + ")");
+    }
+    int[] distancias = new int[n * n];
+    char[] predecessores = new char[n * n];
+    if (metodo == MetodoDaMatriz.FLOYD_WARSHALL) {
+      floydWarshall(grafo, distancias, predecessores, pool);
+    } else {
+      pool.submit(() -> IntStream.range(0, n).parallel()
+          .forEach(origem -> buscaCompleta(grafo, origem, distancias, predecessores))).join();
+    }
+    return new MatrizDeDistancias(n, grafo.assinatura(), metodo, distancias, predecessores);
+  }
+
+  /**
+   * Floyd–Warshall custa O(n³) mas com um laço interno simples e sequencial
+   * na memória; as buscas por origem custam O(n (m + n log n)) com acessos
+   * espalhados pelo heap. O Floyd–Warshall é escolhido quando o grafo é
+   * pequeno e denso o bastante para n² ficar perto de m + n log n.
+   */
+  public static MetodoDaMatriz metodoRecomendado(GrafoCompacto grafo) {
+    long n = grafo.numeroDeNos();
+    long log = 64 - Long.numberOfLeadingZeros(Math.max(n, 1));
+    boolean denso = n * n <= 8 * (grafo.numeroDeArestas() + n * log);
+    return n <= MAXIMO_FLOYD_WARSHALL && denso ? MetodoDaMatriz.FLOYD_WARSHALL : MetodoDaMatriz.BUSCAS_POR_ORIGEM;
+  }
+
+  public int numeroDeNos() {
+    return n;
+  }
+
+  public MetodoDaMatriz metodo() {
+    return metodo;
+  }
+
+  public boolean compativelCom(GrafoCompacto grafo) {
+    return grafo.numeroDeNos() == n && grafo.assinatura() == assinaturaDoGrafo;
+  }
+
+  /** Distância mínima da origem ao destino, ou -1 se não houver caminho. */
+  public int distancia(int origem, int destino) {
+    int distancia = distancias[origem * n + destino];
+    return distancia == INFINITO ? -1 : distancia;
+  }
+
+  /** Nós do caminho mínimo, da origem ao destino; vazio se não houver caminho. */
+  public int[] caminho(int origem, int destino) {
+    int linha = origem * n;
+    if (distancias[linha + destino] == INFINITO) {
+      return new int[0];
+    }
+    int tamanho = 1;
+    for (int passo = destino; passo != origem; passo = predecessores[linha + passo]) {
+      tamanho++;
+    }
+    int[] caminho = new int[tamanho];
+    caminho[0] = origem;
+    for (int passo = destino; passo != origem; passo = predecessores[linha + passo]) {
+      caminho[--tamanho] = passo;
+    }
+    return caminho;
+  }
+
+  /** Caminho no formato das buscas; nenhum nó é assentado na consulta. */
+  public CaminhoMinimo caminhoMinimo(int origem, int destino) {
+    int[] nos = caminho(origem, destino);
+    return nos.length == 0 ? CaminhoMinimo.inexistente(0) : new CaminhoMinimo(nos, distancia(origem, destino), 0);
+  }
+
+  // --- Buscas por origem ---
+
+  /** Dijkstra sem destino, gravando direto na linha da origem. */
+  private static void buscaCompleta(GrafoCompacto grafo, int origem, int[] distancias, char[] predecessores) {
+    int n = grafo.numeroDeNos();
+    int linha = origem * n;
+    Arrays.fill(distancias, linha, linha + n, INFINITO);
+    Arrays.fill(predecessores, linha, linha + n, SEM_PREDECESSOR);
+
+    // Só a fila vem do espaço da thread; as distâncias já têm lugar na matriz
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(n);
+    HeapIndexado fila = espaco.heap(TipoHeap.QUATERNARIO);
+    distancias[linha + origem] = 0;
+    fila.inserirOuDiminuir(origem, 0);
+    while (!fila.vazio()) {
+      int atual = fila.removerMinimo();
+      int distanciaAtual = distancias[linha + atual];
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < distancias[linha + vizinho]) {
+          distancias[linha + vizinho] = novaDistancia;
+          predecessores[linha + vizinho] = (char) atual;
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+  }
+
+  // --- Floyd–Warshall em blocos ---
+
+  /**
+   * Para cada bloco k da diagonal: (1) fecha o próprio bloco (k, k); (2)
+   * atualiza os blocos da linha e da coluna k, que só dependem dele; (3)
+   * atualiza todos os outros blocos, que dependem só da linha e da coluna k.
+   * Os blocos de cada fase são independentes e rodam em paralelo.
+   *
+   * Os predecessores não são mantidos durante o Floyd–Warshall: com ciclos de
+   * peso zero, empates entre caminhos podem fechar ciclos entre eles. Depois
+   * das distâncias, cada linha é percorrida a partir da origem só pelas
+   * arestas justas (d(o, u) + w(u, v) = d(o, v)), em O(m) por origem.
+   */
+  private static void floydWarshall(GrafoCompacto grafo, int[] distancias, char[] predecessores, ForkJoinPool pool) {
+    int n = grafo.numeroDeNos();
+    Arrays.fill(distancias, INFINITO);
+    for (int origem = 0; origem < n; origem++) {
+      distancias[origem * n + origem] = 0;
+      for (int a = grafo.inicio(origem), fim = grafo.fim(origem); a < fim; a++) {
+        int posicao = origem * n + grafo.destino(a);
+        // Uma aresta fechada (PESO_FECHADO == INFINITO) não muda nada
+        distancias[posicao] = Math.min(distancias[posicao], grafo.peso(a));
+      }
+    }
+
+    int blocos = (n + BLOCO - 1) / BLOCO;
+    pool.submit(() -> {
+      for (int k = 0; k < blocos; k++) {
+        int bloco = k;
+        relaxarBloco(distancias, n, bloco, bloco, bloco);
+        IntStream.range(0, blocos).filter(outro -> outro != bloco).parallel().forEach(outro -> {
+          relaxarBloco(distancias, n, bloco, outro, bloco);
+          relaxarBloco(distancias, n, outro, bloco, bloco);
+        });
+        IntStream.range(0, blocos * blocos).parallel().forEach(indice -> {
+          int linha = indice / blocos;
+          int coluna = indice % blocos;
+          if (linha != bloco && coluna != bloco) {
+            relaxarBloco(distancias, n, linha, coluna, bloco);
+          }
+        });
+      }
+      IntStream.range(0, n).parallel().forEach(origem -> arvoreDeArestasJustas(grafo, origem, distancias, predecessores));
+    }).join();
+  }
+
+  /** Relaxa o bloco (linha, coluna) passando pelos nós intermediários do bloco k. */
+  private static void relaxarBloco(int[] distancias, int n, int linha, int coluna, int k) {
+    int iInicio = linha * BLOCO;
+    int iFim = Math.min(iInicio + BLOCO, n);
+    int jInicio = coluna * BLOCO;
+    int jFim = Math.min(jInicio + BLOCO, n);
+    int kInicio = k * BLOCO;
+    int kFim = Math.min(kInicio + BLOCO, n);
+    for (int meio = kInicio; meio < kFim; meio++) {
+      int linhaDoMeio = meio * n;
+      for (int i = iInicio; i < iFim; i++) {
+        int ateMeio = distancias[i * n + meio];
+        if (ateMeio == INFINITO) {
+          continue;
+        }
+        int linhaDeI = i * n;
+        for (int j = jInicio; j < jFim; j++) {
+          int doMeio = distancias[linhaDoMeio + j];
+          int total = EspacoDeBusca.somar(ateMeio, doMeio);
+          if (total < distancias[linhaDeI + j]) {
+            distancias[linhaDeI + j] = total;
+          }
+        }
+      }
+    }
+  }
+
+  /** Busca em largura a partir da origem que só segue arestas justas, preenchendo os predecessores da linha. */
+  private static void arvoreDeArestasJustas(GrafoCompacto grafo, int origem, int[] distancias, char[] predecessores) {
+    int n = grafo.numeroDeNos();
+    int linha = origem * n;
+    Arrays.fill(predecessores, linha, linha + n, SEM_PREDECESSOR);
+    int[] fila = new int[n];
+    int inicio = 0;
+    int fim = 0;
+    fila[fim++] = origem;
+    while (inicio < fim) {
+      int atual = fila[inicio++];
+      int distanciaAtual = distancias[linha + atual];
+      for (int a = grafo.inicio(atual), ultima = grafo.fim(atual); a < ultima; a++) {
+        int vizinho = grafo.destino(a);
+        int peso = grafo.peso(a);
+        if (vizinho != origem && predecessores[linha + vizinho] == SEM_PREDECESSOR
+            && peso != GrafoCompacto.PESO_FECHADO && distancias[linha + vizinho] != INFINITO
+            && EspacoDeBusca.somar(distanciaAtual, peso) == distancias[linha + vizinho]) {
+          predecessores[linha + vizinho] = (char) atual;
+          fila[fim++] = vizinho;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.dijkstra.busca;
+
+/**
+ * Como a {@link MatrizDeDistancias} é calculada.
+ */
+public enum MetodoDaMatriz {
+  /** Um Dijkstra completo por origem, com as origens distribuídas entre as threads. */
+  BUSCAS_POR_ORIGEM,
+  /** Floyd–Warshall em blocos; compensa em grafos pequenos e densos. */
+  FLOYD_WARSHALL
+}
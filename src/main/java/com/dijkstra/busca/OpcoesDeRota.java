@@ -0,0 +1,132 @@
+package com.dijkstra.busca;
+
+import java.util.Objects;
+
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+
+/**
+ * Perfil de roteamento: qual algoritmo usar, com qual fila de prioridade e,
+ * para os algoritmos que dependem de pré-processamento, com quais dados.
+ * É imutável e pode ser usado como chave (ex.: em caches de rotas).
+ */
+public final class OpcoesDeRota {
+  private static final OpcoesDeRota PADRAO = new OpcoesDeRota(Algoritmo.DIJKSTRA, TipoHeap.QUATERNARIO, null, null,
+      null, null);
+
+  private final Algoritmo algoritmo;
+  private final TipoHeap tipoHeap;
+  private final Marcos marcos;
+  private final HierarquiaDeContracao hierarquia;
+  private final MatrizDeDistancias matriz;
+  private final ArvoresPorOrigem arvores;
+
+  private OpcoesDeRota(Algoritmo algoritmo, TipoHeap tipoHeap, Marcos marcos, HierarquiaDeContracao hierarquia,
+      MatrizDeDistancias matriz, ArvoresPorOrigem arvores) {
+    this.algoritmo = Objects.requireNonNull(algoritmo);
+    this.tipoHeap = Objects.requireNonNull(tipoHeap);
+    this.marcos = marcos;
+    this.hierarquia = hierarquia;
+    this.matriz = matriz;
+    this.arvores = arvores;
+  }
+
+  /** Dijkstra unidirecional com heap 4-ário. */
+  public static OpcoesDeRota padrao() {
+    return PADRAO;
+  }
+
+  /**
+   * Algoritmos sem pré-processamento; para o ALT use {@link #alt(Marcos)},
+   * para a hierarquia de contração, {@link #ch(HierarquiaDeContracao)} e para
+   * a matriz de distâncias, {@link #matriz(MatrizDeDistancias)} e para as
+   * buscas retomáveis, {@link #retomavel(ArvoresPorOrigem)}.
+   */
+  public static OpcoesDeRota de(Algoritmo algoritmo) {
+    if (algoritmo == Algoritmo.ALT) {
+      throw new IllegalArgumentException("O ALT precisa dos marcos pré-processados: use OpcoesDeRota.alt(marcos)");
+    }
+    if (algoritmo == Algoritmo.CH) {
+      throw new IllegalArgumentException("O CH precisa da hierarquia pré-processada: use OpcoesDeRota.ch(hierarquia)");
+    }
+    if (algoritmo == Algoritmo.MATRIZ) {
+      throw new IllegalArgumentException("A consulta na matriz precisa da matriz calculada: use OpcoesDeRota.matriz(matriz)");
+    }
+    if (algoritmo == Algoritmo.DIJKSTRA_RETOMAVEL) {
+      throw new IllegalArgumentException(
+          "O Dijkstra retomável guarda as buscas em ArvoresPorOrigem: use OpcoesDeRota.retomavel(arvores)");
+    }
+    return new OpcoesDeRota(algoritmo, PADRAO.tipoHeap, null, null, null, null);
+  }
+
+  public static OpcoesDeRota alt(Marcos marcos) {
+    return new OpcoesDeRota(Algoritmo.ALT, PADRAO.tipoHeap, Objects.requireNonNull(marcos), null, null, null);
+  }
+
+  public static OpcoesDeRota ch(HierarquiaDeContracao hierarquia) {
+    return new OpcoesDeRota(Algoritmo.CH, PADRAO.tipoHeap, null, Objects.requireNonNull(hierarquia), null, null);
+  }
+
+  public static OpcoesDeRota matriz(MatrizDeDistancias matriz) {
+    return new OpcoesDeRota(Algoritmo.MATRIZ, PADRAO.tipoHeap, null, null, Objects.requireNonNull(matriz), null);
+  }
+
+  /** Dijkstra que guarda a busca de cada origem em {@code arvores} e a retoma nas consultas seguintes. */
+  public static OpcoesDeRota retomavel(ArvoresPorOrigem arvores) {
+    return new OpcoesDeRota(Algoritmo.DIJKSTRA_RETOMAVEL, PADRAO.tipoHeap, null, null, null,
+        Objects.requireNonNull(arvores));
+  }
+
+  public OpcoesDeRota comHeap(TipoHeap tipoHeap) {
+    return new OpcoesDeRota(algoritmo, tipoHeap, marcos, hierarquia, matriz, arvores);
+  }
+
+  public Algoritmo getAlgoritmo() {
+    return algoritmo;
+  }
+
+  public TipoHeap getTipoHeap() {
+    return tipoHeap;
+  }
+
+  /** Marcos do ALT, ou null para os demais algoritmos. */
+  public Marcos getMarcos() {
+    return marcos;
+  }
+
+  /** Hierarquia de contração do CH, ou null para os demais algoritmos. */
+  public HierarquiaDeContracao getHierarquia() {
+    return hierarquia;
+  }
+
+  /** Matriz de distâncias da consulta MATRIZ, ou null para os demais algoritmos. */
+  public MatrizDeDistancias getMatriz() {
+    return matriz;
+  }
+
+  /** Buscas guardadas do DIJKSTRA_RETOMAVEL, ou null para os demais algoritmos. */
+  public ArvoresPorOrigem getArvores() {
+    return arvores;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof OpcoesDeRota))
+      return false;
+    OpcoesDeRota outras = (OpcoesDeRota) o;
+    return algoritmo == outras.algoritmo && tipoHeap == outras.tipoHeap && marcos == outras.marcos
+        && hierarquia == outras.hierarquia && matriz == outras.matriz && arvores == outras.arvores;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(algoritmo, tipoHeap, System.identityHashCode(marcos), System.identityHashCode(hierarquia),
+        System.identityHashCode(matriz), System.identityHashCode(arvores));
+  }
+
+  @Override
+  public String toString() {
+    return algoritmo + "/" + tipoHeap;
+  }
+}
@@ -0,0 +1,14 @@
+package com.dijkstra.busca;
+
+/**
+ * Estratégias de escolha dos marcos (landmarks) do ALT.
+ */
+public enum SelecaoDeMarcos {
+  /** Cada novo marco é o nó mais distante dos marcos já escolhidos. */
+  MAIS_DISTANTES,
+  /**
+   * Heurística "avoid" (Goldberg e Werneck): procura a região da árvore de
+   * caminhos mínimos mais mal coberta pelos marcos atuais.
+   */
+  AVOID
+}
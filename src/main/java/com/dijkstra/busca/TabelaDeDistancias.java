@@ -0,0 +1,77 @@
+package com.dijkstra.busca;
+
+import java.util.stream.IntStream;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Distâncias entre um conjunto de origens (linhas) e um de destinos
+ * (colunas). Os caminhos não são montados junto com a tabela: cada um é
+ * reconstruído só quando é pedido.
+ */
+public final class TabelaDeDistancias {
+  /** Reconstrói o caminho de uma célula (linha, coluna) da tabela. */
+  @FunctionalInterface
+  public interface Caminhos {
+    CaminhoMinimo entre(int linha, int coluna);
+  }
+
+  private final int[] origens;
+  private final int[] destinos;
+  // distancias[linha * colunas + coluna], -1 quando não há caminho
+  private final int[] distancias;
+  private final Caminhos caminhos;
+
+  public TabelaDeDistancias(int[] origens, int[] destinos, int[] distancias, Caminhos caminhos) {
+    if (distancias.length != origens.length * destinos.length) {
+      throw new IllegalArgumentException("A tabela deve ter origens x destinos posições");
+    }
+    this.origens = origens;
+    this.destinos = destinos;
+    this.distancias = distancias;
+    this.caminhos = caminhos;
+  }
+
+  /** Uma busca {@link UmParaMuitos} por origem, com as origens divididas entre as threads. */
+  public static TabelaDeDistancias calcular(GrafoCompacto grafo, int[] origens, int[] destinos, TipoHeap tipoHeap) {
+    DistanciasDaOrigem[] linhas = new DistanciasDaOrigem[origens.length];
+    IntStream.range(0, origens.length).parallel()
+        .forEach(i -> linhas[i] = UmParaMuitos.buscar(grafo, origens[i], destinos, tipoHeap));
+    int[] distancias = new int[origens.length * destinos.length];
+    for (int i = 0; i < origens.length; i++) {
+      for (int j = 0; j < destinos.length; j++) {
+        distancias[i * destinos.length + j] = linhas[i].distancia(j);
+      }
+    }
+    return new TabelaDeDistancias(origens.clone(), destinos.clone(), distancias,
+        (linha, coluna) -> linhas[linha].caminhoMinimo(coluna));
+  }
+
+  public int linhas() {
+    return origens.length;
+  }
+
+  public int colunas() {
+    return destinos.length;
+  }
+
+  public int origem(int linha) {
+    return origens[linha];
+  }
+
+  public int destino(int coluna) {
+    return destinos[coluna];
+  }
+
+  /** Distância da origem da linha ao destino da coluna, ou -1 se não houver caminho. */
+  public int distancia(int linha, int coluna) {
+    return distancias[linha * destinos.length + coluna];
+  }
+
+  public CaminhoMinimo caminho(int linha, int coluna) {
+    if (distancia(linha, coluna) < 0) {
+      return CaminhoMinimo.inexistente(0);
+    }
+    return caminhos.entre(linha, coluna);
+  }
+}
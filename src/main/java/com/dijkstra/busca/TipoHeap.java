@@ -0,0 +1,22 @@
+package com.dijkstra.busca;
+
+/**
+ * Variantes disponíveis do {@link HeapIndexado}.
+ * O heap 4-ário tem metade da altura do binário e costuma ser mais rápido
+ * no Dijkstra, onde há muito mais decrease-key do que remoções.
+ */
+public enum TipoHeap {
+  BINARIO(1),
+  QUATERNARIO(2);
+
+  // log2 da aridade, para navegar no heap com shifts em vez de divisões
+  final int deslocamento;
+
+  TipoHeap(int deslocamento) {
+    this.deslocamento = deslocamento;
+  }
+
+  public int aridade() {
+    return 1 << deslocamento;
+  }
+}
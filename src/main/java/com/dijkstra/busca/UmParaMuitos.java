@@ -0,0 +1,60 @@
+package com.dijkstra.busca;
+
+import java.util.Arrays;
+
+import com.dijkstra.Map.GrafoCompacto;
+
+/**
+ * Dijkstra de uma origem para vários destinos em uma única busca, que para
+ * assim que todos os destinos foram assentados.
+ */
+public final class UmParaMuitos {
+
+  private UmParaMuitos() {
+  }
+
+  public static DistanciasDaOrigem buscar(GrafoCompacto grafo, int origem, int[] destinos, TipoHeap tipoHeap) {
+    // Destinos distintos e ordenados: a verificação a cada nó assentado é uma busca binária
+    int[] alvos = destinos.clone();
+    Arrays.sort(alvos);
+    int distintos = 0;
+    for (int i = 0; i < alvos.length; i++) {
+      if (i == 0 || alvos[i] != alvos[i - 1]) {
+        alvos[distintos++] = alvos[i];
+      }
+    }
+    int pendentes = distintos;
+
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(grafo.numeroDeNos());
+    HeapIndexado filaPrioridade = espaco.heap(tipoHeap);
+    espaco.definir(origem, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaPrioridade.inserirOuDiminuir(origem, 0);
+    int assentados = 0;
+
+    while (!filaPrioridade.vazio() && pendentes > 0) {
+      int atual = filaPrioridade.removerMinimo();
+      assentados++;
+      if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+        EspacoDeBusca.verificarCancelamento();
+      }
+      if (Arrays.binarySearch(alvos, 0, distintos, atual) >= 0 && --pendentes == 0) {
+        break;
+      }
+      int distanciaAtual = espaco.distancia(atual);
+      for (int a = grafo.inicio(atual), fim = grafo.fim(atual); a < fim; a++) {
+        int peso = grafo.peso(a);
+        if (peso == GrafoCompacto.PESO_FECHADO) {
+          continue;
+        }
+        int vizinho = grafo.destino(a);
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, peso);
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          espaco.definir(vizinho, novaDistancia, atual);
+          filaPrioridade.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+    return DistanciasDaOrigem.capturar(espaco, origem, destinos, assentados);
+  }
+}
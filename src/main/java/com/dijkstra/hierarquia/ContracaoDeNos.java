@@ -0,0 +1,278 @@
+package com.dijkstra.hierarquia;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.EspacoDeBusca;
+import com.dijkstra.busca.HeapIndexado;
+import com.dijkstra.busca.TipoHeap;
+
+/**
+ * Contração de nós que gera a {@link HierarquiaDeContracao}.
+ *
+ * A prioridade de um nó é o dobro da diferença de arestas (atalhos que a
+ * contração criaria menos as arestas removidas) somado ao número de vizinhos
+ * já contraídos e à profundidade do nó na hierarquia, o que espalha as
+ * contrações pelo grafo. A contração é feita em rodadas: em cada uma, os nós cuja
+ * prioridade é mínima entre os vizinhos formam um conjunto independente, e
+ * as buscas de testemunha desses nós rodam em paralelo. As buscas ignoram
+ * todos os nós da rodada, então nenhum atalho deixa de ser criado por
+ * depender de outro nó que está sendo contraído ao mesmo tempo.
+ */
+final class ContracaoDeNos {
+  // Limitam as buscas de testemunha; se o limite estoura, o atalho é criado.
+  // A estimativa de prioridade roda muito mais vezes e usa um limite menor.
+  private static final int LIMITE_ASSENTADOS = 500;
+  private static final int LIMITE_ASSENTADOS_ESTIMATIVA = 20;
+  private static final int NENHUMA_RODADA = 0;
+
+  private final int n;
+  private final ListaDeArestas[] saidas;
+  private final ListaDeArestas[] entradas;
+  private final boolean[] contraidos;
+  private final int[] rodadaDoNo;
+  private final int[] vizinhosContraidos;
+  // Profundidade na hierarquia: 1 + maior profundidade entre os vizinhos contraídos
+  private final int[] profundidades;
+  private final int[] prioridades;
+
+  private final int[] niveis;
+  private final ListaDeArestas[] subida;
+  private final ListaDeArestas[] descida;
+  private int proximoNivel;
+
+  ContracaoDeNos(GrafoCompacto grafo) {
+    n = grafo.numeroDeNos();
+    saidas = new ListaDeArestas[n];
+    entradas = new ListaDeArestas[n];
+    for (int no = 0; no < n; no++) {
+      saidas[no] = new ListaDeArestas();
+      entradas[no] = new ListaDeArestas();
+    }
+    for (int no = 0; no < n; no++) {
+      for (int a = grafo.inicio(no), fim = grafo.fim(no); a < fim; a++) {
+        int destino = grafo.destino(a);
+        if (destino != no && grafo.peso(a) != GrafoCompacto.PESO_FECHADO) {
+          saidas[no].adicionarOuDiminuir(destino, grafo.peso(a), -1);
+          entradas[destino].adicionarOuDiminuir(no, grafo.peso(a), -1);
+        }
+      }
+    }
+    contraidos = new boolean[n];
+    rodadaDoNo = new int[n];
+    vizinhosContraidos = new int[n];
+    profundidades = new int[n];
+    prioridades = new int[n];
+    niveis = new int[n];
+    subida = new ListaDeArestas[n];
+    descida = new ListaDeArestas[n];
+  }
+
+  HierarquiaDeContracao contrair(long assinaturaDoGrafo) {
+    IntStream.range(0, n).parallel().forEach(no -> prioridades[no] = calcularPrioridade(no));
+
+    int[] restantes = IntStream.range(0, n).toArray();
+    int quantosRestam = n;
+    int rodada = NENHUMA_RODADA;
+    boolean[] afetado = new boolean[n];
+
+    while (quantosRestam > 0) {
+      rodada++;
+      int[] candidatos = selecionarIndependentes(restantes, quantosRestam);
+      for (int no : candidatos) {
+        rodadaDoNo[no] = rodada;
+      }
+
+      int rodadaAtual = rodada;
+      int[][] atalhos = new int[candidatos.length][];
+      IntStream.range(0, candidatos.length).parallel()
+          .forEach(i -> atalhos[i] = calcularAtalhos(candidatos[i], rodadaAtual));
+
+      int afetados = 0;
+      int[] listaAfetados = new int[0];
+      for (int i = 0; i < candidatos.length; i++) {
+        int no = candidatos[i];
+        contrairNo(no, atalhos[i]);
+        for (ListaDeArestas lista : new ListaDeArestas[] { subida[no], descida[no] }) {
+          for (int j = 0; j < lista.tamanho; j++) {
+            int vizinho = lista.vizinhos[j];
+            if (!afetado[vizinho]) {
+              afetado[vizinho] = true;
+              if (afetados == listaAfetados.length) {
+                listaAfetados = Arrays.copyOf(listaAfetados, Math.max(16, afetados * 2));
+              }
+              listaAfetados[afetados++] = vizinho;
+            }
+          }
+        }
+      }
+
+      // Só os vizinhos dos nós contraídos têm a prioridade alterada
+      int[] paraAtualizar = Arrays.copyOf(listaAfetados, afetados);
+      IntStream.of(paraAtualizar).parallel().forEach(no -> prioridades[no] = calcularPrioridade(no));
+      for (int no : paraAtualizar) {
+        afetado[no] = false;
+      }
+
+      int mantidos = 0;
+      for (int i = 0; i < quantosRestam; i++) {
+        if (!contraidos[restantes[i]]) {
+          restantes[mantidos++] = restantes[i];
+        }
+      }
+      quantosRestam = mantidos;
+    }
+    return HierarquiaDeContracao.montar(niveis, subida, descida, assinaturaDoGrafo);
+  }
+
+  /** Nós cuja prioridade é menor que a de todos os vizinhos ainda não contraídos. */
+  private int[] selecionarIndependentes(int[] restantes, int quantosRestam) {
+    return IntStream.range(0, quantosRestam).parallel()
+        .map(i -> restantes[i])
+        .filter(this::minimoLocal)
+        .toArray();
+  }
+
+  private boolean minimoLocal(int no) {
+    return menorQueVizinhos(no, saidas[no]) && menorQueVizinhos(no, entradas[no]);
+  }
+
+  private boolean menorQueVizinhos(int no, ListaDeArestas lista) {
+    int prioridade = prioridades[no];
+    for (int i = 0; i < lista.tamanho; i++) {
+      int vizinho = lista.vizinhos[i];
+      int outra = prioridades[vizinho];
+      if (outra < prioridade || (outra == prioridade && vizinho < no)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int calcularPrioridade(int no) {
+    int atalhos = contarOuListarAtalhos(no, NENHUMA_RODADA, LIMITE_ASSENTADOS_ESTIMATIVA, null);
+    int diferencaDeArestas = atalhos - saidas[no].tamanho - entradas[no].tamanho;
+    return 2 * diferencaDeArestas + vizinhosContraidos[no] + profundidades[no];
+  }
+
+  /** Atalhos da contração do nó, em triplas (origem, destino, peso). */
+  private int[] calcularAtalhos(int no, int rodada) {
+    int[][] saida = { new int[12] };
+    int quantos = contarOuListarAtalhos(no, rodada, LIMITE_ASSENTADOS, saida);
+    return Arrays.copyOf(saida[0], quantos * 3);
+  }
+
+  /**
+   * Para cada vizinho de entrada u do nó, roda uma busca local a partir de u
+   * que não passa pelo nó (nem pelos nós da rodada) e verifica, para cada
+   * vizinho de saída w, se existe uma testemunha u -> w tão curta quanto
+   * u -> nó -> w. Cada par sem testemunha precisa de um atalho.
+   */
+  private int contarOuListarAtalhos(int no, int rodada, int limiteAssentados, int[][] saida) {
+    ListaDeArestas entrada = entradas[no];
+    ListaDeArestas saidaDoNo = saidas[no];
+    if (entrada.tamanho == 0 || saidaDoNo.tamanho == 0) {
+      return 0;
+    }
+    int maiorSaida = 0;
+    for (int i = 0; i < saidaDoNo.tamanho; i++) {
+      maiorSaida = Math.max(maiorSaida, saidaDoNo.pesos[i]);
+    }
+
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    int quantos = 0;
+    for (int i = 0; i < entrada.tamanho; i++) {
+      int origem = entrada.vizinhos[i];
+      int pesoAteNo = entrada.pesos[i];
+      int limite = EspacoDeBusca.somar(pesoAteNo, maiorSaida);
+      buscarTestemunhas(espaco, origem, no, saidaDoNo, rodada, limite, limiteAssentados);
+      for (int j = 0; j < saidaDoNo.tamanho; j++) {
+        int destino = saidaDoNo.vizinhos[j];
+        if (destino == origem) {
+          continue;
+        }
+        // Com soma INFINITO o caminho não existe para as buscas: não precisa de atalho
+        int viaNo = EspacoDeBusca.somar(pesoAteNo, saidaDoNo.pesos[j]);
+        if (espaco.distancia(destino) > viaNo) {
+          if (saida != null) {
+            int[] atalhos = saida[0];
+            if ((quantos + 1) * 3 > atalhos.length) {
+              atalhos = Arrays.copyOf(atalhos, atalhos.length * 2);
+              saida[0] = atalhos;
+            }
+            atalhos[quantos * 3] = origem;
+            atalhos[quantos * 3 + 1] = destino;
+            atalhos[quantos * 3 + 2] = viaNo;
+          }
+          quantos++;
+        }
+      }
+    }
+    return quantos;
+  }
+
+  /**
+   * Dijkstra local a partir da origem. Para ao passar do limite de distância
+   * ou de nós assentados, ou quando todos os alvos já foram assentados.
+   */
+  private void buscarTestemunhas(EspacoDeBusca espaco, int origem, int ignorado, ListaDeArestas alvos, int rodada,
+      int limite, int limiteAssentados) {
+    espaco.iniciar(n);
+    HeapIndexado fila = espaco.heap(TipoHeap.QUATERNARIO);
+    espaco.definir(origem, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    fila.inserirOuDiminuir(origem, 0);
+    int alvosRestantes = alvos.tamanho - (alvos.contem(origem) ? 1 : 0);
+    int assentados = 0;
+    while (!fila.vazio() && assentados < limiteAssentados && alvosRestantes > 0) {
+      if (fila.chaveMinima() > limite) {
+        break;
+      }
+      int atual = fila.removerMinimo();
+      assentados++;
+      if (atual != origem && alvos.contem(atual)) {
+        alvosRestantes--;
+      }
+      int distanciaAtual = espaco.distancia(atual);
+      ListaDeArestas lista = saidas[atual];
+      for (int i = 0; i < lista.tamanho; i++) {
+        int vizinho = lista.vizinhos[i];
+        if (vizinho == ignorado || (rodada != NENHUMA_RODADA && rodadaDoNo[vizinho] == rodada)) {
+          continue;
+        }
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, lista.pesos[i]);
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          espaco.definir(vizinho, novaDistancia, atual);
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+  }
+
+  private void contrairNo(int no, int[] atalhos) {
+    niveis[no] = proximoNivel++;
+    contraidos[no] = true;
+    // As arestas restantes levam a nós que serão contraídos depois (nível maior)
+    subida[no] = saidas[no];
+    descida[no] = entradas[no];
+    saidas[no] = null;
+    entradas[no] = null;
+
+    for (int i = 0; i < subida[no].tamanho; i++) {
+      int vizinho = subida[no].vizinhos[i];
+      entradas[vizinho].remover(no);
+      vizinhosContraidos[vizinho]++;
+      profundidades[vizinho] = Math.max(profundidades[vizinho], profundidades[no] + 1);
+    }
+    for (int i = 0; i < descida[no].tamanho; i++) {
+      int vizinho = descida[no].vizinhos[i];
+      saidas[vizinho].remover(no);
+      vizinhosContraidos[vizinho]++;
+      profundidades[vizinho] = Math.max(profundidades[vizinho], profundidades[no] + 1);
+    }
+    for (int i = 0; i < atalhos.length; i += 3) {
+      saidas[atalhos[i]].adicionarOuDiminuir(atalhos[i + 1], atalhos[i + 2], no);
+      entradas[atalhos[i + 1]].adicionarOuDiminuir(atalhos[i], atalhos[i + 2], no);
+    }
+  }
+}
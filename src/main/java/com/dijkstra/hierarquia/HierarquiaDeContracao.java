@@ -0,0 +1,372 @@
+package com.dijkstra.hierarquia;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.EspacoDeBusca;
+import com.dijkstra.busca.HeapIndexado;
+import com.dijkstra.busca.TabelaDeDistancias;
+import com.dijkstra.busca.TipoHeap;
+
+/**
+ * Hierarquia de contração (Contraction Hierarchies) de um {@link GrafoCompacto}.
+ *
+ * Cada nó recebe um nível (a ordem em que foi contraído). Ao contrair um nó,
+ * atalhos são criados entre seus vizinhos para preservar as distâncias. A
+ * consulta é um Dijkstra bidirecional que só sobe na hierarquia: a busca
+ * direta usa as arestas para nós de nível maior e a reversa, as arestas que
+ * chegam de nós de nível maior. Isso assenta poucas centenas de nós mesmo
+ * em redes grandes. Os atalhos guardam o nó do meio e são desempacotados no
+ * final, devolvendo o caminho em arestas originais.
+ *
+ * É imutável e pode ser consultada por várias threads ao mesmo tempo.
+ */
+public final class HierarquiaDeContracao {
+  private static final int SEM_MEIO = -1;
+
+  private final long assinaturaDoGrafo;
+  private final int[] niveis;
+  // Arestas u -> v com nível(v) > nível(u), agrupadas por u
+  private final int[] offsetsSubida;
+  private final int[] destinosSubida;
+  private final int[] pesosSubida;
+  private final int[] meiosSubida;
+  // Arestas u -> v com nível(u) > nível(v), agrupadas por v (busca reversa)
+  private final int[] offsetsDescida;
+  private final int[] origensDescida;
+  private final int[] pesosDescida;
+  private final int[] meiosDescida;
+
+  private HierarquiaDeContracao(long assinaturaDoGrafo, int[] niveis, int[] offsetsSubida, int[] destinosSubida,
+      int[] pesosSubida, int[] meiosSubida, int[] offsetsDescida, int[] origensDescida, int[] pesosDescida,
+      int[] meiosDescida) {
+    this.assinaturaDoGrafo = assinaturaDoGrafo;
+    this.niveis = niveis;
+    this.offsetsSubida = offsetsSubida;
+    this.destinosSubida = destinosSubida;
+    this.pesosSubida = pesosSubida;
+    this.meiosSubida = meiosSubida;
+    this.offsetsDescida = offsetsDescida;
+    this.origensDescida = origensDescida;
+    this.pesosDescida = pesosDescida;
+    this.meiosDescida = meiosDescida;
+  }
+
+  /** Contrai todos os nós do grafo. As buscas de testemunha rodam em paralelo. */
+  public static HierarquiaDeContracao construir(GrafoCompacto grafo) {
+    return new ContracaoDeNos(grafo).contrair(grafo.assinatura());
+  }
+
+  static HierarquiaDeContracao montar(int[] niveis, ListaDeArestas[] subida, ListaDeArestas[] descida,
+      long assinaturaDoGrafo) {
+    int n = niveis.length;
+    int[] offsetsSubida = offsets(subida);
+    int[] offsetsDescida = offsets(descida);
+    int[] destinosSubida = new int[offsetsSubida[n]];
+    int[] pesosSubida = new int[offsetsSubida[n]];
+    int[] meiosSubida = new int[offsetsSubida[n]];
+    int[] origensDescida = new int[offsetsDescida[n]];
+    int[] pesosDescida = new int[offsetsDescida[n]];
+    int[] meiosDescida = new int[offsetsDescida[n]];
+    for (int no = 0; no < n; no++) {
+      copiar(subida[no], offsetsSubida[no], destinosSubida, pesosSubida, meiosSubida);
+      copiar(descida[no], offsetsDescida[no], origensDescida, pesosDescida, meiosDescida);
+    }
+    return new HierarquiaDeContracao(assinaturaDoGrafo, niveis, offsetsSubida, destinosSubida, pesosSubida,
+        meiosSubida, offsetsDescida, origensDescida, pesosDescida, meiosDescida);
+  }
+
+  private static int[] offsets(ListaDeArestas[] listas) {
+    int[] offsets = new int[listas.length + 1];
+    for (int no = 0; no < listas.length; no++) {
+      offsets[no + 1] = offsets[no] + listas[no].tamanho;
+    }
+    return offsets;
+  }
+
+  private static void copiar(ListaDeArestas lista, int inicio, int[] vizinhos, int[] pesos, int[] meios) {
+    System.arraycopy(lista.vizinhos, 0, vizinhos, inicio, lista.tamanho);
+    System.arraycopy(lista.pesos, 0, pesos, inicio, lista.tamanho);
+    System.arraycopy(lista.meios, 0, meios, inicio, lista.tamanho);
+  }
+
+  public int numeroDeNos() {
+    return niveis.length;
+  }
+
+  public int nivel(int no) {
+    return niveis[no];
+  }
+
+  /** Arestas da hierarquia (originais e atalhos) em cada direção. */
+  public int numeroDeArestas() {
+    return destinosSubida.length + origensDescida.length;
+  }
+
+  public boolean compativelCom(GrafoCompacto grafo) {
+    return grafo.numeroDeNos() == numeroDeNos() && grafo.assinatura() == assinaturaDoGrafo;
+  }
+
+  /**
+   * Consulta bidirecional subindo na hierarquia. Cada lado para quando o
+   * mínimo da sua fila já não é menor que a melhor distância encontrada.
+   */
+  public CaminhoMinimo buscar(int inicio, int destino, TipoHeap tipoHeap) {
+    EspacoDeBusca frente = EspacoDeBusca.paraThreadAtual();
+    EspacoDeBusca tras = EspacoDeBusca.reversoParaThreadAtual();
+    frente.iniciar(numeroDeNos());
+    tras.iniciar(numeroDeNos());
+    HeapIndexado filaFrente = frente.heap(tipoHeap);
+    HeapIndexado filaTras = tras.heap(tipoHeap);
+    frente.definir(inicio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaFrente.inserirOuDiminuir(inicio, 0);
+    tras.definir(destino, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    filaTras.inserirOuDiminuir(destino, 0);
+
+    // Encontros com soma de INFINITO ou mais não contam: a distância não caberia num int
+    long melhor = inicio == destino ? 0 : EspacoDeBusca.INFINITO;
+    int encontro = inicio == destino ? inicio : -1;
+    int assentados = 0;
+    int relaxadas = 0;
+
+    boolean continuarFrente = true;
+    boolean continuarTras = true;
+    while (continuarFrente || continuarTras) {
+      continuarFrente = !filaFrente.vazio() && filaFrente.chaveMinima() < melhor;
+      continuarTras = !filaTras.vazio() && filaTras.chaveMinima() < melhor;
+
+      if (continuarFrente && (!continuarTras || filaFrente.tamanho() <= filaTras.tamanho())) {
+        int atual = filaFrente.removerMinimo();
+        assentados++;
+        if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+          EspacoDeBusca.verificarCancelamento();
+        }
+        int distanciaAtual = frente.distancia(atual);
+        if (tras.alcancado(atual) && (long) distanciaAtual + tras.distancia(atual) < melhor) {
+          melhor = (long) distanciaAtual + tras.distancia(atual);
+          encontro = atual;
+        }
+        for (int a = offsetsSubida[atual], fim = offsetsSubida[atual + 1]; a < fim; a++) {
+          relaxadas++;
+          int vizinho = destinosSubida[a];
+          int novaDistancia = EspacoDeBusca.somar(distanciaAtual, pesosSubida[a]);
+          if (novaDistancia < frente.distancia(vizinho)) {
+            frente.definir(vizinho, novaDistancia, atual);
+            filaFrente.inserirOuDiminuir(vizinho, novaDistancia);
+          }
+        }
+      } else if (continuarTras) {
+        int atual = filaTras.removerMinimo();
+        assentados++;
+        if ((assentados & EspacoDeBusca.MASCARA_CANCELAMENTO) == 0) {
+          EspacoDeBusca.verificarCancelamento();
+        }
+        int distanciaAtual = tras.distancia(atual);
+        if (frente.alcancado(atual) && (long) distanciaAtual + frente.distancia(atual) < melhor) {
+          melhor = (long) distanciaAtual + frente.distancia(atual);
+          encontro = atual;
+        }
+        for (int a = offsetsDescida[atual], fim = offsetsDescida[atual + 1]; a < fim; a++) {
+          relaxadas++;
+          int vizinho = origensDescida[a];
+          int novaDistancia = EspacoDeBusca.somar(distanciaAtual, pesosDescida[a]);
+          if (novaDistancia < tras.distancia(vizinho)) {
+            tras.definir(vizinho, novaDistancia, atual);
+            filaTras.inserirOuDiminuir(vizinho, novaDistancia);
+          }
+        }
+      }
+    }
+
+    if (encontro < 0) {
+      return CaminhoMinimo.inexistente(assentados, relaxadas);
+    }
+    return new CaminhoMinimo(desempacotar(frente, tras, encontro), (int) melhor, assentados, relaxadas);
+  }
+
+  /** Distância entre dois nós, sem montar o caminho. */
+  public int distancia(int inicio, int destino) {
+    return buscar(inicio, destino, TipoHeap.QUATERNARIO).distancia;
+  }
+
+  // --- Muitos para muitos ---
+
+  /**
+   * Tabela de distâncias com buckets: uma busca reversa subindo a partir de
+   * cada destino deixa, em cada nó v que alcança, a entrada (destino,
+   * d(v, destino)) no bucket de v. Depois, uma busca direta subindo a partir
+   * de cada origem consulta os buckets dos nós que alcança; o mínimo de
+   * d(origem, v) + d(v, destino) é a distância. São |origens| + |destinos|
+   * buscas pequenas em vez de |origens| x |destinos| consultas, e as buscas
+   * de cada lado rodam em paralelo. Os caminhos são montados sob demanda com
+   * {@link #buscar(int, int, TipoHeap)}.
+   */
+  public TabelaDeDistancias muitosParaMuitos(int[] origens, int[] destinos) {
+    int n = numeroDeNos();
+    int colunas = destinos.length;
+
+    // Espaço de busca reverso de cada destino, em pares (nó, distância)
+    int[][] subidasReversas = new int[colunas][];
+    IntStream.range(0, colunas).parallel().forEach(j -> subidasReversas[j] = subidaCompleta(destinos[j], true));
+
+    // Buckets em formato CSR: entradas agrupadas pelo nó
+    int[] offsetsBuckets = new int[n + 1];
+    for (int[] subida : subidasReversas) {
+      for (int i = 0; i < subida.length; i += 2) {
+        offsetsBuckets[subida[i] + 1]++;
+      }
+    }
+    for (int no = 0; no < n; no++) {
+      offsetsBuckets[no + 1] += offsetsBuckets[no];
+    }
+    int[] colunasBuckets = new int[offsetsBuckets[n]];
+    int[] distanciasBuckets = new int[offsetsBuckets[n]];
+    int[] proximo = Arrays.copyOf(offsetsBuckets, n);
+    for (int j = 0; j < colunas; j++) {
+      int[] subida = subidasReversas[j];
+      for (int i = 0; i < subida.length; i += 2) {
+        int posicao = proximo[subida[i]]++;
+        colunasBuckets[posicao] = j;
+        distanciasBuckets[posicao] = subida[i + 1];
+      }
+    }
+
+    int[] distancias = new int[origens.length * colunas];
+    IntStream.range(0, origens.length).parallel().forEach(linha -> {
+      int base = linha * colunas;
+      Arrays.fill(distancias, base, base + colunas, EspacoDeBusca.INFINITO);
+      int[] subida = subidaCompleta(origens[linha], false);
+      for (int i = 0; i < subida.length; i += 2) {
+        int no = subida[i];
+        int distanciaAteNo = subida[i + 1];
+        for (int b = offsetsBuckets[no], fim = offsetsBuckets[no + 1]; b < fim; b++) {
+          int total = EspacoDeBusca.somar(distanciaAteNo, distanciasBuckets[b]);
+          if (total < distancias[base + colunasBuckets[b]]) {
+            distancias[base + colunasBuckets[b]] = total;
+          }
+        }
+      }
+      for (int j = base; j < base + colunas; j++) {
+        if (distancias[j] == EspacoDeBusca.INFINITO) {
+          distancias[j] = -1;
+        }
+      }
+    });
+
+    int[] copiaOrigens = origens.clone();
+    int[] copiaDestinos = destinos.clone();
+    return new TabelaDeDistancias(copiaOrigens, copiaDestinos, distancias,
+        (linha, coluna) -> buscar(copiaOrigens[linha], copiaDestinos[coluna], TipoHeap.QUATERNARIO));
+  }
+
+  /**
+   * Dijkstra completo subindo na hierarquia (direto ou reverso) a partir do
+   * nó. Devolve os nós assentados e suas distâncias, em pares.
+   */
+  private int[] subidaCompleta(int inicio, boolean reversa) {
+    EspacoDeBusca espaco = EspacoDeBusca.paraThreadAtual();
+    espaco.iniciar(numeroDeNos());
+    HeapIndexado fila = espaco.heap(TipoHeap.QUATERNARIO);
+    espaco.definir(inicio, 0, EspacoDeBusca.SEM_PREDECESSOR);
+    fila.inserirOuDiminuir(inicio, 0);
+    int[] offsets = reversa ? offsetsDescida : offsetsSubida;
+    int[] vizinhos = reversa ? origensDescida : destinosSubida;
+    int[] pesos = reversa ? pesosDescida : pesosSubida;
+
+    int[] saida = new int[32];
+    int tamanho = 0;
+    while (!fila.vazio()) {
+      int atual = fila.removerMinimo();
+      int distanciaAtual = espaco.distancia(atual);
+      if (tamanho + 2 > saida.length) {
+        saida = Arrays.copyOf(saida, saida.length * 2);
+      }
+      saida[tamanho++] = atual;
+      saida[tamanho++] = distanciaAtual;
+      for (int a = offsets[atual], fim = offsets[atual + 1]; a < fim; a++) {
+        int vizinho = vizinhos[a];
+        int novaDistancia = EspacoDeBusca.somar(distanciaAtual, pesos[a]);
+        if (novaDistancia < espaco.distancia(vizinho)) {
+          espaco.definir(vizinho, novaDistancia, atual);
+          fila.inserirOuDiminuir(vizinho, novaDistancia);
+        }
+      }
+    }
+    return Arrays.copyOf(saida, tamanho);
+  }
+
+  // --- Desempacotamento dos atalhos ---
+
+  private int[] desempacotar(EspacoDeBusca frente, EspacoDeBusca tras, int encontro) {
+    int[] saida = new int[16];
+    int[] tamanho = { 0 };
+    int[] subida = frente.caminhoAte(encontro);
+    saida = adicionar(saida, tamanho, subida[0]);
+    for (int i = 0; i + 1 < subida.length; i++) {
+      saida = expandir(subida[i], subida[i + 1], saida, tamanho);
+    }
+    int anterior = encontro;
+    for (int passo = tras.predecessor(encontro); passo != EspacoDeBusca.SEM_PREDECESSOR; passo = tras.predecessor(passo)) {
+      saida = expandir(anterior, passo, saida, tamanho);
+      anterior = passo;
+    }
+    return Arrays.copyOf(saida, tamanho[0]);
+  }
+
+  /**
+   * Acrescenta ao caminho os nós da aresta origem -> destino, sem a origem.
+   * Usa uma pilha explícita: atalhos podem se aninhar profundamente.
+   */
+  private int[] expandir(int origem, int destino, int[] saida, int[] tamanho) {
+    int[] pilha = new int[32];
+    int topo = 0;
+    pilha[topo++] = origem;
+    pilha[topo++] = destino;
+    while (topo > 0) {
+      int b = pilha[--topo];
+      int a = pilha[--topo];
+      int meio = meio(a, b);
+      if (meio == SEM_MEIO) {
+        saida = adicionar(saida, tamanho, b);
+      } else {
+        if (topo + 4 > pilha.length) {
+          pilha = Arrays.copyOf(pilha, pilha.length * 2);
+        }
+        // Empilha (meio, b) antes de (a, meio) para processar a -> meio primeiro
+        pilha[topo++] = meio;
+        pilha[topo++] = b;
+        pilha[topo++] = a;
+        pilha[topo++] = meio;
+      }
+    }
+    return saida;
+  }
+
+  /** Nó do meio da aresta a -> b da hierarquia (SEM_MEIO se for original). */
+  private int meio(int a, int b) {
+    if (niveis[a] < niveis[b]) {
+      for (int i = offsetsSubida[a]; i < offsetsSubida[a + 1]; i++) {
+        if (destinosSubida[i] == b) {
+          return meiosSubida[i];
+        }
+      }
+    } else {
+      for (int i = offsetsDescida[b]; i < offsetsDescida[b + 1]; i++) {
+        if (origensDescida[i] == a) {
+          return meiosDescida[i];
+        }
+      }
+    }
+    throw new IllegalStateException("Aresta inexistente na hierarquia: " + a + " -> " + b);
+  }
+
+  private static int[] adicionar(int[] saida, int[] tamanho, int no) {
+    if (tamanho[0] == saida.length) {
+      saida = Arrays.copyOf(saida, saida.length * 2);
+    }
+    saida[tamanho[0]++] = no;
+    return saida;
+  }
+}
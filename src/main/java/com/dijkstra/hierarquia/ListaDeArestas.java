@@ -0,0 +1,57 @@
+package com.dijkstra.hierarquia;
+
+import java.util.Arrays;
+
+/**
+ * Lista de arestas de um nó durante a contração: vizinho, peso e nó do meio
+ * (para atalhos; -1 nas arestas originais). Mantém no máximo uma aresta por
+ * vizinho, ficando sempre com a de menor peso.
+ */
+final class ListaDeArestas {
+  int[] vizinhos = new int[4];
+  int[] pesos = new int[4];
+  int[] meios = new int[4];
+  int tamanho;
+
+  void adicionarOuDiminuir(int vizinho, int peso, int meio) {
+    for (int i = 0; i < tamanho; i++) {
+      if (vizinhos[i] == vizinho) {
+        if (peso < pesos[i]) {
+          pesos[i] = peso;
+          meios[i] = meio;
+        }
+        return;
+      }
+    }
+    if (tamanho == vizinhos.length) {
+      vizinhos = Arrays.copyOf(vizinhos, tamanho * 2);
+      pesos = Arrays.copyOf(pesos, tamanho * 2);
+      meios = Arrays.copyOf(meios, tamanho * 2);
+    }
+    vizinhos[tamanho] = vizinho;
+    pesos[tamanho] = peso;
+    meios[tamanho] = meio;
+    tamanho++;
+  }
+
+  boolean contem(int vizinho) {
+    for (int i = 0; i < tamanho; i++) {
+      if (vizinhos[i] == vizinho) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void remover(int vizinho) {
+    for (int i = 0; i < tamanho; i++) {
+      if (vizinhos[i] == vizinho) {
+        tamanho--;
+        vizinhos[i] = vizinhos[tamanho];
+        pesos[i] = pesos[tamanho];
+        meios[i] = meios[tamanho];
+        return;
+      }
+    }
+  }
+}
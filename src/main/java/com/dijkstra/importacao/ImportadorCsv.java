@@ -0,0 +1,173 @@
+package com.dijkstra.importacao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.dijkstra.Map.Armazenamento;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.metricas.EventoDeCarga;
+
+/**
+ * Importa uma rede de dois arquivos CSV separados por vírgula:
+ * <ul>
+ * <li>nós: {@code id,latitude,longitude[,nome[,estado]]}</li>
+ * <li>arestas: {@code origem,destino,peso[,mao_dupla]}, com origem e
+ * destino pelos ids do arquivo de nós; mao_dupla é 1/true/sim (padrão:
+ * mão única) e pesos decimais são arredondados.</li>
+ * </ul>
+ * Os ids podem ser quaisquer inteiros (ex.: ids do OpenStreetMap); no grafo,
+ * os nós ficam na ordem do arquivo. Linhas vazias, comentários ('#') e
+ * cabeçalhos (linhas que não começam por número) são ignorados.
+ *
+ * Cada arquivo é lido duas vezes: a primeira leitura dos nós só conta as
+ * linhas, para dimensionar os arrays, e a primeira das arestas só conta os
+ * graus, para que a segunda grave cada aresta direto no CSR.
+ */
+public final class ImportadorCsv {
+  private static final int SEPARADOR = ',';
+
+  private ImportadorCsv() {
+  }
+
+  public static GrafoCompacto carregar(Path nos, Path arestas) throws IOException {
+    return carregar(nos, arestas, ProgressoDaImportacao.NENHUM);
+  }
+
+  public static GrafoCompacto carregar(Path nos, Path arestas, ProgressoDaImportacao progresso) throws IOException {
+    return carregar(nos, arestas, progresso, Armazenamento.HEAP);
+  }
+
+  /** Com {@link Armazenamento#FORA_DO_HEAP}, o grafo é montado direto em buffers diretos. */
+  public static GrafoCompacto carregar(Path nos, Path arestas, ProgressoDaImportacao progresso,
+      Armazenamento armazenamento) throws IOException {
+    EventoDeCarga evento = new EventoDeCarga();
+    evento.begin();
+    int quantidade = contarNos(nos, progresso);
+    GrafoCompacto.ConstrutorCsr construtor = new GrafoCompacto.ConstrutorCsr(quantidade, armazenamento);
+    IndiceDeIds indice = new IndiceDeIds(quantidade);
+    lerNos(nos, construtor, indice, progresso);
+    lerArestas(arestas, construtor, indice, true, progresso);
+    lerArestas(arestas, construtor, indice, false, progresso);
+    GrafoCompacto grafo = construtor.construir();
+    evento.concluir("CSV", nos, grafo.numeroDeNos(), grafo.numeroDeArestas());
+    return grafo;
+  }
+
+  private static int contarNos(Path arquivo, ProgressoDaImportacao progresso) throws IOException {
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, arquivo.getFileName() + ", contagem", progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        if (linhaDeDados(leitor)) {
+          if (leitor.registros() == Integer.MAX_VALUE - 8) {
+            throw leitor.erro("nós demais para um grafo");
+          }
+          leitor.registro();
+        }
+        leitor.pularLinha();
+      }
+      leitor.concluir();
+      return (int) leitor.registros();
+    }
+  }
+
+  private static void lerNos(Path arquivo, GrafoCompacto.ConstrutorCsr construtor, IndiceDeIds indice,
+      ProgressoDaImportacao progresso) throws IOException {
+    int no = 0;
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, arquivo.getFileName() + ", nós", progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        if (linhaDeDados(leitor)) {
+          if (no == construtor.numeroDeNos()) {
+            throw leitor.erro("o arquivo mudou durante a importação");
+          }
+          long id = leitor.lerInteiro();
+          leitor.esperar(SEPARADOR);
+          double latitude = leitor.lerDecimal();
+          leitor.esperar(SEPARADOR);
+          double longitude = leitor.lerDecimal();
+          String nome = null;
+          String estado = null;
+          if (leitor.consumir(SEPARADOR)) {
+            nome = vazioComoNull(leitor.lerTexto(SEPARADOR));
+            if (leitor.consumir(SEPARADOR)) {
+              estado = vazioComoNull(leitor.lerTexto(SEPARADOR));
+            }
+          }
+          if (indice.inserir(id, no) >= 0) {
+            throw leitor.erro("id de nó repetido: " + id);
+          }
+          construtor.definirNo(no++, nome, latitude, longitude, estado);
+          leitor.registro();
+        }
+        leitor.pularLinha();
+      }
+      leitor.concluir();
+    }
+  }
+
+  /** Na contagem, registra só os graus; senão, grava as arestas com os pesos. */
+  private static void lerArestas(Path arquivo, GrafoCompacto.ConstrutorCsr construtor, IndiceDeIds indice,
+      boolean contagem, ProgressoDaImportacao progresso) throws IOException {
+    String etapa = arquivo.getFileName() + (contagem ? ", contagem" : ", arestas");
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, etapa, progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        if (linhaDeDados(leitor)) {
+          int origem = no(leitor, indice);
+          leitor.esperar(SEPARADOR);
+          int destino = no(leitor, indice);
+          leitor.esperar(SEPARADOR);
+          double valor = leitor.lerDecimal();
+          // Compara já arredondado: um valor logo abaixo do máximo pode arredondar para PESO_FECHADO
+          if (valor < 0 || Math.round(valor) > GrafoCompacto.PESO_MAXIMO) {
+            throw leitor.erro("peso fora do intervalo: " + valor);
+          }
+          int peso = (int) Math.round(valor);
+          boolean maoDupla = leitor.consumir(SEPARADOR) && verdadeiro(leitor);
+          try {
+            if (contagem) {
+              construtor.contarAresta(origem, destino);
+              if (maoDupla) {
+                construtor.contarAresta(destino, origem);
+              }
+            } else {
+              construtor.adicionarAresta(origem, destino, peso);
+              if (maoDupla) {
+                construtor.adicionarAresta(destino, origem, peso);
+              }
+            }
+          } catch (IllegalStateException e) {
+            throw leitor.erro(e.getMessage());
+          }
+          leitor.registro();
+        }
+        leitor.pularLinha();
+      }
+      leitor.concluir();
+    }
+  }
+
+  /** Pula brancos e diz se a linha começa por um número (não é vazia, comentário nem cabeçalho). */
+  private static boolean linhaDeDados(LeitorDeTexto leitor) throws IOException {
+    leitor.pularBrancos();
+    int c = leitor.espiar();
+    return (c >= '0' && c <= '9') || c == '-' || c == '+';
+  }
+
+  private static int no(LeitorDeTexto leitor, IndiceDeIds indice) throws IOException {
+    long id = leitor.lerInteiro();
+    int no = indice.indiceDe(id);
+    if (no < 0) {
+      throw leitor.erro("nó inexistente: " + id);
+    }
+    return no;
+  }
+
+  /** 1, true, sim ou yes (basta a primeira letra). */
+  private static boolean verdadeiro(LeitorDeTexto leitor) throws IOException {
+    leitor.pularBrancos();
+    int c = Character.toLowerCase(leitor.espiar());
+    return c == '1' || c == 't' || c == 's' || c == 'y';
+  }
+
+  private static String vazioComoNull(String texto) {
+    return texto.isEmpty() ? null : texto;
+  }
+}
@@ -0,0 +1,148 @@
+package com.dijkstra.importacao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.dijkstra.Map.Armazenamento;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.metricas.EventoDeCarga;
+
+/**
+ * Importa redes no formato do 9º DIMACS Implementation Challenge (caminhos
+ * mínimos): o arquivo de arcos ({@code .gr}, linhas "p sp n m" e "a u v w",
+ * nós numerados a partir de 1) e, opcionalmente, o de coordenadas
+ * ({@code .co}, linhas "v id x y" com longitude e latitude em milionésimos
+ * de grau). Linhas "c" são comentários.
+ *
+ * O arquivo de arcos é lido duas vezes: a primeira só conta os graus e a
+ * segunda grava cada arco direto no CSR ({@link GrafoCompacto.ConstrutorCsr}),
+ * sem lista intermediária de arestas.
+ */
+public final class ImportadorDimacs {
+  private static final double ESCALA_COORDENADAS = 1e-6;
+
+  private ImportadorDimacs() {
+  }
+
+  public static GrafoCompacto carregar(Path arcos, Path coordenadas) throws IOException {
+    return carregar(arcos, coordenadas, ProgressoDaImportacao.NENHUM);
+  }
+
+  /**
+   * @param coordenadas arquivo .co, ou null para deixar todos os nós em
+   *                    (0, 0) (o A* passa a se comportar como o Dijkstra)
+   */
+  public static GrafoCompacto carregar(Path arcos, Path coordenadas, ProgressoDaImportacao progresso)
+      throws IOException {
+    return carregar(arcos, coordenadas, progresso, Armazenamento.HEAP);
+  }
+
+  /** Com {@link Armazenamento#FORA_DO_HEAP}, o grafo é montado direto em buffers diretos. */
+  public static GrafoCompacto carregar(Path arcos, Path coordenadas, ProgressoDaImportacao progresso,
+      Armazenamento armazenamento) throws IOException {
+    EventoDeCarga evento = new EventoDeCarga();
+    evento.begin();
+    GrafoCompacto.ConstrutorCsr construtor = contarArcos(arcos, progresso, armazenamento);
+    if (coordenadas != null) {
+      lerCoordenadas(coordenadas, construtor, progresso);
+    }
+    lerArcos(arcos, construtor, progresso);
+    GrafoCompacto grafo = construtor.construir();
+    evento.concluir("DIMACS", arcos, grafo.numeroDeNos(), grafo.numeroDeArestas());
+    return grafo;
+  }
+
+  /** Primeira passada: cria o construtor pela linha "p" e conta os graus. */
+  private static GrafoCompacto.ConstrutorCsr contarArcos(Path arquivo, ProgressoDaImportacao progresso,
+      Armazenamento armazenamento) throws IOException {
+    GrafoCompacto.ConstrutorCsr construtor = null;
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, arquivo.getFileName() + ", contagem", progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        leitor.pularBrancos();
+        int tipo = leitor.ler();
+        if (tipo == 'a') {
+          if (construtor == null) {
+            throw leitor.erro("arco antes da linha 'p'");
+          }
+          int nos = construtor.numeroDeNos();
+          int origem = leitor.lerInteiro(1, nos, "nó") - 1;
+          int destino = leitor.lerInteiro(1, nos, "nó") - 1;
+          try {
+            construtor.contarAresta(origem, destino);
+          } catch (IllegalStateException e) {
+            throw leitor.erro(e.getMessage());
+          }
+          leitor.registro();
+        } else if (tipo == 'p') {
+          if (construtor != null) {
+            throw leitor.erro("linha 'p' repetida");
+          }
+          leitor.pularPalavra();
+          construtor = new GrafoCompacto.ConstrutorCsr(leitor.lerInteiro(0, Integer.MAX_VALUE - 8, "número de nós"),
+              armazenamento);
+        } else if (tipo != 'c' && tipo != '\n' && tipo >= 0) {
+          throw leitor.erro("linha desconhecida: '" + (char) tipo + "'");
+        }
+        if (tipo != '\n') {
+          leitor.pularLinha();
+        }
+      }
+      leitor.concluir();
+    }
+    if (construtor == null) {
+      throw new IOException("Arquivo sem a linha 'p sp <nós> <arcos>': " + arquivo);
+    }
+    return construtor;
+  }
+
+  /** Segunda passada: grava os arcos com os pesos. */
+  private static void lerArcos(Path arquivo, GrafoCompacto.ConstrutorCsr construtor,
+      ProgressoDaImportacao progresso) throws IOException {
+    int nos = construtor.numeroDeNos();
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, arquivo.getFileName() + ", arcos", progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        leitor.pularBrancos();
+        int tipo = leitor.ler();
+        if (tipo == 'a') {
+          int origem = leitor.lerInteiro(1, nos, "nó") - 1;
+          int destino = leitor.lerInteiro(1, nos, "nó") - 1;
+          int peso = leitor.lerInteiro(0, GrafoCompacto.PESO_MAXIMO, "peso");
+          try {
+            construtor.adicionarAresta(origem, destino, peso);
+          } catch (IllegalStateException e) {
+            throw leitor.erro(e.getMessage() + " (o arquivo mudou durante a importação?)");
+          }
+          leitor.registro();
+        }
+        if (tipo != '\n') {
+          leitor.pularLinha();
+        }
+      }
+      leitor.concluir();
+    }
+  }
+
+  private static void lerCoordenadas(Path arquivo, GrafoCompacto.ConstrutorCsr construtor,
+      ProgressoDaImportacao progresso) throws IOException {
+    int nos = construtor.numeroDeNos();
+    try (LeitorDeTexto leitor = new LeitorDeTexto(arquivo, arquivo.getFileName() + ", coordenadas", progresso)) {
+      while (!leitor.fimDoArquivo()) {
+        leitor.pularBrancos();
+        int tipo = leitor.ler();
+        if (tipo == 'v') {
+          int no = leitor.lerInteiro(1, nos, "nó") - 1;
+          double longitude = leitor.lerDecimal() * ESCALA_COORDENADAS;
+          double latitude = leitor.lerDecimal() * ESCALA_COORDENADAS;
+          construtor.definirNo(no, null, latitude, longitude, null);
+          leitor.registro();
+        } else if (tipo != 'c' && tipo != 'p' && tipo != '\n' && tipo >= 0) {
+          throw leitor.erro("linha desconhecida: '" + (char) tipo + "'");
+        }
+        if (tipo != '\n') {
+          leitor.pularLinha();
+        }
+      }
+      leitor.concluir();
+    }
+  }
+}
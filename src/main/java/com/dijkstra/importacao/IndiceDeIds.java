@@ -0,0 +1,55 @@
+package com.dijkstra.importacao;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de ids externos (long, ex.: ids do OpenStreetMap) para índices
+ * densos de nós, com endereçamento aberto em arrays primitivos: sem um
+ * Long e uma entrada de HashMap por nó.
+ */
+final class IndiceDeIds {
+  private final long[] ids;
+  private final int[] indices;
+  private final int mascara;
+
+  /** Capacidade fixa para a quantidade de ids informada. */
+  IndiceDeIds(int quantidade) {
+    // Potência de 2 entre 2x e 4x a quantidade: ocupação de no máximo 50%
+    int capacidade = Integer.highestOneBit(Math.max(2, quantidade) - 1) << 2;
+    ids = new long[capacidade];
+    indices = new int[capacidade];
+    Arrays.fill(indices, -1);
+    mascara = capacidade - 1;
+  }
+
+  /** Associa o id ao índice. Retorna o índice anterior se o id já existia, ou -1. */
+  int inserir(long id, int indice) {
+    int posicao = posicao(id);
+    while (indices[posicao] >= 0) {
+      if (ids[posicao] == id) {
+        return indices[posicao];
+      }
+      posicao = (posicao + 1) & mascara;
+    }
+    ids[posicao] = id;
+    indices[posicao] = indice;
+    return -1;
+  }
+
+  /** Índice do id, ou -1 se não existir. */
+  int indiceDe(long id) {
+    int posicao = posicao(id);
+    while (indices[posicao] >= 0) {
+      if (ids[posicao] == id) {
+        return indices[posicao];
+      }
+      posicao = (posicao + 1) & mascara;
+    }
+    return -1;
+  }
+
+  private int posicao(long id) {
+    // Multiplicação de Fibonacci espalha ids sequenciais pela tabela
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) & mascara;
+  }
+}
@@ -0,0 +1,332 @@
+package com.dijkstra.importacao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Leitura de arquivos texto byte a byte sobre um FileChannel, com um buffer
+ * reaproveitado. Números são convertidos direto dos bytes, sem criar uma
+ * String por linha ou por campo; só {@link #lerTexto(int)} aloca.
+ *
+ * Relata o progresso ao {@link ProgressoDaImportacao} a cada
+ * {@link #INTERVALO_DE_RELATO_NANOS} e ao fim da leitura.
+ */
+final class LeitorDeTexto implements Closeable {
+  private static final int TAMANHO_BUFFER = 1 << 16;
+  private static final long INTERVALO_DE_RELATO_NANOS = 1_000_000_000L;
+  // Potências de 10 representadas exatamente em double
+  private static final double[] POTENCIAS_DE_DEZ = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  private final Path arquivo;
+  private final FileChannel canal;
+  private final long tamanho;
+  private final byte[] bytes = new byte[TAMANHO_BUFFER];
+  private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+  private int posicao;
+  private int limite;
+  // Bytes do arquivo antes do conteúdo atual do buffer
+  private long descartados;
+  private long linha = 1;
+
+  private final String etapa;
+  private final ProgressoDaImportacao progresso;
+  private final long inicio = System.nanoTime();
+  private long ultimoRelato = inicio;
+  private long registros;
+
+  LeitorDeTexto(Path arquivo, String etapa, ProgressoDaImportacao progresso) throws IOException {
+    this.arquivo = arquivo;
+    this.etapa = etapa;
+    this.progresso = progresso;
+    canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+    tamanho = canal.size();
+  }
+
+  /** Próximo byte sem consumi-lo, ou -1 no fim do arquivo. */
+  int espiar() throws IOException {
+    if (posicao == limite && !preencher()) {
+      return -1;
+    }
+    return bytes[posicao] & 0xFF;
+  }
+
+  /** Consome e retorna o próximo byte, ou -1 no fim do arquivo. */
+  int ler() throws IOException {
+    int c = espiar();
+    if (c >= 0) {
+      posicao++;
+      if (c == '\n') {
+        linha++;
+      }
+    }
+    return c;
+  }
+
+  boolean fimDoArquivo() throws IOException {
+    return espiar() < 0;
+  }
+
+  /** Pula espaços e tabulações, sem passar para a próxima linha. */
+  void pularBrancos() throws IOException {
+    int c = espiar();
+    while (c == ' ' || c == '\t' || c == '\r') {
+      posicao++;
+      c = espiar();
+    }
+  }
+
+  /** Se o resto da linha está vazio (só brancos até o '\n' ou o fim do arquivo). */
+  boolean fimDaLinha() throws IOException {
+    pularBrancos();
+    int c = espiar();
+    return c == '\n' || c < 0;
+  }
+
+  /** Consome o resto da linha, inclusive o '\n'. */
+  void pularLinha() throws IOException {
+    while (true) {
+      if (posicao == limite && !preencher()) {
+        return;
+      }
+      // Procura o '\n' direto no array, sem passar por espiar() a cada byte
+      for (int i = posicao; i < limite; i++) {
+        if (bytes[i] == '\n') {
+          posicao = i + 1;
+          linha++;
+          return;
+        }
+      }
+      posicao = limite;
+    }
+  }
+
+  /** Pula uma palavra (bytes até o próximo branco ou fim de linha). */
+  void pularPalavra() throws IOException {
+    pularBrancos();
+    int c = espiar();
+    while (c >= 0 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+      posicao++;
+      c = espiar();
+    }
+  }
+
+  /** Consome o caractere se ele vier a seguir (depois de brancos). */
+  boolean consumir(int caractere) throws IOException {
+    pularBrancos();
+    if (espiar() == caractere) {
+      ler();
+      return true;
+    }
+    return false;
+  }
+
+  void esperar(int caractere) throws IOException {
+    if (!consumir(caractere)) {
+      throw erro("esperado '" + (char) caractere + "'");
+    }
+  }
+
+  long lerInteiro() throws IOException {
+    pularBrancos();
+    boolean negativo = sinal();
+    int c = espiar();
+    if (c < '0' || c > '9') {
+      throw erro("número inteiro esperado");
+    }
+    long valor = 0;
+    while (c >= '0' && c <= '9') {
+      if (valor > (Long.MAX_VALUE - (c - '0')) / 10) {
+        throw erro("número fora do intervalo");
+      }
+      valor = valor * 10 + (c - '0');
+      posicao++;
+      c = espiar();
+    }
+    return negativo ? -valor : valor;
+  }
+
+  /** Inteiro que precisa caber em um int, entre os limites informados. */
+  int lerInteiro(long minimo, long maximo, String campo) throws IOException {
+    long valor = lerInteiro();
+    if (valor < minimo || valor > maximo) {
+      throw erro(campo + " fora do intervalo: " + valor);
+    }
+    return (int) valor;
+  }
+
+  /** Número decimal com ponto (e expoente opcional), como em "-23.5475" ou "1e-3". */
+  double lerDecimal() throws IOException {
+    pularBrancos();
+    boolean negativo = sinal();
+    long mantissa = 0;
+    int expoente = 0;
+    int digitos = 0;
+    int c = espiar();
+    while (c >= '0' && c <= '9') {
+      // Dígitos além do 18º não cabem no long; só deslocam a vírgula
+      if (mantissa < 100_000_000_000_000_000L) {
+        mantissa = mantissa * 10 + (c - '0');
+      } else {
+        expoente++;
+      }
+      digitos++;
+      posicao++;
+      c = espiar();
+    }
+    if (c == '.') {
+      posicao++;
+      c = espiar();
+      while (c >= '0' && c <= '9') {
+        if (mantissa < 100_000_000_000_000_000L) {
+          mantissa = mantissa * 10 + (c - '0');
+          expoente--;
+        }
+        digitos++;
+        posicao++;
+        c = espiar();
+      }
+    }
+    if (digitos == 0) {
+      throw erro("número esperado");
+    }
+    if (c == 'e' || c == 'E') {
+      posicao++;
+      boolean expoenteNegativo = sinal();
+      c = espiar();
+      if (c < '0' || c > '9') {
+        throw erro("expoente inválido");
+      }
+      int valor = 0;
+      while (c >= '0' && c <= '9') {
+        valor = Math.min(valor * 10 + (c - '0'), 10_000);
+        posicao++;
+        c = espiar();
+      }
+      expoente += expoenteNegativo ? -valor : valor;
+    }
+    double valor = escalar(mantissa, expoente);
+    return negativo ? -valor : valor;
+  }
+
+  /**
+   * Campo de texto até o separador ou o fim da linha (o separador não é
+   * consumido), sem os brancos das pontas. Aceita o campo entre aspas, com
+   * "" representando uma aspa.
+   */
+  String lerTexto(int separador) throws IOException {
+    pularBrancos();
+    ByteArrayOutputStream campo = new ByteArrayOutputStream(32);
+    int c = espiar();
+    if (c == '"') {
+      ler();
+      while (true) {
+        c = ler();
+        if (c < 0) {
+          throw erro("aspas sem fechamento");
+        }
+        if (c == '"') {
+          if (espiar() != '"') {
+            break;
+          }
+          ler();
+        }
+        campo.write(c);
+      }
+      pularBrancos();
+    } else {
+      int fimSemBrancos = 0;
+      while (c >= 0 && c != separador && c != '\n') {
+        campo.write(c);
+        if (c != ' ' && c != '\t' && c != '\r') {
+          fimSemBrancos = campo.size();
+        }
+        posicao++;
+        c = espiar();
+      }
+      return new String(campo.toByteArray(), 0, fimSemBrancos, StandardCharsets.UTF_8);
+    }
+    return campo.toString(StandardCharsets.UTF_8);
+  }
+
+  /** Conta um registro para o progresso, relatando se já passou o intervalo. */
+  void registro() {
+    registros++;
+    if ((registros & 0xFFF) == 0) {
+      long agora = System.nanoTime();
+      if (agora - ultimoRelato >= INTERVALO_DE_RELATO_NANOS) {
+        ultimoRelato = agora;
+        progresso.relatar(etapa, bytesLidos(), tamanho, registros, agora - inicio);
+      }
+    }
+  }
+
+  /** Relata o fim da leitura. */
+  void concluir() {
+    progresso.relatar(etapa, bytesLidos(), tamanho, registros, System.nanoTime() - inicio);
+  }
+
+  long registros() {
+    return registros;
+  }
+
+  IOException erro(String mensagem) {
+    return new IOException(arquivo + ":" + linha + ": " + mensagem);
+  }
+
+  @Override
+  public void close() throws IOException {
+    canal.close();
+  }
+
+  private long bytesLidos() {
+    return descartados + posicao;
+  }
+
+  private boolean sinal() throws IOException {
+    int c = espiar();
+    if (c == '-' || c == '+') {
+      posicao++;
+      return c == '-';
+    }
+    return false;
+  }
+
+  private boolean preencher() throws IOException {
+    descartados += limite;
+    posicao = 0;
+    limite = 0;
+    buffer.clear();
+    while (limite == 0) {
+      int lidos = canal.read(buffer);
+      if (lidos < 0) {
+        return false;
+      }
+      limite = buffer.position();
+    }
+    return true;
+  }
+
+  private static double escalar(long mantissa, int expoente) {
+    if (mantissa == 0) {
+      return 0;
+    }
+    // Caminho exato: mantissa e potência representáveis em double (o caso de coordenadas)
+    if (mantissa < (1L << 53)) {
+      if (expoente >= 0 && expoente < POTENCIAS_DE_DEZ.length) {
+        return mantissa * POTENCIAS_DE_DEZ[expoente];
+      }
+      if (expoente < 0 && -expoente < POTENCIAS_DE_DEZ.length) {
+        return mantissa / POTENCIAS_DE_DEZ[-expoente];
+      }
+    }
+    return Double.parseDouble(mantissa + "e" + expoente);
+  }
+}
@@ -0,0 +1,33 @@
+package com.dijkstra.importacao;
+
+import java.io.PrintStream;
+
+/**
+ * Recebe o andamento de uma importação: chamado periodicamente durante a
+ * leitura de cada arquivo e uma vez ao fim dele.
+ */
+@FunctionalInterface
+public interface ProgressoDaImportacao {
+  /** Não relata nada. */
+  ProgressoDaImportacao NENHUM = (etapa, bytesLidos, bytesTotais, registros, nanos) -> {
+  };
+
+  /**
+   * @param etapa       o que está sendo lido (ex.: "arestas, contagem")
+   * @param bytesLidos  bytes do arquivo já lidos
+   * @param bytesTotais tamanho do arquivo
+   * @param registros   linhas de dados processadas na etapa
+   * @param nanos       tempo desde o início da etapa
+   */
+  void relatar(String etapa, long bytesLidos, long bytesTotais, long registros, long nanos);
+
+  /** Escreve uma linha por relato, com percentual e vazão (MB/s e registros/s). */
+  static ProgressoDaImportacao em(PrintStream saida) {
+    return (etapa, bytesLidos, bytesTotais, registros, nanos) -> {
+      double segundos = Math.max(nanos, 1) / 1e9;
+      saida.printf("%s: %5.1f%%  %,d registros  %.1f MB/s  %,.0f registros/s%n", etapa,
+          bytesTotais == 0 ? 100.0 : 100.0 * bytesLidos / bytesTotais, registros,
+          bytesLidos / segundos / (1 << 20), registros / segundos);
+    };
+  }
+}
@@ -0,0 +1,452 @@
+package com.dijkstra.lote;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dijkstra.Navegador;
+import com.dijkstra.Map.ArquivoDeGrafo;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.ArvoresPorOrigem;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+import com.dijkstra.importacao.ImportadorCsv;
+import com.dijkstra.importacao.ImportadorDimacs;
+import com.dijkstra.importacao.ProgressoDaImportacao;
+
+/**
+ * Roteamento em lote pela linha de comando: lê pares origem/destino de um
+ * arquivo ou da entrada padrão, uma consulta por linha, calcula as rotas em
+ * paralelo e escreve cada resultado assim que fica pronto.
+ *
+ * A entrada é lida conforme as vagas da janela se liberam: no máximo
+ * {@link Construtor#janela(int)} consultas ficam entre lidas e escritas, e a
+ * memória não depende do tamanho da entrada. Na saída ordenada, um
+ * resultado que chega antes dos anteriores espera na janela; na
+ * desordenada, é escrito na hora.
+ *
+ * Entrada: {@code origem destino} por linha, separados por vírgula, ponto e
+ * vírgula, tabulação ou espaços, pelo índice ou pelo nome do nó; linhas
+ * vazias e começadas por {@code #} são ignoradas. Saída, separada por
+ * tabulações: {@code linha origem destino distancia caminho}, com os índices
+ * do caminho separados por vírgula e distância -1 quando não há caminho.
+ */
+public final class RoteamentoEmLote {
+  // Marca, na janela ordenada, uma consulta que falhou e não tem linha para escrever
+  private static final String SEM_LINHA = new String("");
+
+  private final GrafoCompacto grafo;
+  private final OpcoesDeRota opcoes;
+  private final int threads;
+  private final int janela;
+  private final boolean ordenado;
+  private final boolean comCaminho;
+  private final PrintStream avisos;
+
+  private RoteamentoEmLote(Construtor construtor) {
+    grafo = construtor.grafo;
+    opcoes = construtor.opcoes;
+    threads = construtor.threads;
+    janela = construtor.janela;
+    ordenado = construtor.ordenado;
+    comCaminho = construtor.comCaminho;
+    avisos = construtor.avisos;
+  }
+
+  /** Nomes das colunas da saída, sem a quebra de linha. */
+  public String cabecalho() {
+    return comCaminho ? "linha\torigem\tdestino\tdistancia\tcaminho" : "linha\torigem\tdestino\tdistancia";
+  }
+
+  /** Totais de um {@link #processar} (as linhas inválidas também são relatadas nos avisos). */
+  public static final class Resumo {
+    public final long consultas;
+    public final long semCaminho;
+    public final long erros;
+    public final long nanos;
+
+    Resumo(long consultas, long semCaminho, long erros, long nanos) {
+      this.consultas = consultas;
+      this.semCaminho = semCaminho;
+      this.erros = erros;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+      double segundos = nanos / 1e9;
+      return String.format("%d consultas em %.1f s (%.0f/s), %d sem caminho, %d erros", consultas, segundos,
+          segundos > 0 ? consultas / segundos : 0, semCaminho, erros);
+    }
+  }
+
+  /**
+   * Lê as consultas até o fim da entrada e escreve os resultados, sem o
+   * {@link #cabecalho()}. Não fecha a entrada nem a saída, mas esvazia a saída ao fim.
+   *
+   * @throws IOException se a leitura ou a escrita falharem; as consultas em
+   *                     andamento terminam, mas nenhuma nova é lida
+   */
+  public Resumo processar(Reader entrada, Writer saida) throws IOException, InterruptedException {
+    BufferedReader leitor = entrada instanceof BufferedReader ? (BufferedReader) entrada
+        : new BufferedReader(entrada, 1 << 16);
+    Execucao execucao = new Execucao(saida);
+    long inicio = System.nanoTime();
+    long erros = 0;
+    ExecutorService executor = Executors.newFixedThreadPool(threads, fabricaDeThreads());
+    try {
+      String texto;
+      long numero = 0;
+      long sequencia = 0;
+      while (execucao.falha == null && (texto = leitor.readLine()) != null) {
+        numero++;
+        String linha = texto.trim();
+        if (linha.isEmpty() || linha.startsWith("#")) {
+          continue;
+        }
+        int origem;
+        int destino;
+        try {
+          String[] par = separar(linha);
+          origem = no(par[0]);
+          destino = no(par[1]);
+        } catch (IllegalArgumentException e) {
+          avisos.println("linha " + numero + ": " + e.getMessage());
+          erros++;
+          continue;
+        }
+        execucao.vagas.acquire();
+        long consulta = sequencia++;
+        long numeroDaLinha = numero;
+        executor.execute(() -> execucao.concluir(consulta, calcular(numeroDaLinha, origem, destino, execucao)));
+      }
+    } finally {
+      // Espera as consultas em andamento (todas as vagas de volta) antes de encerrar o pool
+      execucao.vagas.acquire(janela);
+      executor.shutdown();
+    }
+    if (execucao.falha != null) {
+      throw execucao.falha;
+    }
+    saida.flush();
+    return new Resumo(execucao.consultas.sum(), execucao.semCaminho.sum(), erros + execucao.erros.sum(),
+        System.nanoTime() - inicio);
+  }
+
+  /** Linha de saída da consulta, ou {@link #SEM_LINHA} se a busca falhou. */
+  private String calcular(long numero, int origem, int destino, Execucao execucao) {
+    CaminhoMinimo caminho;
+    try {
+      caminho = Navegador.buscarCaminho(grafo, origem, destino, opcoes);
+    } catch (RuntimeException e) {
+      avisos.println("linha " + numero + ": " + e);
+      execucao.erros.increment();
+      return SEM_LINHA;
+    }
+    StringBuilder texto = new StringBuilder(comCaminho ? 32 + 8 * caminho.nos.length : 32);
+    texto.append(numero).append('\t').append(origem).append('\t').append(destino).append('\t');
+    if (caminho.existe()) {
+      texto.append(caminho.distancia);
+      if (comCaminho) {
+        texto.append('\t');
+        for (int i = 0; i < caminho.nos.length; i++) {
+          texto.append(i == 0 ? "" : ",").append(caminho.nos[i]);
+        }
+      }
+    } else {
+      texto.append(-1);
+      execucao.semCaminho.increment();
+      if (comCaminho) {
+        texto.append('\t');
+      }
+    }
+    return texto.append('\n').toString();
+  }
+
+  /** Estado de um {@link #processar}: vagas da janela, resultados à espera e contadores. */
+  private final class Execucao {
+    final Writer saida;
+    final Semaphore vagas = new Semaphore(janela);
+    // Resultados prontos fora de ordem, na posição (sequência % janela)
+    final String[] prontos = ordenado ? new String[janela] : null;
+    final LongAdder consultas = new LongAdder();
+    final LongAdder semCaminho = new LongAdder();
+    final LongAdder erros = new LongAdder();
+    long proxima;
+    volatile IOException falha;
+
+    Execucao(Writer saida) {
+      this.saida = saida;
+    }
+
+    /**
+     * Chamado pela thread que calculou a consulta. Na saída ordenada, quem
+     * completa a próxima da fila escreve também as seguintes que já
+     * estavam prontas. A vaga só volta depois da escrita.
+     */
+    synchronized void concluir(long consulta, String linha) {
+      if (!ordenado) {
+        escrever(linha);
+        vagas.release();
+        return;
+      }
+      prontos[(int) (consulta % janela)] = linha;
+      for (int posicao = (int) (proxima % janela); prontos[posicao] != null; posicao = (int) (proxima % janela)) {
+        escrever(prontos[posicao]);
+        prontos[posicao] = null;
+        proxima++;
+        vagas.release();
+      }
+    }
+
+    private void escrever(String linha) {
+      if (linha == SEM_LINHA || falha != null) {
+        return;
+      }
+      try {
+        saida.write(linha);
+        consultas.increment();
+      } catch (IOException e) {
+        falha = e;
+      }
+    }
+  }
+
+  /** Origem e destino da linha: separados por vírgula, ponto e vírgula ou tabulação, ou então por espaços. */
+  private static String[] separar(String linha) {
+    String[] partes = linha.split(linha.indexOf(',') >= 0 ? "," : linha.indexOf(';') >= 0 ? ";"
+        : linha.indexOf('\t') >= 0 ? "\t" : "\\s+");
+    if (partes.length != 2) {
+      throw new IllegalArgumentException("Esperados origem e destino: " + linha);
+    }
+    partes[0] = partes[0].trim();
+    partes[1] = partes[1].trim();
+    return partes;
+  }
+
+  /** Nó pelo índice no grafo ou, se não for um número válido, pelo nome. */
+  private int no(String texto) {
+    if (!texto.isEmpty() && texto.chars().allMatch(Character::isDigit) && texto.length() <= 10) {
+      long indice = Long.parseLong(texto);
+      if (indice < grafo.numeroDeNos()) {
+        return (int) indice;
+      }
+    }
+    int indice = grafo.indiceDe(texto);
+    if (indice < 0) {
+      throw new IllegalArgumentException("Nó desconhecido: " + texto);
+    }
+    return indice;
+  }
+
+  /**
+   * Threads comuns: as buscas ocupam o processador o tempo todo e cada
+   * thread reaproveita o seu espaço de busca entre as consultas.
+   */
+  private static ThreadFactory fabricaDeThreads() {
+    AtomicInteger contador = new AtomicInteger();
+    return tarefa -> {
+      Thread thread = new Thread(tarefa, "lote-" + contador.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** Configuração do lote; {@link #construir()} não lê nada ainda. */
+  public static final class Construtor {
+    private final GrafoCompacto grafo;
+    private OpcoesDeRota opcoes = OpcoesDeRota.padrao();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int janela = 1024;
+    private boolean ordenado = true;
+    private boolean comCaminho = true;
+    private PrintStream avisos = System.err;
+
+    public Construtor(GrafoCompacto grafo) {
+      this.grafo = Objects.requireNonNull(grafo);
+    }
+
+    public Construtor opcoes(OpcoesDeRota opcoes) {
+      this.opcoes = Objects.requireNonNull(opcoes);
+      return this;
+    }
+
+    /** Threads que calculam as rotas (padrão: uma por processador). */
+    public Construtor threads(int threads) {
+      if (threads <= 0) {
+        throw new IllegalArgumentException("Número de threads deve ser positivo: " + threads);
+      }
+      this.threads = threads;
+      return this;
+    }
+
+    /** Máximo de consultas lidas e ainda não escritas (padrão: 1024). */
+    public Construtor janela(int janela) {
+      if (janela <= 0) {
+        throw new IllegalArgumentException("Janela deve ser positiva: " + janela);
+      }
+      this.janela = janela;
+      return this;
+    }
+
+    /** Se a saída segue a ordem da entrada (padrão) ou a ordem em que as rotas terminam. */
+    public Construtor ordenado(boolean ordenado) {
+      this.ordenado = ordenado;
+      return this;
+    }
+
+    /** Se a saída inclui os nós do caminho ou só a distância. */
+    public Construtor comCaminho(boolean comCaminho) {
+      this.comCaminho = comCaminho;
+      return this;
+    }
+
+    /** Onde relatar linhas inválidas e buscas que falharam (padrão: saída de erro). */
+    public Construtor avisos(PrintStream avisos) {
+      this.avisos = Objects.requireNonNull(avisos);
+      return this;
+    }
+
+    public RoteamentoEmLote construir() {
+      return new RoteamentoEmLote(this);
+    }
+  }
+
+  /**
+   * Uso: {@code java -cp Mapa-Dijkstra.jar com.dijkstra.lote.RoteamentoEmLote [opções] < consultas.txt > rotas.tsv}
+   * <ul>
+   * <li>{@code --grafo arquivo} ({@link ArquivoDeGrafo}), {@code --dimacs arquivo.gr [arquivo.co]} ou
+   * {@code --csv nos.csv arestas.csv}; sem nenhum, o mapa das capitais</li>
+   * <li>{@code --ch} e {@code --alt N}: pré-processa a hierarquia de contração e N marcos do ALT</li>
+   * <li>{@code --algoritmo NOME}: padrão CH, ALT ou A_ESTRELA, o mais rápido disponível;
+   * DIJKSTRA_RETOMAVEL guarda a busca de cada origem (até 1/4 do heap), bom para pares agrupados por origem</li>
+   * <li>{@code --entrada arquivo} e {@code --saida arquivo}: padrão, entrada e saída padrão</li>
+   * <li>{@code --threads N}, {@code --janela N}, {@code --desordenado} e {@code --sem-caminho}</li>
+   * </ul>
+   * Mensagens e o resumo vão para a saída de erro.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    GrafoCompacto grafo = null;
+    boolean ch = false;
+    int numeroDeMarcos = 0;
+    Algoritmo algoritmo = null;
+    Path arquivoDeEntrada = null;
+    Path arquivoDeSaida = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int janela = 1024;
+    boolean ordenado = true;
+    boolean comCaminho = true;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--grafo":
+          grafo = ArquivoDeGrafo.abrir(Path.of(args[++i]));
+          break;
+        case "--dimacs":
+          Path arcos = Path.of(args[++i]);
+          Path coordenadas = i + 1 < args.length && !args[i + 1].startsWith("--") ? Path.of(args[++i]) : null;
+          grafo = ImportadorDimacs.carregar(arcos, coordenadas, ProgressoDaImportacao.em(System.err));
+          break;
+        case "--csv":
+          Path nos = Path.of(args[++i]);
+          grafo = ImportadorCsv.carregar(nos, Path.of(args[++i]), ProgressoDaImportacao.em(System.err));
+          break;
+        case "--ch":
+          ch = true;
+          break;
+        case "--alt":
+          numeroDeMarcos = Integer.parseInt(args[++i]);
+          break;
+        case "--algoritmo":
+          algoritmo = Algoritmo.valueOf(args[++i].toUpperCase());
+          break;
+        case "--entrada":
+          arquivoDeEntrada = Path.of(args[++i]);
+          break;
+        case "--saida":
+          arquivoDeSaida = Path.of(args[++i]);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "--janela":
+          janela = Integer.parseInt(args[++i]);
+          break;
+        case "--desordenado":
+          ordenado = false;
+          break;
+        case "--sem-caminho":
+          comCaminho = false;
+          break;
+        default:
+          throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+      }
+    }
+    if (grafo == null) {
+      grafo = Grafo.criarGrafoBrasil().congelar();
+    }
+    HierarquiaDeContracao hierarquia = null;
+    if (ch) {
+      long inicio = System.nanoTime();
+      hierarquia = HierarquiaDeContracao.construir(grafo);
+      System.err.printf("Hierarquia de contração em %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+    }
+    Marcos marcos = numeroDeMarcos > 0 ? Marcos.preprocessar(grafo, numeroDeMarcos, SelecaoDeMarcos.MAIS_DISTANTES, 1L)
+        : null;
+    if (algoritmo == null) {
+      algoritmo = hierarquia != null ? Algoritmo.CH : marcos != null ? Algoritmo.ALT : Algoritmo.A_ESTRELA;
+    }
+    OpcoesDeRota opcoes;
+    switch (algoritmo) {
+      case CH:
+        if (hierarquia == null) {
+          throw new IllegalArgumentException("O algoritmo CH precisa da opção --ch");
+        }
+        opcoes = OpcoesDeRota.ch(hierarquia);
+        break;
+      case ALT:
+        if (marcos == null) {
+          throw new IllegalArgumentException("O algoritmo ALT precisa da opção --alt N");
+        }
+        opcoes = OpcoesDeRota.alt(marcos);
+        break;
+      case DIJKSTRA_RETOMAVEL:
+        opcoes = OpcoesDeRota.retomavel(new ArvoresPorOrigem(Runtime.getRuntime().maxMemory() / 4));
+        break;
+      default:
+        opcoes = OpcoesDeRota.de(algoritmo);
+    }
+    Construtor construtor = new Construtor(grafo).opcoes(opcoes).threads(threads).janela(janela).ordenado(ordenado)
+        .comCaminho(comCaminho);
+
+    try (Reader entrada = arquivoDeEntrada != null ? Files.newBufferedReader(arquivoDeEntrada)
+        : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        Writer saida = new BufferedWriter(arquivoDeSaida != null ? Files.newBufferedWriter(arquivoDeSaida)
+            : new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+      RoteamentoEmLote lote = construtor.construir();
+      saida.write(lote.cabecalho());
+      saida.write('\n');
+      Resumo resumo = lote.processar(entrada, saida);
+      System.err.println(resumo);
+    }
+  }
+}
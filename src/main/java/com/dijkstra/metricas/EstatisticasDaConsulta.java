@@ -0,0 +1,48 @@
+package com.dijkstra.metricas;
+
+import com.dijkstra.busca.Algoritmo;
+
+/**
+ * O que uma consulta de rota custou: nós assentados, arestas examinadas,
+ * operações na fila de prioridade, tamanho do caminho e tempo. Gerada pelo
+ * {@link com.dijkstra.Navegador} quando as {@link Metricas} estão ativas.
+ */
+public final class EstatisticasDaConsulta {
+  public final Algoritmo algoritmo;
+  public final int origem;
+  public final int destino;
+  /** Distância encontrada, ou -1 sem caminho. */
+  public final int distancia;
+  public final int nosAssentados;
+  public final int arestasRelaxadas;
+  /**
+   * Das filas da thread ({@link com.dijkstra.busca.EspacoDeBusca}): 0 no
+   * MATRIZ e no DIJKSTRA_RETOMAVEL, que tem fila própria.
+   */
+  public final long insercoesNaFila;
+  public final long diminuicoesDeChave;
+  /** Nós do caminho, contando origem e destino; 0 sem caminho. */
+  public final int nosNoCaminho;
+  public final long nanos;
+
+  EstatisticasDaConsulta(Algoritmo algoritmo, int origem, int destino, int distancia, int nosAssentados,
+      int arestasRelaxadas, long insercoesNaFila, long diminuicoesDeChave, int nosNoCaminho, long nanos) {
+    this.algoritmo = algoritmo;
+    this.origem = origem;
+    this.destino = destino;
+    this.distancia = distancia;
+    this.nosAssentados = nosAssentados;
+    this.arestasRelaxadas = arestasRelaxadas;
+    this.insercoesNaFila = insercoesNaFila;
+    this.diminuicoesDeChave = diminuicoesDeChave;
+    this.nosNoCaminho = nosNoCaminho;
+    this.nanos = nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %d -> %d: distancia=%d, assentados=%d, relaxadas=%d, insercoes=%d, diminuicoes=%d, "
+        + "caminho=%d nós, %.3f ms", algoritmo, origem, destino, distancia, nosAssentados, arestasRelaxadas,
+        insercoesNaFila, diminuicoesDeChave, nosNoCaminho, nanos / 1e6);
+  }
+}
@@ -0,0 +1,45 @@
+package com.dijkstra.metricas;
+
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do JDK Flight Recorder de cada carga de grafo (importação, arquivo
+ * mapeado ou montagem a partir do {@link com.dijkstra.Map.Grafo}). Quem
+ * carrega chama {@link #begin()} antes e {@link #concluir} no fim; sem uma
+ * gravação ativa, as duas chamadas não fazem nada.
+ */
+@Name("com.dijkstra.CargaDoGrafo")
+@Label("Carga do grafo")
+@Category({ "Dijkstra", "Grafo" })
+@Description("Leitura ou montagem de um grafo compacto")
+public final class EventoDeCarga extends Event {
+  @Label("Formato")
+  String formato;
+
+  @Label("Arquivo")
+  String arquivo;
+
+  @Label("Nós")
+  int nos;
+
+  @Label("Arestas")
+  int arestas;
+
+  /** Preenche e grava o evento, se alguma gravação o pede; {@code arquivo} pode ser null. */
+  public void concluir(String formato, Path arquivo, int nos, int arestas) {
+    end();
+    if (shouldCommit()) {
+      this.formato = formato;
+      this.arquivo = arquivo == null ? null : arquivo.toString();
+      this.nos = nos;
+      this.arestas = arestas;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.dijkstra.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Evento do JDK Flight Recorder de cada consulta de rota; a duração é a da busca. */
+@Name("com.dijkstra.Consulta")
+@Label("Consulta de rota")
+@Category({ "Dijkstra", "Roteamento" })
+@Description("Uma consulta do Navegador, com os contadores da busca")
+final class EventoDeConsulta extends Event {
+  @Label("Algoritmo")
+  String algoritmo;
+
+  @Label("Origem")
+  int origem;
+
+  @Label("Destino")
+  int destino;
+
+  @Label("Distância")
+  @Description("-1 quando não há caminho")
+  int distancia;
+
+  @Label("Nós assentados")
+  int nosAssentados;
+
+  @Label("Arestas relaxadas")
+  int arestasRelaxadas;
+
+  @Label("Inserções na fila")
+  long insercoesNaFila;
+
+  @Label("Diminuições de chave")
+  long diminuicoesDeChave;
+
+  @Label("Nós no caminho")
+  int nosNoCaminho;
+}
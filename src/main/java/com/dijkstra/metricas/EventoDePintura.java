@@ -0,0 +1,40 @@
+package com.dijkstra.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do JDK Flight Recorder de cada pintura da rota no mapa
+ * ({@link com.dijkstra.ui.RoutePainter}); a duração do evento é o tempo do
+ * quadro gasto com a rota. Sem uma gravação ativa, {@link #begin()} e
+ * {@link #concluir} não fazem nada.
+ */
+@Name("com.dijkstra.PinturaDaRota")
+@Label("Pintura da rota")
+@Category({ "Dijkstra", "Interface" })
+@Description("Desenho da rota calculada sobre o mapa")
+public final class EventoDePintura extends Event {
+  @Label("Pontos da rota")
+  int pontos;
+
+  @Label("Pontos desenhados")
+  int pontosDesenhados;
+
+  @Label("Reprojetou")
+  @Description("Se os pontos foram projetados de novo (zoom ou mapa mudou)")
+  boolean reprojetou;
+
+  /** Preenche e grava o evento, se alguma gravação o pede. */
+  public void concluir(int pontos, int pontosDesenhados, boolean reprojetou) {
+    end();
+    if (shouldCommit()) {
+      this.pontos = pontos;
+      this.pontosDesenhados = pontosDesenhados;
+      this.reprojetou = reprojetou;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.dijkstra.metricas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em nanossegundos, no estilo do HdrHistogram:
+ * faixas exatas até 128 ns e, acima disso, cada potência de 2 dividida em
+ * 64 faixas iguais, o que dá erro relativo de no máximo 1/64 (cerca de
+ * 1,6%) em qualquer escala, de microssegundos a horas, com um array fixo
+ * de ~3.700 contadores.
+ *
+ * {@link #registrar} não trava: é um incremento atômico na faixa do valor,
+ * então várias threads registram ao mesmo tempo. As leituras percorrem as
+ * faixas sem parar quem registra; com registros concorrentes, o resultado é
+ * uma fotografia aproximada daquele instante.
+ */
+public final class HistogramaDeLatencia {
+  // Bits de precisão: valores abaixo de 2^BITS caem em faixas exatas
+  private static final int BITS = 7;
+  private static final int EXATOS = 1 << BITS;
+  private static final int SUBFAIXAS = EXATOS >>> 1;
+  // Expoentes de BITS até 62 (o maior long positivo tem 63 bits)
+  private static final int FAIXAS = EXATOS + (63 - BITS) * SUBFAIXAS;
+
+  private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+  private final LongAdder soma = new LongAdder();
+  private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+  /** Registra uma latência; valores negativos contam como zero. */
+  public void registrar(long nanos) {
+    long valor = Math.max(nanos, 0);
+    contagens.incrementAndGet(faixa(valor));
+    soma.add(valor);
+    maximo.accumulate(valor);
+  }
+
+  public long quantidade() {
+    long total = 0;
+    for (int i = 0; i < FAIXAS; i++) {
+      total += contagens.get(i);
+    }
+    return total;
+  }
+
+  /** Média exata (a soma não passa pelas faixas), em nanossegundos. */
+  public double media() {
+    long quantidade = quantidade();
+    return quantidade == 0 ? 0 : soma.sum() / (double) quantidade;
+  }
+
+  /** Maior latência registrada, exata. */
+  public long maximo() {
+    return maximo.get();
+  }
+
+  /**
+   * Latência abaixo da qual está a fração {@code percentil} (0 a 100) dos
+   * registros: o maior valor da faixa em que ela cai, ou seja, nunca
+   * subestima. Sem registros, devolve 0.
+   */
+  public long percentil(double percentil) {
+    if (percentil < 0 || percentil > 100) {
+      throw new IllegalArgumentException("Percentil fora de 0 a 100: " + percentil);
+    }
+    long[] fotografia = new long[FAIXAS];
+    long total = 0;
+    for (int i = 0; i < FAIXAS; i++) {
+      fotografia[i] = contagens.get(i);
+      total += fotografia[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long alvo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+    long acumulado = 0;
+    for (int i = 0; i < FAIXAS; i++) {
+      acumulado += fotografia[i];
+      if (acumulado >= alvo) {
+        return Math.min(limiteSuperior(i), maximo());
+      }
+    }
+    return maximo();
+  }
+
+  /** Percentil convertido para a unidade pedida, com fração. */
+  public double percentil(double percentil, TimeUnit unidade) {
+    return percentil(percentil) / (double) unidade.toNanos(1);
+  }
+
+  /** Zera o histograma. Registros feitos durante a chamada podem ser perdidos em parte. */
+  public void zerar() {
+    for (int i = 0; i < FAIXAS; i++) {
+      contagens.set(i, 0);
+    }
+    soma.reset();
+    maximo.reset();
+  }
+
+  static int faixa(long valor) {
+    if (valor < EXATOS) {
+      return (int) valor;
+    }
+    int expoente = 63 - Long.numberOfLeadingZeros(valor);
+    // Os BITS bits mais altos do valor: de SUBFAIXAS a EXATOS - 1
+    int mantissa = (int) (valor >>> (expoente - BITS + 1));
+    return EXATOS + (expoente - BITS) * SUBFAIXAS + (mantissa - SUBFAIXAS);
+  }
+
+  static long limiteSuperior(int faixa) {
+    if (faixa < EXATOS) {
+      return faixa;
+    }
+    int grupo = (faixa - EXATOS) / SUBFAIXAS;
+    long mantissa = SUBFAIXAS + (faixa - EXATOS) % SUBFAIXAS;
+    return ((mantissa + 1) << (grupo + 1)) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("HistogramaDeLatencia[n=%d, media=%.3f ms, p50=%.3f ms, p99=%.3f ms, max=%.3f ms]",
+        quantidade(), media() / 1e6, percentil(50) / 1e6, percentil(99) / 1e6, maximo() / 1e6);
+  }
+}
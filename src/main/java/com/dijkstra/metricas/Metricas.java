@@ -0,0 +1,176 @@
+package com.dijkstra.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.EspacoDeBusca;
+
+import jdk.jfr.EventType;
+
+/**
+ * Instrumentação das consultas do {@link com.dijkstra.Navegador}: contadores
+ * de cada consulta ({@link #ultimaConsulta()}), totais acumulados e um
+ * {@link HistogramaDeLatencia} global, além do evento
+ * {@code com.dijkstra.Consulta} do JDK Flight Recorder.
+ *
+ * Desligada por padrão. Enquanto nem as métricas nem uma gravação do JFR
+ * com o evento estão ativas, cada consulta paga só a leitura de
+ * {@link #medindo()}; nenhum contador é lido e nada é alocado. As
+ * contagens da fila vêm dos contadores acumulados dos heaps da thread
+ * ({@link EspacoDeBusca}), lidos antes e depois da busca, então o laço das
+ * buscas não muda com a instrumentação ligada.
+ */
+public final class Metricas {
+  private static final EventType TIPO_DA_CONSULTA = EventType.getEventType(EventoDeConsulta.class);
+  private static final HistogramaDeLatencia LATENCIAS = new HistogramaDeLatencia();
+  private static final ThreadLocal<EstatisticasDaConsulta> ULTIMA_DA_THREAD = new ThreadLocal<>();
+
+  private static final LongAdder CONSULTAS = new LongAdder();
+  private static final LongAdder SEM_CAMINHO = new LongAdder();
+  private static final LongAdder ASSENTADOS = new LongAdder();
+  private static final LongAdder RELAXADAS = new LongAdder();
+  private static final LongAdder INSERCOES = new LongAdder();
+  private static final LongAdder DIMINUICOES = new LongAdder();
+
+  private static volatile boolean ativas;
+
+  private Metricas() {
+  }
+
+  public static void ativar() {
+    ativas = true;
+  }
+
+  /** Para de medir; os totais e o histograma já registrados são mantidos. */
+  public static void desativar() {
+    ativas = false;
+  }
+
+  public static boolean ativas() {
+    return ativas;
+  }
+
+  /** Se a próxima consulta deve ser medida: métricas ativas ou uma gravação do JFR pedindo o evento. */
+  public static boolean medindo() {
+    return ativas || TIPO_DA_CONSULTA.isEnabled();
+  }
+
+  /** Marca o início de uma consulta na thread atual; só deve ser chamado se {@link #medindo()}. */
+  public static Medicao iniciar() {
+    return new Medicao();
+  }
+
+  /**
+   * Fecha a medição iniciada na mesma thread: grava o evento do JFR e, com
+   * as métricas ativas, soma aos totais e ao histograma.
+   */
+  public static EstatisticasDaConsulta concluir(Medicao medicao, Algoritmo algoritmo, int origem, int destino,
+      CaminhoMinimo caminho) {
+    long nanos = System.nanoTime() - medicao.inicio;
+    EstatisticasDaConsulta estatisticas = new EstatisticasDaConsulta(algoritmo, origem, destino,
+        caminho.existe() ? caminho.distancia : -1, caminho.nosAssentados, caminho.arestasRelaxadas,
+        insercoesDaThread() - medicao.insercoes, diminuicoesDaThread() - medicao.diminuicoes,
+        caminho.existe() ? caminho.nos.length : 0, nanos);
+
+    EventoDeConsulta evento = medicao.evento;
+    evento.end();
+    if (evento.shouldCommit()) {
+      evento.algoritmo = algoritmo.name();
+      evento.origem = origem;
+      evento.destino = destino;
+      evento.distancia = estatisticas.distancia;
+      evento.nosAssentados = estatisticas.nosAssentados;
+      evento.arestasRelaxadas = estatisticas.arestasRelaxadas;
+      evento.insercoesNaFila = estatisticas.insercoesNaFila;
+      evento.diminuicoesDeChave = estatisticas.diminuicoesDeChave;
+      evento.nosNoCaminho = estatisticas.nosNoCaminho;
+      evento.commit();
+    }
+
+    if (ativas) {
+      CONSULTAS.increment();
+      if (estatisticas.distancia < 0) {
+        SEM_CAMINHO.increment();
+      }
+      ASSENTADOS.add(estatisticas.nosAssentados);
+      RELAXADAS.add(estatisticas.arestasRelaxadas);
+      INSERCOES.add(estatisticas.insercoesNaFila);
+      DIMINUICOES.add(estatisticas.diminuicoesDeChave);
+      LATENCIAS.registrar(nanos);
+      ULTIMA_DA_THREAD.set(estatisticas);
+    }
+    return estatisticas;
+  }
+
+  /** Estatísticas da última consulta medida nesta thread, ou null. */
+  public static EstatisticasDaConsulta ultimaConsulta() {
+    return ULTIMA_DA_THREAD.get();
+  }
+
+  /** Latências de todas as consultas medidas, em nanossegundos. */
+  public static HistogramaDeLatencia latencias() {
+    return LATENCIAS;
+  }
+
+  public static long consultas() {
+    return CONSULTAS.sum();
+  }
+
+  public static long consultasSemCaminho() {
+    return SEM_CAMINHO.sum();
+  }
+
+  public static long nosAssentados() {
+    return ASSENTADOS.sum();
+  }
+
+  public static long arestasRelaxadas() {
+    return RELAXADAS.sum();
+  }
+
+  public static long insercoesNaFila() {
+    return INSERCOES.sum();
+  }
+
+  public static long diminuicoesDeChave() {
+    return DIMINUICOES.sum();
+  }
+
+  /** Zera os totais e o histograma. */
+  public static void zerar() {
+    CONSULTAS.reset();
+    SEM_CAMINHO.reset();
+    ASSENTADOS.reset();
+    RELAXADAS.reset();
+    INSERCOES.reset();
+    DIMINUICOES.reset();
+    LATENCIAS.zerar();
+  }
+
+  // Buscas bidirecionais usam os dois espaços da thread
+  private static long insercoesDaThread() {
+    return EspacoDeBusca.paraThreadAtual().insercoesNaFila()
+        + EspacoDeBusca.reversoParaThreadAtual().insercoesNaFila();
+  }
+
+  private static long diminuicoesDaThread() {
+    return EspacoDeBusca.paraThreadAtual().diminuicoesDeChave()
+        + EspacoDeBusca.reversoParaThreadAtual().diminuicoesDeChave();
+  }
+
+  /** Contadores da thread e instante no começo de uma consulta. */
+  public static final class Medicao {
+    private final EventoDeConsulta evento = new EventoDeConsulta();
+    private final long insercoes;
+    private final long diminuicoes;
+    private final long inicio;
+
+    private Medicao() {
+      insercoes = insercoesDaThread();
+      diminuicoes = diminuicoesDaThread();
+      evento.begin();
+      inicio = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.dijkstra.servidor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escreve JSON direto em um {@link StringBuilder}, sem reflexão nem
+ * bibliotecas: objetos e listas são abertos e fechados na ordem em que
+ * aparecem e as vírgulas são colocadas sozinhas.
+ *
+ * <pre>
+ * new EscritorJson().inicioObjeto().campo("distancia", 42).campo("nome").valor("Natal").fimObjeto()
+ * </pre>
+ */
+final class EscritorJson {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final StringBuilder texto = new StringBuilder(256);
+  // Se o próximo valor precisa de uma vírgula antes (já há um valor no objeto/lista)
+  private boolean depoisDeValor;
+
+  EscritorJson inicioObjeto() {
+    separar();
+    texto.append('{');
+    depoisDeValor = false;
+    return this;
+  }
+
+  EscritorJson fimObjeto() {
+    texto.append('}');
+    depoisDeValor = true;
+    return this;
+  }
+
+  EscritorJson inicioLista() {
+    separar();
+    texto.append('[');
+    depoisDeValor = false;
+    return this;
+  }
+
+  EscritorJson fimLista() {
+    texto.append(']');
+    depoisDeValor = true;
+    return this;
+  }
+
+  /** Nome do próximo campo do objeto; em seguida vem o valor. */
+  EscritorJson campo(String nome) {
+    separar();
+    string(nome);
+    texto.append(':');
+    depoisDeValor = false;
+    return this;
+  }
+
+  EscritorJson campo(String nome, String valor) {
+    return campo(nome).valor(valor);
+  }
+
+  EscritorJson campo(String nome, long valor) {
+    return campo(nome).valor(valor);
+  }
+
+  EscritorJson campo(String nome, double valor) {
+    return campo(nome).valor(valor);
+  }
+
+  EscritorJson campo(String nome, boolean valor) {
+    return campo(nome).valor(valor);
+  }
+
+  /** String entre aspas, ou null. */
+  EscritorJson valor(String valor) {
+    separar();
+    if (valor == null) {
+      texto.append("null");
+    } else {
+      string(valor);
+    }
+    depoisDeValor = true;
+    return this;
+  }
+
+  EscritorJson valor(long valor) {
+    separar();
+    texto.append(valor);
+    depoisDeValor = true;
+    return this;
+  }
+
+  /** Número; NaN e infinitos (que o JSON não tem) viram null. */
+  EscritorJson valor(double valor) {
+    separar();
+    if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+      texto.append("null");
+    } else {
+      texto.append(valor);
+    }
+    depoisDeValor = true;
+    return this;
+  }
+
+  EscritorJson valor(boolean valor) {
+    separar();
+    texto.append(valor);
+    depoisDeValor = true;
+    return this;
+  }
+
+  EscritorJson nulo() {
+    separar();
+    texto.append("null");
+    depoisDeValor = true;
+    return this;
+  }
+
+  byte[] bytes() {
+    return texto.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return texto.toString();
+  }
+
+  private void separar() {
+    if (depoisDeValor) {
+      texto.append(',');
+    }
+  }
+
+  private void string(String valor) {
+    texto.append('"');
+    for (int i = 0; i < valor.length(); i++) {
+      char c = valor.charAt(i);
+      switch (c) {
+        case '"':
+          texto.append("\\\"");
+          break;
+        case '\\':
+          texto.append("\\\\");
+          break;
+        case '\n':
+          texto.append("\\n");
+          break;
+        case '\r':
+          texto.append("\\r");
+          break;
+        case '\t':
+          texto.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            texto.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+          } else {
+            texto.append(c);
+          }
+      }
+    }
+    texto.append('"');
+  }
+}
@@ -0,0 +1,520 @@
+package com.dijkstra.servidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dijkstra.ServicoDeRotas;
+import com.dijkstra.Map.ArquivoDeGrafo;
+import com.dijkstra.Map.Grafo;
+import com.dijkstra.Map.GrafoCompacto;
+import com.dijkstra.busca.Algoritmo;
+import com.dijkstra.busca.CaminhoMinimo;
+import com.dijkstra.busca.Marcos;
+import com.dijkstra.busca.OpcoesDeRota;
+import com.dijkstra.busca.SelecaoDeMarcos;
+import com.dijkstra.busca.TabelaDeDistancias;
+import com.dijkstra.hierarquia.HierarquiaDeContracao;
+import com.dijkstra.importacao.ImportadorCsv;
+import com.dijkstra.importacao.ImportadorDimacs;
+import com.dijkstra.importacao.ProgressoDaImportacao;
+import com.dijkstra.metricas.HistogramaDeLatencia;
+import com.dijkstra.metricas.Metricas;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP sem interface gráfica, só com o {@code com.sun.net.httpserver}
+ * da JDK. Respostas em JSON:
+ * <ul>
+ * <li>{@code GET /rota?origem=A&destino=B[&algoritmo=CH]}: caminho e distância;</li>
+ * <li>{@code GET|POST /matriz?origens=A,B&destinos=C,D[&algoritmo=...]}:
+ * tabela de distâncias (no POST, os parâmetros vão no corpo, como formulário);</li>
+ * <li>{@code GET /saude}: tamanho do grafo, algoritmos, contadores do serviço e, com as
+ * {@link Metricas} ativas, latências e custo médio das consultas.</li>
+ * </ul>
+ * Os nós são indicados pelo nome ou pelo índice no grafo.
+ *
+ * Cada requisição é atendida em uma thread virtual (Java 21+; antes disso,
+ * em um pool de threads comuns), que só espera: as buscas rodam no pool
+ * limitado do {@link ServicoDeRotas}, que reaproveita os espaços de busca
+ * por thread e recusa o excesso (503) em vez de acumular.
+ */
+public final class ServidorDeRotas implements AutoCloseable {
+  public static final int PORTA_PADRAO = 8080;
+  // Limita o custo de uma única requisição de matriz
+  private static final int MAXIMO_DE_CELULAS = 250_000;
+  private static final int MAXIMO_DO_CORPO = 1 << 20;
+  private static final long TEMPO_LIMITE_MS = 30_000;
+
+  static {
+    // O HttpServer grava cabeçalho e corpo em escritas separadas; com o algoritmo de Nagle
+    // e o ACK atrasado do cliente, cada resposta esperaria ~40 ms
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final GrafoCompacto grafo;
+  private final Map<Algoritmo, OpcoesDeRota> algoritmos;
+  private final Algoritmo algoritmoPadrao;
+  private final ServicoDeRotas servico;
+  private final ExecutorService executorHttp;
+  private final HttpServer servidor;
+
+  private ServidorDeRotas(Construtor construtor) throws IOException {
+    grafo = construtor.grafo;
+    Map<Algoritmo, OpcoesDeRota> opcoes = new EnumMap<>(Algoritmo.class);
+    opcoes.put(Algoritmo.DIJKSTRA, OpcoesDeRota.de(Algoritmo.DIJKSTRA));
+    opcoes.put(Algoritmo.BIDIRECIONAL, OpcoesDeRota.de(Algoritmo.BIDIRECIONAL));
+    opcoes.put(Algoritmo.A_ESTRELA, OpcoesDeRota.de(Algoritmo.A_ESTRELA));
+    if (construtor.marcos != null) {
+      opcoes.put(Algoritmo.ALT, OpcoesDeRota.alt(construtor.marcos));
+    }
+    if (construtor.hierarquia != null) {
+      opcoes.put(Algoritmo.CH, OpcoesDeRota.ch(construtor.hierarquia));
+    }
+    algoritmos = Collections.unmodifiableMap(opcoes);
+    // O mais rápido que foi pré-processado
+    algoritmoPadrao = opcoes.containsKey(Algoritmo.CH) ? Algoritmo.CH
+        : opcoes.containsKey(Algoritmo.ALT) ? Algoritmo.ALT : Algoritmo.A_ESTRELA;
+    servico = new ServicoDeRotas(null, construtor.threads, construtor.capacidadeDaFila);
+    executorHttp = executorDeRequisicoes();
+    servidor = HttpServer.create(new InetSocketAddress(construtor.porta), 1024);
+    servidor.setExecutor(executorHttp);
+    servidor.createContext("/rota", troca -> atender(troca, this::rota));
+    servidor.createContext("/matriz", troca -> atender(troca, this::matriz));
+    servidor.createContext("/saude", troca -> atender(troca, this::saude));
+    servidor.start();
+  }
+
+  /** Porta em que o servidor escuta (útil quando foi pedida a porta 0). */
+  public int porta() {
+    return servidor.getAddress().getPort();
+  }
+
+  public GrafoCompacto grafo() {
+    return grafo;
+  }
+
+  /** Para de aceitar conexões, espera até 1 s as requisições em andamento e cancela as buscas restantes. */
+  @Override
+  public void close() {
+    servidor.stop(1);
+    servico.close();
+    executorHttp.shutdownNow();
+  }
+
+  /**
+   * Uso: {@code java -cp Mapa-Dijkstra.jar com.dijkstra.servidor.ServidorDeRotas [opções]}
+   * <ul>
+   * <li>{@code --porta N} (padrão 8080)</li>
+   * <li>{@code --grafo arquivo} ({@link ArquivoDeGrafo}), {@code --dimacs arquivo.gr [arquivo.co]} ou
+   * {@code --csv nos.csv arestas.csv}; sem nenhum, o mapa das capitais</li>
+   * <li>{@code --ch} e {@code --alt N}: pré-processa a hierarquia de contração e N marcos do ALT</li>
+   * <li>{@code --threads N} e {@code --fila N}: tamanho do pool de buscas e da sua fila</li>
+   * <li>{@code --metricas}: mede cada consulta ({@link Metricas}) e mostra o resumo em {@code /saude}</li>
+   * </ul>
+   */
+  public static void main(String[] args) throws IOException {
+    GrafoCompacto grafo = null;
+    boolean ch = false;
+    int marcos = 0;
+    int porta = PORTA_PADRAO;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int fila = 1024;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--porta":
+          porta = Integer.parseInt(args[++i]);
+          break;
+        case "--grafo":
+          grafo = ArquivoDeGrafo.abrir(Path.of(args[++i]));
+          break;
+        case "--dimacs":
+          Path arcos = Path.of(args[++i]);
+          Path coordenadas = i + 1 < args.length && !args[i + 1].startsWith("--") ? Path.of(args[++i]) : null;
+          grafo = ImportadorDimacs.carregar(arcos, coordenadas, ProgressoDaImportacao.em(System.out));
+          break;
+        case "--csv":
+          Path nos = Path.of(args[++i]);
+          grafo = ImportadorCsv.carregar(nos, Path.of(args[++i]), ProgressoDaImportacao.em(System.out));
+          break;
+        case "--ch":
+          ch = true;
+          break;
+        case "--alt":
+          marcos = Integer.parseInt(args[++i]);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "--fila":
+          fila = Integer.parseInt(args[++i]);
+          break;
+        case "--metricas":
+          Metricas.ativar();
+          break;
+        default:
+          throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+      }
+    }
+    if (grafo == null) {
+      grafo = Grafo.criarGrafoBrasil().congelar();
+    }
+    Construtor construtor = new Construtor(grafo).porta(porta).threads(threads).capacidadeDaFila(fila);
+    if (ch) {
+      long inicio = System.nanoTime();
+      construtor.hierarquia(HierarquiaDeContracao.construir(grafo));
+      System.out.printf("Hierarquia de contração em %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+    }
+    if (marcos > 0) {
+      construtor.marcos(Marcos.preprocessar(grafo, marcos, SelecaoDeMarcos.MAIS_DISTANTES, 1L));
+    }
+    ServidorDeRotas servidor = construtor.iniciar();
+    Runtime.getRuntime().addShutdownHook(new Thread(servidor::close));
+    System.out.printf("Servidor de rotas em http://localhost:%d (%d nós, algoritmo padrão %s)%n", servidor.porta(),
+        grafo.numeroDeNos(), servidor.algoritmoPadrao);
+  }
+
+  /** Configuração do servidor; {@link #iniciar()} abre a porta. */
+  public static final class Construtor {
+    private final GrafoCompacto grafo;
+    private int porta = PORTA_PADRAO;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int capacidadeDaFila = 1024;
+    private Marcos marcos;
+    private HierarquiaDeContracao hierarquia;
+
+    public Construtor(GrafoCompacto grafo) {
+      this.grafo = Objects.requireNonNull(grafo);
+    }
+
+    /** Porta TCP; 0 escolhe uma livre (ver {@link ServidorDeRotas#porta()}). */
+    public Construtor porta(int porta) {
+      this.porta = porta;
+      return this;
+    }
+
+    /** Threads que calculam as rotas (padrão: uma por processador). */
+    public Construtor threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /** Buscas que podem esperar na fila antes de o servidor responder 503. */
+    public Construtor capacidadeDaFila(int capacidadeDaFila) {
+      this.capacidadeDaFila = capacidadeDaFila;
+      return this;
+    }
+
+    /** Habilita {@code algoritmo=ALT}. */
+    public Construtor marcos(Marcos marcos) {
+      if (!marcos.compativelCom(grafo)) {
+        throw new IllegalArgumentException("Os marcos do ALT foram pré-processados para outro grafo");
+      }
+      this.marcos = marcos;
+      return this;
+    }
+
+    /** Habilita {@code algoritmo=CH}, que passa a ser o padrão. */
+    public Construtor hierarquia(HierarquiaDeContracao hierarquia) {
+      if (!hierarquia.compativelCom(grafo)) {
+        throw new IllegalArgumentException("A hierarquia de contração foi construída para outro grafo");
+      }
+      this.hierarquia = hierarquia;
+      return this;
+    }
+
+    public ServidorDeRotas iniciar() throws IOException {
+      return new ServidorDeRotas(this);
+    }
+  }
+
+  private void rota(HttpExchange troca, Map<String, String> parametros, EscritorJson json) throws Exception {
+    exigirMetodo(troca, "GET");
+    int origem = no(parametros, "origem");
+    int destino = no(parametros, "destino");
+    Algoritmo algoritmo = algoritmo(parametros);
+    CaminhoMinimo caminho = esperar(servico.buscarCaminho(grafo, origem, destino, algoritmos.get(algoritmo)));
+    json.inicioObjeto()
+        .campo("origem", grafo.nome(origem))
+        .campo("destino", grafo.nome(destino))
+        .campo("algoritmo", algoritmo.name());
+    json.campo("distancia");
+    if (caminho.existe()) {
+      json.valor(caminho.distancia);
+    } else {
+      json.nulo();
+    }
+    json.campo("nosAssentados", caminho.nosAssentados);
+    json.campo("caminho").inicioLista();
+    if (caminho.existe()) {
+      for (int no : caminho.nos) {
+        json.inicioObjeto()
+            .campo("nome", grafo.nome(no))
+            .campo("estado", grafo.estado(no))
+            .campo("latitude", grafo.latitude(no))
+            .campo("longitude", grafo.longitude(no))
+            .fimObjeto();
+      }
+    }
+    json.fimLista().fimObjeto();
+  }
+
+  private void matriz(HttpExchange troca, Map<String, String> parametros, EscritorJson json) throws Exception {
+    if ("POST".equals(troca.getRequestMethod())) {
+      parametros = new HashMap<>(parametros);
+      parametros.putAll(lerFormulario(troca));
+    } else {
+      exigirMetodo(troca, "GET");
+    }
+    int[] origens = nos(parametros, "origens");
+    int[] destinos = nos(parametros, "destinos");
+    if ((long) origens.length * destinos.length > MAXIMO_DE_CELULAS) {
+      throw new RequisicaoInvalida(400, "Matriz grande demais: " + origens.length + " x " + destinos.length
+          + " (máximo de " + MAXIMO_DE_CELULAS + " células)");
+    }
+    Algoritmo algoritmo = algoritmo(parametros);
+    // Sem o CH, a tabela é uma busca um-para-muitos por origem, qualquer que seja o algoritmo pedido
+    TabelaDeDistancias tabela = esperar(servico.calcularTabela(grafo, origens, destinos, algoritmos.get(algoritmo)));
+    json.inicioObjeto().campo("origens").inicioLista();
+    for (int origem : origens) {
+      json.valor(grafo.nome(origem));
+    }
+    json.fimLista().campo("destinos").inicioLista();
+    for (int destino : destinos) {
+      json.valor(grafo.nome(destino));
+    }
+    json.fimLista().campo("distancias").inicioLista();
+    for (int linha = 0; linha < tabela.linhas(); linha++) {
+      json.inicioLista();
+      for (int coluna = 0; coluna < tabela.colunas(); coluna++) {
+        int distancia = tabela.distancia(linha, coluna);
+        if (distancia < 0) {
+          json.nulo();
+        } else {
+          json.valor(distancia);
+        }
+      }
+      json.fimLista();
+    }
+    json.fimLista().fimObjeto();
+  }
+
+  private void saude(HttpExchange troca, Map<String, String> parametros, EscritorJson json) {
+    exigirMetodo(troca, "GET");
+    json.inicioObjeto()
+        .campo("status", "ok")
+        .campo("nos", grafo.numeroDeNos())
+        .campo("arestas", grafo.numeroDeArestas())
+        .campo("algoritmoPadrao", algoritmoPadrao.name());
+    json.campo("algoritmos").inicioLista();
+    for (Algoritmo algoritmo : algoritmos.keySet()) {
+      json.valor(algoritmo.name());
+    }
+    json.fimLista();
+    json.campo("buscas").inicioObjeto()
+        .campo("pendentes", servico.pendentes())
+        .campo("concluidas", servico.concluidos())
+        .campo("canceladas", servico.cancelados())
+        .campo("rejeitadas", servico.rejeitados())
+        .fimObjeto();
+    if (Metricas.ativas()) {
+      HistogramaDeLatencia latencias = Metricas.latencias();
+      long consultas = Math.max(1, Metricas.consultas());
+      json.campo("metricas").inicioObjeto()
+          .campo("consultas", Metricas.consultas())
+          .campo("semCaminho", Metricas.consultasSemCaminho())
+          .campo("mediaDeAssentados", Metricas.nosAssentados() / (double) consultas)
+          .campo("mediaDeRelaxadas", Metricas.arestasRelaxadas() / (double) consultas)
+          .campo("latenciaMediaMs", latencias.media() / 1e6)
+          .campo("latenciaP50Ms", latencias.percentil(50, TimeUnit.MILLISECONDS))
+          .campo("latenciaP99Ms", latencias.percentil(99, TimeUnit.MILLISECONDS))
+          .campo("latenciaMaximaMs", latencias.maximo() / 1e6)
+          .fimObjeto();
+    }
+    json.fimObjeto();
+  }
+
+  @FunctionalInterface
+  private interface Rota {
+    void responder(HttpExchange troca, Map<String, String> parametros, EscritorJson json) throws Exception;
+  }
+
+  /** Erro do pedido (ou sobrecarga), respondido com o status e a mensagem em JSON. */
+  private static final class RequisicaoInvalida extends RuntimeException {
+    final int status;
+
+    RequisicaoInvalida(int status, String mensagem) {
+      super(mensagem, null, false, false);
+      this.status = status;
+    }
+  }
+
+  private void atender(HttpExchange troca, Rota rota) throws IOException {
+    int status = 200;
+    EscritorJson json = new EscritorJson();
+    try {
+      rota.responder(troca, parametros(troca.getRequestURI().getRawQuery()), json);
+    } catch (RequisicaoInvalida e) {
+      status = e.status;
+      json = erro(e.getMessage());
+    } catch (Exception e) {
+      status = 500;
+      json = erro(e.toString());
+    }
+    byte[] corpo = json.bytes();
+    troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    try (OutputStream saida = troca.getResponseBody()) {
+      troca.sendResponseHeaders(status, corpo.length);
+      saida.write(corpo);
+    }
+  }
+
+  private static EscritorJson erro(String mensagem) {
+    return new EscritorJson().inicioObjeto().campo("erro", mensagem).fimObjeto();
+  }
+
+  /** Espera o cálculo no pool; a busca é cancelada se o tempo acabar ou a thread for interrompida. */
+  private static <T> T esperar(CompletableFuture<T> calculo) throws Exception {
+    try {
+      return calculo.get(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      calculo.cancel(true);
+      throw new RequisicaoInvalida(504, "A busca excedeu " + TEMPO_LIMITE_MS + " ms");
+    } catch (InterruptedException e) {
+      calculo.cancel(true);
+      Thread.currentThread().interrupt();
+      throw e;
+    } catch (CancellationException e) {
+      throw new RequisicaoInvalida(503, "Busca cancelada");
+    } catch (ExecutionException e) {
+      Throwable causa = e.getCause();
+      if (causa instanceof RejectedExecutionException) {
+        throw new RequisicaoInvalida(503, "Servidor sobrecarregado, tente de novo");
+      }
+      if (causa instanceof IllegalArgumentException) {
+        throw new RequisicaoInvalida(400, causa.getMessage());
+      }
+      throw causa instanceof Exception ? (Exception) causa : e;
+    }
+  }
+
+  private static void exigirMetodo(HttpExchange troca, String metodo) {
+    if (!metodo.equals(troca.getRequestMethod())) {
+      throw new RequisicaoInvalida(405, "Método não suportado: " + troca.getRequestMethod());
+    }
+  }
+
+  private Algoritmo algoritmo(Map<String, String> parametros) {
+    String nome = parametros.get("algoritmo");
+    if (nome == null) {
+      return algoritmoPadrao;
+    }
+    for (Algoritmo algoritmo : algoritmos.keySet()) {
+      if (algoritmo.name().equalsIgnoreCase(nome)) {
+        return algoritmo;
+      }
+    }
+    throw new RequisicaoInvalida(400, "Algoritmo indisponível: " + nome + " (disponíveis: " + algoritmos.keySet() + ")");
+  }
+
+  private int no(Map<String, String> parametros, String parametro) {
+    String texto = parametros.get(parametro);
+    if (texto == null || texto.isEmpty()) {
+      throw new RequisicaoInvalida(400, "Parâmetro obrigatório: " + parametro);
+    }
+    return no(texto);
+  }
+
+  private int[] nos(Map<String, String> parametros, String parametro) {
+    String texto = parametros.get(parametro);
+    if (texto == null || texto.isEmpty()) {
+      throw new RequisicaoInvalida(400, "Parâmetro obrigatório: " + parametro);
+    }
+    String[] partes = texto.split(",");
+    int[] nos = new int[partes.length];
+    for (int i = 0; i < partes.length; i++) {
+      nos[i] = no(partes[i].trim());
+    }
+    return nos;
+  }
+
+  /** Nó pelo índice no grafo ou, se não for um número válido, pelo nome. */
+  private int no(String texto) {
+    if (!texto.isEmpty() && texto.chars().allMatch(Character::isDigit) && texto.length() <= 10) {
+      long indice = Long.parseLong(texto);
+      if (indice < grafo.numeroDeNos()) {
+        return (int) indice;
+      }
+    }
+    int indice = grafo.indiceDe(texto);
+    if (indice < 0) {
+      throw new RequisicaoInvalida(400, "Nó desconhecido: " + texto);
+    }
+    return indice;
+  }
+
+  private static Map<String, String> lerFormulario(HttpExchange troca) throws IOException {
+    try (InputStream entrada = troca.getRequestBody()) {
+      byte[] corpo = entrada.readNBytes(MAXIMO_DO_CORPO + 1);
+      if (corpo.length > MAXIMO_DO_CORPO) {
+        throw new RequisicaoInvalida(413, "Corpo maior que " + MAXIMO_DO_CORPO + " bytes");
+      }
+      return parametros(new String(corpo, StandardCharsets.UTF_8));
+    }
+  }
+
+  /** Parâmetros no formato de formulário ({@code a=1&b=2}, com escapes de URL). */
+  private static Map<String, String> parametros(String texto) {
+    if (texto == null || texto.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> parametros = new HashMap<>();
+    for (String par : texto.split("&")) {
+      int igual = par.indexOf('=');
+      String nome = igual < 0 ? par : par.substring(0, igual);
+      String valor = igual < 0 ? "" : par.substring(igual + 1);
+      try {
+        parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+      } catch (IllegalArgumentException e) {
+        throw new RequisicaoInvalida(400, "Parâmetro mal codificado: " + par);
+      }
+    }
+    return parametros;
+  }
+
+  /** Uma thread virtual por requisição quando a JVM as tem (por reflexão, para compilar no Java 17). */
+  private static ExecutorService executorDeRequisicoes() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // As threads só esperam as buscas; precisam ser bem mais numerosas que as do pool de buscas
+      AtomicInteger contador = new AtomicInteger();
+      return Executors.newFixedThreadPool(Math.max(32, 8 * Runtime.getRuntime().availableProcessors()), tarefa -> {
+        Thread thread = new Thread(tarefa, "http-" + contador.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
@@ -3,51 +3,55 @@ package com.dijkstra.ui;
 import org.jxmapviewer.viewer.DefaultWaypoint;
 import org.jxmapviewer.viewer.GeoPosition;
 
-import javax.swing.*;
 import java.awt.*;
 
 /**
- * Representa um marcador (ponto) no mapa.
- * Inclui um botão para interatividade.
+ * Representa um marcador (ponto) no mapa: a cidade, a posição e a cor do
+ * marcador. O desenho é um sprite pré-renderizado com a inicial da cidade
+ * ({@link Sprites}), compartilhado por todos os marcadores com a mesma cor e
+ * inicial, então o marcador não guarda nenhum componente Swing.
  */
 public class CustomWaypoint extends DefaultWaypoint {
 
+  /** Cor dos marcadores sem destaque. */
+  public static final Color DEFAULT_COLOR = new Color(37, 99, 235);
+
   private final String label;
-  private final JButton button;
+  private final String initial;
+  private Color color = DEFAULT_COLOR;
 
   public CustomWaypoint(String label, GeoPosition coord) {
     super(coord);
     this.label = label;
     // Mostra a primeira letra da cidade
-    this.button = new JButton(label.substring(0, 1));
-    this.button.setSize(24, 24);
-    this.button.setPreferredSize(new Dimension(24, 24));
-    // Mostra o nome completo ao passar o mouse
-    this.button.setToolTipText(label);
-
-    // --- SUGESTÕES DE MELHORIA ---
-    this.button.setFont(new Font("Arial", Font.BOLD, 10)); // Fonte um pouco maior e em negrito
-    this.button.setBackground(new Color(37, 99, 235)); // Um azul moderno, igual ao do seu tema
-    this.button.setForeground(Color.WHITE); // Texto branco
-    this.button.setBorder(BorderFactory.createEmptyBorder()); // Remove a borda padrão
-    this.button.setFocusPainted(false); // Remove a borda de foco
-  }
-
-  public JButton getButton() {
-    return button;
+    this.initial = label.substring(0, 1);
   }
 
   public String getLabel() {
     return label;
   }
 
+  /** Texto desenhado no marcador. */
+  public String getInitial() {
+    return initial;
+  }
+
+  public Color getColor() {
+    return color;
+  }
+
   /**
-   * Permite alterar a cor de fundo do botão do waypoint.
+   * Permite alterar a cor de fundo do marcador.
    * Útil para destacar origem, destino, etc.
-   * 
+   *
    * @param color A nova cor de fundo.
    */
-  public void setButtonColor(Color color) {
-    this.button.setBackground(color);
+  public void setColor(Color color) {
+    this.color = color;
+  }
+
+  /** Se o marcador está com uma cor diferente da padrão. */
+  public boolean isHighlighted() {
+    return !DEFAULT_COLOR.equals(color);
   }
-}
\ No newline at end of file
+}
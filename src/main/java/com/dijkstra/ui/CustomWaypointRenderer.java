@@ -5,30 +5,23 @@ import org.jxmapviewer.viewer.WaypointRenderer;
 import java.awt.*;
 
 /**
- * Renderer customizado para desenhar nossos CustomWaypoint (que contêm um
- * botão)
- * no mapa, em vez do ícone padrão.
+ * Renderer customizado para desenhar nossos CustomWaypoint no mapa, em vez
+ * do ícone padrão, para quem usa o {@code WaypointPainter} do JXMapViewer.
+ * A tela principal usa a {@link WaypointLayer}, que desenha o mesmo sprite
+ * só para as cidades visíveis.
  */
 public class CustomWaypointRenderer implements WaypointRenderer<CustomWaypoint> {
 
   /**
    * Pinta um único waypoint no mapa.
    * 
-   * @param g   o contexto gráfico
+   * @param g   o contexto gráfico, já com a origem no ponto do waypoint
    * @param map o JXMapViewer
    * @param wp  o waypoint a ser pintado
    */
   @Override
   public void paintWaypoint(Graphics2D g, JXMapViewer map, CustomWaypoint wp) {
-    // Cria uma cópia do contexto gráfico para não afetar outras renderizações
-    g = (Graphics2D) g.create();
-
-    // Posiciona o botão no centro do ponto geográfico
-    g.translate(-wp.getButton().getWidth() / 2, -wp.getButton().getHeight() / 2);
-
-    // Desenha o botão
-    wp.getButton().paint(g);
-
-    g.dispose();
+    // Sprite centralizado no ponto geográfico
+    Sprites.drawWaypoint(g, wp.getColor(), wp.getInitial(), 0, 0);
   }
-}
\ No newline at end of file
+}
@@ -3,25 +3,65 @@ package com.dijkstra.ui;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.painter.Painter;
 import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactory;
+
+import com.dijkstra.metricas.EventoDePintura;
+import com.dijkstra.metricas.HistogramaDeLatencia;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Pinta uma rota no mapa.
  * Inclui uma linha vermelha, círculos nos pontos intermediários e círculos
  * destacados para o início e o fim da rota.
+ *
+ * Os pontos são projetados em pixels do mundo uma vez por zoom e guardados
+ * em arrays, junto com a linha já montada ({@link Path2D}); enquanto o zoom
+ * não muda (ex.: arrastando o mapa), cada repintura só translada e desenha.
+ * Pontos que caem a menos de um pixel do anterior não entram na linha nem
+ * ganham círculo, e os círculos fora da tela são pulados. O tempo de cada pintura fica em
+ * {@link #getPaintTimes()} e no evento {@code com.dijkstra.PinturaDaRota}
+ * do JFR.
  */
 public class RoutePainter implements Painter<JXMapViewer> {
 
+    /** Orçamento de um quadro a 60 Hz. */
+    public static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private static final Color ROUTE_COLOR = new Color(220, 38, 38);
+    private static final Color ORIGIN_COLOR = new Color(34, 197, 94);
+    private static final Color DESTINATION_COLOR = new Color(37, 99, 235);
+    private static final Color POINT_COLOR = new Color(139, 92, 246);
+    private static final BasicStroke ROUTE_STROKE = new BasicStroke(3);
+    private static final int POINT_SIZE = 10;
+    // Distância mínima, em pixels, entre dois pontos seguidos da linha e entre dois círculos seguidos
+    private static final double MIN_SEGMENT = 0.5;
+    private static final double MIN_POINT_DISTANCE = 1;
+
     private final List<GeoPosition> track;
-    private final GeoPosition origin;
-    private final GeoPosition destination;
+    // Cor de cada ponto, decidida uma vez (origem, destino ou intermediário)
+    private final Color[] pointColors;
+
+    // Projeção em cache: vale para esta tile factory neste zoom
+    private TileFactory projectedFactory;
+    private int projectedZoom = -1;
+    private final double[] xs;
+    private final double[] ys;
+    private final Path2D.Double route;
+    // Índices dos pontos que ganham círculo neste zoom; os que cairiam em cima do anterior ficam de fora
+    private final int[] points;
+    private int pointCount;
+
+    private final HistogramaDeLatencia paintTimes = new HistogramaDeLatencia();
+    private volatile long lastPaintNanos;
 
     /**
      * @param track       a lista de posições geográficas que compõem a rota
@@ -30,63 +70,124 @@ public class RoutePainter implements Painter<JXMapViewer> {
      */
     public RoutePainter(List<GeoPosition> track, GeoPosition origin, GeoPosition destination) {
         this.track = track == null ? List.of() : track;
-        this.origin = origin;
-        this.destination = destination;
+        int size = this.track.size();
+        pointColors = new Color[size];
+        for (int i = 0; i < size; i++) {
+            GeoPosition geo = this.track.get(i);
+            if (geo.equals(origin)) {
+                pointColors[i] = ORIGIN_COLOR;
+            } else if (geo.equals(destination)) {
+                pointColors[i] = DESTINATION_COLOR;
+            } else {
+                pointColors[i] = POINT_COLOR;
+            }
+        }
+        xs = new double[size];
+        ys = new double[size];
+        route = new Path2D.Double(Path2D.WIND_NON_ZERO, Math.max(size, 2));
+        points = new int[size];
     }
 
     @Override
     public void paint(Graphics2D g, JXMapViewer mapViewer, int width, int height) {
+        long start = System.nanoTime();
+        EventoDePintura evento = new EventoDePintura();
+        evento.begin();
+        boolean reprojected = project(mapViewer);
+
         g = (Graphics2D) g.create();
         Rectangle rect = mapViewer.getViewportBounds();
         g.translate(-rect.x, -rect.y);
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        g.setColor(new Color(220, 38, 38));
-        g.setStroke(new BasicStroke(3));
-
-        drawRoute(g, mapViewer);
-        drawPoints(g, mapViewer);
+        g.setColor(ROUTE_COLOR);
+        g.setStroke(ROUTE_STROKE);
+        g.draw(route);
+        int drawn = drawPoints(g, rect);
 
         g.dispose();
+        long nanos = System.nanoTime() - start;
+        lastPaintNanos = nanos;
+        paintTimes.registrar(nanos);
+        evento.concluir(xs.length, drawn, reprojected);
     }
 
     /**
-     * Desenha as linhas conectando os pontos da rota.
+     * Projeta os pontos e remonta a linha se o zoom ou a tile factory
+     * mudaram desde a última pintura. Retorna se precisou projetar.
      */
-    private void drawRoute(Graphics2D g, JXMapViewer mapViewer) {
-        // CORREÇÃO 1: Use Point2D em vez de Point
-        Point2D prevPoint = null;
-        for (GeoPosition geo : track) {
-            Point2D currentPoint = mapViewer.getTileFactory().geoToPixel(geo, mapViewer.getZoom());
-            if (prevPoint != null) {
-                // CORREÇÃO 2: Converta as coordenadas para int na hora de desenhar
-                g.drawLine((int) prevPoint.getX(), (int) prevPoint.getY(), (int) currentPoint.getX(), (int) currentPoint.getY());
+    private boolean project(JXMapViewer mapViewer) {
+        TileFactory factory = mapViewer.getTileFactory();
+        int zoom = mapViewer.getZoom();
+        if (factory == projectedFactory && zoom == projectedZoom) {
+            return false;
+        }
+        route.reset();
+        pointCount = 0;
+        double lastX = 0;
+        double lastY = 0;
+        double lastPointX = 0;
+        double lastPointY = 0;
+        for (int i = 0; i < xs.length; i++) {
+            Point2D point = factory.geoToPixel(track.get(i), zoom);
+            xs[i] = point.getX();
+            ys[i] = point.getY();
+            if (pointCount == 0 || pointColors[i] != POINT_COLOR || Math.abs(xs[i] - lastPointX) >= MIN_POINT_DISTANCE
+                    || Math.abs(ys[i] - lastPointY) >= MIN_POINT_DISTANCE) {
+                points[pointCount++] = i;
+                lastPointX = xs[i];
+                lastPointY = ys[i];
             }
-            prevPoint = currentPoint;
+            if (i == 0) {
+                route.moveTo(xs[i], ys[i]);
+            } else {
+                // Pontos a menos de meio pixel do anterior não mudam a linha: com o zoom afastado, muitos somem
+                boolean moved = Math.abs(xs[i] - lastX) >= MIN_SEGMENT || Math.abs(ys[i] - lastY) >= MIN_SEGMENT;
+                if (!moved && i < xs.length - 1) {
+                    continue;
+                }
+                route.lineTo(xs[i], ys[i]);
+            }
+            lastX = xs[i];
+            lastY = ys[i];
         }
+        projectedFactory = factory;
+        projectedZoom = zoom;
+        return true;
     }
 
     /**
-     * Desenha um círculo em cada ponto (capital) da rota.
+     * Desenha um círculo em cada ponto (capital) da rota que está na tela.
+     * Retorna quantos foram desenhados.
      */
-    private void drawPoints(Graphics2D g, JXMapViewer mapViewer) {
-        int pointSize = 10;
-        int halfSize = pointSize / 2;
-
-        for (GeoPosition geo : track) {
-            // CORREÇÃO 3: Use Point2D em vez de Point
-            Point2D p = mapViewer.getTileFactory().geoToPixel(geo, mapViewer.getZoom());
-
-            if (geo.equals(origin)) {
-                g.setColor(new Color(34, 197, 94));
-            } else if (geo.equals(destination)) {
-                g.setColor(new Color(37, 99, 235));
-            } else {
-                g.setColor(new Color(139, 92, 246));
+    private int drawPoints(Graphics2D g, Rectangle rect) {
+        int halfSize = POINT_SIZE / 2;
+        double minX = rect.getMinX() - halfSize;
+        double maxX = rect.getMaxX() + halfSize;
+        double minY = rect.getMinY() - halfSize;
+        double maxY = rect.getMaxY() + halfSize;
+        int drawn = 0;
+        for (int p = 0; p < pointCount; p++) {
+            int i = points[p];
+            double x = xs[i];
+            double y = ys[i];
+            if (x < minX || x > maxX || y < minY || y > maxY) {
+                continue;
             }
-
-            // CORREÇÃO 4: Converta as coordenadas para int na hora de desenhar
-            g.fillOval((int) p.getX() - halfSize, (int) p.getY() - halfSize, pointSize, pointSize);
+            g.setColor(pointColors[i]);
+            g.fillOval((int) x - halfSize, (int) y - halfSize, POINT_SIZE, POINT_SIZE);
+            drawn++;
         }
+        return drawn;
+    }
+
+    /** Tempos de pintura desta rota, em nanossegundos. */
+    public HistogramaDeLatencia getPaintTimes() {
+        return paintTimes;
+    }
+
+    /** Duração da última pintura, em nanossegundos (0 se ainda não pintou). */
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
     }
-}
\ No newline at end of file
+}
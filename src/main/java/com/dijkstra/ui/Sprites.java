@@ -0,0 +1,131 @@
+package com.dijkstra.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Imagens pré-renderizadas dos marcadores e dos agrupamentos do mapa.
+ * Desenhar uma imagem pronta custa uma cópia de pixels; desenhar o marcador
+ * a cada quadro (forma com antialiasing e texto) custa bem mais. As imagens
+ * são guardadas pela cor, pelo texto e pela escala da tela (HiDPI), com
+ * descarte das usadas há mais tempo.
+ *
+ * Usado só na thread de eventos do Swing.
+ */
+final class Sprites {
+  /** Lado do marcador de uma cidade, em pixels lógicos. */
+  static final int WAYPOINT_SIZE = 24;
+
+  private static final int MAX_SPRITES = 512;
+  private static final Font WAYPOINT_FONT = new Font("Arial", Font.BOLD, 10);
+  private static final Font CLUSTER_FONT = new Font("Arial", Font.BOLD, 11);
+  private static final Color CLUSTER_BORDER = new Color(255, 255, 255, 220);
+
+  // Ordem de acesso: a primeira imagem é a usada há mais tempo
+  private static final Map<Key, BufferedImage> CACHE = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+      return size() > MAX_SPRITES;
+    }
+  };
+
+  private Sprites() {
+  }
+
+  /** Quadrado arredondado com a inicial da cidade, centralizado em (x, y). */
+  static void drawWaypoint(Graphics2D g, Color color, String text, double x, double y) {
+    draw(g, new Key(false, color.getRGB(), text, scale(g)), WAYPOINT_SIZE, x, y);
+  }
+
+  /** Círculo com a quantidade de cidades agrupadas, centralizado em (x, y). */
+  static void drawCluster(Graphics2D g, Color color, int count, double x, double y) {
+    String text = count < 1000 ? Integer.toString(count) : count / 1000 + "k";
+    draw(g, new Key(true, color.getRGB(), text, scale(g)), clusterSize(text), x, y);
+  }
+
+  /** Maior lado de um sprite, para a margem do recorte da tela. */
+  static int maxSize() {
+    return clusterSize("999");
+  }
+
+  private static int clusterSize(String text) {
+    return 22 + 6 * text.length();
+  }
+
+  private static void draw(Graphics2D g, Key key, int size, double x, double y) {
+    BufferedImage image = CACHE.get(key);
+    if (image == null) {
+      image = render(key, size);
+      CACHE.put(key, image);
+    }
+    int half = size / 2;
+    g.drawImage(image, (int) Math.round(x) - half, (int) Math.round(y) - half, size, size, null);
+  }
+
+  // Escala da tela: em HiDPI o sprite é renderizado com mais pixels para não ficar borrado
+  private static int scale(Graphics2D g) {
+    return Math.max(1, (int) Math.ceil(g.getTransform().getScaleX()));
+  }
+
+  private static BufferedImage render(Key key, int size) {
+    int pixels = size * key.scale;
+    BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g.scale(key.scale, key.scale);
+    g.setColor(new Color(key.rgb, true));
+    if (key.cluster) {
+      g.fillOval(0, 0, size - 1, size - 1);
+      g.setColor(CLUSTER_BORDER);
+      g.drawOval(1, 1, size - 3, size - 3);
+      g.setFont(CLUSTER_FONT);
+    } else {
+      g.fillRoundRect(0, 0, size, size, 8, 8);
+      g.setFont(WAYPOINT_FONT);
+    }
+    g.setColor(Color.WHITE);
+    FontMetrics metrics = g.getFontMetrics();
+    int textX = (size - metrics.stringWidth(key.text)) / 2;
+    int textY = (size - metrics.getHeight()) / 2 + metrics.getAscent();
+    g.drawString(key.text, textX, textY);
+    g.dispose();
+    return image;
+  }
+
+  private static final class Key {
+    final boolean cluster;
+    final int rgb;
+    final String text;
+    final int scale;
+
+    Key(boolean cluster, int rgb, String text, int scale) {
+      this.cluster = cluster;
+      this.rgb = rgb;
+      this.text = text;
+      this.scale = scale;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return cluster == key.cluster && rgb == key.rgb && scale == key.scale
+          && text.equals(key.text);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(cluster, rgb, text, scale);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.dijkstra.ui;
+
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.TileFactory;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Camada dos marcadores das cidades, no lugar do {@code WaypointPainter} do
+ * JXMapViewer, que desenha todos os marcadores a cada quadro, mesmo fora da
+ * tela. Para cada zoom, as cidades são projetadas uma vez e distribuídas
+ * numa grade de células de {@link #CELL_SIZE} pixels, guardada ordenada por
+ * linha e coluna; a pintura visita só as células na tela (uma busca binária
+ * por linha), então o custo de um quadro depende do que aparece, não do
+ * total de cidades.
+ *
+ * Uma célula com uma cidade mostra o marcador dela; com várias, um
+ * agrupamento com a quantidade, o que mantém o mapa legível com o zoom
+ * afastado. Cidades destacadas (cor diferente da padrão, como origem e
+ * destino) são sempre desenhadas por cima, mesmo dentro de um agrupamento.
+ * Os desenhos são sprites pré-renderizados ({@link Sprites}).
+ *
+ * As grades ficam em cache por zoom (até uns 50 bytes por cidade em cada
+ * zoom visitado) e são refeitas se a tile factory do mapa mudar. Usado só
+ * na thread de eventos do Swing.
+ */
+public class WaypointLayer implements Painter<JXMapViewer> {
+
+  /** Lado da célula da grade, em pixels: cidades na mesma célula viram um agrupamento. */
+  public static final int CELL_SIZE = 32;
+
+  private final CustomWaypoint[] waypoints;
+  private TileFactory gridFactory;
+  private final Map<Integer, Grid> grids = new HashMap<>();
+  // Destacados encontrados na pintura, desenhados por último (reaproveitada entre quadros)
+  private final List<Integer> highlighted = new ArrayList<>();
+
+  public WaypointLayer(Collection<? extends CustomWaypoint> waypoints) {
+    this.waypoints = waypoints.toArray(new CustomWaypoint[0]);
+  }
+
+  @Override
+  public void paint(Graphics2D g, JXMapViewer mapViewer, int width, int height) {
+    if (waypoints.length == 0) {
+      return;
+    }
+    TileFactory factory = mapViewer.getTileFactory();
+    if (factory != gridFactory) {
+      grids.clear();
+      gridFactory = factory;
+    }
+    int zoom = mapViewer.getZoom();
+    Grid grid = grids.computeIfAbsent(zoom, z -> new Grid(waypoints, factory, z));
+
+    g = (Graphics2D) g.create();
+    Rectangle view = mapViewer.getViewportBounds();
+    g.translate(-view.x, -view.y);
+
+    // Margem de meio sprite: um marcador na borda de uma célula fora da tela ainda pode aparecer
+    int margin = Sprites.maxSize() / 2;
+    int firstColumn = Math.max(0, Math.floorDiv(view.x - margin, CELL_SIZE));
+    int lastColumn = Math.floorDiv(view.x + view.width + margin, CELL_SIZE);
+    int firstRow = Math.max(0, Math.floorDiv(view.y - margin, CELL_SIZE));
+    int lastRow = Math.floorDiv(view.y + view.height + margin, CELL_SIZE);
+
+    highlighted.clear();
+    for (int row = firstRow; row <= lastRow; row++) {
+      int from = grid.firstCellAtOrAfter(Grid.key(row, firstColumn));
+      int to = grid.firstCellAtOrAfter(Grid.key(row, lastColumn + 1));
+      for (int cell = from; cell < to; cell++) {
+        paintCell(g, grid, cell);
+      }
+    }
+    for (int i : highlighted) {
+      CustomWaypoint waypoint = waypoints[i];
+      Sprites.drawWaypoint(g, waypoint.getColor(), waypoint.getInitial(), grid.xs[i], grid.ys[i]);
+    }
+    g.dispose();
+  }
+
+  private void paintCell(Graphics2D g, Grid grid, int cell) {
+    int start = grid.cellStart[cell];
+    int end = grid.cellStart[cell + 1];
+    if (end - start == 1) {
+      int i = grid.members[start];
+      CustomWaypoint waypoint = waypoints[i];
+      if (waypoint.isHighlighted()) {
+        highlighted.add(i);
+      } else {
+        Sprites.drawWaypoint(g, waypoint.getColor(), waypoint.getInitial(), grid.xs[i], grid.ys[i]);
+      }
+      return;
+    }
+    Sprites.drawCluster(g, CustomWaypoint.DEFAULT_COLOR, end - start, grid.cellX[cell], grid.cellY[cell]);
+    for (int m = start; m < end; m++) {
+      if (waypoints[grid.members[m]].isHighlighted()) {
+        highlighted.add(grid.members[m]);
+      }
+    }
+  }
+
+  /** Total de cidades da camada. */
+  public int size() {
+    return waypoints.length;
+  }
+
+  /**
+   * Cidades de um zoom em pixels do mundo, agrupadas por célula no formato
+   * CSR: as células não vazias ficam em ordem de (linha, coluna) em
+   * {@link #keys}, e as cidades da célula c são
+   * {@code members[cellStart[c]..cellStart[c + 1])}.
+   */
+  private static final class Grid {
+    final double[] xs;
+    final double[] ys;
+    final long[] keys;
+    final int[] cellStart;
+    final int[] members;
+    // Centro de cada célula: a média das posições das suas cidades
+    final double[] cellX;
+    final double[] cellY;
+
+    Grid(CustomWaypoint[] waypoints, TileFactory factory, int zoom) {
+      int n = waypoints.length;
+      xs = new double[n];
+      ys = new double[n];
+      long[] waypointKeys = new long[n];
+      for (int i = 0; i < n; i++) {
+        Point2D point = factory.geoToPixel(waypoints[i].getPosition(), zoom);
+        xs[i] = point.getX();
+        ys[i] = point.getY();
+        waypointKeys[i] = key((int) Math.floor(ys[i] / CELL_SIZE), (int) Math.floor(xs[i] / CELL_SIZE));
+      }
+      members = IntStream.range(0, n).boxed().sorted(Comparator.comparingLong(i -> waypointKeys[i]))
+          .mapToInt(Integer::intValue).toArray();
+
+      long[] cellKeys = new long[n];
+      int[] starts = new int[n + 1];
+      int cells = 0;
+      for (int m = 0; m < n; m++) {
+        long key = waypointKeys[members[m]];
+        if (cells == 0 || cellKeys[cells - 1] != key) {
+          cellKeys[cells] = key;
+          starts[cells++] = m;
+        }
+      }
+      starts[cells] = n;
+      keys = Arrays.copyOf(cellKeys, cells);
+      cellStart = Arrays.copyOf(starts, cells + 1);
+
+      cellX = new double[cells];
+      cellY = new double[cells];
+      for (int c = 0; c < cells; c++) {
+        double sumX = 0;
+        double sumY = 0;
+        for (int m = cellStart[c]; m < cellStart[c + 1]; m++) {
+          sumX += xs[members[m]];
+          sumY += ys[members[m]];
+        }
+        int count = cellStart[c + 1] - cellStart[c];
+        cellX[c] = sumX / count;
+        cellY[c] = sumY / count;
+      }
+    }
+
+    // Linha na parte alta e coluna na baixa: ordenar as chaves ordena por linha e, dentro dela, por coluna
+    static long key(int row, int column) {
+      return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /** Posição da primeira célula com chave maior ou igual à informada. */
+    int firstCellAtOrAfter(long key) {
+      int position = Arrays.binarySearch(keys, key);
+      return position >= 0 ? position : -position - 1;
+    }
+  }
+}